@@ -2,6 +2,7 @@ package com.agilit;
 
 import org.glassfish.jersey.server.ResourceConfig;
 import org.glassfish.jersey.jackson.JacksonFeature;
+import com.agilit.config.PersistenciaBinder;
 
 /**
  * Configuração principal da aplicação JAX-RS usando Jersey.
@@ -14,6 +15,7 @@ import org.glassfish.jersey.jackson.JacksonFeature;
  * Esta classe:
  * - Escaneia automaticamente todos os controllers em com.agilit.controller
  * - Registra o Jackson para serialização/deserialização JSON
+ * - Registra o EntityManager por requisição e o @Transacional (PersistenciaBinder)
  * - É referenciada no web.xml como jakarta.ws.rs.Application
  */
 public class App extends ResourceConfig {
@@ -27,5 +29,8 @@ public class App extends ResourceConfig {
         
         // Registra Jackson para suporte JSON
         register(JacksonFeature.class);
+
+        // EntityManager por requisição (@Inject) e @Transacional nos controllers
+        register(new PersistenciaBinder());
     }
 }
@@ -0,0 +1,75 @@
+package com.agilit.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tarefa periódica em segundo plano (carga dos índices, limpeza das
+ * Idempotency-Keys, entrega das notificações, heartbeat dos streams).
+ *
+ * Cada agendador tem uma thread daemon com o nome dado: não segura o
+ * desligamento da aplicação e aparece com esse nome nos thread dumps. Uma
+ * exceção da tarefa é registrada e a tarefa continua agendada (no
+ * ScheduledExecutorService ela cancelaria as próximas execuções).
+ */
+final class Agendador {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Agendador.class);
+
+    private final String nome;
+    private final ScheduledExecutorService executor;
+
+    private Agendador(String nome) {
+        this.nome = nome;
+        this.executor = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, nome);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Executa a tarefa depois de atraso e, a partir daí, com intervalo
+     * entre o fim de uma execução e o início da próxima
+     *
+     * @param nome Nome da thread (ex.: "agilit-limpeza-idempotencia")
+     * @param atraso Espera até a primeira execução
+     * @param intervalo Espera entre as execuções; zero = executa uma vez só
+     * @param tarefa Tarefa
+     * @return Agendador, para execuções extras (ver executar)
+     */
+    static Agendador repetir(String nome, Duration atraso, Duration intervalo, Runnable tarefa) {
+        Agendador agendador = new Agendador(nome);
+        Runnable protegida = agendador.protegida(tarefa);
+        if (intervalo.isZero()) {
+            agendador.executor.schedule(protegida, atraso.toNanos(), TimeUnit.NANOSECONDS);
+            agendador.executor.shutdown();
+        } else {
+            agendador.executor.scheduleWithFixedDelay(protegida, atraso.toNanos(), intervalo.toNanos(),
+                                                      TimeUnit.NANOSECONDS);
+        }
+        return agendador;
+    }
+
+    /**
+     * Execução extra, assim que a thread estiver livre
+     */
+    void executar(Runnable tarefa) {
+        executor.execute(protegida(tarefa));
+    }
+
+    private Runnable protegida(Runnable tarefa) {
+        return () -> {
+            try {
+                tarefa.run();
+            } catch (RuntimeException | LinkageError e) {
+                LOGGER.error("Erro na tarefa {}; ela roda de novo na próxima execução", nome, e);
+            }
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package com.agilit.config;
+
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache de segundo nível do Hibernate (JCache + Caffeine).
+ *
+ * Regiões (ver @Cache nas entidades e limites em application.conf):
+ * - credor
+ * - devedor
+ * - proposta_emprestimo
+ *
+ * As entidades usam READ_WRITE: alterações feitas pelo EntityManager
+ * (find + set + commit, merge) atualizam/invalidam a região sozinhas.
+ * UPDATE/DELETE em JPQL invalidam a região inteira da entidade afetada.
+ *
+ * O saldo do credor muda só por UPDATE em JPQL (SaldoCredorService). Uma
+ * leitura concorrente que pegou o valor antigo pode repovoar a região logo
+ * depois da invalidação, então quem mostra ou confere o saldo lê do banco
+ * (LER_DO_BANCO ou CredorDAO.findSaldo).
+ */
+public class CacheSegundoNivel {
+
+    public static final List<String> REGIOES = List.of("credor", "devedor", "proposta_emprestimo");
+
+    /**
+     * Hint para em.find que força a leitura no banco (o resultado ainda
+     * atualiza o cache). Usado onde o valor lido é a base de uma escrita,
+     * como o saldo do credor.
+     */
+    public static final Map<String, Object> LER_DO_BANCO =
+            Map.of("jakarta.persistence.cache.retrieveMode", CacheRetrieveMode.BYPASS);
+
+    private CacheSegundoNivel() {
+    }
+
+    /**
+     * Estatísticas por região: acertos, faltas, inserções e elementos em memória
+     */
+    public static Map<String, Object> snapshot(EntityManagerFactory emf) {
+        SessionFactoryImplementor sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+
+        boolean ativo = sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled();
+        Statistics stats = sessionFactory.getStatistics();
+        snapshot.put("ativo", ativo);
+        snapshot.put("estatisticasAtivas", stats.isStatisticsEnabled());
+
+        if (!ativo) {
+            return snapshot;
+        }
+
+        Map<String, Object> regioes = new LinkedHashMap<>();
+        for (String regiao : REGIOES) {
+            CacheRegionStatistics regiaoStats = stats.getDomainDataRegionStatistics(regiao);
+            long acertos = regiaoStats.getHitCount();
+            long faltas = regiaoStats.getMissCount();
+
+            Map<String, Object> dados = new LinkedHashMap<>();
+            dados.put("acertos", acertos);
+            dados.put("faltas", faltas);
+            dados.put("insercoes", regiaoStats.getPutCount());
+            dados.put("taxaAcerto", acertos + faltas == 0 ? 0.0 : acertos / (double) (acertos + faltas));
+            // O provedor JCache não informa o tamanho (devolve valor negativo)
+            long elementos = regiaoStats.getElementCountInMemory();
+            dados.put("elementosEmMemoria", elementos < 0 ? null : elementos);
+            regioes.put(regiao, dados);
+        }
+        snapshot.put("regioes", regioes);
+        return snapshot;
+    }
+
+    /**
+     * Esvazia todas as regiões (útil após correções feitas direto no banco)
+     */
+    public static void limpar(EntityManagerFactory emf) {
+        emf.getCache().evictAll();
+    }
+}
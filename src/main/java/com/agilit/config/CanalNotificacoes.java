@@ -0,0 +1,214 @@
+package com.agilit.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import jakarta.persistence.EntityManager;
+import jakarta.ws.rs.ext.Provider;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Leva as mudanças do FluxoNotificacoes a todas as instâncias, pelo
+ * LISTEN/NOTIFY do PostgreSQL.
+ *
+ * Quem publica faz pg_notify na própria transação: o PostgreSQL só entrega
+ * no commit (nada sai de uma transação desfeita) e na ordem dos commits.
+ * Cada instância, esta inclusive, escuta o canal numa conexão própria (ver
+ * PoolConexoes.conexaoDedicada) e repassa os sinais aos seus streams.
+ *
+ * Se a conexão do LISTEN cai, o que foi notificado enquanto isso se perde:
+ * os streams desta instância são fechados e os clientes retomam do banco
+ * pelo Last-Event-ID. A conexão é refeita com espera crescente (1s a 30s).
+ *
+ * Ligado quando o banco é PostgreSQL e AGILIT_NOTIFICACOES_CANAL não é 0.
+ * Desligado (outro banco, ou uma instância só), os sinais são repassados
+ * direto aos streams locais depois do commit.
+ */
+@Provider
+public class CanalNotificacoes implements ApplicationEventListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CanalNotificacoes.class);
+
+    static final String CANAL = "agilit_notificacoes";
+
+    // Limite do payload do NOTIFY é 8000 bytes; um sinal tem no máximo uns 4 KB
+    // (título 200 + mensagem 1000 caracteres, ver NotificacaoService.montar)
+    private static final int MAXIMO_PAYLOAD = 7_900;
+
+    // Sem notificações por este tempo, a conexão do LISTEN é testada
+    private static final int ESPERA_MS = 30_000;
+
+    private static final long RECONEXAO_MINIMA_MS = 1_000;
+    private static final long RECONEXAO_MAXIMA_MS = 30_000;
+
+    private static volatile boolean habilitado;
+    private static volatile boolean escutando;
+
+    private static final LongAdder ENVIADOS = new LongAdder();
+    private static final LongAdder RECEBIDOS = new LongAdder();
+    private static final LongAdder GRANDES_DEMAIS = new LongAdder();
+    private static final LongAdder INVALIDOS = new LongAdder();
+    private static final LongAdder RECONEXOES = new LongAdder();
+
+    @Override
+    public void onEvent(ApplicationEvent event) {
+        if (event.getType() != ApplicationEvent.Type.INITIALIZATION_APP_FINISHED) {
+            return;
+        }
+
+        if (PoolConexoes.env("AGILIT_NOTIFICACOES_CANAL", 1) == 0) {
+            return;
+        }
+        JPAUtil.getEntityManagerFactory();
+        if (!PoolConexoes.postgresql()) {
+            return;
+        }
+        habilitado = true;
+        Thread thread = new Thread(CanalNotificacoes::escutar, "agilit-canal-notificacoes");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public RequestEventListener onRequest(RequestEvent requestEvent) {
+        return null;
+    }
+
+    static boolean habilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Notifica os sinais na transação de em (um NOTIFY por sinal, num único
+     * comando). Dois sinais idênticos na mesma transação chegam como um só,
+     * o que não muda nada: um total de não lidas repetido é o mesmo total.
+     */
+    static void enviar(EntityManager em, List<FluxoNotificacoes.Sinal> sinais) {
+        List<String> payloads = new ArrayList<>(sinais.size());
+        for (FluxoNotificacoes.Sinal sinal : sinais) {
+            String payload;
+            try {
+                payload = FluxoNotificacoes.JSON.writeValueAsString(sinal);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException(e);
+            }
+            if (payload.getBytes(StandardCharsets.UTF_8).length > MAXIMO_PAYLOAD) {
+                // O cliente recebe pela retomada (ou pela listagem)
+                GRANDES_DEMAIS.increment();
+                continue;
+            }
+            payloads.add(payload);
+        }
+        if (payloads.isEmpty()) {
+            return;
+        }
+
+        em.unwrap(Session.class).doWork(conexao -> {
+            Array array = conexao.createArrayOf("text", payloads.toArray());
+            try (PreparedStatement ps = conexao.prepareStatement(
+                    "SELECT pg_notify('" + CANAL + "', p) FROM unnest(?) AS p")) {
+                ps.setArray(1, array);
+                ps.executeQuery().close();
+            } finally {
+                array.free();
+            }
+        });
+        ENVIADOS.add(payloads.size());
+    }
+
+    /**
+     * Zera os contadores
+     */
+    static void limpar() {
+        ENVIADOS.reset();
+        RECEBIDOS.reset();
+        GRANDES_DEMAIS.reset();
+        INVALIDOS.reset();
+        RECONEXOES.reset();
+    }
+
+    static Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("habilitado", habilitado);
+        snapshot.put("escutando", escutando);
+        snapshot.put("enviados", ENVIADOS.sum());
+        snapshot.put("recebidos", RECEBIDOS.sum());
+        snapshot.put("grandesDemais", GRANDES_DEMAIS.sum());
+        snapshot.put("invalidos", INVALIDOS.sum());
+        snapshot.put("reconexoes", RECONEXOES.sum());
+        return snapshot;
+    }
+
+    private static void escutar() {
+        long espera = RECONEXAO_MINIMA_MS;
+        while (true) {
+            try (Connection conexao = PoolConexoes.conexaoDedicada()) {
+                try (Statement st = conexao.createStatement()) {
+                    st.execute("LISTEN " + CANAL);
+                }
+                PGConnection pg = conexao.unwrap(PGConnection.class);
+                escutando = true;
+                espera = RECONEXAO_MINIMA_MS;
+                // O que foi notificado antes do LISTEN (ou com ele caído) não chega:
+                // os clientes conectados até aqui retomam do banco
+                FluxoNotificacoes.fecharTodas();
+
+                while (true) {
+                    PGNotification[] recebidas = pg.getNotifications(ESPERA_MS);
+                    if (recebidas == null || recebidas.length == 0) {
+                        if (!conexao.isValid(5)) {
+                            throw new SQLException("Conexão do LISTEN perdida");
+                        }
+                        continue;
+                    }
+                    repassar(recebidas);
+                }
+            } catch (SQLException | RuntimeException e) {
+                escutando = false;
+                RECONEXOES.increment();
+                LOGGER.error("Erro no canal de notificações; reconectando em {} ms", espera, e);
+                FluxoNotificacoes.fecharTodas();
+            }
+
+            try {
+                Thread.sleep(espera);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            espera = Math.min(espera * 2, RECONEXAO_MAXIMA_MS);
+        }
+    }
+
+    private static void repassar(PGNotification[] recebidas) {
+        List<FluxoNotificacoes.Sinal> sinais = new ArrayList<>(recebidas.length);
+        for (PGNotification recebida : recebidas) {
+            try {
+                sinais.add(FluxoNotificacoes.JSON.readValue(recebida.getParameter(), FluxoNotificacoes.Sinal.class));
+            } catch (JsonProcessingException e) {
+                INVALIDOS.increment();
+                LOGGER.warn("Sinal de notificação inválido no canal: {}", recebida.getParameter(), e);
+            }
+        }
+        RECEBIDOS.add(recebidas.length);
+        FluxoNotificacoes.despachar(sinais);
+    }
+}
@@ -0,0 +1,377 @@
+package com.agilit.config;
+
+import com.agilit.model.ChaveIdempotencia;
+import com.agilit.model.dao.ChaveIdempotenciaDAO;
+import com.agilit.util.CacheLru;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Respostas dadas a cada Idempotency-Key (usado pelo IdempotenciaFilter).
+ *
+ * Duas camadas:
+ * - memória: respostas concluídas, limitadas em bytes
+ *   (AGILIT_IDEMPOTENCIA_CACHE_MB, padrão 16), descartando as menos usadas.
+ *   Uma repetição que cai na mesma instância não vai ao banco.
+ * - banco (chave_idempotencia): reserva e resposta, válidas para todas as
+ *   instâncias e depois de um restart.
+ *
+ * A reserva é um INSERT pela chave primária: de duas requisições com a mesma
+ * chave ao mesmo tempo, só uma executa; a outra recebe EM_ANDAMENTO. A
+ * resposta vale AGILIT_IDEMPOTENCIA_TTL_H horas (padrão 24).
+ *
+ * Nos endpoints @Transacional a resposta é gravada na transação da própria
+ * requisição, antes do commit (concluir com o EntityManager): a operação e
+ * a resposta da chave são confirmadas juntas, ou nenhuma. A reserva vale
+ * AGILIT_IDEMPOTENCIA_PRAZO_S segundos (padrão 60); vencida sem resposta
+ * (instância caiu, ou requisição lenta), a chave volta a ser aceita. Se a
+ * original ainda estava executando, o UPDATE dela confere o prazo, não
+ * encontra mais a reserva e a transação é desfeita: só uma das duas confirma.
+ *
+ * Nos demais (a transação é do serviço, ex.: as confirmações de empréstimo)
+ * a resposta é gravada depois, em transação própria, e a reserva vale o
+ * mesmo que a resposta: uma reserva sem resposta nunca é reaproveitada
+ * dentro da validade, para a operação não ser executada duas vezes.
+ */
+public final class ChavesIdempotencia {
+
+    /** Resultado da reserva de uma chave */
+    public enum Situacao {
+        /** Chave nova (ou vencida): a requisição deve ser executada */
+        NOVA,
+        /** Já respondida: devolver a resposta gravada */
+        REPETIDA,
+        /** A requisição original ainda não terminou */
+        EM_ANDAMENTO,
+        /** A chave foi usada em outro método/caminho */
+        OUTRA_REQUISICAO
+    }
+
+    /**
+     * Resposta gravada para uma chave; cabecalhos tem uma linha "Nome: valor"
+     * por valor (ver IdempotenciaFilter)
+     */
+    public record Resposta(String requisicao, int status, String tipoConteudo, String cabecalhos, byte[] corpo,
+                           LocalDateTime expiraEm) {
+    }
+
+    /**
+     * Reserva de uma chave. Em NOVA, prazo identifica a reserva para
+     * concluir ou liberar; em REPETIDA e OUTRA_REQUISICAO, resposta é a gravada
+     */
+    public record Reserva(Situacao situacao, String chave, String requisicao, LocalDateTime prazo,
+                          Resposta resposta) {
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChavesIdempotencia.class);
+
+    // Estimativa do que cada entrada ocupa além do corpo e dos cabeçalhos (chave, requisição, nós do mapa)
+    private static final int CUSTO_ENTRADA = 400;
+
+    private static final Duration PRAZO = Duration.ofSeconds(PoolConexoes.env("AGILIT_IDEMPOTENCIA_PRAZO_S", 60));
+    private static final Duration VALIDADE = Duration.ofHours(PoolConexoes.env("AGILIT_IDEMPOTENCIA_TTL_H", 24));
+
+    private static final CacheLru<String, Resposta> MEMORIA = new CacheLru<>(
+        PoolConexoes.env("AGILIT_IDEMPOTENCIA_CACHE_MB", 16) * 1024L * 1024, CUSTO_ENTRADA,
+        resposta -> (resposta.corpo() == null ? 0 : resposta.corpo().length)
+                + (resposta.cabecalhos() == null ? 0 : 2L * resposta.cabecalhos().length()));
+
+    private static final LongAdder RESERVAS = new LongAdder();
+    private static final LongAdder REPETIDAS_MEMORIA = new LongAdder();
+    private static final LongAdder REPETIDAS_BANCO = new LongAdder();
+    private static final LongAdder EM_ANDAMENTO = new LongAdder();
+    private static final LongAdder OUTRA_REQUISICAO = new LongAdder();
+    private static final LongAdder CONCLUIDAS = new LongAdder();
+    private static final LongAdder LIBERADAS = new LongAdder();
+    private static final LongAdder VENCIDAS_APAGADAS = new LongAdder();
+
+    private ChavesIdempotencia() {
+    }
+
+    /**
+     * Reserva a chave para a requisição ou devolve o que já se sabe dela
+     *
+     * @param chave Idempotency-Key
+     * @param requisicao Método e caminho (ex.: "PUT parcela/1/pagar")
+     * @param naTransacao Se a resposta será gravada na transação da
+     *                    requisição (concluir com o EntityManager)
+     * @return Reserva
+     */
+    public static Reserva reservar(String chave, String requisicao, boolean naTransacao) {
+        Resposta guardada = daMemoria(chave);
+        if (guardada != null) {
+            REPETIDAS_MEMORIA.increment();
+            return comparar(chave, requisicao, guardada);
+        }
+
+        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
+        EntityTransaction transacao = em.getTransaction();
+        try {
+            transacao.begin();
+            Reserva reserva = reservar(new ChaveIdempotenciaDAO(em), chave, requisicao,
+                                       naTransacao ? PRAZO : VALIDADE);
+            em.flush();
+            transacao.commit();
+            return reserva;
+        } catch (PersistenceException e) {
+            if (transacao.isActive()) {
+                transacao.rollback();
+            }
+            // Outra requisição inseriu a mesma chave entre a busca e o INSERT
+            if (violouChave(e)) {
+                EM_ANDAMENTO.increment();
+                return new Reserva(Situacao.EM_ANDAMENTO, chave, requisicao, null, null);
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    private static Reserva reservar(ChaveIdempotenciaDAO dao, String chave, String requisicao,
+                                    Duration prazoReserva) {
+        LocalDateTime agora = agora();
+        LocalDateTime prazo = agora.plus(prazoReserva);
+        ChaveIdempotencia existente = dao.findByChave(chave);
+
+        if (existente == null) {
+            dao.save(new ChaveIdempotencia(chave, requisicao, agora, prazo));
+            RESERVAS.increment();
+            return new Reserva(Situacao.NOVA, chave, requisicao, prazo, null);
+        }
+
+        if (existente.getExpiraEm().isBefore(agora)) {
+            // Resposta fora da validade, ou reserva de uma requisição que não terminou
+            if (dao.renovar(chave, existente.getExpiraEm(), requisicao, agora, prazo) == 1) {
+                RESERVAS.increment();
+                return new Reserva(Situacao.NOVA, chave, requisicao, prazo, null);
+            }
+            EM_ANDAMENTO.increment();
+            return new Reserva(Situacao.EM_ANDAMENTO, chave, requisicao, null, null);
+        }
+
+        if (!existente.concluida()) {
+            if (!existente.getRequisicao().equals(requisicao)) {
+                OUTRA_REQUISICAO.increment();
+                return new Reserva(Situacao.OUTRA_REQUISICAO, chave, requisicao, null,
+                                   new Resposta(existente.getRequisicao(), 0, null, null, null,
+                                                existente.getExpiraEm()));
+            }
+            EM_ANDAMENTO.increment();
+            return new Reserva(Situacao.EM_ANDAMENTO, chave, requisicao, null, null);
+        }
+
+        Resposta resposta = new Resposta(existente.getRequisicao(), existente.getStatus(),
+                                         existente.getTipoConteudo(), existente.getCabecalhos(),
+                                         existente.getCorpo(), existente.getExpiraEm());
+        MEMORIA.guardar(chave, resposta);
+        REPETIDAS_BANCO.increment();
+        return comparar(chave, requisicao, resposta);
+    }
+
+    /**
+     * Grava a resposta na transação da requisição, ainda aberta, e faz o
+     * commit: a operação e a resposta da chave são confirmadas juntas
+     *
+     * @param em EntityManager da requisição, com a transação ativa
+     * @param reserva Reserva NOVA
+     * @param status Status HTTP
+     * @param tipoConteudo Content-Type, ou null
+     * @param cabecalhos Demais cabeçalhos a repetir, ou null
+     * @param corpo Bytes da resposta
+     * @throws AppException 409 se a reserva venceu e outra requisição assumiu
+     *                      a chave, 500 se o commit falhar (transação desfeita)
+     */
+    public static void concluir(EntityManager em, Reserva reserva, int status, String tipoConteudo,
+                                String cabecalhos, byte[] corpo) {
+        LocalDateTime expiraEm = agora().plus(VALIDADE);
+        EntityTransaction transacao = em.getTransaction();
+        try {
+            if (new ChaveIdempotenciaDAO(em).concluir(reserva.chave(), reserva.prazo(), status, tipoConteudo,
+                                                      cabecalhos, corpo, expiraEm) != 1) {
+                transacao.rollback();
+                EM_ANDAMENTO.increment();
+                throw new AppException("Requisição com esta " + IdempotenciaFilter.CABECALHO
+                        + " ainda em andamento. Tente novamente.", 409);
+            }
+            transacao.commit();
+        } catch (PersistenceException e) {
+            if (transacao.isActive()) {
+                transacao.rollback();
+            }
+            liberar(reserva);
+            throw new AppException("Erro ao confirmar a operação: " + e.getMessage(), 500);
+        }
+        MEMORIA.guardar(reserva.chave(),
+                        new Resposta(reserva.requisicao(), status, tipoConteudo, cabecalhos, corpo, expiraEm));
+        CONCLUIDAS.increment();
+    }
+
+    /**
+     * Grava, em transação própria, a resposta de uma requisição cuja operação
+     * já foi confirmada (endpoints sem @Transacional)
+     *
+     * @param reserva Reserva NOVA
+     * @param status Status HTTP
+     * @param tipoConteudo Content-Type, ou null
+     * @param cabecalhos Demais cabeçalhos a repetir, ou null
+     * @param corpo Bytes da resposta
+     */
+    public static void concluir(Reserva reserva, int status, String tipoConteudo, String cabecalhos, byte[] corpo) {
+        LocalDateTime expiraEm = agora().plus(VALIDADE);
+        Resposta resposta = new Resposta(reserva.requisicao(), status, tipoConteudo, cabecalhos, corpo, expiraEm);
+
+        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
+        EntityTransaction transacao = em.getTransaction();
+        try {
+            transacao.begin();
+            int alteradas = new ChaveIdempotenciaDAO(em).concluir(reserva.chave(), reserva.prazo(), status,
+                                                                  tipoConteudo, cabecalhos, corpo, expiraEm);
+            transacao.commit();
+            if (alteradas != 1) {
+                // Reserva apagada (vencida) antes da resposta: a chave não vale mais
+                LOGGER.error("Reserva da Idempotency-Key {} não encontrada ao gravar a resposta", reserva.chave());
+                return;
+            }
+            CONCLUIDAS.increment();
+        } catch (RuntimeException e) {
+            if (transacao.isActive()) {
+                transacao.rollback();
+            }
+            // A operação já foi confirmada: a chave vale só nesta instância
+            // (memória) e a reserva segue bloqueando as outras até vencer
+            LOGGER.error("Erro ao gravar resposta da Idempotency-Key {}", reserva.chave(), e);
+        } finally {
+            em.close();
+        }
+        MEMORIA.guardar(reserva.chave(), resposta);
+    }
+
+    /**
+     * Desfaz a reserva de uma requisição cuja resposta não deve ser repetida
+     * (erro 5xx, conflito): a mesma chave pode ser enviada de novo
+     *
+     * @param reserva Reserva NOVA
+     */
+    public static void liberar(Reserva reserva) {
+        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
+        EntityTransaction transacao = em.getTransaction();
+        try {
+            transacao.begin();
+            new ChaveIdempotenciaDAO(em).liberar(reserva.chave(), reserva.prazo());
+            transacao.commit();
+            LIBERADAS.increment();
+        } catch (RuntimeException e) {
+            if (transacao.isActive()) {
+                transacao.rollback();
+            }
+            // A reserva vence sozinha depois do prazo
+            LOGGER.error("Erro ao liberar Idempotency-Key {}", reserva.chave(), e);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Apaga do banco e da memória as chaves vencidas
+     *
+     * @return Linhas apagadas no banco
+     */
+    public static int apagarVencidas() {
+        LocalDateTime agora = agora();
+        MEMORIA.removerSe(resposta -> resposta.expiraEm().isBefore(agora));
+
+        EntityManager em = JPAUtil.getEntityManagerFactory().createEntityManager();
+        EntityTransaction transacao = em.getTransaction();
+        try {
+            transacao.begin();
+            int apagadas = new ChaveIdempotenciaDAO(em).deleteVencidas(agora);
+            transacao.commit();
+            VENCIDAS_APAGADAS.add(apagadas);
+            return apagadas;
+        } finally {
+            if (transacao.isActive()) {
+                transacao.rollback();
+            }
+            em.close();
+        }
+    }
+
+    /**
+     * Esvazia a memória e zera os contadores (o banco continua valendo)
+     */
+    public static void limpar() {
+        MEMORIA.limpar();
+        RESERVAS.reset();
+        REPETIDAS_MEMORIA.reset();
+        REPETIDAS_BANCO.reset();
+        EM_ANDAMENTO.reset();
+        OUTRA_REQUISICAO.reset();
+        CONCLUIDAS.reset();
+        LIBERADAS.reset();
+        VENCIDAS_APAGADAS.reset();
+    }
+
+    /**
+     * Reservas, repetições respondidas (da memória e do banco), conflitos e ocupação
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("entradasEmMemoria", MEMORIA.tamanho());
+        snapshot.put("bytes", MEMORIA.bytes());
+        snapshot.put("limiteBytes", MEMORIA.limiteBytes());
+        snapshot.put("prazoReservaSegundos", PRAZO.toSeconds());
+        snapshot.put("validadeHoras", VALIDADE.toHours());
+        snapshot.put("reservas", RESERVAS.sum());
+        snapshot.put("repetidasDaMemoria", REPETIDAS_MEMORIA.sum());
+        snapshot.put("repetidasDoBanco", REPETIDAS_BANCO.sum());
+        snapshot.put("emAndamento", EM_ANDAMENTO.sum());
+        snapshot.put("outraRequisicao", OUTRA_REQUISICAO.sum());
+        snapshot.put("concluidas", CONCLUIDAS.sum());
+        snapshot.put("liberadas", LIBERADAS.sum());
+        snapshot.put("vencidasApagadas", VENCIDAS_APAGADAS.sum());
+        return snapshot;
+    }
+
+    private static Reserva comparar(String chave, String requisicao, Resposta resposta) {
+        if (!resposta.requisicao().equals(requisicao)) {
+            OUTRA_REQUISICAO.increment();
+            return new Reserva(Situacao.OUTRA_REQUISICAO, chave, requisicao, null, resposta);
+        }
+        return new Reserva(Situacao.REPETIDA, chave, requisicao, null, resposta);
+    }
+
+    private static Resposta daMemoria(String chave) {
+        Resposta resposta = MEMORIA.get(chave);
+        if (resposta != null && resposta.expiraEm().isBefore(agora())) {
+            MEMORIA.remover(chave, resposta);
+            return null;
+        }
+        return resposta;
+    }
+
+    // Mesma precisão do TIMESTAMP(6) do banco: o prazo lido volta igual ao gravado
+    private static LocalDateTime agora() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private static boolean violouChave(Throwable erro) {
+        for (Throwable e = erro; e != null; e = e.getCause()) {
+            if (e instanceof ConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
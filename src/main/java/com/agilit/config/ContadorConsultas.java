@@ -0,0 +1,94 @@
+package com.agilit.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Conta os comandos SQL preparados pelo Hibernate em cada requisição,
+ * agrupados por endpoint. Serve para enxergar N+1 em produção:
+ * um endpoint cuja média cresce com o tamanho da lista está carregando
+ * associações linha a linha.
+ *
+ * A contagem é por thread e só acontece entre iniciar() e encerrar(),
+ * chamados pelo ContadorConsultasFilter. Comandos enviados em lote
+ * (JDBC batch) contam uma vez por lote.
+ */
+public class ContadorConsultas implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<int[]> atual = new ThreadLocal<>();
+
+    private static final Map<String, Estatistica> porEndpoint = new ConcurrentHashMap<>();
+
+    @Override
+    public String inspect(String sql) {
+        int[] contador = atual.get();
+        if (contador != null) {
+            contador[0]++;
+        }
+        return sql;
+    }
+
+    /**
+     * Começa a contar na thread atual
+     */
+    public static void iniciar() {
+        atual.set(new int[1]);
+    }
+
+    /**
+     * Para de contar e acumula o total no endpoint informado
+     *
+     * @return Quantidade de comandos da requisição (-1 se a contagem não foi iniciada)
+     */
+    public static int encerrar(String endpoint) {
+        int[] contador = atual.get();
+        atual.remove();
+        if (contador == null) {
+            return -1;
+        }
+
+        porEndpoint.computeIfAbsent(endpoint, e -> new Estatistica()).registrar(contador[0]);
+        return contador[0];
+    }
+
+    /**
+     * Por endpoint: requisições, média e máximo de comandos SQL por requisição
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new TreeMap<>();
+        porEndpoint.forEach((endpoint, estatistica) -> snapshot.put(endpoint, estatistica.snapshot()));
+        return snapshot;
+    }
+
+    public static void resetar() {
+        porEndpoint.clear();
+    }
+
+    private static class Estatistica {
+        private final LongAdder requisicoes = new LongAdder();
+        private final LongAdder consultas = new LongAdder();
+        private final LongAccumulator maximo = new LongAccumulator(Long::max, 0);
+
+        void registrar(int quantidade) {
+            requisicoes.increment();
+            consultas.add(quantidade);
+            maximo.accumulate(quantidade);
+        }
+
+        Map<String, Object> snapshot() {
+            long total = requisicoes.sum();
+            Map<String, Object> dados = new TreeMap<>();
+            dados.put("requisicoes", total);
+            dados.put("mediaConsultas", total == 0 ? 0.0 : consultas.sum() / (double) total);
+            dados.put("maximoConsultas", maximo.get());
+            return dados;
+        }
+    }
+}
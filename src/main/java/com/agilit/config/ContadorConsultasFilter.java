@@ -0,0 +1,33 @@
+package com.agilit.config;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Liga o ContadorConsultas a cada requisição da API.
+ * O endpoint é identificado por Controller.metodo.
+ */
+@Provider
+public class ContadorConsultasFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        ContadorConsultas.iniciar();
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        String endpoint = resourceInfo.getResourceMethod() == null
+                ? request.getMethod() + " " + request.getUriInfo().getPath()
+                : resourceInfo.getResourceClass().getSimpleName() + "." + resourceInfo.getResourceMethod().getName();
+        ContadorConsultas.encerrar(endpoint);
+    }
+}
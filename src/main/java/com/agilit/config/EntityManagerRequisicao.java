@@ -0,0 +1,94 @@
+package com.agilit.config;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.persistence.EntityManager;
+import org.glassfish.hk2.api.Factory;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.model.ResourceMethod;
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.Session;
+
+/**
+ * Fábrica HK2 do EntityManager injetado nos controllers (@Inject EntityManager).
+ *
+ * Registrada em escopo de requisição pelo PersistenciaBinder: cada requisição
+ * tem no máximo um EntityManager e, portanto, no máximo uma conexão do pool,
+ * adquirida só no primeiro comando SQL. O Jersey chama dispose() ao fim da
+ * requisição (inclusive em erro), que desfaz transação pendente e fecha o
+ * EntityManager, devolvendo a conexão.
+ *
+ * Endpoints @SomenteLeitura recebem um EntityManager de réplica de leitura
+ * (ver ReplicasLeitura), exceto logo depois de uma escrita do mesmo cliente
+ * (ver LeituraAposEscritaFilter).
+ */
+public class EntityManagerRequisicao implements Factory<EntityManager> {
+
+    @Inject
+    private Provider<ContainerRequest> requisicao;
+
+    @Override
+    public EntityManager provide() {
+        EntityManager em = leituraEmReplica() ? JPAUtil.getEntityManagerLeitura() : JPAUtil.getEntityManager();
+        em.unwrap(Session.class).addEventListeners(new RetencaoConexao());
+        return em;
+    }
+
+    @Override
+    public void dispose(EntityManager em) {
+        if (!em.isOpen()) {
+            return;
+        }
+        try {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * O controller já foi escolhido quando o EntityManager é injetado nele
+     */
+    private boolean leituraEmReplica() {
+        ContainerRequest request = requisicao.get();
+        ResourceMethod metodo = request.getUriInfo().getMatchedResourceMethod();
+        return metodo != null
+                && TransacaoInterceptor.modo(metodo.getInvocable().getHandlingMethod()) == SomenteLeitura.class
+                && !LeituraAposEscritaFilter.escreveuRecentemente(request);
+    }
+
+    /**
+     * Mede quanto tempo a requisição segurou a conexão (da aquisição à
+     * devolução ao pool) e publica no PoolConexoes quando a sessão fecha.
+     */
+    private static class RetencaoConexao extends BaseSessionEventListener {
+        private static final long serialVersionUID = 1L;
+
+        private long adquiridaEm;
+        private long retidaNanos;
+        private int aquisicoes;
+
+        @Override
+        public void jdbcConnectionAcquisitionEnd() {
+            aquisicoes++;
+            adquiridaEm = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcConnectionReleaseEnd() {
+            if (adquiridaEm != 0) {
+                retidaNanos += System.nanoTime() - adquiridaEm;
+                adquiridaEm = 0;
+            }
+        }
+
+        @Override
+        public void end() {
+            if (aquisicoes > 0) {
+                PoolConexoes.registrarRequisicao(retidaNanos, aquisicoes);
+            }
+        }
+    }
+}
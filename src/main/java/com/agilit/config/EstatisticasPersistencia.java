@@ -0,0 +1,305 @@
+package com.agilit.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Estatísticas do Hibernate (hibernate.generate_statistics no persistence.xml)
+ * expostas em GET /api/admin/metrics/persistence.
+ *
+ * - Consultas: execuções, tempo total/médio/máximo e linhas por JPQL,
+ *   ordenadas pelo tempo total (as que mais pesam no banco primeiro)
+ * - Entidades: carregadas (load) e buscadas no banco (fetch) por entidade
+ * - Cache de segundo nível: acertos/faltas e taxa de acerto, geral e por região
+ * - Sessões, transações, conexões obtidas, statements preparados e flushes
+ *
+ * Mesmo conteúdo em JSON (snapshot) e no formato texto do Prometheus (prometheus).
+ * Os tempos do Hibernate têm resolução de milissegundos.
+ */
+public class EstatisticasPersistencia {
+
+    /** Content-Type do formato texto de exposição do Prometheus */
+    public static final String TIPO_PROMETHEUS = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final String PREFIXO = "agilit_hibernate_";
+
+    private EstatisticasPersistencia() {
+    }
+
+    /**
+     * Retrato atual das estatísticas, pronto para serialização JSON
+     */
+    public static Map<String, Object> snapshot(EntityManagerFactory emf) {
+        Statistics stats = estatisticas(emf);
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("estatisticasAtivas", stats.isStatisticsEnabled());
+        if (!stats.isStatisticsEnabled()) {
+            return snapshot;
+        }
+
+        snapshot.put("desde", stats.getStart().toString());
+
+        Map<String, Object> sessoes = new LinkedHashMap<>();
+        sessoes.put("abertas", stats.getSessionOpenCount());
+        sessoes.put("fechadas", stats.getSessionCloseCount());
+        snapshot.put("sessoes", sessoes);
+
+        Map<String, Object> transacoes = new LinkedHashMap<>();
+        transacoes.put("total", stats.getTransactionCount());
+        transacoes.put("concluidas", stats.getSuccessfulTransactionCount());
+        transacoes.put("falhasOtimistas", stats.getOptimisticFailureCount());
+        snapshot.put("transacoes", transacoes);
+
+        snapshot.put("conexoesObtidas", stats.getConnectCount());
+        snapshot.put("statementsPreparados", stats.getPrepareStatementCount());
+        snapshot.put("flushes", stats.getFlushCount());
+
+        Map<String, Object> porEntidade = new LinkedHashMap<>();
+        for (String nome : ordenados(stats.getEntityNames())) {
+            EntityStatistics entidade = stats.getEntityStatistics(nome);
+            Map<String, Object> dados = new LinkedHashMap<>();
+            dados.put("carregadas", entidade.getLoadCount());
+            dados.put("buscadas", entidade.getFetchCount());
+            dados.put("inseridas", entidade.getInsertCount());
+            dados.put("atualizadas", entidade.getUpdateCount());
+            dados.put("removidas", entidade.getDeleteCount());
+            porEntidade.put(nomeSimples(nome), dados);
+        }
+        Map<String, Object> entidades = new LinkedHashMap<>();
+        entidades.put("carregadas", stats.getEntityLoadCount());
+        entidades.put("buscadas", stats.getEntityFetchCount());
+        entidades.put("inseridas", stats.getEntityInsertCount());
+        entidades.put("atualizadas", stats.getEntityUpdateCount());
+        entidades.put("removidas", stats.getEntityDeleteCount());
+        entidades.put("porEntidade", porEntidade);
+        snapshot.put("entidades", entidades);
+
+        Map<String, Object> colecoes = new LinkedHashMap<>();
+        colecoes.put("carregadas", stats.getCollectionLoadCount());
+        colecoes.put("buscadas", stats.getCollectionFetchCount());
+        snapshot.put("colecoes", colecoes);
+
+        snapshot.put("cacheSegundoNivel", cache(emf, stats));
+
+        List<Map<String, Object>> porConsulta = new ArrayList<>();
+        for (String consulta : consultasPorTempoTotal(stats)) {
+            QueryStatistics q = stats.getQueryStatistics(consulta);
+            Map<String, Object> dados = new LinkedHashMap<>();
+            dados.put("consulta", consulta);
+            dados.put("execucoes", q.getExecutionCount());
+            dados.put("tempoTotalMs", q.getExecutionTotalTime());
+            dados.put("tempoMedioMs", q.getExecutionAvgTimeAsDouble());
+            dados.put("tempoMaximoMs", q.getExecutionMaxTime());
+            dados.put("tempoMinimoMs", q.getExecutionCount() == 0 ? 0 : q.getExecutionMinTime());
+            dados.put("linhas", q.getExecutionRowCount());
+            porConsulta.add(dados);
+        }
+        Map<String, Object> consultas = new LinkedHashMap<>();
+        consultas.put("execucoes", stats.getQueryExecutionCount());
+        consultas.put("maisLenta", stats.getQueryExecutionMaxTimeQueryString());
+        consultas.put("tempoMaisLentaMs", stats.getQueryExecutionMaxTime());
+        consultas.put("porConsulta", porConsulta);
+        snapshot.put("consultas", consultas);
+
+        return snapshot;
+    }
+
+    /**
+     * Mesmas estatísticas no formato texto de exposição do Prometheus (0.0.4)
+     */
+    public static String prometheus(EntityManagerFactory emf) {
+        Statistics stats = estatisticas(emf);
+        StringBuilder texto = new StringBuilder(8 * 1024);
+        if (!stats.isStatisticsEnabled()) {
+            return texto.toString();
+        }
+
+        contador(texto, "sessions_opened_total", "Sessoes abertas", stats.getSessionOpenCount());
+        contador(texto, "sessions_closed_total", "Sessoes fechadas", stats.getSessionCloseCount());
+        contador(texto, "transactions_total", "Transacoes concluidas ou desfeitas", stats.getTransactionCount());
+        contador(texto, "transactions_successful_total", "Transacoes concluidas", stats.getSuccessfulTransactionCount());
+        contador(texto, "optimistic_failures_total", "Falhas de lock otimista", stats.getOptimisticFailureCount());
+        contador(texto, "connections_obtained_total", "Conexoes JDBC obtidas pelas sessoes", stats.getConnectCount());
+        contador(texto, "statements_prepared_total", "Statements JDBC preparados", stats.getPrepareStatementCount());
+        contador(texto, "flushes_total", "Flushes de sessao", stats.getFlushCount());
+        contador(texto, "collection_loads_total", "Colecoes carregadas", stats.getCollectionLoadCount());
+        contador(texto, "collection_fetches_total", "Colecoes buscadas no banco", stats.getCollectionFetchCount());
+
+        String[] entidades = ordenados(stats.getEntityNames());
+        cabecalho(texto, "entity_loads_total", "Entidades carregadas", "counter");
+        for (String nome : entidades) {
+            amostra(texto, "entity_loads_total", "entity", nomeSimples(nome), stats.getEntityStatistics(nome).getLoadCount());
+        }
+        cabecalho(texto, "entity_fetches_total", "Entidades buscadas no banco", "counter");
+        for (String nome : entidades) {
+            amostra(texto, "entity_fetches_total", "entity", nomeSimples(nome), stats.getEntityStatistics(nome).getFetchCount());
+        }
+        cabecalho(texto, "entity_inserts_total", "Entidades inseridas", "counter");
+        for (String nome : entidades) {
+            amostra(texto, "entity_inserts_total", "entity", nomeSimples(nome), stats.getEntityStatistics(nome).getInsertCount());
+        }
+        cabecalho(texto, "entity_updates_total", "Entidades atualizadas", "counter");
+        for (String nome : entidades) {
+            amostra(texto, "entity_updates_total", "entity", nomeSimples(nome), stats.getEntityStatistics(nome).getUpdateCount());
+        }
+        cabecalho(texto, "entity_deletes_total", "Entidades removidas", "counter");
+        for (String nome : entidades) {
+            amostra(texto, "entity_deletes_total", "entity", nomeSimples(nome), stats.getEntityStatistics(nome).getDeleteCount());
+        }
+
+        if (cacheAtivo(emf)) {
+            cabecalho(texto, "cache_hits_total", "Acertos no cache de segundo nivel", "counter");
+            for (String regiao : CacheSegundoNivel.REGIOES) {
+                amostra(texto, "cache_hits_total", "region", regiao, stats.getDomainDataRegionStatistics(regiao).getHitCount());
+            }
+            cabecalho(texto, "cache_misses_total", "Faltas no cache de segundo nivel", "counter");
+            for (String regiao : CacheSegundoNivel.REGIOES) {
+                amostra(texto, "cache_misses_total", "region", regiao, stats.getDomainDataRegionStatistics(regiao).getMissCount());
+            }
+            cabecalho(texto, "cache_puts_total", "Insercoes no cache de segundo nivel", "counter");
+            for (String regiao : CacheSegundoNivel.REGIOES) {
+                amostra(texto, "cache_puts_total", "region", regiao, stats.getDomainDataRegionStatistics(regiao).getPutCount());
+            }
+        }
+
+        List<String> consultas = consultasPorTempoTotal(stats);
+        cabecalho(texto, "query_executions_total", "Execucoes por consulta", "counter");
+        for (String consulta : consultas) {
+            amostra(texto, "query_executions_total", "query", consulta, stats.getQueryStatistics(consulta).getExecutionCount());
+        }
+        cabecalho(texto, "query_execution_seconds_total", "Tempo total de execucao por consulta", "counter");
+        for (String consulta : consultas) {
+            amostra(texto, "query_execution_seconds_total", "query", consulta,
+                    stats.getQueryStatistics(consulta).getExecutionTotalTime() / 1000.0);
+        }
+        cabecalho(texto, "query_execution_max_seconds", "Maior tempo de execucao por consulta", "gauge");
+        for (String consulta : consultas) {
+            amostra(texto, "query_execution_max_seconds", "query", consulta,
+                    stats.getQueryStatistics(consulta).getExecutionMaxTime() / 1000.0);
+        }
+        cabecalho(texto, "query_rows_total", "Linhas devolvidas por consulta", "counter");
+        for (String consulta : consultas) {
+            amostra(texto, "query_rows_total", "query", consulta, stats.getQueryStatistics(consulta).getExecutionRowCount());
+        }
+        return texto.toString();
+    }
+
+    /**
+     * Zera todas as estatísticas do Hibernate, inclusive os acertos/faltas
+     * por região mostrados em GET /api/admin/metrics/cache
+     */
+    public static void resetar(EntityManagerFactory emf) {
+        estatisticas(emf).clear();
+    }
+
+    private static Statistics estatisticas(EntityManagerFactory emf) {
+        return emf.unwrap(SessionFactoryImplementor.class).getStatistics();
+    }
+
+    private static boolean cacheAtivo(EntityManagerFactory emf) {
+        return emf.unwrap(SessionFactoryImplementor.class).getSessionFactoryOptions().isSecondLevelCacheEnabled();
+    }
+
+    private static Map<String, Object> cache(EntityManagerFactory emf, Statistics stats) {
+        Map<String, Object> cache = new LinkedHashMap<>();
+        boolean ativo = cacheAtivo(emf);
+        cache.put("ativo", ativo);
+        if (!ativo) {
+            return cache;
+        }
+
+        long acertos = stats.getSecondLevelCacheHitCount();
+        long faltas = stats.getSecondLevelCacheMissCount();
+        cache.put("acertos", acertos);
+        cache.put("faltas", faltas);
+        cache.put("insercoes", stats.getSecondLevelCachePutCount());
+        cache.put("taxaAcerto", taxa(acertos, faltas));
+
+        Map<String, Object> regioes = new LinkedHashMap<>();
+        for (String regiao : CacheSegundoNivel.REGIOES) {
+            CacheRegionStatistics regiaoStats = stats.getDomainDataRegionStatistics(regiao);
+            Map<String, Object> dados = new LinkedHashMap<>();
+            dados.put("acertos", regiaoStats.getHitCount());
+            dados.put("faltas", regiaoStats.getMissCount());
+            dados.put("taxaAcerto", taxa(regiaoStats.getHitCount(), regiaoStats.getMissCount()));
+            regioes.put(regiao, dados);
+        }
+        cache.put("regioes", regioes);
+        return cache;
+    }
+
+    private static List<String> consultasPorTempoTotal(Statistics stats) {
+        List<String> consultas = new ArrayList<>(List.of(stats.getQueries()));
+        consultas.sort(Comparator
+                .comparingLong((String consulta) -> stats.getQueryStatistics(consulta).getExecutionTotalTime())
+                .reversed()
+                .thenComparing(Comparator.naturalOrder()));
+        return consultas;
+    }
+
+    private static double taxa(long acertos, long faltas) {
+        return acertos + faltas == 0 ? 0.0 : acertos / (double) (acertos + faltas);
+    }
+
+    private static String[] ordenados(String[] nomes) {
+        String[] copia = nomes.clone();
+        Arrays.sort(copia);
+        return copia;
+    }
+
+    private static String nomeSimples(String entidade) {
+        return entidade.substring(entidade.lastIndexOf('.') + 1);
+    }
+
+    private static void contador(StringBuilder texto, String nome, String ajuda, long valor) {
+        cabecalho(texto, nome, ajuda, "counter");
+        texto.append(PREFIXO).append(nome).append(' ').append(valor).append('\n');
+    }
+
+    private static void cabecalho(StringBuilder texto, String nome, String ajuda, String tipo) {
+        texto.append("# HELP ").append(PREFIXO).append(nome).append(' ').append(ajuda).append('\n');
+        texto.append("# TYPE ").append(PREFIXO).append(nome).append(' ').append(tipo).append('\n');
+    }
+
+    private static void amostra(StringBuilder texto, String nome, String rotulo, String valorRotulo, double valor) {
+        texto.append(PREFIXO).append(nome)
+             .append('{').append(rotulo).append("=\"").append(escapar(valorRotulo)).append("\"} ")
+             .append(formatar(valor)).append('\n');
+    }
+
+    private static String formatar(double valor) {
+        if (valor == Math.rint(valor) && Math.abs(valor) < 1e15) {
+            return Long.toString((long) valor);
+        }
+        return String.format(Locale.ROOT, "%.6f", valor);
+    }
+
+    /**
+     * Escape de valores de rótulo: barra invertida, aspas e quebra de linha
+     */
+    static String escapar(String valor) {
+        StringBuilder sb = new StringBuilder(valor.length() + 8);
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '\\' -> sb.append("\\\\");
+                case '"' -> sb.append("\\\"");
+                case '\n' -> sb.append("\\n");
+                default -> sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,52 @@
+package com.agilit.config;
+
+import com.agilit.model.EventoNotificacao;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+/**
+ * Acorda a entrega das notificações (InicializacaoEntregaNotificacoes)
+ * depois do commit de uma transação que gravou eventos na fila de saída:
+ * a notificação aparece em milissegundos, sem esperar o próximo ciclo.
+ *
+ * Registrado pelo JPAUtil como Integrator do Hibernate.
+ */
+public class EventoNotificacaoListener implements Integrator, PostCommitInsertEventListener {
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                          SessionFactoryImplementor sessionFactory) {
+        sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class)
+                      .appendListeners(EventType.POST_COMMIT_INSERT, this);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory,
+                             SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return persister.getMappedClass() == EventoNotificacao.class;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof EventoNotificacao) {
+            InicializacaoEntregaNotificacoes.acordar();
+        }
+    }
+
+    // Commit falhou: o evento não existe, nada a entregar
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+}
@@ -0,0 +1,455 @@
+package com.agilit.config;
+
+import com.agilit.model.Notificacao;
+import com.agilit.model.dao.NotificacaoDAO;
+import com.agilit.model.dto.NotificacaoDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
+import org.hibernate.engine.spi.SessionImplementor;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Streams de notificações (SSE) abertos nesta instância, por destinatário.
+ *
+ * Eventos enviados:
+ * - notificacao: NotificacaoDTO em JSON; o ID do evento é a posição
+ *   "lote-id" da notificação (ver V11__lote_notificacao.sql e
+ *   V13__trava_lote_notificacao.sql)
+ * - nao-lidas: {"total": n} ao conectar e a cada mudança (notificações
+ *   novas, marcadas como lidas ou apagadas sem ler); o cliente troca o
+ *   total que tem pelo recebido
+ * - comentário a cada AGILIT_SSE_HEARTBEAT_S segundos (padrão 20) sem
+ *   eventos, para proxies não fecharem a conexão e para descobrir clientes
+ *   que já foram embora
+ *
+ * Com Last-Event-ID, as notificações gravadas depois daquela posição são
+ * reenviadas do banco antes das novas. O banco só é consultado ao
+ * conectar: depois disso as mudanças chegam por publicar (entrega das
+ * notificações e NotificacaoController), e uma conexão parada não faz
+ * consulta nenhuma.
+ *
+ * Cada conexão tem uma fila de até AGILIT_SSE_FILA eventos (padrão 64).
+ * Um cliente lento que a enche é desconectado: ao reconectar com o
+ * Last-Event-ID, recebe do banco o que perdeu. O envio roda em virtual
+ * threads, uma por conexão com eventos na fila, e um cliente lento só
+ * atrasa a própria conexão. Acima de AGILIT_SSE_MAX_CONEXOES conexões
+ * (padrão 10000) a instância responde 503.
+ *
+ * Com várias instâncias, as mudanças passam pelo CanalNotificacoes
+ * (LISTEN/NOTIFY do PostgreSQL) e chegam a todas elas.
+ */
+public final class FluxoNotificacoes {
+
+    /**
+     * Mudança para os streams de um destinatário: uma notificação nova
+     * (notificacao e lote preenchidos) ou o total de não lidas depois da
+     * mudança (naoLidas preenchido)
+     */
+    public record Sinal(String tipoDestinatario, long destinatarioId, Long lote, NotificacaoDTO notificacao,
+                       Long naoLidas) {
+
+        public static Sinal nova(Notificacao notificacao) {
+            return new Sinal(notificacao.getTipoDestinatario(), notificacao.getDestinatarioId(),
+                             notificacao.getLote(), NotificacaoDTO.de(notificacao), null);
+        }
+
+        public static Sinal naoLidas(String tipoDestinatario, long destinatarioId, long total) {
+            return new Sinal(tipoDestinatario, destinatarioId, null, null, total);
+        }
+    }
+
+    private static final int FILA = Math.max(1, PoolConexoes.env("AGILIT_SSE_FILA", 64));
+    private static final int MAX_CONEXOES = PoolConexoes.env("AGILIT_SSE_MAX_CONEXOES", 10_000);
+    private static final long HEARTBEAT_S = Math.max(1, PoolConexoes.env("AGILIT_SSE_HEARTBEAT_S", 20));
+
+    // Notificações reenviadas por consulta na retomada
+    private static final int PAGINA_RETOMADA = 100;
+
+    // Intervalo de reconexão sugerido ao cliente (campo retry do SSE)
+    private static final long RECONEXAO_MS = 3_000;
+
+    // Mesmo JSON das respostas REST
+    static final ObjectMapper JSON = new ObjectMapper().findAndRegisterModules();
+
+    // Marca na fila: enviar um heartbeat
+    private static final Sinal HEARTBEAT = new Sinal(null, 0, null, null, null);
+
+    private static final ConcurrentHashMap<String, Set<Conexao>> CONEXOES = new ConcurrentHashMap<>();
+    private static final AtomicInteger ABERTAS = new AtomicInteger();
+
+    private static final ExecutorService ENVIO = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("agilit-sse-", 0).factory());
+    private static final AtomicBoolean HEARTBEAT_INICIADO = new AtomicBoolean();
+
+    private static final LongAdder CONECTADAS = new LongAdder();
+    private static final LongAdder RECUSADAS = new LongAdder();
+    private static final LongAdder RETOMADAS = new LongAdder();
+    private static final LongAdder REENVIADAS = new LongAdder();
+    private static final LongAdder EVENTOS = new LongAdder();
+    private static final LongAdder HEARTBEATS = new LongAdder();
+    private static final LongAdder FILA_CHEIA = new LongAdder();
+    private static final LongAdder DESCONECTADAS = new LongAdder();
+
+    private FluxoNotificacoes() {
+    }
+
+    /**
+     * Abre o stream de um destinatário: envia o total de não lidas, reenvia
+     * o que foi gravado depois de Last-Event-ID e passa a enviar as mudanças
+     *
+     * @param tipoDestinatario CREDOR ou DEVEDOR
+     * @param destinatarioId ID do destinatário
+     * @param ultimoEvento Last-Event-ID ("lote-id"), ou null
+     * @param sink Conexão SSE
+     * @param sse Fábrica de eventos
+     */
+    public static void conectar(String tipoDestinatario, long destinatarioId, String ultimoEvento,
+                                SseEventSink sink, Sse sse) {
+        // Registrada antes das consultas: o que chegar durante elas fica na fila
+        Conexao conexao = registrar(tipoDestinatario, destinatarioId, ultimoEvento, sink, sse);
+        long[] posicao = posicao(ultimoEvento);
+
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            NotificacaoDAO dao = new NotificacaoDAO(em);
+            long naoLidas = dao.countNaoLidasByDestinatario(tipoDestinatario, destinatarioId);
+            sink.send(sse.newEventBuilder()
+                         .name("nao-lidas")
+                         .reconnectDelay(RECONEXAO_MS)
+                         .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                         .data(String.class, "{\"total\":" + naoLidas + "}")
+                         .build())
+                .toCompletableFuture().join();
+
+            if (posicao != null) {
+                RETOMADAS.increment();
+                List<Notificacao> pagina;
+                do {
+                    pagina = dao.findAposPosicao(tipoDestinatario, destinatarioId, conexao.lote, conexao.id,
+                                                 PAGINA_RETOMADA);
+                    for (Notificacao notificacao : pagina) {
+                        enviar(conexao, Sinal.nova(notificacao));
+                        REENVIADAS.increment();
+                    }
+                    em.clear();
+                } while (pagina.size() == PAGINA_RETOMADA);
+            }
+        } catch (RuntimeException e) {
+            fechar(conexao);
+            throw e;
+        } finally {
+            em.close();
+        }
+
+        conexao.pronta = true;
+        agendar(conexao);
+    }
+
+    /**
+     * Registra a conexão para receber as mudanças do destinatário, a partir
+     * da posição de Last-Event-ID. Até ficar pronta, as mudanças só vão para
+     * a fila dela.
+     */
+    static Conexao registrar(String tipoDestinatario, long destinatarioId, String ultimoEvento,
+                             SseEventSink sink, Sse sse) {
+        if (ABERTAS.incrementAndGet() > MAX_CONEXOES) {
+            ABERTAS.decrementAndGet();
+            RECUSADAS.increment();
+            throw new AppException("Limite de streams de notificações atingido. Tente novamente.", 503);
+        }
+        iniciarHeartbeat();
+
+        Conexao conexao = new Conexao(chave(tipoDestinatario, destinatarioId), sink, sse);
+        long[] posicao = posicao(ultimoEvento);
+        if (posicao != null) {
+            conexao.lote = posicao[0];
+            conexao.id = posicao[1];
+        }
+
+        CONEXOES.computeIfAbsent(conexao.chave, c -> ConcurrentHashMap.newKeySet()).add(conexao);
+        CONECTADAS.increment();
+        return conexao;
+    }
+
+    /**
+     * Publica mudanças para os streams depois do commit da transação de em.
+     * Se a transação for desfeita, nada é enviado.
+     *
+     * @param em EntityManager com a transação ativa
+     * @param sinais Mudanças
+     */
+    public static void publicar(EntityManager em, List<Sinal> sinais) {
+        if (sinais.isEmpty()) {
+            return;
+        }
+        if (CanalNotificacoes.habilitado()) {
+            // NOTIFY: entregue a todas as instâncias (inclusive esta) no commit
+            CanalNotificacoes.enviar(em, sinais);
+        } else {
+            em.unwrap(SessionImplementor.class).getActionQueue().registerProcess((sucesso, sessao) -> {
+                if (sucesso) {
+                    despachar(sinais);
+                }
+            });
+        }
+    }
+
+    /**
+     * Totais de não lidas de destinatários, contados na transação de em
+     * depois das mudanças dela, para publicar junto com elas.
+     *
+     * Um total só vale se nenhuma outra transação mudar as não lidas do
+     * destinatário entre a contagem e o commit. No PostgreSQL a contagem é
+     * feita sob trava dos destinatários até o fim da transação (ver
+     * NotificacaoDAO.travarNaoLidas): duas transações do mesmo destinatário
+     * contam uma depois do commit da outra, e o NOTIFY entrega na ordem dos
+     * commits, então o último total que o stream recebe é o do banco.
+     *
+     * @param em EntityManager com a transação ativa, depois das mudanças (flush)
+     * @param tipoDestinatario CREDOR ou DEVEDOR
+     * @param destinatarioIds IDs dos destinatários
+     * @return Um sinal por destinatário
+     */
+    public static List<Sinal> naoLidas(EntityManager em, String tipoDestinatario,
+                                       Collection<Long> destinatarioIds) {
+        // Sempre na mesma ordem: duas transações não se travam em ordens cruzadas
+        List<Long> ids = destinatarioIds.stream().distinct().sorted().toList();
+        NotificacaoDAO dao = new NotificacaoDAO(em);
+        if (PoolConexoes.postgresql()) {
+            dao.travarNaoLidas(tipoDestinatario, ids);
+        }
+        Map<Long, Long> totais = dao.countNaoLidasByDestinatarios(tipoDestinatario, ids);
+        return ids.stream()
+                  .map(id -> Sinal.naoLidas(tipoDestinatario, id, totais.getOrDefault(id, 0L)))
+                  .toList();
+    }
+
+    /**
+     * Coloca mudanças já confirmadas nas filas das conexões dos destinatários
+     */
+    static void despachar(List<Sinal> sinais) {
+        for (Sinal sinal : sinais) {
+            Set<Conexao> conexoes = CONEXOES.get(chave(sinal.tipoDestinatario(), sinal.destinatarioId()));
+            if (conexoes == null) {
+                continue;
+            }
+            for (Conexao conexao : conexoes) {
+                if (conexao.fila.offer(sinal)) {
+                    agendar(conexao);
+                } else {
+                    FILA_CHEIA.increment();
+                    fechar(conexao);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fecha todas as conexões desta instância (os clientes reconectam e
+     * retomam do banco). Usado quando mudanças podem ter se perdido.
+     */
+    static void fecharTodas() {
+        for (Set<Conexao> conexoes : CONEXOES.values()) {
+            for (Conexao conexao : conexoes) {
+                fechar(conexao);
+            }
+        }
+    }
+
+    /**
+     * Zera os contadores (as conexões continuam abertas)
+     */
+    public static void limpar() {
+        CONECTADAS.reset();
+        RECUSADAS.reset();
+        RETOMADAS.reset();
+        REENVIADAS.reset();
+        EVENTOS.reset();
+        HEARTBEATS.reset();
+        FILA_CHEIA.reset();
+        DESCONECTADAS.reset();
+        CanalNotificacoes.limpar();
+    }
+
+    /**
+     * Conexões abertas, eventos enviados, retomadas e desconexões
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("conexoesAbertas", ABERTAS.get());
+        snapshot.put("destinatarios", CONEXOES.size());
+        snapshot.put("limiteConexoes", MAX_CONEXOES);
+        snapshot.put("filaPorConexao", FILA);
+        snapshot.put("heartbeatSegundos", HEARTBEAT_S);
+        snapshot.put("conectadas", CONECTADAS.sum());
+        snapshot.put("recusadas", RECUSADAS.sum());
+        snapshot.put("retomadas", RETOMADAS.sum());
+        snapshot.put("reenviadasNaRetomada", REENVIADAS.sum());
+        snapshot.put("eventos", EVENTOS.sum());
+        snapshot.put("heartbeats", HEARTBEATS.sum());
+        snapshot.put("desconectadasFilaCheia", FILA_CHEIA.sum());
+        snapshot.put("desconectadas", DESCONECTADAS.sum());
+        snapshot.put("canal", CanalNotificacoes.snapshot());
+        return snapshot;
+    }
+
+    private static void agendar(Conexao conexao) {
+        if (conexao.pronta && !conexao.fila.isEmpty() && conexao.enviando.compareAndSet(false, true)) {
+            ENVIO.execute(() -> drenar(conexao));
+        }
+    }
+
+    // Uma thread de envio por conexão por vez: os eventos saem na ordem da fila
+    private static void drenar(Conexao conexao) {
+        try {
+            Sinal sinal;
+            while ((sinal = conexao.fila.poll()) != null) {
+                enviar(conexao, sinal);
+            }
+        } catch (RuntimeException e) {
+            // Cliente foi embora (ou a escrita falhou): ele reconecta e retoma
+            fechar(conexao);
+            return;
+        } finally {
+            conexao.enviando.set(false);
+        }
+        // Sinal colocado entre o último poll e a liberação acima
+        agendar(conexao);
+    }
+
+    static void enviar(Conexao conexao, Sinal sinal) {
+        OutboundSseEvent evento;
+        if (sinal == HEARTBEAT) {
+            evento = conexao.sse.newEventBuilder().comment("heartbeat").build();
+            HEARTBEATS.increment();
+        } else if (sinal.notificacao() != null) {
+            long id = sinal.notificacao().id();
+            // Já enviada na retomada (ou gravada antes da posição do cliente)
+            if (sinal.lote() == null || sinal.lote() < conexao.lote
+                    || (sinal.lote() == conexao.lote && id <= conexao.id)) {
+                return;
+            }
+            evento = conexao.sse.newEventBuilder()
+                                .name("notificacao")
+                                .id(sinal.lote() + "-" + id)
+                                .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                                .data(String.class, json(sinal.notificacao()))
+                                .build();
+            conexao.lote = sinal.lote();
+            conexao.id = id;
+            EVENTOS.increment();
+        } else {
+            evento = conexao.sse.newEventBuilder()
+                                .name("nao-lidas")
+                                .mediaType(MediaType.APPLICATION_JSON_TYPE)
+                                .data(String.class, "{\"total\":" + sinal.naoLidas() + "}")
+                                .build();
+            EVENTOS.increment();
+        }
+        conexao.sink.send(evento).toCompletableFuture().join();
+    }
+
+    static void fechar(Conexao conexao) {
+        Set<Conexao> conexoes = CONEXOES.get(conexao.chave);
+        if (conexoes == null || !conexoes.remove(conexao)) {
+            return;
+        }
+        CONEXOES.computeIfPresent(conexao.chave, (c, restantes) -> restantes.isEmpty() ? null : restantes);
+        ABERTAS.decrementAndGet();
+        DESCONECTADAS.increment();
+        conexao.fila.clear();
+        try {
+            conexao.sink.close();
+        } catch (RuntimeException e) {
+            // Já fechada pelo cliente
+        }
+    }
+
+    private static void iniciarHeartbeat() {
+        if (!HEARTBEAT_INICIADO.compareAndSet(false, true)) {
+            return;
+        }
+        Duration intervalo = Duration.ofSeconds(HEARTBEAT_S);
+        Agendador.repetir("agilit-sse-heartbeat", intervalo, intervalo, FluxoNotificacoes::heartbeat);
+    }
+
+    private static void heartbeat() {
+        for (Set<Conexao> conexoes : CONEXOES.values()) {
+            for (Conexao conexao : conexoes) {
+                if (conexao.sink.isClosed()) {
+                    fechar(conexao);
+                } else if (conexao.pronta && conexao.fila.isEmpty() && conexao.fila.offer(HEARTBEAT)) {
+                    agendar(conexao);
+                }
+            }
+        }
+    }
+
+    private static String chave(String tipoDestinatario, long destinatarioId) {
+        return tipoDestinatario + ":" + destinatarioId;
+    }
+
+    // "lote-id"; outro formato é tratado como conexão nova
+    static long[] posicao(String ultimoEvento) {
+        if (ultimoEvento == null) {
+            return null;
+        }
+        int separador = ultimoEvento.indexOf('-');
+        if (separador <= 0) {
+            return null;
+        }
+        try {
+            return new long[] {
+                Long.parseLong(ultimoEvento.substring(0, separador).trim()),
+                Long.parseLong(ultimoEvento.substring(separador + 1).trim())
+            };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String json(NotificacaoDTO notificacao) {
+        try {
+            return JSON.writeValueAsString(notificacao);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static final class Conexao {
+        final String chave;
+        final SseEventSink sink;
+        final Sse sse;
+        final ArrayBlockingQueue<Sinal> fila = new ArrayBlockingQueue<>(FILA);
+        final AtomicBoolean enviando = new AtomicBoolean();
+        volatile boolean pronta;
+
+        // Posição da última notificação enviada (só a thread de envio altera)
+        volatile long lote;
+        volatile long id;
+
+        Conexao(String chave, SseEventSink sink, Sse sse) {
+            this.chave = chave;
+            this.sink = sink;
+            this.sse = sse;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.agilit.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latência com faixas fixas (em milissegundos).
+ * Thread-safe e sem locks: cada faixa é um LongAdder, então pode ser
+ * alimentado em todo checkout de conexão sem virar gargalo.
+ */
+public class HistogramaLatencia {
+
+    // Limites superiores (inclusivos) de cada faixa, em ms. A última faixa é "+Inf".
+    private static final long[] LIMITES_MS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 5000};
+
+    private final LongAdder[] faixas = new LongAdder[LIMITES_MS.length + 1];
+    private final LongAdder contagem = new LongAdder();
+    private final LongAdder somaMicros = new LongAdder();
+    private final LongAccumulator maximoMicros = new LongAccumulator(Long::max, 0);
+
+    public HistogramaLatencia() {
+        for (int i = 0; i < faixas.length; i++) {
+            faixas[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Registra uma amostra medida em nanossegundos
+     */
+    public void registrarNanos(long nanos) {
+        registrarMicros(nanos / 1_000);
+    }
+
+    /**
+     * Registra uma amostra medida em milissegundos
+     */
+    public void registrarMillis(long millis) {
+        registrarMicros(millis * 1_000);
+    }
+
+    private void registrarMicros(long micros) {
+        if (micros < 0) {
+            micros = 0;
+        }
+
+        long millis = micros / 1_000;
+        int i = 0;
+        while (i < LIMITES_MS.length && millis > LIMITES_MS[i]) {
+            i++;
+        }
+
+        faixas[i].increment();
+        contagem.increment();
+        somaMicros.add(micros);
+        maximoMicros.accumulate(micros);
+    }
+
+    public long getContagem() {
+        return contagem.sum();
+    }
+
+    /**
+     * Retorna um retrato do histograma pronto para serialização JSON.
+     * As faixas são cumulativas (mesma semântica do Prometheus: "le").
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        long acumulado = 0;
+        for (int i = 0; i < LIMITES_MS.length; i++) {
+            acumulado += faixas[i].sum();
+            buckets.put("le_" + LIMITES_MS[i] + "ms", acumulado);
+        }
+        acumulado += faixas[LIMITES_MS.length].sum();
+        buckets.put("le_inf", acumulado);
+
+        long total = contagem.sum();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("contagem", total);
+        snapshot.put("mediaMs", total == 0 ? 0.0 : (somaMicros.sum() / (double) total) / 1_000.0);
+        snapshot.put("maximoMs", maximoMicros.get() / 1_000.0);
+        snapshot.put("faixas", buckets);
+        return snapshot;
+    }
+
+    /**
+     * Zera todas as faixas e contadores
+     */
+    public void reset() {
+        for (LongAdder faixa : faixas) {
+            faixa.reset();
+        }
+        contagem.reset();
+        somaMicros.reset();
+        maximoMicros.reset();
+    }
+}
@@ -0,0 +1,270 @@
+package com.agilit.config;
+
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Idempotency-Key nos POST/PUT.
+ *
+ * Um cliente que repete a requisição depois de um timeout manda a mesma
+ * chave (ex.: um UUID gerado por operação). A primeira requisição com a
+ * chave executa normalmente e a resposta (status, cabeçalhos e bytes) é
+ * gravada em ChavesIdempotencia. As repetições recebem essa resposta, com
+ * o cabeçalho Idempotency-Replayed: true, sem executar o método do
+ * controller: um depósito repetido não deposita duas vezes, uma parcela
+ * repetida não volta como 400 "já está paga" e um criar-conta repetido
+ * não refaz o BCrypt.
+ *
+ * - Mesma chave com a original ainda em andamento: 409 (tentar de novo em seguida)
+ * - Mesma chave em outro método/caminho: 422
+ * - Resposta 5xx ou 409 (conflito transitório): não é gravada e a chave
+ *   fica livre para a próxima tentativa
+ *
+ * Nos endpoints @Transacional o TransacaoInterceptor deixa o commit para
+ * cá (ver adiarCommit): a resposta é gravada na mesma transação da
+ * operação e só então confirmada (ChavesIdempotencia.concluir).
+ *
+ * Os cabeçalhos repetidos são os da aplicação (Location, X-Next-Cursor,
+ * Link...). Ficam de fora os de conexão (hop-by-hop), os recalculados a
+ * cada resposta (Content-Length, Date) e o Set-Cookie, que é do cliente e
+ * do momento (ver LeituraAposEscritaFilter).
+ *
+ * A chave vale para o método e o caminho, não para o corpo: o corpo de
+ * alguns POSTs traz senha, e não deve ir para o banco nem como hash.
+ * Sem o cabeçalho nada muda. Ficam de fora métodos @SomenteLeitura e
+ * @SemIdempotencia.
+ */
+@Provider
+public class IdempotenciaFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    public static final String CABECALHO = "Idempotency-Key";
+    public static final String CABECALHO_REPETIDA = "Idempotency-Replayed";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdempotenciaFilter.class);
+
+    private static final int TAMANHO_MAXIMO_CHAVE = 255;
+
+    // Coluna chave_idempotencia.requisicao
+    private static final int TAMANHO_MAXIMO_REQUISICAO = 500;
+
+    // Coluna chave_idempotencia.cabecalhos
+    private static final int TAMANHO_MAXIMO_CABECALHOS = 4000;
+
+    // Cabeçalhos que não são repetidos (comparação sem maiúsculas/minúsculas)
+    private static final Set<String> NAO_REPETIDOS = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    static {
+        NAO_REPETIDOS.addAll(List.of(
+            // Hop-by-hop (RFC 9110, 7.6.1)
+            "Connection", "Keep-Alive", "Proxy-Authenticate", "Proxy-Authorization", "Proxy-Connection",
+            "TE", "Trailer", "Transfer-Encoding", "Upgrade",
+            // Recalculados na repetição
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_LENGTH, HttpHeaders.DATE, CABECALHO_REPETIDA,
+            // Do cliente e do momento
+            HttpHeaders.SET_COOKIE));
+    }
+
+    // Propriedades da requisição, lidas de volta na resposta e na escrita do corpo
+    private static final String RESERVA = "agilit.idempotencia.reserva";
+    private static final String STATUS = "agilit.idempotencia.status";
+    private static final String TRANSACAO = "agilit.idempotencia.transacao";
+    private static final String CABECALHOS = "agilit.idempotencia.cabecalhos";
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    // Mesmo EntityManager (e transação) do controller; resolvido só quando usado
+    @Inject
+    private jakarta.inject.Provider<EntityManager> entityManager;
+
+    @Override
+    public void filter(ContainerRequestContext request) {
+        String chave = request.getHeaderString(CABECALHO);
+        if (chave == null || !tratado(request.getMethod(), resourceInfo.getResourceMethod())) {
+            return;
+        }
+        chave = chave.trim();
+        if (chave.isEmpty() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new AppException(CABECALHO + " deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres", 400);
+        }
+
+        boolean naTransacao = TransacaoInterceptor.modo(resourceInfo.getResourceMethod()) == Transacional.class;
+        ChavesIdempotencia.Reserva reserva = ChavesIdempotencia.reservar(chave, requisicao(request), naTransacao);
+        switch (reserva.situacao()) {
+            case NOVA -> request.setProperty(RESERVA, reserva);
+            case REPETIDA -> request.abortWith(repetir(reserva.resposta()));
+            case EM_ANDAMENTO -> throw new AppException(
+                "Requisição com esta " + CABECALHO + " ainda em andamento. Tente novamente.", 409);
+            case OUTRA_REQUISICAO -> throw new AppException(
+                CABECALHO + " já usada em " + reserva.resposta().requisicao(), 422);
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        if (!(request.getProperty(RESERVA) instanceof ChavesIdempotencia.Reserva reserva)) {
+            return;
+        }
+
+        int status = response.getStatus();
+        if (status >= 500 || status == 409) {
+            request.removeProperty(RESERVA);
+            desfazer(request.getProperty(TRANSACAO) != null);
+            ChavesIdempotencia.liberar(reserva);
+        } else if (!response.hasEntity()) {
+            request.removeProperty(RESERVA);
+            concluir(request.getProperty(TRANSACAO) != null, reserva, status, null,
+                     cabecalhos(response.getStringHeaders()), new byte[0]);
+        } else {
+            // Corpo gravado em aroundWriteTo, já serializado
+            request.setProperty(STATUS, status);
+            request.setProperty(CABECALHOS, cabecalhos(response.getStringHeaders()));
+        }
+    }
+
+    /**
+     * Serializa o corpo num buffer, grava a resposta e só então a envia:
+     * se o cliente já desistiu (o timeout que o faz repetir), a resposta
+     * fica gravada do mesmo jeito
+     */
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        if (!(context.getProperty(RESERVA) instanceof ChavesIdempotencia.Reserva reserva)
+                || !(context.getProperty(STATUS) instanceof Integer status)) {
+            context.proceed();
+            return;
+        }
+        context.removeProperty(RESERVA);
+
+        OutputStream saida = context.getOutputStream();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        context.setOutputStream(buffer);
+        try {
+            context.proceed();
+        } catch (IOException | RuntimeException e) {
+            desfazer(context.getProperty(TRANSACAO) != null);
+            ChavesIdempotencia.liberar(reserva);
+            throw e;
+        } finally {
+            context.setOutputStream(saida);
+        }
+
+        byte[] corpo = buffer.toByteArray();
+        String tipoConteudo = context.getMediaType() == null ? null : context.getMediaType().toString();
+        concluir(context.getProperty(TRANSACAO) != null, reserva, status, tipoConteudo,
+                 (String) context.getProperty(CABECALHOS), corpo);
+        saida.write(corpo);
+    }
+
+    /**
+     * Chamado pelo TransacaoInterceptor no lugar do commit: com uma
+     * Idempotency-Key reservada, a transação fica aberta até a resposta ser
+     * gravada nela (ver concluir)
+     *
+     * @return true se o commit fica com este filtro
+     */
+    static boolean adiarCommit(ContainerRequestContext request) {
+        if (!(request.getProperty(RESERVA) instanceof ChavesIdempotencia.Reserva)) {
+            return false;
+        }
+        request.setProperty(TRANSACAO, Boolean.TRUE);
+        return true;
+    }
+
+    private void concluir(boolean naTransacao, ChavesIdempotencia.Reserva reserva, int status,
+                          String tipoConteudo, String cabecalhos, byte[] corpo) {
+        if (naTransacao) {
+            ChavesIdempotencia.concluir(entityManager.get(), reserva, status, tipoConteudo, cabecalhos, corpo);
+        } else {
+            ChavesIdempotencia.concluir(reserva, status, tipoConteudo, cabecalhos, corpo);
+        }
+    }
+
+    // Transação adiada que não vai mais ser confirmada
+    private void desfazer(boolean naTransacao) {
+        EntityManager em = naTransacao ? entityManager.get() : null;
+        if (em != null && em.getTransaction().isActive()) {
+            em.getTransaction().rollback();
+        }
+    }
+
+    private static boolean tratado(String metodoHttp, Method metodo) {
+        if (!"POST".equals(metodoHttp) && !"PUT".equals(metodoHttp)) {
+            return false;
+        }
+        if (metodo == null || TransacaoInterceptor.modo(metodo) == SomenteLeitura.class) {
+            return false;
+        }
+        return !metodo.isAnnotationPresent(SemIdempotencia.class)
+                && !metodo.getDeclaringClass().isAnnotationPresent(SemIdempotencia.class);
+    }
+
+    // Ex.: "PUT parcela/1/pagar" (com a query string, se houver)
+    private static String requisicao(ContainerRequestContext request) {
+        String consulta = request.getUriInfo().getRequestUri().getRawQuery();
+        String requisicao = request.getMethod() + " " + request.getUriInfo().getPath()
+                + (consulta == null ? "" : "?" + consulta);
+        return requisicao.length() > TAMANHO_MAXIMO_REQUISICAO
+                ? requisicao.substring(0, TAMANHO_MAXIMO_REQUISICAO)
+                : requisicao;
+    }
+
+    /**
+     * Cabeçalhos a repetir, uma linha "Nome: valor" por valor (valores HTTP
+     * não têm quebra de linha), ou null se não houver nenhum
+     */
+    static String cabecalhos(MultivaluedMap<String, String> cabecalhos) {
+        StringBuilder linhas = new StringBuilder();
+        for (Map.Entry<String, List<String>> cabecalho : cabecalhos.entrySet()) {
+            if (NAO_REPETIDOS.contains(cabecalho.getKey())) {
+                continue;
+            }
+            for (String valor : cabecalho.getValue()) {
+                String linha = cabecalho.getKey() + ": " + valor + "\n";
+                if (linhas.length() + linha.length() > TAMANHO_MAXIMO_CABECALHOS) {
+                    LOGGER.warn("Cabeçalho {} não cabe na resposta gravada da {}", cabecalho.getKey(), CABECALHO);
+                    continue;
+                }
+                linhas.append(linha);
+            }
+        }
+        return linhas.isEmpty() ? null : linhas.toString();
+    }
+
+    private static Response repetir(ChavesIdempotencia.Resposta resposta) {
+        Response.ResponseBuilder builder = Response.status(resposta.status())
+                .header(CABECALHO_REPETIDA, "true");
+        if (resposta.cabecalhos() != null) {
+            for (String linha : resposta.cabecalhos().split("\n")) {
+                int separador = linha.indexOf(": ");
+                builder.header(linha.substring(0, separador), linha.substring(separador + 2));
+            }
+        }
+        if (resposta.corpo() != null && resposta.corpo().length > 0) {
+            builder.entity(resposta.corpo()).type(resposta.tipoConteudo());
+        }
+        return builder.build();
+    }
+}
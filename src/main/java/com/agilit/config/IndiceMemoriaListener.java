@@ -0,0 +1,121 @@
+package com.agilit.config;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Mantém os índices em memória em dia com as entidades gravadas por esta
+ * instância: para cada Indice, insert e update da entidade chamam
+ * atualizar, delete chama remover. Registrado pelo JPAUtil como
+ * Integrator do Hibernate, com um Indice por índice (IndicePropostas e
+ * IndiceBuscasSalvas); as fábricas das réplicas não gravam e não o
+ * registram.
+ *
+ * Uma instância só, com a lista de índices: o Hibernate recusa dois
+ * listeners da mesma classe no mesmo tipo de evento.
+ *
+ * Os eventos são pós-commit: uma transação desfeita não chega ao índice.
+ */
+public class IndiceMemoriaListener implements Integrator, PostCommitInsertEventListener,
+        PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    /**
+     * Entidade indexada e o que fazer no índice
+     *
+     * @param entidade Classe da entidade
+     * @param atualizar Entidade criada ou alterada (já confirmada no banco)
+     * @param remover Entidade excluída
+     */
+    public record Indice<T>(Class<T> entidade, Consumer<T> atualizar, Consumer<T> remover) {
+
+        void atualizar(Object entidade) {
+            atualizar.accept(this.entidade.cast(entidade));
+        }
+
+        void remover(Object entidade) {
+            remover.accept(this.entidade.cast(entidade));
+        }
+    }
+
+    private final Map<Class<?>, Indice<?>> indices = new HashMap<>();
+
+    public IndiceMemoriaListener(List<Indice<?>> indices) {
+        for (Indice<?> indice : indices) {
+            this.indices.put(indice.entidade(), indice);
+        }
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                          SessionFactoryImplementor sessionFactory) {
+        EventListenerRegistry registro = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registro.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registro.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registro.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory,
+                             SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return indices.containsKey(persister.getMappedClass());
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        Indice<?> indice = indices.get(event.getPersister().getMappedClass());
+        if (indice != null) {
+            indice.atualizar(event.getEntity());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Indice<?> indice = indices.get(event.getPersister().getMappedClass());
+        if (indice != null) {
+            indice.atualizar(event.getEntity());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Indice<?> indice = indices.get(event.getPersister().getMappedClass());
+        if (indice != null) {
+            indice.remover(event.getEntity());
+        }
+    }
+
+    // Commit falhou: nada a refletir no índice
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.agilit.config;
+
+import com.agilit.service.EntregaNotificacoes;
+import jakarta.ws.rs.ext.Provider;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Agenda a entrega das notificações (ver EntregaNotificacoes) quando a
+ * aplicação sobe.
+ *
+ * A entrega roda numa thread própria, em lotes de AGILIT_NOTIFICACOES_LOTE
+ * eventos (padrão 500). Ela é acordada logo depois do commit de cada
+ * transação que gravou eventos (ver EventoNotificacaoListener) e, para os
+ * eventos gravados por outras instâncias ou que falharam, a cada
+ * AGILIT_NOTIFICACOES_INTERVALO_MS milissegundos (padrão 1000; 0 = esta
+ * instância não entrega, fica para as outras). Uma falha (banco fora do
+ * ar) é registrada e o lote é tentado de novo na próxima vez.
+ */
+@Provider
+public class InicializacaoEntregaNotificacoes implements ApplicationEventListener {
+
+    private static final int LOTE = Math.max(1, PoolConexoes.env("AGILIT_NOTIFICACOES_LOTE", 500));
+
+    private static volatile Agendador agendador;
+
+    // Já há uma entrega na fila do agendador: os commits seguintes não agendam outra
+    private static final AtomicBoolean AGENDADA = new AtomicBoolean();
+
+    @Override
+    public void onEvent(ApplicationEvent event) {
+        if (event.getType() != ApplicationEvent.Type.INITIALIZATION_APP_FINISHED) {
+            return;
+        }
+
+        long intervalo = PoolConexoes.env("AGILIT_NOTIFICACOES_INTERVALO_MS", 1000);
+        if (intervalo <= 0) {
+            return;
+        }
+        agendador = Agendador.repetir("agilit-entrega-notificacoes", Duration.ZERO, Duration.ofMillis(intervalo),
+                                      InicializacaoEntregaNotificacoes::entregar);
+    }
+
+    @Override
+    public RequestEventListener onRequest(RequestEvent requestEvent) {
+        return null;
+    }
+
+    /**
+     * Antecipa a próxima entrega (eventos acabaram de ser gravados)
+     */
+    static void acordar() {
+        Agendador atual = agendador;
+        if (atual != null && AGENDADA.compareAndSet(false, true)) {
+            atual.executar(InicializacaoEntregaNotificacoes::entregar);
+        }
+    }
+
+    private static void entregar() {
+        // Antes da entrega: um commit durante ela agenda mais uma
+        AGENDADA.set(false);
+        EntregaNotificacoes.entregarPendentes(JPAUtil.getEntityManagerFactory(), LOTE);
+    }
+}
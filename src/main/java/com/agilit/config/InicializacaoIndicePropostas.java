@@ -0,0 +1,44 @@
+package com.agilit.config;
+
+import com.agilit.service.IndiceBuscasSalvas;
+import com.agilit.service.IndicePropostas;
+import jakarta.ws.rs.ext.Provider;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+import java.time.Duration;
+
+/**
+ * Carrega o IndicePropostas e o IndiceBuscasSalvas quando a aplicação sobe
+ * e os recarrega a cada AGILIT_INDICE_PROPOSTAS_RECARGA_S segundos (padrão
+ * 60; 0 = só na subida).
+ *
+ * Cada índice carrega numa thread própria: a subida não espera o banco e, até a
+ * primeira carga terminar, a busca de propostas e a conferência das buscas
+ * salvas vão ao banco. Uma falha (banco fora do ar) é registrada e tentada
+ * de novo no próximo ciclo.
+ */
+@Provider
+public class InicializacaoIndicePropostas implements ApplicationEventListener {
+
+    @Override
+    public void onEvent(ApplicationEvent event) {
+        if (event.getType() != ApplicationEvent.Type.INITIALIZATION_APP_FINISHED) {
+            return;
+        }
+
+        Duration intervalo = Duration.ofSeconds(Math.max(0, PoolConexoes.env("AGILIT_INDICE_PROPOSTAS_RECARGA_S", 60)));
+        // Uma thread por índice: a falha de um não atrasa o outro
+        Agendador.repetir("agilit-indice-propostas", Duration.ZERO, intervalo,
+                          () -> IndicePropostas.reconstruir(JPAUtil.getEntityManagerFactory()));
+        Agendador.repetir("agilit-indice-buscas-salvas", Duration.ZERO, intervalo,
+                          () -> IndiceBuscasSalvas.reconstruir(JPAUtil.getEntityManagerFactory()));
+    }
+
+    @Override
+    public RequestEventListener onRequest(RequestEvent requestEvent) {
+        return null;
+    }
+}
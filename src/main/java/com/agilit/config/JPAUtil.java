@@ -1,15 +1,76 @@
 package com.agilit.config;
 
+import com.agilit.model.BuscaSalva;
+import com.agilit.model.PropostaEmprestimo;
+import com.agilit.service.IndiceBuscasSalvas;
+import com.agilit.service.IndicePropostas;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+
+import java.util.List;
+import java.util.Map;
 
 public class JPAUtil {
 
-    private static final EntityManagerFactory emf =
-            Persistence.createEntityManagerFactory("agilitPU");
+    private static final EntityManagerFactory emf = criarEntityManagerFactory();
+
+    // Réplicas de leitura (AGILIT_DB_REPLICAS), ver ReplicasLeitura
+    private static final ReplicasLeitura replicas = ReplicasLeitura.doAmbiente();
+
+    private static EntityManagerFactory criarEntityManagerFactory() {
+        // O pool (HikariCP) é configurado por variáveis de ambiente, ver PoolConexoes
+        Map<String, Object> propriedades = PoolConexoes.propriedades();
+        propriedades.put("hibernate.session_factory.statement_inspector", new ContadorConsultas());
+        // Migrações (db/migration) antes da validação do esquema, ver MigracoesBanco;
+        // propostas e buscas salvas gravadas atualizam os índices em memória,
+        // ver IndiceMemoriaListener; eventos de notificação gravados acordam a
+        // entrega, ver EventoNotificacaoListener
+        propriedades.put("hibernate.integrator_provider",
+                (IntegratorProvider) () -> List.of(new MigracoesBanco(),
+                        new IndiceMemoriaListener(List.of(
+                                new IndiceMemoriaListener.Indice<>(PropostaEmprestimo.class, IndicePropostas::atualizar,
+                                        proposta -> IndicePropostas.remover(proposta.getId())),
+                                new IndiceMemoriaListener.Indice<>(BuscaSalva.class, IndiceBuscasSalvas::atualizar,
+                                        busca -> IndiceBuscasSalvas.remover(busca.getId())))),
+                        new EventoNotificacaoListener()));
+
+        EntityManagerFactory factory =
+                Persistence.createEntityManagerFactory("agilitPU", propriedades);
+        PoolConexoes.registrar(factory);
+        return factory;
+    }
 
     public static EntityManager getEntityManager() {
         return emf.createEntityManager();
     }
+
+    /**
+     * EntityManager para leitura: de uma réplica em dia, quando há, ou do
+     * primário. Só serve para leituras que toleram o atraso da replicação.
+     */
+    public static EntityManager getEntityManagerLeitura() {
+        EntityManager em = replicas.criarEntityManager();
+        return em != null ? em : emf.createEntityManager();
+    }
+
+    public static EntityManagerFactory getEntityManagerFactory() {
+        return emf;
+    }
+
+    /**
+     * Atraso e leituras de cada réplica
+     */
+    public static Map<String, Object> snapshotReplicas() {
+        return replicas.snapshot();
+    }
+
+    /**
+     * Hint para em.find que carrega junto, no mesmo SELECT, as associações
+     * do entity graph nomeado (as associações to-one são todas LAZY).
+     */
+    public static Map<String, Object> comGrafo(EntityManager em, String grafo) {
+        return Map.of("jakarta.persistence.loadgraph", em.getEntityGraph(grafo));
+    }
 }
@@ -0,0 +1,65 @@
+package com.agilit.config;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.Cookie;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.NewCookie;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Leitura das próprias escritas com réplicas de leitura.
+ *
+ * Depois de uma escrita bem-sucedida (método @Transacional com resposta < 400)
+ * o cliente recebe o cookie agilit_escrita, válido por AGILIT_DB_REPLICA_STICKY_MS
+ * (padrão 5000). Enquanto ele valer, as leituras desse cliente vão para o
+ * primário, e não para uma réplica que ainda pode estar sem a escrita.
+ */
+@Provider
+public class LeituraAposEscritaFilter implements ContainerResponseFilter {
+
+    private static final String COOKIE = "agilit_escrita";
+
+    private static final long JANELA_MS = PoolConexoes.env("AGILIT_DB_REPLICA_STICKY_MS", 5_000);
+
+    @Context
+    private ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+        if (resourceInfo.getResourceMethod() == null
+                || TransacaoInterceptor.modo(resourceInfo.getResourceMethod()) != Transacional.class
+                || response.getStatus() >= 400) {
+            return;
+        }
+
+        long expiraEm = System.currentTimeMillis() + JANELA_MS;
+        NewCookie cookie = new NewCookie.Builder(COOKIE)
+                .value(Long.toString(expiraEm))
+                .path("/")
+                .maxAge((int) Math.max(1, JANELA_MS / 1000))
+                .httpOnly(true)
+                .build();
+        response.getHeaders().add(HttpHeaders.SET_COOKIE, cookie);
+    }
+
+    /**
+     * Se o cliente escreveu há pouco e deve ler do primário.
+     * O valor do cookie (instante de expiração) também é conferido, para
+     * clientes que não respeitam o Max-Age.
+     */
+    static boolean escreveuRecentemente(ContainerRequestContext request) {
+        Cookie cookie = request.getCookies().get(COOKIE);
+        if (cookie == null) {
+            return false;
+        }
+        try {
+            return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
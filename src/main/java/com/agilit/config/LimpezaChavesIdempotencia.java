@@ -0,0 +1,40 @@
+package com.agilit.config;
+
+import jakarta.ws.rs.ext.Provider;
+import org.glassfish.jersey.server.monitoring.ApplicationEvent;
+import org.glassfish.jersey.server.monitoring.ApplicationEventListener;
+import org.glassfish.jersey.server.monitoring.RequestEvent;
+import org.glassfish.jersey.server.monitoring.RequestEventListener;
+
+import java.time.Duration;
+
+/**
+ * Apaga as Idempotency-Keys vencidas (ver ChavesIdempotencia) a cada
+ * AGILIT_IDEMPOTENCIA_LIMPEZA_S segundos (padrão 600; 0 = desligado).
+ *
+ * Roda numa thread própria; uma falha (banco fora do ar) é registrada e
+ * tentada de novo no próximo ciclo. Com várias instâncias, cada uma apaga
+ * o que encontrar: o DELETE é o mesmo e não conflita.
+ */
+@Provider
+public class LimpezaChavesIdempotencia implements ApplicationEventListener {
+
+    @Override
+    public void onEvent(ApplicationEvent event) {
+        if (event.getType() != ApplicationEvent.Type.INITIALIZATION_APP_FINISHED) {
+            return;
+        }
+
+        long intervalo = PoolConexoes.env("AGILIT_IDEMPOTENCIA_LIMPEZA_S", 600);
+        if (intervalo <= 0) {
+            return;
+        }
+        Agendador.repetir("agilit-limpeza-idempotencia", Duration.ofSeconds(intervalo), Duration.ofSeconds(intervalo),
+                          ChavesIdempotencia::apagarVencidas);
+    }
+
+    @Override
+    public RequestEventListener onRequest(RequestEvent requestEvent) {
+        return null;
+    }
+}
@@ -0,0 +1,78 @@
+package com.agilit.config;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Migrações versionadas do esquema (Flyway), em src/main/resources/db/migration.
+ *
+ * Registrado pelo JPAUtil como Integrator do Hibernate: roda durante a criação
+ * do EntityManagerFactory, usando o pool de conexões já configurado, e antes
+ * da validação do esquema (hibernate.hbm2ddl.auto = validate). Assim o
+ * Hibernate nunca altera tabelas; ele só confere que o banco migrado bate
+ * com as entidades.
+ *
+ * Bancos criados pelo antigo hbm2ddl (update) não têm histórico do Flyway:
+ * na primeira subida o esquema atual é registrado como V1 (baseline) e só
+ * as versões seguintes são aplicadas.
+ *
+ * AGILIT_DB_MIGRACOES=false desliga as migrações (ex.: quando são aplicadas
+ * por fora, no pipeline de deploy).
+ */
+public class MigracoesBanco implements Integrator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MigracoesBanco.class);
+
+    private static final String LOCALIZACAO = "classpath:db/migration";
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                          SessionFactoryImplementor sessionFactory) {
+        if ("false".equalsIgnoreCase(System.getenv("AGILIT_DB_MIGRACOES"))) {
+            return;
+        }
+
+        MigrateResult resultado = configurar(sessionFactory).load().migrate();
+        if (resultado.migrationsExecuted > 0) {
+            LOGGER.info("Migrações aplicadas: {} (esquema na versão {})",
+                        resultado.migrationsExecuted, resultado.targetSchemaVersion);
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory,
+                             SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    private static FluentConfiguration configurar(SessionFactoryImplementor sessionFactory) {
+        FluentConfiguration configuracao = Flyway.configure()
+                .locations(LOCALIZACAO)
+                .baselineOnMigrate(true)
+                .baselineVersion("1");
+
+        // Com o HikariCP, o Flyway usa o mesmo pool do Hibernate
+        ConnectionProvider provider = sessionFactory.getServiceRegistry().getService(ConnectionProvider.class);
+        if (provider != null && provider.isUnwrappableAs(DataSource.class)) {
+            return configuracao.dataSource(provider.unwrap(DataSource.class));
+        }
+
+        // Sem pool: conexão própria com os dados do persistence.xml
+        Map<String, Object> props = sessionFactory.getProperties();
+        return configuracao.dataSource(
+                (String) props.get("jakarta.persistence.jdbc.url"),
+                (String) props.get("jakarta.persistence.jdbc.user"),
+                (String) props.get("jakarta.persistence.jdbc.password"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.agilit.config;
+
+import com.agilit.model.dao.Cursor;
+import com.agilit.model.dao.Pagina;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+
+import java.net.URI;
+
+/**
+ * Parâmetros e resposta das listagens paginadas (keyset).
+ *
+ * Query params aceitos pelos endpoints de listagem:
+ * - limite: tamanho da página (padrão 50, máximo 200)
+ * - cursor: token devolvido pela página anterior
+ *
+ * O corpo continua sendo o array JSON de antes. A próxima página vem nos headers
+ * "Link: <...>; rel=\"next\"" e "X-Next-Cursor"; sem eles, é a última página.
+ */
+public class Paginacao {
+
+    public static final int LIMITE_PADRAO = 50;
+    public static final int LIMITE_MAXIMO = 200;
+
+    public static final String HEADER_PROXIMO_CURSOR = "X-Next-Cursor";
+
+    private Paginacao() {
+    }
+
+    /**
+     * Tamanho de página efetivo: padrão quando ausente, limitado ao máximo
+     */
+    public static int limite(Integer pedido) {
+        if (pedido == null) {
+            return LIMITE_PADRAO;
+        }
+        if (pedido < 1) {
+            throw new AppException("Parâmetro limite deve ser maior que zero", 400);
+        }
+        return Math.min(pedido, LIMITE_MAXIMO);
+    }
+
+    /**
+     * Decodifica o cursor recebido; null para a primeira página
+     *
+     * @param tipoChave tipo da chave de ordenação da listagem (LocalDateTime, LocalDate ou Long)
+     */
+    public static Cursor cursor(String token, Class<?> tipoChave) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            return Cursor.decodificar(token.trim()).exigir(tipoChave);
+        } catch (IllegalArgumentException e) {
+            throw new AppException("Cursor de paginação inválido", 400);
+        }
+    }
+
+    /**
+     * 200 com os itens da página e, se houver próxima, os headers Link e X-Next-Cursor
+     */
+    public static Response resposta(Pagina<?> pagina, int limite, UriInfo uriInfo) {
+        Response.ResponseBuilder resposta = Response.ok(pagina.itens());
+
+        if (pagina.temProxima()) {
+            String token = pagina.proximo().codificar();
+            URI proxima = uriInfo.getRequestUriBuilder()
+                    .replaceQueryParam("cursor", token)
+                    .replaceQueryParam("limite", limite)
+                    .build();
+            resposta.header(HEADER_PROXIMO_CURSOR, token).link(proxima, "next");
+        }
+
+        return resposta.build();
+    }
+}
@@ -0,0 +1,27 @@
+package com.agilit.config;
+
+import jakarta.inject.Singleton;
+import jakarta.persistence.EntityManager;
+import org.glassfish.hk2.api.InterceptionService;
+import org.glassfish.hk2.utilities.binding.AbstractBinder;
+import org.glassfish.jersey.process.internal.RequestScoped;
+
+/**
+ * Ligações HK2 da camada de persistência, registradas no App:
+ * - EntityManager em escopo de requisição (EntityManagerRequisicao)
+ * - Interceptor do @Transacional nos controllers (TransacaoInterceptor)
+ */
+public class PersistenciaBinder extends AbstractBinder {
+
+    @Override
+    protected void configure() {
+        bindFactory(EntityManagerRequisicao.class)
+                .to(EntityManager.class)
+                .proxy(false)
+                .in(RequestScoped.class);
+
+        bind(TransacaoInterceptor.class)
+                .to(InterceptionService.class)
+                .in(Singleton.class);
+    }
+}
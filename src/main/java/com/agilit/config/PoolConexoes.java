@@ -0,0 +1,224 @@
+package com.agilit.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Configuração e métricas do pool de conexões (HikariCP) usado pelo JPAUtil.
+ *
+ * O dimensionamento vem de variáveis de ambiente, com padrões seguros:
+ * - AGILIT_DB_POOL_MAX                   (padrão 20)
+ * - AGILIT_DB_POOL_MIN_IDLE              (padrão 5)
+ * - AGILIT_DB_POOL_CONNECTION_TIMEOUT_MS (padrão 10000)
+ * - AGILIT_DB_POOL_IDLE_TIMEOUT_MS       (padrão 300000)
+ * - AGILIT_DB_POOL_MAX_LIFETIME_MS       (padrão 1800000)
+ * - AGILIT_DB_POOL_LEAK_DETECTION_MS     (padrão 20000, 0 desliga)
+ *
+ * URL, usuário e senha continuam vindo do persistence.xml.
+ */
+public class PoolConexoes {
+
+    private static final MetricasPool metricas = new MetricasPool();
+
+    // Por requisição HTTP (EntityManagerRequisicao): tempo total com a conexão em mãos
+    private static final HistogramaLatencia retencaoPorRequisicao = new HistogramaLatencia();
+    private static final LongAdder requisicoesComVariasConexoes = new LongAdder();
+
+    private static volatile HikariDataSource dataSource;
+
+    private PoolConexoes() {
+    }
+
+    /**
+     * Propriedades do Hibernate que ativam o HikariCP com o dimensionamento do ambiente.
+     * Devem ser passadas ao criar o EntityManagerFactory.
+     */
+    public static Map<String, Object> propriedades() {
+        Map<String, Object> props = new HashMap<>();
+        props.put("hibernate.connection.provider_class",
+                  "org.hibernate.hikaricp.internal.HikariCPConnectionProvider");
+        props.put("hibernate.hikari.poolName", "agilit-pool");
+        props.put("hibernate.hikari.maximumPoolSize", String.valueOf(env("AGILIT_DB_POOL_MAX", 20)));
+        props.put("hibernate.hikari.minimumIdle", String.valueOf(env("AGILIT_DB_POOL_MIN_IDLE", 5)));
+        props.put("hibernate.hikari.connectionTimeout", String.valueOf(env("AGILIT_DB_POOL_CONNECTION_TIMEOUT_MS", 10_000)));
+        props.put("hibernate.hikari.idleTimeout", String.valueOf(env("AGILIT_DB_POOL_IDLE_TIMEOUT_MS", 300_000)));
+        props.put("hibernate.hikari.maxLifetime", String.valueOf(env("AGILIT_DB_POOL_MAX_LIFETIME_MS", 1_800_000)));
+        props.put("hibernate.hikari.leakDetectionThreshold", String.valueOf(env("AGILIT_DB_POOL_LEAK_DETECTION_MS", 20_000)));
+        return props;
+    }
+
+    /**
+     * Conecta o rastreador de métricas ao pool criado pelo Hibernate.
+     * Chamado uma única vez pelo JPAUtil logo após criar o EntityManagerFactory.
+     */
+    static synchronized void registrar(EntityManagerFactory emf) {
+        if (dataSource != null) {
+            return;
+        }
+
+        ConnectionProvider provider = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(ConnectionProvider.class);
+
+        if (provider == null || !provider.isUnwrappableAs(DataSource.class)) {
+            return;
+        }
+
+        DataSource ds = provider.unwrap(DataSource.class);
+        if (ds instanceof HikariDataSource hikari) {
+            metricas.leakThresholdMs = hikari.getLeakDetectionThreshold();
+            hikari.setMetricsTrackerFactory(metricas);
+            dataSource = hikari;
+        }
+    }
+
+    /**
+     * Indica se o pool aponta para um PostgreSQL
+     */
+    static boolean postgresql() {
+        HikariDataSource atual = dataSource;
+        return atual != null && atual.getJdbcUrl() != null && atual.getJdbcUrl().startsWith("jdbc:postgresql:");
+    }
+
+    /**
+     * Conexão fora do pool, com a URL e o usuário do pool, para quem a
+     * segura indefinidamente (o LISTEN do CanalNotificacoes). Tirá-la do
+     * pool deixaria uma conexão a menos para as requisições.
+     *
+     * @return Conexão nova; quem chama fecha
+     */
+    static Connection conexaoDedicada() throws SQLException {
+        HikariDataSource atual = dataSource;
+        if (atual == null) {
+            throw new SQLException("Pool de conexões ainda não registrado");
+        }
+        return DriverManager.getConnection(atual.getJdbcUrl(), atual.getUsername(), atual.getPassword());
+    }
+
+    /**
+     * Registra o tempo em que uma requisição segurou conexão do pool
+     *
+     * @param retidaNanos Soma do tempo entre aquisição e devolução
+     * @param aquisicoes Quantas vezes a requisição pegou conexão (esperado: 1)
+     */
+    static void registrarRequisicao(long retidaNanos, int aquisicoes) {
+        retencaoPorRequisicao.registrarNanos(retidaNanos);
+        if (aquisicoes > 1) {
+            requisicoesComVariasConexoes.increment();
+        }
+    }
+
+    /**
+     * Retrato atual do pool: contadores ativos/ociosos/aguardando,
+     * histogramas de espera e de uso, timeouts e suspeitas de vazamento.
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+
+        if (dataSource == null) {
+            snapshot.put("disponivel", false);
+            return snapshot;
+        }
+
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        snapshot.put("disponivel", true);
+        snapshot.put("nome", dataSource.getPoolName());
+        snapshot.put("tamanhoMaximo", dataSource.getMaximumPoolSize());
+        snapshot.put("minimoOcioso", dataSource.getMinimumIdle());
+        snapshot.put("ativas", pool.getActiveConnections());
+        snapshot.put("ociosas", pool.getIdleConnections());
+        snapshot.put("total", pool.getTotalConnections());
+        snapshot.put("aguardando", pool.getThreadsAwaitingConnection());
+        snapshot.put("conexoesCriadas", metricas.criadas.sum());
+        snapshot.put("timeouts", metricas.timeouts.sum());
+        snapshot.put("limiteVazamentoMs", metricas.leakThresholdMs);
+        snapshot.put("suspeitasVazamento", metricas.suspeitasVazamento.sum());
+        snapshot.put("esperaAquisicao", metricas.espera.snapshot());
+        snapshot.put("tempoUso", metricas.uso.snapshot());
+        snapshot.put("retencaoPorRequisicao", retencaoPorRequisicao.snapshot());
+        snapshot.put("requisicoesComVariasConexoes", requisicoesComVariasConexoes.sum());
+        return snapshot;
+    }
+
+    /**
+     * Zera histogramas e contadores acumulados (os gauges do pool não são afetados)
+     */
+    public static void resetarMetricas() {
+        metricas.espera.reset();
+        metricas.uso.reset();
+        metricas.criadas.reset();
+        metricas.timeouts.reset();
+        metricas.suspeitasVazamento.reset();
+        retencaoPorRequisicao.reset();
+        requisicoesComVariasConexoes.reset();
+    }
+
+    static int env(String nome, int padrao) {
+        String valor = System.getenv(nome);
+        if (valor == null || valor.isBlank()) {
+            return padrao;
+        }
+        try {
+            return Integer.parseInt(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Variável de ambiente " + nome + " deve ser numérica: " + valor, e);
+        }
+    }
+
+    /**
+     * Rastreador plugado no HikariCP. Uma única instância serve o pool inteiro.
+     */
+    private static class MetricasPool implements MetricsTrackerFactory, IMetricsTracker {
+
+        private final HistogramaLatencia espera = new HistogramaLatencia();
+        private final HistogramaLatencia uso = new HistogramaLatencia();
+        private final LongAdder criadas = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder suspeitasVazamento = new LongAdder();
+        private volatile long leakThresholdMs;
+
+        @Override
+        public IMetricsTracker create(String poolName, PoolStats poolStats) {
+            return this;
+        }
+
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            criadas.increment();
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            espera.registrarNanos(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            uso.registrarMillis(elapsedBorrowedMillis);
+            // Conexão devolvida depois do limite: o Hikari já logou o stack trace do checkout
+            if (leakThresholdMs > 0 && elapsedBorrowedMillis >= leakThresholdMs) {
+                suspeitasVazamento.increment();
+            }
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.agilit.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Réplicas de leitura do banco, usadas pelo JPAUtil nos endpoints @SomenteLeitura.
+ *
+ * Configuração por variáveis de ambiente:
+ * - AGILIT_DB_REPLICAS              URLs JDBC das réplicas, separadas por vírgula (vazio: sem réplicas)
+ * - AGILIT_DB_REPLICA_USER          usuário (padrão: o do persistence.xml)
+ * - AGILIT_DB_REPLICA_PASSWORD      senha (padrão: a do persistence.xml)
+ * - AGILIT_DB_REPLICA_POOL_MAX      conexões por réplica (padrão 10)
+ * - AGILIT_DB_REPLICA_MAX_LAG_MS    atraso máximo aceito (padrão 2000)
+ * - AGILIT_DB_REPLICA_CHECK_MS      intervalo da verificação de atraso (padrão 1000)
+ *
+ * Cada réplica tem seu próprio EntityManagerFactory (pool próprio, sem cache
+ * de segundo nível e sem migrações: o esquema chega pela replicação). Uma
+ * thread verifica periodicamente o atraso de cada uma; réplica fora do ar,
+ * desligada do primário ou atrasada além do limite deixa de receber
+ * leituras até se recuperar, e as leituras voltam para o primário.
+ */
+public class ReplicasLeitura {
+
+    /**
+     * Atraso de replicação em ms. Réplica sem nada pendente de aplicar conta
+     * como em dia (pg_last_xact_replay_timestamp fica parado com o primário
+     * ocioso); servidor que não é réplica (pg_is_in_recovery falso) também.
+     *
+     * "Nada pendente" só vale com o WAL chegando: réplica desligada do
+     * primário também tem tudo o que recebeu aplicado, e ficaria em dia para
+     * sempre. Sem WAL receiver em streaming (pg_stat_wal_receiver) o
+     * resultado é SEM_REPLICACAO e a réplica não recebe leituras. O status
+     * só aparece para quem tem pg_read_all_stats; sem esse papel, vale a
+     * existência do processo do WAL receiver.
+     */
+    private static final String CONSULTA_ATRASO =
+            "SELECT CASE"
+          + " WHEN NOT pg_is_in_recovery() THEN 0"
+          + " WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver"
+          + "                  WHERE COALESCE(status, 'streaming') = 'streaming') THEN -1"
+          + " WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+          + " ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)"
+          + " END";
+
+    private static final long SEM_REPLICACAO = -1;
+
+    private final List<Replica> replicas;
+    private final long atrasoMaximoMs;
+    private final AtomicInteger proxima = new AtomicInteger();
+    private final LongAdder desviosParaPrimario = new LongAdder();
+
+    private ReplicasLeitura(List<Replica> replicas, long atrasoMaximoMs) {
+        this.replicas = replicas;
+        this.atrasoMaximoMs = atrasoMaximoMs;
+    }
+
+    /**
+     * Cria os EntityManagerFactory das réplicas configuradas no ambiente e
+     * inicia a verificação de atraso. Sem AGILIT_DB_REPLICAS, não há réplicas
+     * e todas as leituras vão para o primário.
+     */
+    static ReplicasLeitura doAmbiente() {
+        String urls = System.getenv("AGILIT_DB_REPLICAS");
+        if (urls == null || urls.isBlank()) {
+            return new ReplicasLeitura(List.of(), 0);
+        }
+
+        List<Replica> replicas = new ArrayList<>();
+        for (String url : urls.split(",")) {
+            if (!url.isBlank()) {
+                replicas.add(new Replica(url.trim(), criarFactory(url.trim(), replicas.size() + 1)));
+            }
+        }
+
+        ReplicasLeitura leitura = new ReplicasLeitura(List.copyOf(replicas),
+                                                      PoolConexoes.env("AGILIT_DB_REPLICA_MAX_LAG_MS", 2_000));
+        // Primeira verificação antes de liberar as réplicas para leitura
+        leitura.verificarAtraso();
+
+        long intervalo = PoolConexoes.env("AGILIT_DB_REPLICA_CHECK_MS", 1_000);
+        ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "agilit-replicas");
+            thread.setDaemon(true);
+            return thread;
+        });
+        agendador.scheduleWithFixedDelay(leitura::verificarAtraso, intervalo, intervalo, TimeUnit.MILLISECONDS);
+        return leitura;
+    }
+
+    private static EntityManagerFactory criarFactory(String url, int numero) {
+        Map<String, Object> props = PoolConexoes.propriedades();
+        props.put("hibernate.hikari.poolName", "agilit-replica-" + numero);
+        props.put("hibernate.hikari.maximumPoolSize", String.valueOf(PoolConexoes.env("AGILIT_DB_REPLICA_POOL_MAX", 10)));
+        props.put("hibernate.hikari.readOnly", "true");
+        props.put("jakarta.persistence.jdbc.url", url);
+        String usuario = System.getenv("AGILIT_DB_REPLICA_USER");
+        if (usuario != null && !usuario.isBlank()) {
+            props.put("jakarta.persistence.jdbc.user", usuario);
+            props.put("jakarta.persistence.jdbc.password", System.getenv("AGILIT_DB_REPLICA_PASSWORD"));
+        }
+        // Esquema vem do primário pela replicação
+        props.put("hibernate.hbm2ddl.auto", "none");
+        // Cache próprio de cada réplica serviria dados que o primário já mudou
+        props.put("hibernate.cache.use_second_level_cache", "false");
+        props.put("jakarta.persistence.sharedCache.mode", "NONE");
+        props.put("hibernate.session_factory.statement_inspector", new ContadorConsultas());
+        return Persistence.createEntityManagerFactory("agilitPU", props);
+    }
+
+    /**
+     * EntityManager de uma réplica em dia (rodízio entre as disponíveis), ou
+     * null quando não há réplica utilizável e a leitura deve ir ao primário.
+     */
+    EntityManager criarEntityManager() {
+        if (replicas.isEmpty()) {
+            return null;
+        }
+
+        int inicio = Math.floorMod(proxima.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((inicio + i) % replicas.size());
+            if (replica.utilizavel(atrasoMaximoMs)) {
+                replica.leituras.increment();
+                return replica.factory.createEntityManager();
+            }
+        }
+        desviosParaPrimario.increment();
+        return null;
+    }
+
+    private void verificarAtraso() {
+        for (Replica replica : replicas) {
+            replica.verificar();
+        }
+    }
+
+    /**
+     * Estado de cada réplica: atraso medido, se está recebendo leituras e quantas recebeu
+     */
+    Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("configuradas", replicas.size());
+        snapshot.put("atrasoMaximoMs", atrasoMaximoMs);
+        snapshot.put("desviosParaPrimario", desviosParaPrimario.sum());
+
+        List<Map<String, Object>> lista = new ArrayList<>();
+        for (Replica replica : replicas) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("url", replica.url);
+            item.put("online", replica.online);
+            item.put("replicando", replica.replicando);
+            item.put("atrasoMs", replica.atrasoMs);
+            item.put("utilizavel", replica.utilizavel(atrasoMaximoMs));
+            item.put("leituras", replica.leituras.sum());
+            item.put("ultimoErro", replica.ultimoErro);
+            lista.add(item);
+        }
+        snapshot.put("replicas", lista);
+        return snapshot;
+    }
+
+    private static class Replica {
+        private final String url;
+        private final EntityManagerFactory factory;
+        private final LongAdder leituras = new LongAdder();
+        private volatile boolean online;
+        // WAL chegando do primário (ver CONSULTA_ATRASO)
+        private volatile boolean replicando;
+        private volatile long atrasoMs;
+        private volatile String ultimoErro;
+
+        Replica(String url, EntityManagerFactory factory) {
+            this.url = url;
+            this.factory = factory;
+        }
+
+        boolean utilizavel(long atrasoMaximoMs) {
+            return online && replicando && atrasoMs <= atrasoMaximoMs;
+        }
+
+        void verificar() {
+            EntityManager em = factory.createEntityManager();
+            try {
+                Number atraso = (Number) em.createNativeQuery(CONSULTA_ATRASO).getSingleResult();
+                long medido = atraso == null ? 0 : atraso.longValue();
+                replicando = medido != SEM_REPLICACAO;
+                atrasoMs = Math.max(medido, 0);
+                online = true;
+                ultimoErro = null;
+            } catch (RuntimeException e) {
+                online = false;
+                ultimoErro = e.getMessage();
+            } finally {
+                em.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.agilit.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * POST/PUT que o IdempotenciaFilter não trata: a Idempotency-Key é
+ * ignorada e a requisição sempre executa.
+ *
+ * Para POSTs que não mudam estado (login, simulação): repetir não tem
+ * efeito colateral, e gravar a resposta de um login seria devolvê-la a
+ * quem tiver só a chave. Métodos @SomenteLeitura já ficam de fora.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SemIdempotencia {
+}
@@ -0,0 +1,22 @@
+package com.agilit.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Executa o método do controller numa transação somente leitura do
+ * EntityManager da requisição (ver TransacaoInterceptor.somenteLeitura).
+ *
+ * Para endpoints GET: o Hibernate não guarda snapshot das entidades carregadas,
+ * não faz flush antes das consultas e a conexão vai marcada como read-only.
+ * Alterações feitas nas entidades durante a requisição não são gravadas.
+ *
+ * Pode ser usada no método ou na classe; no método, prevalece sobre o
+ * @Transacional da classe (e vice-versa).
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SomenteLeitura {
+}
@@ -0,0 +1,150 @@
+package com.agilit.config;
+
+import jakarta.inject.Inject;
+import jakarta.inject.Provider;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.PersistenceException;
+import jakarta.ws.rs.core.Response;
+import org.aopalliance.intercept.ConstructorInterceptor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.glassfish.hk2.api.Filter;
+import org.glassfish.hk2.api.InterceptionService;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.List;
+
+/**
+ * Interceptor HK2 que implementa o @Transacional e o @SomenteLeitura nos controllers.
+ *
+ * Abre a transação no EntityManager da requisição antes do método e, ao final,
+ * faz commit (retorno normal com status < 400) ou rollback (exceção ou resposta
+ * de erro). Se já houver transação ativa, apenas participa dela.
+ *
+ * Com @SomenteLeitura a transação é aberta em modo somente leitura
+ * (ver somenteLeitura): o commit não tem nada a gravar.
+ *
+ * Falha no commit (ex.: violação de constraint no flush) vira AppException 500,
+ * mesma resposta que os controllers davam ao capturar a exceção no commit manual.
+ *
+ * Com Idempotency-Key o commit fica com o IdempotenciaFilter, depois de
+ * gravar a resposta da chave na mesma transação.
+ */
+public class TransacaoInterceptor implements InterceptionService, MethodInterceptor {
+
+    private static final String PACOTE_CONTROLLERS = "com.agilit.controller.";
+
+    @Inject
+    private Provider<EntityManager> entityManager;
+
+    @Inject
+    private Provider<ContainerRequest> requisicao;
+
+    @Override
+    public Filter getDescriptorFilter() {
+        return descritor -> {
+            String implementacao = descritor.getImplementation();
+            return implementacao != null && implementacao.startsWith(PACOTE_CONTROLLERS);
+        };
+    }
+
+    @Override
+    public List<MethodInterceptor> getMethodInterceptors(Method metodo) {
+        return modo(metodo) != null ? List.of(this) : null;
+    }
+
+    @Override
+    public List<ConstructorInterceptor> getConstructorInterceptors(Constructor<?> construtor) {
+        return null;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocacao) throws Throwable {
+        EntityManager em = entityManager.get();
+        EntityTransaction transacao = em.getTransaction();
+        if (transacao.isActive()) {
+            return invocacao.proceed();
+        }
+
+        transacao.begin();
+        if (modo(invocacao.getMethod()) == SomenteLeitura.class) {
+            somenteLeitura(em);
+        }
+        Object resultado;
+        try {
+            resultado = invocacao.proceed();
+        } catch (Throwable erro) {
+            if (transacao.isActive()) {
+                transacao.rollback();
+            }
+            throw erro;
+        }
+
+        if (!transacao.isActive()) {
+            return resultado;
+        }
+        if (transacao.getRollbackOnly() || respostaDeErro(resultado)) {
+            transacao.rollback();
+            return resultado;
+        }
+        if (IdempotenciaFilter.adiarCommit(requisicao.get())) {
+            return resultado;
+        }
+
+        try {
+            transacao.commit();
+        } catch (PersistenceException e) {
+            if (transacao.isActive()) {
+                transacao.rollback();
+            }
+            throw new AppException("Erro ao confirmar a operação: " + e.getMessage(), 500);
+        }
+        return resultado;
+    }
+
+    /**
+     * Coloca o EntityManager em modo somente leitura:
+     * - entidades e consultas read-only: sem snapshot para dirty checking
+     * - FlushMode.MANUAL: sem flush automático antes de cada consulta
+     * - conexão JDBC read-only: o driver do Postgres abre a transação com BEGIN READ ONLY
+     *
+     * Deve ser chamado com a transação já iniciada, para a marcação valer na
+     * conexão da transação (o pool desfaz o read-only quando ela é devolvida).
+     */
+    public static void somenteLeitura(EntityManager em) {
+        Session sessao = em.unwrap(Session.class);
+        sessao.setDefaultReadOnly(true);
+        sessao.setHibernateFlushMode(FlushMode.MANUAL);
+        sessao.doWork(conexao -> conexao.setReadOnly(true));
+    }
+
+    /**
+     * Anotação que vale para o método: a do próprio método ou, na falta, a da classe
+     */
+    static Class<? extends Annotation> modo(Method metodo) {
+        if (metodo.isAnnotationPresent(SomenteLeitura.class)) {
+            return SomenteLeitura.class;
+        }
+        if (metodo.isAnnotationPresent(Transacional.class)) {
+            return Transacional.class;
+        }
+        Class<?> classe = metodo.getDeclaringClass();
+        if (classe.isAnnotationPresent(SomenteLeitura.class)) {
+            return SomenteLeitura.class;
+        }
+        if (classe.isAnnotationPresent(Transacional.class)) {
+            return Transacional.class;
+        }
+        return null;
+    }
+
+    private static boolean respostaDeErro(Object resultado) {
+        return resultado instanceof Response resposta && resposta.getStatus() >= 400;
+    }
+}
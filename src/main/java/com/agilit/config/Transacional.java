@@ -0,0 +1,20 @@
+package com.agilit.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Executa o método do controller dentro de uma transação do EntityManager
+ * da requisição (ver TransacaoInterceptor).
+ *
+ * - Retorno normal com status < 400: commit
+ * - Exceção ou resposta de erro (status >= 400): rollback
+ *
+ * Pode ser usada no método ou na classe (vale para todos os métodos).
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Transacional {
+}
@@ -0,0 +1,125 @@
+package com.agilit.controller.admin;
+
+import com.agilit.controller.emprestimo.StatusEmprestimo;
+import com.agilit.model.dto.NotificacaoDTO;
+import com.agilit.util.Dinheiro;
+import com.agilit.util.ExportacaoStreaming;
+import com.agilit.util.ExportacaoStreaming.Formato;
+
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Controller administrativo de exportação completa (conciliação do back-office).
+ *
+ * As linhas são lidas por cursor e escritas direto na resposta, sem montar
+ * listas em memória (ver ExportacaoStreaming).
+ *
+ * Endpoints (formato: ndjson, padrão, ou csv):
+ * - GET /api/admin/export/emprestimos?formato=
+ * - GET /api/admin/export/parcelas?formato=
+ * - GET /api/admin/export/notificacoes?formato=
+ */
+@Path("/admin/export")
+public class ExportacaoController {
+
+    /**
+     * Linha da exportação de empréstimos
+     */
+    public record EmprestimoLinha(
+            Long id,
+            Long credorId,
+            Long devedorId,
+            Double valorPrincipal,
+            Double jurosAplicados,
+            Double valorTotal,
+            Integer numeroParcelas,
+            Integer parcelasPagas,
+            LocalDate dataInicio,
+            LocalDate dataVencimento,
+            StatusEmprestimo status) {
+
+        // Usado pelo SELECT new: os valores vêm em centavos (CentavosConverter)
+        public EmprestimoLinha(Long id, Long credorId, Long devedorId,
+                Long valorPrincipal, Long jurosAplicados, Long valorTotal,
+                Integer numeroParcelas, Integer parcelasPagas,
+                LocalDate dataInicio, LocalDate dataVencimento, StatusEmprestimo status) {
+            this(id, credorId, devedorId, Dinheiro.reais(valorPrincipal), Dinheiro.reais(jurosAplicados), Dinheiro.reais(valorTotal),
+                numeroParcelas, parcelasPagas, dataInicio, dataVencimento, status);
+        }
+    }
+
+    /**
+     * Linha da exportação de parcelas
+     */
+    public record ParcelaLinha(
+            Long id,
+            Long emprestimoId,
+            Integer numeroParcela,
+            Double valor,
+            LocalDate dataVencimento,
+            LocalDate dataPagamento,
+            Boolean paga,
+            Boolean atrasada) {
+
+        // Usado pelo SELECT new: o valor vem em centavos (CentavosConverter)
+        public ParcelaLinha(Long id, Long emprestimoId, Integer numeroParcela, Long valor,
+                LocalDate dataVencimento, LocalDate dataPagamento, Boolean paga, Boolean atrasada) {
+            this(id, emprestimoId, numeroParcela, Dinheiro.reais(valor), dataVencimento, dataPagamento, paga, atrasada);
+        }
+    }
+
+    /**
+     * Todos os empréstimos
+     * GET /api/admin/export/emprestimos
+     */
+    @GET
+    @Path("/emprestimos")
+    public Response exportarEmprestimos(@QueryParam("formato") String formato) {
+        return exportar("emprestimos", Formato.de(formato),
+            "SELECT new " + EmprestimoLinha.class.getName() + "(" +
+            "e.id, e.credor.id, e.devedor.id, e.valorPrincipal, e.jurosAplicados, e.valorTotal, " +
+            "e.numeroParcelas, e.parcelasPagas, e.dataInicio, e.dataVencimento, e.status) " +
+            "FROM Emprestimo e ORDER BY e.id",
+            EmprestimoLinha.class);
+    }
+
+    /**
+     * Todas as parcelas
+     * GET /api/admin/export/parcelas
+     */
+    @GET
+    @Path("/parcelas")
+    public Response exportarParcelas(@QueryParam("formato") String formato) {
+        return exportar("parcelas", Formato.de(formato),
+            "SELECT new " + ParcelaLinha.class.getName() + "(" +
+            "p.id, p.emprestimo.id, p.numeroParcela, p.valor, p.dataVencimento, " +
+            "p.dataPagamento, p.paga, p.atrasada) " +
+            "FROM Parcela p ORDER BY p.id",
+            ParcelaLinha.class);
+    }
+
+    /**
+     * Todas as notificações
+     * GET /api/admin/export/notificacoes
+     */
+    @GET
+    @Path("/notificacoes")
+    public Response exportarNotificacoes(@QueryParam("formato") String formato) {
+        return exportar("notificacoes", Formato.de(formato),
+            NotificacaoDTO.SELECT + " ORDER BY n.id",
+            NotificacaoDTO.class);
+    }
+
+    private <T extends Record> Response exportar(String nome, Formato formato, String jpql, Class<T> tipo) {
+        StreamingOutput corpo = ExportacaoStreaming.exportar(jpql, tipo, Map.of(), formato);
+        return Response.ok(corpo, formato.mediaType)
+                .header("Content-Disposition",
+                        "attachment; filename=\"" + nome + "-" + LocalDate.now() + "." + formato.extensao + "\"")
+                .build();
+    }
+}
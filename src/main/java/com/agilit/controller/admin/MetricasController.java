@@ -0,0 +1,300 @@
+package com.agilit.controller.admin;
+
+import com.agilit.config.CacheSegundoNivel;
+import com.agilit.config.ChavesIdempotencia;
+import com.agilit.config.ContadorConsultas;
+import com.agilit.config.EstatisticasPersistencia;
+import com.agilit.config.FluxoNotificacoes;
+import com.agilit.config.JPAUtil;
+import com.agilit.config.PoolConexoes;
+import com.agilit.service.EntregaNotificacoes;
+import com.agilit.service.IndiceBuscasSalvas;
+import com.agilit.service.IndicePropostas;
+import com.agilit.util.CacheOpcoesParcelas;
+
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Controller administrativo de métricas operacionais.
+ *
+ * Endpoints:
+ * - GET    /api/admin/metrics/pool - Estado do pool de conexões (ativas, ociosas, aguardando,
+ *                                    histogramas de espera/uso, retenção da conexão por
+ *                                    requisição e suspeitas de vazamento)
+ * - DELETE /api/admin/metrics/pool - Zera histogramas e contadores acumulados do pool
+ * - GET    /api/admin/metrics/replicas - Réplicas de leitura: atraso, disponibilidade e leituras
+ * - GET    /api/admin/metrics/cache - Acertos/faltas por região do cache de segundo nível
+ * - DELETE /api/admin/metrics/cache - Esvazia todas as regiões do cache de segundo nível
+ * - GET    /api/admin/metrics/opcoes-parcelas - Cache de opções de parcelamento: acertos, faltas,
+ *                                              ocupação em bytes e remoções
+ * - DELETE /api/admin/metrics/opcoes-parcelas - Esvazia o cache de opções de parcelamento
+ * - GET    /api/admin/metrics/indice-propostas - Índice em memória do marketplace: propostas,
+ *                                              buscas, alterações e última reconstrução
+ * - DELETE /api/admin/metrics/indice-propostas - Recarrega o índice do banco
+ * - GET    /api/admin/metrics/buscas-salvas - Índice das buscas salvas: buscas, propostas
+ *                                           avaliadas, devedores encontrados e última reconstrução
+ * - DELETE /api/admin/metrics/buscas-salvas - Recarrega o índice de buscas salvas do banco
+ * - GET    /api/admin/metrics/idempotencia - Idempotency-Keys: reservas, repetições respondidas
+ *                                          (da memória e do banco), conflitos e ocupação
+ * - DELETE /api/admin/metrics/idempotencia - Esvazia a memória das Idempotency-Keys (o banco continua valendo)
+ * - GET    /api/admin/metrics/notificacoes - Entrega das notificações: eventos na fila, lotes,
+ *                                          entregues, descartados e atraso da entrega
+ * - DELETE /api/admin/metrics/notificacoes - Zera contadores e histogramas da entrega
+ * - GET    /api/admin/metrics/notificacoes-stream - Streams SSE desta instância: conexões abertas,
+ *                                                 eventos, retomadas, desconexões e o canal
+ *                                                 LISTEN/NOTIFY
+ * - DELETE /api/admin/metrics/notificacoes-stream - Zera os contadores dos streams
+ * - GET    /api/admin/metrics/consultas - Comandos SQL por requisição, por endpoint (detecta N+1)
+ * - DELETE /api/admin/metrics/consultas - Zera a contagem por endpoint
+ * - GET    /api/admin/metrics/persistence - Estatísticas do Hibernate: tempo por consulta JPQL,
+ *                                           entidades carregadas, cache e conexões (JSON, ou
+ *                                           texto do Prometheus com Accept: text/plain)
+ * - DELETE /api/admin/metrics/persistence - Zera as estatísticas do Hibernate
+ */
+@Path("/admin/metrics")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class MetricasController {
+
+    /**
+     * Métricas do pool de conexões
+     * GET /api/admin/metrics/pool
+     */
+    @GET
+    @Path("/pool")
+    public Response metricasPool() {
+        return Response.ok(PoolConexoes.snapshot()).build();
+    }
+
+    /**
+     * Zerar métricas acumuladas do pool
+     * DELETE /api/admin/metrics/pool
+     */
+    @DELETE
+    @Path("/pool")
+    public Response resetarMetricasPool() {
+        PoolConexoes.resetarMetricas();
+        return Response.noContent().build();
+    }
+
+    /**
+     * Estado das réplicas de leitura
+     * GET /api/admin/metrics/replicas
+     */
+    @GET
+    @Path("/replicas")
+    public Response metricasReplicas() {
+        return Response.ok(JPAUtil.snapshotReplicas()).build();
+    }
+
+    /**
+     * Estatísticas do cache de segundo nível
+     * GET /api/admin/metrics/cache
+     */
+    @GET
+    @Path("/cache")
+    public Response metricasCache() {
+        return Response.ok(CacheSegundoNivel.snapshot(JPAUtil.getEntityManagerFactory())).build();
+    }
+
+    /**
+     * Esvaziar o cache de segundo nível
+     * DELETE /api/admin/metrics/cache
+     */
+    @DELETE
+    @Path("/cache")
+    public Response limparCache() {
+        CacheSegundoNivel.limpar(JPAUtil.getEntityManagerFactory());
+        return Response.noContent().build();
+    }
+
+    /**
+     * Estatísticas do cache de opções de parcelamento
+     * GET /api/admin/metrics/opcoes-parcelas
+     */
+    @GET
+    @Path("/opcoes-parcelas")
+    public Response metricasOpcoesParcelas() {
+        return Response.ok(CacheOpcoesParcelas.snapshot()).build();
+    }
+
+    /**
+     * Esvaziar o cache de opções de parcelamento
+     * DELETE /api/admin/metrics/opcoes-parcelas
+     */
+    @DELETE
+    @Path("/opcoes-parcelas")
+    public Response limparOpcoesParcelas() {
+        CacheOpcoesParcelas.limpar();
+        return Response.noContent().build();
+    }
+
+    /**
+     * Estado do índice de propostas do marketplace
+     * GET /api/admin/metrics/indice-propostas
+     */
+    @GET
+    @Path("/indice-propostas")
+    public Response metricasIndicePropostas() {
+        return Response.ok(IndicePropostas.snapshot()).build();
+    }
+
+    /**
+     * Recarregar o índice de propostas do banco
+     * DELETE /api/admin/metrics/indice-propostas
+     */
+    @DELETE
+    @Path("/indice-propostas")
+    public Response reconstruirIndicePropostas() {
+        IndicePropostas.reconstruir(JPAUtil.getEntityManagerFactory());
+        return Response.noContent().build();
+    }
+
+    /**
+     * Estado do índice de buscas salvas
+     * GET /api/admin/metrics/buscas-salvas
+     */
+    @GET
+    @Path("/buscas-salvas")
+    public Response metricasBuscasSalvas() {
+        return Response.ok(IndiceBuscasSalvas.snapshot()).build();
+    }
+
+    /**
+     * Recarregar o índice de buscas salvas do banco
+     * DELETE /api/admin/metrics/buscas-salvas
+     */
+    @DELETE
+    @Path("/buscas-salvas")
+    public Response reconstruirBuscasSalvas() {
+        IndiceBuscasSalvas.reconstruir(JPAUtil.getEntityManagerFactory());
+        return Response.noContent().build();
+    }
+
+    /**
+     * Estatísticas das Idempotency-Keys
+     * GET /api/admin/metrics/idempotencia
+     */
+    @GET
+    @Path("/idempotencia")
+    public Response metricasIdempotencia() {
+        return Response.ok(ChavesIdempotencia.snapshot()).build();
+    }
+
+    /**
+     * Esvaziar a memória das Idempotency-Keys
+     * DELETE /api/admin/metrics/idempotencia
+     */
+    @DELETE
+    @Path("/idempotencia")
+    public Response limparIdempotencia() {
+        ChavesIdempotencia.limpar();
+        return Response.noContent().build();
+    }
+
+    /**
+     * Estado da entrega das notificações
+     * GET /api/admin/metrics/notificacoes
+     */
+    @GET
+    @Path("/notificacoes")
+    public Response metricasNotificacoes() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("pendentes", EntregaNotificacoes.pendentes(JPAUtil.getEntityManagerFactory()));
+        snapshot.putAll(EntregaNotificacoes.snapshot());
+        return Response.ok(snapshot).build();
+    }
+
+    /**
+     * Zerar contadores e histogramas da entrega das notificações
+     * DELETE /api/admin/metrics/notificacoes
+     */
+    @DELETE
+    @Path("/notificacoes")
+    public Response limparNotificacoes() {
+        EntregaNotificacoes.limpar();
+        return Response.noContent().build();
+    }
+
+    /**
+     * Streams SSE de notificações abertos nesta instância
+     * GET /api/admin/metrics/notificacoes-stream
+     */
+    @GET
+    @Path("/notificacoes-stream")
+    public Response metricasStreamNotificacoes() {
+        return Response.ok(FluxoNotificacoes.snapshot()).build();
+    }
+
+    /**
+     * Zerar contadores dos streams de notificações
+     * DELETE /api/admin/metrics/notificacoes-stream
+     */
+    @DELETE
+    @Path("/notificacoes-stream")
+    public Response limparStreamNotificacoes() {
+        FluxoNotificacoes.limpar();
+        return Response.noContent().build();
+    }
+
+    /**
+     * Comandos SQL por requisição, agrupados por endpoint
+     * GET /api/admin/metrics/consultas
+     */
+    @GET
+    @Path("/consultas")
+    public Response metricasConsultas() {
+        return Response.ok(ContadorConsultas.snapshot()).build();
+    }
+
+    /**
+     * Zerar contagem de comandos SQL por endpoint
+     * DELETE /api/admin/metrics/consultas
+     */
+    @DELETE
+    @Path("/consultas")
+    public Response resetarMetricasConsultas() {
+        ContadorConsultas.resetar();
+        return Response.noContent().build();
+    }
+
+    /**
+     * Estatísticas do Hibernate em JSON (padrão)
+     * GET /api/admin/metrics/persistence
+     */
+    @GET
+    @Path("/persistence")
+    @Produces({"application/json; qs=1"})
+    public Response metricasPersistencia() {
+        return Response.ok(EstatisticasPersistencia.snapshot(JPAUtil.getEntityManagerFactory())).build();
+    }
+
+    /**
+     * Estatísticas do Hibernate no formato do Prometheus (scrape com Accept: text/plain)
+     * GET /api/admin/metrics/persistence
+     */
+    @GET
+    @Path("/persistence")
+    @Produces({"text/plain; qs=0.5"})
+    public Response metricasPersistenciaPrometheus() {
+        return Response.ok(EstatisticasPersistencia.prometheus(JPAUtil.getEntityManagerFactory()))
+                .type(EstatisticasPersistencia.TIPO_PROMETHEUS)
+                .build();
+    }
+
+    /**
+     * Zerar estatísticas do Hibernate (inclui acertos/faltas do cache)
+     * DELETE /api/admin/metrics/persistence
+     */
+    @DELETE
+    @Path("/persistence")
+    public Response resetarMetricasPersistencia() {
+        EstatisticasPersistencia.resetar(JPAUtil.getEntityManagerFactory());
+        return Response.noContent().build();
+    }
+}
@@ -1,6 +1,7 @@
 package com.agilit.controller.auth;
 
 import com.agilit.config.AppException;
+import com.agilit.config.SemIdempotencia;
 import com.agilit.model.Usuario;
 import com.agilit.service.AuthService;
 import jakarta.ws.rs.*;
@@ -39,6 +40,7 @@ public class AuthController {
      */
     @POST
     @Path("/login")
+    @SemIdempotencia
     public Response login(LoginDTO dto) {
         // Validações
         if (dto.email == null || dto.email.trim().isEmpty()) {
@@ -1,12 +1,22 @@
 package com.agilit.controller.credor;
 
-import com.agilit.config.JPAUtil;
+import com.agilit.config.AppException;
+import com.agilit.config.CacheSegundoNivel;
+import com.agilit.config.Paginacao;
+import com.agilit.config.SomenteLeitura;
+import com.agilit.config.Transacional;
 import com.agilit.model.Credor;
+import com.agilit.model.dao.CredorDAO;
+import com.agilit.model.dao.Pagina;
+import com.agilit.model.dto.CredorDTO;
+import com.agilit.service.SaldoCredorService;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
-import java.util.List;
+import jakarta.ws.rs.core.UriInfo;
 
 /**
  * Controller para gerenciar Credores.
@@ -14,30 +24,35 @@ import java.util.List;
  * AÇÕES:
  * - CREDOR: Criar conta, atualizar dados, visualizar perfil, deletar conta
  *
- * NOTA: Relacionamentos LAZY protegidos com @JsonIgnore nas entidades.
- * Retorna entidades diretamente sem necessidade de DTOs.
+ * NOTA: As leituras (GET) retornam CredorDTO, sem o hash da senha.
+ * Criação e atualização continuam recebendo e retornando a entidade.
  */
 @Path("/credor")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class CredorController {
 
+    @Inject
+    private EntityManager em;
+
 
 
     /**
-     * Lista todos os credores
+     * Lista os credores, paginado por cursor
      *
-     * @return Lista de Credor
+     * @param cursor Token da página anterior (header X-Next-Cursor), ausente na primeira
+     * @param limite Tamanho da página (padrão 50, máximo 200)
+     * @return Página de CredorDTO
      */
     @GET
-    public List<Credor> getAllCredores() {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            return em.createQuery("SELECT c FROM Credor c", Credor.class)
-                    .getResultList();
-        } finally {
-            em.close();
-        }
+    @SomenteLeitura
+    public Response getAllCredores(@QueryParam("cursor") String cursor,
+                                   @QueryParam("limite") Integer limite,
+                                   @Context UriInfo uriInfo) {
+        int tamanho = Paginacao.limite(limite);
+        Pagina<CredorDTO> pagina =
+                new CredorDAO(em).findPagina(Paginacao.cursor(cursor, Long.class), tamanho);
+        return Paginacao.resposta(pagina, tamanho, uriInfo);
     }
 
     /**
@@ -48,22 +63,18 @@ public class CredorController {
      */
     @GET
     @Path("/{id}")
+    @SomenteLeitura
     public Response getCredorById(@PathParam("id") Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
-        try {
-            Credor credor = em.find(Credor.class, id);
-            
-            if (credor == null) {
-                return Response.status(Response.Status.NOT_FOUND)
-                              .entity("{\"erro\":\"Credor não encontrado\"}")
-                              .build();
-            }
-            
-            return Response.ok(credor).build();
-            
-        } finally {
-            em.close();
+        // Do banco: o saldo no cache pode estar atrás das movimentações
+        Credor credor = em.find(Credor.class, id, CacheSegundoNivel.LER_DO_BANCO);
+        
+        if (credor == null) {
+            return Response.status(Response.Status.NOT_FOUND)
+                          .entity("{\"erro\":\"Credor não encontrado\"}")
+                          .build();
         }
+        
+        return Response.ok(CredorDTO.de(credor)).build();
     }
 
     /**
@@ -73,27 +84,19 @@ public class CredorController {
      * @return Credor criado
      */
     @POST
+    @Transacional
     public Response createCredor(Credor credor) {
-        EntityManager em = JPAUtil.getEntityManager();
         try {
-            em.getTransaction().begin();
             em.persist(credor);
-            em.getTransaction().commit();
+            SaldoCredorService.registrarSaldoInicial(em, credor);
 
             return Response.status(Response.Status.CREATED).entity(credor).build();
-
+        } catch (AppException e) {
+            throw e;
         } catch (Exception e) {
-
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
-
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                         .entity("{\"erro\":\"" + e.getMessage() + "\"}")
                         .build();
-
-        } finally {
-            em.close();
         }
     }
 
@@ -106,14 +109,11 @@ public class CredorController {
      */
     @PUT
     @Path("/{id}")
+    @Transacional
     public Response updateCredor(@PathParam("id") Long id, Credor credorAtualizado) {
-        EntityManager em = JPAUtil.getEntityManager();
         try {
-            em.getTransaction().begin();
-            
-            Credor credor = em.find(Credor.class, id);
+            Credor credor = em.find(Credor.class, id, CacheSegundoNivel.LER_DO_BANCO);
             if (credor == null) {
-                em.getTransaction().rollback();
                 return Response.status(Response.Status.NOT_FOUND)
                               .entity("{\"erro\":\"Credor não encontrado\"}")
                               .build();
@@ -124,24 +124,16 @@ public class CredorController {
             credor.setCpf(credorAtualizado.getCpf());
             credor.setTelefone(credorAtualizado.getTelefone());
             credor.setEmail(credorAtualizado.getEmail());
-            if (credorAtualizado.getSaldoDisponivel() != null) {
-                credor.setSaldoDisponivel(credorAtualizado.getSaldoDisponivel());
-            }
+            // saldoDisponivel é ignorado: saldo só muda por depósito (PUT /credor/saldo/{id})
+            // e pelas movimentações de empréstimo, sempre com linha no extrato
             
             em.merge(credor);
-            em.getTransaction().commit();
             
             return Response.ok(credor).build();
-            
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                           .entity("{\"erro\":\"" + e.getMessage() + "\"}")
                           .build();
-        } finally {
-            em.close();
         }
     }
 
@@ -153,33 +145,23 @@ public class CredorController {
      */
     @DELETE
     @Path("/{id}")
+    @Transacional
     public Response deleteCredor(@PathParam("id") Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
         try {
-            em.getTransaction().begin();
-            
             Credor credor = em.find(Credor.class, id);
             if (credor == null) {
-                em.getTransaction().rollback();
                 return Response.status(Response.Status.NOT_FOUND)
                               .entity("{\"erro\":\"Credor não encontrado\"}")
                               .build();
             }
             
             em.remove(credor);
-            em.getTransaction().commit();
             
             return Response.noContent().build();
-            
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
                           .entity("{\"erro\":\"" + e.getMessage() + "\"}")
                           .build();
-        } finally {
-            em.close();
         }
     }
 }
@@ -1,17 +1,43 @@
 package com.agilit.controller.credor;
 
-import com.agilit.config.JPAUtil;
+import com.agilit.config.AppException;
+import com.agilit.config.CacheSegundoNivel;
+import com.agilit.config.SomenteLeitura;
+import com.agilit.config.Transacional;
+import com.agilit.config.Paginacao;
 import com.agilit.model.Credor;
+import com.agilit.model.MovimentacaoSaldo;
+import com.agilit.model.dao.MovimentacaoSaldoDAO;
+import com.agilit.model.dao.Pagina;
+import com.agilit.model.dto.MovimentacaoSaldoDTO;
+import com.agilit.service.SaldoCredorService;
+import com.agilit.util.Dinheiro;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
 
+/**
+ * Saldo do Credor
+ *
+ * Endpoints:
+ * - PUT /api/credor/saldo/{id} - Depósito (soma ao saldo)
+ * - GET /api/credor/saldo/{id}/extrato - Movimentações do saldo, mais recentes primeiro
+ *
+ * Toda mudança de saldo passa pelo SaldoCredorService: depósito, desembolso
+ * de empréstimo e recebimento de parcela, cada um com sua linha no extrato.
+ */
 @Path("/credor/saldo")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class CredorRegistrarSaldoController {
 
+    @Inject
+    private EntityManager em;
+
 
     // DTO para aquisição do valor somente e não do objeto inteiro
     public static class SaldoDTO {
@@ -21,37 +47,53 @@ public class CredorRegistrarSaldoController {
 
     @PUT
     @Path("/{id}")
+    @Transacional
     public Response registrarSaldo(@PathParam("id") Long id, SaldoDTO dto) {
-
         if (dto == null || dto.valor == null || dto.valor <= 0) {
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity("{\"erro\":\"Valor de depósito inválido\"}")
                     .build();
         }
 
-        EntityManager em = JPAUtil.getEntityManager();
-        em.getTransaction().begin();
-
-        Credor credor = em.find(Credor.class, id);
-
-        if (credor == null) {
-            em.getTransaction().rollback();
-            em.close();
-            return Response.status(Response.Status.NOT_FOUND)
-                    .entity("{\"erro\":\"Credor não encontrado\"}")
-                    .build();
-        }
+        try {
+            // Saldo lido do banco, não do cache de segundo nível
+            Credor credor = em.find(Credor.class, id, CacheSegundoNivel.LER_DO_BANCO);
 
-        // Soma o valor ao saldo atual
-        double novoSaldo = (credor.getSaldoDisponivel() == null ? 0 : credor.getSaldoDisponivel()) 
-                           + dto.valor;
+            if (credor == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                        .entity("{\"erro\":\"Credor não encontrado\"}")
+                        .build();
+            }
 
-        credor.setSaldoDisponivel(novoSaldo);
-        em.merge(credor);
+            // Um UPDATE soma o depósito ao saldo do banco (não ao valor lido
+            // acima, que um depósito simultâneo pode já ter mudado) e o
+            // extrato ganha a linha
+            SaldoCredorService.creditar(em, id, MovimentacaoSaldo.Tipo.DEPOSITO,
+                                        Dinheiro.centavos(dto.valor), null, null);
+            em.refresh(credor);
 
-        em.getTransaction().commit();
-        em.close();
+            return Response.ok(credor).build();
+        } catch (AppException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new AppException("Erro ao registrar saldo: " + e.getMessage(), 500);
+        }
+    }
 
-        return Response.ok(credor).build();
+    /**
+     * Extrato do saldo (paginado)
+     * GET /api/credor/saldo/{id}/extrato?limite=50&cursor=...
+     */
+    @GET
+    @Path("/{id}/extrato")
+    @SomenteLeitura
+    public Response extrato(@PathParam("id") Long id,
+                            @QueryParam("limite") Integer limite,
+                            @QueryParam("cursor") String cursor,
+                            @Context UriInfo uriInfo) {
+        int tamanho = Paginacao.limite(limite);
+        Pagina<MovimentacaoSaldoDTO> pagina = new MovimentacaoSaldoDAO(em)
+                .findPaginaByCredor(id, Paginacao.cursor(cursor, Long.class), tamanho);
+        return Paginacao.resposta(pagina, tamanho, uriInfo);
     }
 }
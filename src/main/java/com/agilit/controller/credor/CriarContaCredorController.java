@@ -1,9 +1,11 @@
 package com.agilit.controller.credor;
 
 import com.agilit.config.AppException;
-import com.agilit.config.JPAUtil;
 import com.agilit.config.PasswordUtil;
+import com.agilit.config.Transacional;
 import com.agilit.model.Credor;
+import com.agilit.service.SaldoCredorService;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
@@ -30,14 +32,14 @@ import java.util.List;
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class CriarContaCredorController {
+
+    @Inject
+    private EntityManager em;
     
     @POST
+    @Transacional
     public Response criarConta(Credor novoCredor) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-            
             // Validações de campos obrigatórios
             if (novoCredor.getNome() == null || novoCredor.getNome().trim().isEmpty()) {
                 throw new AppException("Nome é obrigatório", 400);
@@ -85,22 +87,15 @@ public class CriarContaCredorController {
             }
             
             em.persist(novoCredor);
-            em.getTransaction().commit();
             
-            return Response.status(Response.Status.CREATED).entity(novoCredor).build();
+            // Saldo inicial entra no extrato como depósito
+            SaldoCredorService.registrarSaldoInicial(em, novoCredor);
             
+            return Response.status(Response.Status.CREATED).entity(novoCredor).build();
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao criar conta: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
 }
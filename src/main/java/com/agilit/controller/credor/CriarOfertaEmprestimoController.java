@@ -1,9 +1,12 @@
 package com.agilit.controller.credor;
 
 import com.agilit.config.AppException;
-import com.agilit.config.JPAUtil;
+import com.agilit.config.CacheSegundoNivel;
+import com.agilit.config.SomenteLeitura;
+import com.agilit.config.Transacional;
 import com.agilit.model.Credor;
 import com.agilit.model.OfertaEmprestimo;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
@@ -38,14 +41,14 @@ import java.time.LocalDateTime;
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class CriarOfertaEmprestimoController {
+
+    @Inject
+    private EntityManager em;
     
     @POST
+    @Transacional
     public Response criarOferta(OfertaEmprestimo oferta) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-            
             // Validação: Credor obrigatório
             if (oferta.getCredor() == null || oferta.getCredor().getId() == null) {
                 throw new AppException("Credor é obrigatório", 400);
@@ -79,13 +82,13 @@ public class CriarOfertaEmprestimoController {
             }
             
             // Buscar credor
-            Credor credor = em.find(Credor.class, oferta.getCredor().getId());
+            Credor credor = em.find(Credor.class, oferta.getCredor().getId(), CacheSegundoNivel.LER_DO_BANCO);
             if (credor == null) {
                 throw new AppException("Credor não encontrado", 404);
             }
             
             // Validação: Verificar saldo disponível
-            if (credor.getSaldoDisponivel() < oferta.getValorDisponivel()) {
+            if (credor.getSaldoDisponivelCentavos() < oferta.getValorDisponivelCentavos()) {
                 throw new AppException(
                     String.format("Saldo insuficiente. Disponível: R$ %.2f, Necessário: R$ %.2f", 
                                  credor.getSaldoDisponivel(), oferta.getValorDisponivel()), 
@@ -99,22 +102,12 @@ public class CriarOfertaEmprestimoController {
             oferta.setAtiva(true);
             
             em.persist(oferta);
-            em.getTransaction().commit();
             
             return Response.status(Response.Status.CREATED).entity(oferta).build();
-            
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao criar oferta: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
     
@@ -124,22 +117,16 @@ public class CriarOfertaEmprestimoController {
      */
     @GET
     @Path("/minhas/{credorId}")
+    @SomenteLeitura
     public Response listarMinhasOfertas(@PathParam("credorId") Long credorId) {
-        EntityManager em = JPAUtil.getEntityManager();
+        var ofertas = em.createQuery(
+            "SELECT o FROM OfertaEmprestimo o WHERE o.credor.id = :credorId ORDER BY o.dataCriacao DESC",
+            OfertaEmprestimo.class
+        )
+        .setParameter("credorId", credorId)
+        .getResultList();
         
-        try {
-            var ofertas = em.createQuery(
-                "SELECT o FROM OfertaEmprestimo o WHERE o.credor.id = :credorId ORDER BY o.dataCriacao DESC",
-                OfertaEmprestimo.class
-            )
-            .setParameter("credorId", credorId)
-            .getResultList();
-            
-            return Response.ok(ofertas).build();
-            
-        } finally {
-            em.close();
-        }
+        return Response.ok(ofertas).build();
     }
     
     /**
@@ -148,22 +135,16 @@ public class CriarOfertaEmprestimoController {
      */
     @GET
     @Path("/minhas/{credorId}/ativas")
+    @SomenteLeitura
     public Response listarMinhasOfertasAtivas(@PathParam("credorId") Long credorId) {
-        EntityManager em = JPAUtil.getEntityManager();
+        var ofertas = em.createQuery(
+            "SELECT o FROM OfertaEmprestimo o WHERE o.credor.id = :credorId AND o.ativa = true ORDER BY o.dataCriacao DESC",
+            OfertaEmprestimo.class
+        )
+        .setParameter("credorId", credorId)
+        .getResultList();
         
-        try {
-            var ofertas = em.createQuery(
-                "SELECT o FROM OfertaEmprestimo o WHERE o.credor.id = :credorId AND o.ativa = true ORDER BY o.dataCriacao DESC",
-                OfertaEmprestimo.class
-            )
-            .setParameter("credorId", credorId)
-            .getResultList();
-            
-            return Response.ok(ofertas).build();
-            
-        } finally {
-            em.close();
-        }
+        return Response.ok(ofertas).build();
     }
 }
 
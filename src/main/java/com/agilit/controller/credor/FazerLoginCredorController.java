@@ -1,6 +1,7 @@
 package com.agilit.controller.credor;
 
 import com.agilit.config.AppException;
+import com.agilit.config.SemIdempotencia;
 import com.agilit.model.Credor;
 import com.agilit.service.AuthService;
 import jakarta.ws.rs.*;
@@ -39,6 +40,7 @@ public class FazerLoginCredorController {
     private final AuthService authService = new AuthService();
     
     @POST
+    @SemIdempotencia
     public Response login(LoginDTO dto) {
         // Validações
         if (dto.email == null || dto.email.trim().isEmpty()) {
@@ -1,10 +1,13 @@
 package com.agilit.controller.credor;
 
 import com.agilit.config.AppException;
-import com.agilit.config.JPAUtil;
+import com.agilit.config.SomenteLeitura;
+import com.agilit.config.Transacional;
 import com.agilit.model.OfertaEmprestimo;
 import com.agilit.model.PropostaEmprestimo;
 import com.agilit.util.GeradorIdPublico;
+import com.agilit.util.NotificacaoService;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
@@ -30,19 +33,20 @@ import java.time.LocalDateTime;
  * - Gera ID público único para a proposta
  * - Permite ajustar taxa de juros ao gerar proposta
  * - Proposta herda dados da oferta
+ * - Notifica os devedores com busca salva que a proposta atende
  */
 @Path("/credor/gerar-proposta")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class GerarPropostaEmprestimoController {
+
+    @Inject
+    private EntityManager em;
     
     @POST
+    @Transacional
     public Response gerarProposta(GerarPropostaDTO dto) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-            
             // Validação: ID da oferta obrigatório
             if (dto.ofertaId == null) {
                 throw new AppException("ID da oferta é obrigatório", 400);
@@ -59,8 +63,8 @@ public class GerarPropostaEmprestimoController {
                 throw new AppException("Oferta não está ativa", 400);
             }
             
-            // Gerar ID público único
-            String idPublico = gerarIdPublicoUnico(em);
+            // ID público único (sequence + permutação, sem consulta de conferência)
+            String idPublico = GeradorIdPublico.gerar(em);
             
             // Criar proposta baseada na oferta
             PropostaEmprestimo proposta = new PropostaEmprestimo();
@@ -68,7 +72,7 @@ public class GerarPropostaEmprestimoController {
             proposta.setOfertaOrigem(oferta);
             proposta.setCredor(oferta.getCredor());
             proposta.setNomeCredor(oferta.getCredor().getNome());
-            proposta.setValorDisponivel(oferta.getValorDisponivel());
+            proposta.setValorDisponivelCentavos(oferta.getValorDisponivelCentavos());
             proposta.setParcelasMinimas(oferta.getParcelasMinimas());
             proposta.setParcelasMaximas(oferta.getParcelasMaximas());
             proposta.setDiasAtePrimeiraCobranca(oferta.getDiasAtePrimeiraCobranca());
@@ -87,74 +91,34 @@ public class GerarPropostaEmprestimoController {
             proposta.setStatus("ATIVA");
             
             em.persist(proposta);
-            em.getTransaction().commit();
             
-            return Response.status(Response.Status.CREATED).entity(proposta).build();
+            // Devedores com busca salva que a proposta atende
+            NotificacaoService.notificarBuscasSalvas(em, proposta);
             
+            return Response.status(Response.Status.CREATED).entity(proposta).build();
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao gerar proposta: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
     
-    /**
-     * Gera um ID público único para a proposta
-     */
-    private String gerarIdPublicoUnico(EntityManager em) {
-        String idPublico;
-        int tentativas = 0;
-        
-        do {
-            idPublico = GeradorIdPublico.gerar();
-            Long count = em.createQuery(
-                "SELECT COUNT(p) FROM PropostaEmprestimo p WHERE p.idPublico = :idPublico",
-                Long.class
-            )
-            .setParameter("idPublico", idPublico)
-            .getSingleResult();
-            
-            if (count == 0) {
-                return idPublico;
-            }
-            
-            tentativas++;
-            if (tentativas > 10) {
-                throw new AppException("Erro ao gerar ID público único após 10 tentativas", 500);
-            }
-        } while (true);
-    }
-    
     /**
      * Listar propostas geradas pelo credor
      * GET /api/credor/gerar-proposta/minhas/{credorId}
      */
     @GET
     @Path("/minhas/{credorId}")
+    @SomenteLeitura
     public Response listarMinhasPropostas(@PathParam("credorId") Long credorId) {
-        EntityManager em = JPAUtil.getEntityManager();
+        var propostas = em.createQuery(
+            "SELECT p FROM PropostaEmprestimo p WHERE p.credor.id = :credorId ORDER BY p.dataCriacao DESC",
+            PropostaEmprestimo.class
+        )
+        .setParameter("credorId", credorId)
+        .getResultList();
         
-        try {
-            var propostas = em.createQuery(
-                "SELECT p FROM PropostaEmprestimo p WHERE p.credor.id = :credorId ORDER BY p.dataCriacao DESC",
-                PropostaEmprestimo.class
-            )
-            .setParameter("credorId", credorId)
-            .getResultList();
-            
-            return Response.ok(propostas).build();
-            
-        } finally {
-            em.close();
-        }
+        return Response.ok(propostas).build();
     }
     
     /**
@@ -163,22 +127,16 @@ public class GerarPropostaEmprestimoController {
      */
     @GET
     @Path("/minhas/{credorId}/ativas")
+    @SomenteLeitura
     public Response listarMinhasPropostasAtivas(@PathParam("credorId") Long credorId) {
-        EntityManager em = JPAUtil.getEntityManager();
+        var propostas = em.createQuery(
+            "SELECT p FROM PropostaEmprestimo p WHERE p.credor.id = :credorId AND p.status = 'ATIVA' ORDER BY p.dataCriacao DESC",
+            PropostaEmprestimo.class
+        )
+        .setParameter("credorId", credorId)
+        .getResultList();
         
-        try {
-            var propostas = em.createQuery(
-                "SELECT p FROM PropostaEmprestimo p WHERE p.credor.id = :credorId AND p.status = 'ATIVA' ORDER BY p.dataCriacao DESC",
-                PropostaEmprestimo.class
-            )
-            .setParameter("credorId", credorId)
-            .getResultList();
-            
-            return Response.ok(propostas).build();
-            
-        } finally {
-            em.close();
-        }
+        return Response.ok(propostas).build();
     }
     
     /**
@@ -187,12 +145,9 @@ public class GerarPropostaEmprestimoController {
      */
     @PUT
     @Path("/{propostaId}/cancelar")
+    @Transacional
     public Response cancelarProposta(@PathParam("propostaId") Long propostaId) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-            
             PropostaEmprestimo proposta = em.find(PropostaEmprestimo.class, propostaId);
             
             if (proposta == null) {
@@ -224,22 +179,12 @@ public class GerarPropostaEmprestimoController {
             
             proposta.setStatus("CANCELADA");
             em.merge(proposta);
-            em.getTransaction().commit();
             
             return Response.ok(proposta).build();
-            
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao cancelar proposta: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
     
@@ -1,18 +1,15 @@
 package com.agilit.controller.credor;
 
 import com.agilit.config.AppException;
-import com.agilit.config.JPAUtil;
-import com.agilit.controller.emprestimo.StatusEmprestimo;
+import com.agilit.config.SomenteLeitura;
 import com.agilit.model.*;
-import com.agilit.util.CalculadoraEmprestimo;
-import com.agilit.util.NotificacaoService;
+import com.agilit.model.dto.EmprestimoDTO;
+import com.agilit.service.OriginacaoEmprestimoService;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -37,113 +34,47 @@ import java.util.List;
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class RegistrarEmprestimoController {
+
+    @Inject
+    private EntityManager em;
     
     /**
      * Confirmar empréstimo pelo credor
+     *
+     * Sem @Transacional: o OriginacaoEmprestimoService abre a própria
+     * transação e a repete em caso de conflito com a confirmação do devedor.
      */
     @POST
     @Path("/{interesseId}/confirmar")
     public Response confirmarEmprestimo(
             @PathParam("interesseId") Long interesseId,
             ConfirmacaoDTO dto) {
-        
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-            
-            // Buscar interesse
-            InteresseProposta interesse = em.find(InteresseProposta.class, interesseId);
-            
-            if (interesse == null) {
-                throw new AppException("Interesse não encontrado", 404);
-            }
-            
-            // Validação: Interesse deve estar aprovado
-            if (!"APROVADO".equals(interesse.getStatus())) {
-                throw new AppException("Interesse deve estar aprovado para confirmação", 400);
-            }
-            
-            // Validação: Credor não pode ter confirmado ainda
-            if (interesse.getConfirmacaoCredor()) {
-                throw new AppException("Credor já confirmou este empréstimo", 400);
-            }
-            
-            // Validação: Número de parcelas obrigatório
-            if (dto.numeroParcelas == null) {
-                throw new AppException("Número de parcelas é obrigatório", 400);
-            }
-            
-            // Validação: Número de parcelas dentro do range
-            PropostaEmprestimo proposta = interesse.getProposta();
-            if (dto.numeroParcelas < proposta.getParcelasMinimas() || 
-                dto.numeroParcelas > proposta.getParcelasMaximas()) {
-                throw new AppException(
-                    String.format("Número de parcelas deve estar entre %d e %d", 
-                                 proposta.getParcelasMinimas(), proposta.getParcelasMaximas()),
-                    400
-                );
-            }
-            
-            // Validação: Verificar saldo do credor
-            Credor credor = proposta.getCredor();
-            if (credor.getSaldoDisponivel() < proposta.getValorDisponivel()) {
-                throw new AppException(
-                    String.format("Saldo insuficiente. Disponível: R$ %.2f, Necessário: R$ %.2f",
-                                 credor.getSaldoDisponivel(), proposta.getValorDisponivel()),
-                    400
-                );
-            }
-            
-            // Registrar confirmação do credor
-            interesse.setConfirmacaoCredor(true);
-            interesse.setDataConfirmacaoCredor(LocalDateTime.now());
-            em.merge(interesse);
+            OriginacaoEmprestimoService.Resultado resultado = new OriginacaoEmprestimoService()
+                .confirmar(interesseId, OriginacaoEmprestimoService.Parte.CREDOR, dto.numeroParcelas);
             
-            // Se ambos confirmaram, criar empréstimo
-            if (interesse.getConfirmacaoDevedor()) {
-                Emprestimo emprestimo = criarEmprestimo(em, interesse, dto.numeroParcelas);
-                em.getTransaction().commit();
-                
+            // Se ambos confirmaram, o empréstimo foi criado
+            if (resultado.emprestimo() != null) {
                 return Response.ok()
                     .entity(new ConfirmacaoResponse(
                         "Empréstimo criado com sucesso",
-                        interesse,
-                        emprestimo
+                        resultado.interesse(),
+                        resultado.emprestimo()
                     ))
                     .build();
             } else {
-                // Notificar devedor para confirmar
-                NotificacaoService.criarNotificacao(
-                    em, "DEVEDOR", interesse.getDevedor().getId(),
-                    "CONFIRMACAO_PENDENTE",
-                    "Aguardando sua Confirmação",
-                    "O credor confirmou o empréstimo. Confirme para finalizar."
-                );
-                
-                em.getTransaction().commit();
-                
                 return Response.ok()
                     .entity(new ConfirmacaoResponse(
                         "Confirmação registrada. Aguardando confirmação do devedor.",
-                        interesse,
+                        resultado.interesse(),
                         null
                     ))
                     .build();
             }
-            
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao registrar empréstimo: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
     
@@ -153,26 +84,20 @@ public class RegistrarEmprestimoController {
      */
     @GET
     @Path("/pendentes/{credorId}")
+    @SomenteLeitura
     public Response listarPendentes(@PathParam("credorId") Long credorId) {
-        EntityManager em = JPAUtil.getEntityManager();
+        var interesses = em.createQuery(
+            "SELECT i FROM InteresseProposta i " +
+            "WHERE i.proposta.credor.id = :credorId " +
+            "AND i.status = 'APROVADO' " +
+            "AND i.confirmacaoCredor = false " +
+            "ORDER BY i.dataInteresse DESC",
+            InteresseProposta.class
+        )
+        .setParameter("credorId", credorId)
+        .getResultList();
         
-        try {
-            var interesses = em.createQuery(
-                "SELECT i FROM InteresseProposta i " +
-                "WHERE i.proposta.credor.id = :credorId " +
-                "AND i.status = 'APROVADO' " +
-                "AND i.confirmacaoCredor = false " +
-                "ORDER BY i.dataInteresse DESC",
-                InteresseProposta.class
-            )
-            .setParameter("credorId", credorId)
-            .getResultList();
-            
-            return Response.ok(interesses).build();
-            
-        } finally {
-            em.close();
-        }
+        return Response.ok(interesses).build();
     }
     
     /**
@@ -181,93 +106,16 @@ public class RegistrarEmprestimoController {
      */
     @GET
     @Path("/meus/{credorId}")
+    @SomenteLeitura
     public Response listarMeusEmprestimos(@PathParam("credorId") Long credorId) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
-        try {
-            var emprestimos = em.createQuery(
-                "SELECT e FROM Emprestimo e WHERE e.credor.id = :credorId ORDER BY e.dataInicio DESC",
-                Emprestimo.class
-            )
-            .setParameter("credorId", credorId)
-            .getResultList();
-            
-            return Response.ok(emprestimos).build();
-            
-        } finally {
-            em.close();
-        }
-    }
-    
-    /**
-     * Método privado para criar empréstimo após confirmação bilateral
-     */
-    private Emprestimo criarEmprestimo(EntityManager em, InteresseProposta interesse, Integer numeroParcelas) {
-        PropostaEmprestimo proposta = interesse.getProposta();
-        Credor credor = proposta.getCredor();
-        Devedor devedor = interesse.getDevedor();
-        
-        // Calcular valores
-        double valorPrincipal = proposta.getValorDisponivel();
-        double juros = CalculadoraEmprestimo.calcularJurosSimples(
-            valorPrincipal, proposta.getTaxaJuros(), numeroParcelas
-        );
-        double valorTotal = valorPrincipal + juros;
-        double valorParcela = valorTotal / numeroParcelas;
-        
-        // Criar empréstimo
-        Emprestimo emprestimo = new Emprestimo();
-        emprestimo.setDevedor(devedor);
-        emprestimo.setCredor(credor);
-        emprestimo.setPropostaOrigem(proposta);
-        emprestimo.setInteresseOrigem(interesse);
-        emprestimo.setValorPrincipal(valorPrincipal);
-        emprestimo.setJurosAplicados(juros);
-        emprestimo.setValorTotal(valorTotal);
-        emprestimo.setNumeroParcelas(numeroParcelas);
-        emprestimo.setParcelasPagas(0);
-        emprestimo.setDataInicio(LocalDate.now());
-        
-        // Calcular data de vencimento
-        LocalDate dataVencimento = CalculadoraEmprestimo.calcularDataVencimentoFinal(
-            LocalDate.now(), numeroParcelas, proposta.getDiasAtePrimeiraCobranca()
-        );
-        emprestimo.setDataVencimento(dataVencimento);
-        emprestimo.setStatus(StatusEmprestimo.EM_ANDAMENTO);
-        
-        // Criar parcelas
-        List<LocalDate> datasParcelas = CalculadoraEmprestimo.calcularDatasParcelas(
-            LocalDate.now(), numeroParcelas, proposta.getDiasAtePrimeiraCobranca()
-        );
-        
-        List<Parcela> parcelas = new ArrayList<>();
-        for (int i = 0; i < numeroParcelas; i++) {
-            Parcela parcela = new Parcela();
-            parcela.setEmprestimo(emprestimo);
-            parcela.setNumeroParcela(i + 1);
-            parcela.setValor(CalculadoraEmprestimo.arredondar(valorParcela));
-            parcela.setDataVencimento(datasParcelas.get(i));
-            parcela.setPaga(false);
-            parcela.setAtrasada(false);
-            parcelas.add(parcela);
-        }
-        
-        emprestimo.setParcelas(parcelas);
-        em.persist(emprestimo);
-        
-        // Atualizar saldo do credor
-        credor.setSaldoDisponivel(credor.getSaldoDisponivel() - valorPrincipal);
-        em.merge(credor);
-        
-        // Atualizar status da proposta
-        proposta.setStatus("ACEITA");
-        em.merge(proposta);
-        
-        // Notificar ambos
-        NotificacaoService.notificarConfirmacao(em, "CREDOR", credor.getId(), emprestimo);
-        NotificacaoService.notificarConfirmacao(em, "DEVEDOR", devedor.getId(), emprestimo);
+        var emprestimos = em.createQuery(
+            EmprestimoDTO.SELECT + " WHERE e.credor.id = :credorId ORDER BY e.dataInicio DESC",
+            EmprestimoDTO.class
+        )
+        .setParameter("credorId", credorId)
+        .getResultList();
         
-        return emprestimo;
+        return Response.ok(emprestimos).build();
     }
     
     /**
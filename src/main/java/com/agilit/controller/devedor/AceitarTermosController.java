@@ -1,8 +1,10 @@
 package com.agilit.controller.devedor;
 
 import com.agilit.config.AppException;
-import com.agilit.config.JPAUtil;
+import com.agilit.config.SomenteLeitura;
+import com.agilit.config.Transacional;
 import com.agilit.model.Devedor;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
@@ -31,21 +33,20 @@ import java.util.Map;
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class AceitarTermosController {
+
+    @Inject
+    private EntityManager em;
     
     /**
      * Aceitar termos de uso
      */
     @POST
     @Path("/{devedorId}")
+    @Transacional
     public Response aceitarTermos(
             @PathParam("devedorId") Long devedorId,
             AceitarTermosDTO dto) {
-        
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-            
             // Buscar devedor
             Devedor devedor = em.find(Devedor.class, devedorId);
             
@@ -73,7 +74,6 @@ public class AceitarTermosController {
             // Em produção, adicione os campos na entidade e persista
             
             em.merge(devedor);
-            em.getTransaction().commit();
             
             // Montar resposta
             Map<String, Object> response = new HashMap<>();
@@ -85,19 +85,10 @@ public class AceitarTermosController {
             response.put("proximoPasso", "Você já pode demonstrar interesse em propostas de empréstimo");
             
             return Response.ok(response).build();
-            
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao aceitar termos: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
     
@@ -124,30 +115,24 @@ public class AceitarTermosController {
      */
     @GET
     @Path("/{devedorId}/status")
+    @SomenteLeitura
     public Response verificarAceitacao(@PathParam("devedorId") Long devedorId) {
-        EntityManager em = JPAUtil.getEntityManager();
+        Devedor devedor = em.find(Devedor.class, devedorId);
         
-        try {
-            Devedor devedor = em.find(Devedor.class, devedorId);
-            
-            if (devedor == null) {
-                throw new AppException("Devedor não encontrado", 404);
-            }
-            
-            // Nota: Em produção, verificar campos reais da entidade
-            // Por enquanto, retornar status genérico
-            Map<String, Object> status = new HashMap<>();
-            status.put("devedorId", devedorId);
-            status.put("aceitouTermos", true); // Verificar campo real
-            status.put("versaoAceita", "1.0"); // Verificar campo real
-            status.put("dataAceitacao", null); // Verificar campo real
-            status.put("precisaAceitar", false); // true se versão mudou
-            
-            return Response.ok(status).build();
-            
-        } finally {
-            em.close();
+        if (devedor == null) {
+            throw new AppException("Devedor não encontrado", 404);
         }
+        
+        // Nota: Em produção, verificar campos reais da entidade
+        // Por enquanto, retornar status genérico
+        Map<String, Object> status = new HashMap<>();
+        status.put("devedorId", devedorId);
+        status.put("aceitouTermos", true); // Verificar campo real
+        status.put("versaoAceita", "1.0"); // Verificar campo real
+        status.put("dataAceitacao", null); // Verificar campo real
+        status.put("precisaAceitar", false); // true se versão mudou
+        
+        return Response.ok(status).build();
     }
     
     /**
@@ -156,29 +141,23 @@ public class AceitarTermosController {
      */
     @GET
     @Path("/{devedorId}/historico")
+    @SomenteLeitura
     public Response obterHistorico(@PathParam("devedorId") Long devedorId) {
-        EntityManager em = JPAUtil.getEntityManager();
+        Devedor devedor = em.find(Devedor.class, devedorId);
         
-        try {
-            Devedor devedor = em.find(Devedor.class, devedorId);
-            
-            if (devedor == null) {
-                throw new AppException("Devedor não encontrado", 404);
-            }
-            
-            // Nota: Em produção, buscar de uma tabela de auditoria
-            // Por enquanto, retornar exemplo
-            Map<String, Object> historico = new HashMap<>();
-            historico.put("devedorId", devedorId);
-            historico.put("devedorNome", devedor.getNome());
-            historico.put("aceitacoes", new java.util.ArrayList<>());
-            historico.put("mensagem", "Histórico de aceitação de termos (implementar tabela de auditoria)");
-            
-            return Response.ok(historico).build();
-            
-        } finally {
-            em.close();
+        if (devedor == null) {
+            throw new AppException("Devedor não encontrado", 404);
         }
+        
+        // Nota: Em produção, buscar de uma tabela de auditoria
+        // Por enquanto, retornar exemplo
+        Map<String, Object> historico = new HashMap<>();
+        historico.put("devedorId", devedorId);
+        historico.put("devedorNome", devedor.getNome());
+        historico.put("aceitacoes", new java.util.ArrayList<>());
+        historico.put("mensagem", "Histórico de aceitação de termos (implementar tabela de auditoria)");
+        
+        return Response.ok(historico).build();
     }
     
     /**
@@ -1,9 +1,15 @@
 package com.agilit.controller.devedor;
 
 import com.agilit.config.AppException;
-import com.agilit.config.JPAUtil;
-import com.agilit.model.PropostaEmprestimo;
+import com.agilit.config.SomenteLeitura;
+import com.agilit.model.dto.PropostaEmprestimoDTO;
+import com.agilit.service.IndicePropostas;
+import com.agilit.util.CacheOpcoesParcelas;
 import com.agilit.util.CalculadoraEmprestimo;
+import com.agilit.util.Dinheiro;
+import com.agilit.util.SistemaAmortizacao;
+import com.fasterxml.jackson.databind.util.RawValue;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
@@ -21,6 +27,11 @@ import java.util.Map;
  * - GET /api/devedor/buscar-propostas/{idPublico} - Busca proposta específica
  * - GET /api/devedor/buscar-propostas/{idPublico}/detalhes - Detalhes completos com simulações
  * 
+ * As listagens de propostas ativas vêm do IndicePropostas (em memória), e
+ * do banco enquanto o índice não foi carregado. Elas não são @SomenteLeitura:
+ * a transação pegaria uma conexão do pool mesmo com a resposta vindo do
+ * índice; a consulta de reserva roda sem transação.
+ * 
  * Query Parameters para filtros:
  * - valorMin: Valor mínimo
  * - valorMax: Valor máximo
@@ -32,6 +43,9 @@ import java.util.Map;
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class BuscarPropostasController {
+
+    @Inject
+    private EntityManager em;
     
     /**
      * Listar todas as propostas ativas com filtros opcionais
@@ -44,49 +58,55 @@ public class BuscarPropostasController {
             @QueryParam("parcelasMin") Integer parcelasMin,
             @QueryParam("parcelasMax") Integer parcelasMax,
             @QueryParam("taxaJurosMax") Double taxaJurosMax) {
+        Long valorMinCentavos = valorMin != null ? Dinheiro.centavos(valorMin) : null;
+        Long valorMaxCentavos = valorMax != null ? Dinheiro.centavos(valorMax) : null;
+
+        // Índice em memória das propostas ativas; até ele carregar, o banco
+        List<PropostaEmprestimoDTO> propostas = IndicePropostas.carregado()
+                ? IndicePropostas.buscar(valorMinCentavos, valorMaxCentavos, parcelasMin, parcelasMax, taxaJurosMax)
+                : buscarNoBanco(valorMinCentavos, valorMaxCentavos, parcelasMin, parcelasMax, taxaJurosMax);
         
-        EntityManager em = JPAUtil.getEntityManager();
+        return Response.ok(propostas).build();
+    }
+
+    /**
+     * Mesma busca direto no banco (JPQL dinâmica)
+     */
+    private List<PropostaEmprestimoDTO> buscarNoBanco(Long valorMin, Long valorMax, Integer parcelasMin,
+                                                      Integer parcelasMax, Double taxaJurosMax) {
+        StringBuilder jpql = new StringBuilder(
+            PropostaEmprestimoDTO.SELECT + " WHERE p.status = 'ATIVA'"
+        );
         
-        try {
-            StringBuilder jpql = new StringBuilder(
-                "SELECT p FROM PropostaEmprestimo p WHERE p.status = 'ATIVA'"
-            );
-            
-            // Aplicar filtros
-            if (valorMin != null) {
-                jpql.append(" AND p.valorDisponivel >= :valorMin");
-            }
-            if (valorMax != null) {
-                jpql.append(" AND p.valorDisponivel <= :valorMax");
-            }
-            if (parcelasMin != null) {
-                jpql.append(" AND p.parcelasMaximas >= :parcelasMin");
-            }
-            if (parcelasMax != null) {
-                jpql.append(" AND p.parcelasMinimas <= :parcelasMax");
-            }
-            if (taxaJurosMax != null) {
-                jpql.append(" AND p.taxaJuros <= :taxaJurosMax");
-            }
-            
-            jpql.append(" ORDER BY p.dataCriacao DESC");
-            
-            var query = em.createQuery(jpql.toString(), PropostaEmprestimo.class);
-            
-            // Setar parâmetros
-            if (valorMin != null) query.setParameter("valorMin", valorMin);
-            if (valorMax != null) query.setParameter("valorMax", valorMax);
-            if (parcelasMin != null) query.setParameter("parcelasMin", parcelasMin);
-            if (parcelasMax != null) query.setParameter("parcelasMax", parcelasMax);
-            if (taxaJurosMax != null) query.setParameter("taxaJurosMax", taxaJurosMax);
-            
-            List<PropostaEmprestimo> propostas = query.getResultList();
-            
-            return Response.ok(propostas).build();
-            
-        } finally {
-            em.close();
+        // Aplicar filtros
+        if (valorMin != null) {
+            jpql.append(" AND p.valorDisponivel >= :valorMin");
+        }
+        if (valorMax != null) {
+            jpql.append(" AND p.valorDisponivel <= :valorMax");
         }
+        if (parcelasMin != null) {
+            jpql.append(" AND p.parcelasMaximas >= :parcelasMin");
+        }
+        if (parcelasMax != null) {
+            jpql.append(" AND p.parcelasMinimas <= :parcelasMax");
+        }
+        if (taxaJurosMax != null) {
+            jpql.append(" AND p.taxaJuros <= :taxaJurosMax");
+        }
+        
+        jpql.append(" ORDER BY p.dataCriacao DESC");
+        
+        var query = em.createQuery(jpql.toString(), PropostaEmprestimoDTO.class);
+        
+        // Setar parâmetros
+        if (valorMin != null) query.setParameter("valorMin", valorMin);
+        if (valorMax != null) query.setParameter("valorMax", valorMax);
+        if (parcelasMin != null) query.setParameter("parcelasMin", parcelasMin);
+        if (parcelasMax != null) query.setParameter("parcelasMax", parcelasMax);
+        if (taxaJurosMax != null) query.setParameter("taxaJurosMax", taxaJurosMax);
+        
+        return query.getResultList();
     }
     
     /**
@@ -95,97 +115,87 @@ public class BuscarPropostasController {
      */
     @GET
     @Path("/{idPublico}")
+    @SomenteLeitura
     public Response buscarPorId(@PathParam("idPublico") String idPublico) {
-        EntityManager em = JPAUtil.getEntityManager();
+        List<PropostaEmprestimoDTO> propostas = em.createQuery(
+            PropostaEmprestimoDTO.SELECT + " WHERE p.idPublico = :idPublico",
+            PropostaEmprestimoDTO.class
+        )
+        .setParameter("idPublico", idPublico)
+        .getResultList();
         
-        try {
-            List<PropostaEmprestimo> propostas = em.createQuery(
-                "SELECT p FROM PropostaEmprestimo p WHERE p.idPublico = :idPublico",
-                PropostaEmprestimo.class
-            )
-            .setParameter("idPublico", idPublico)
-            .getResultList();
-            
-            if (propostas.isEmpty()) {
-                throw new AppException("Proposta não encontrada", 404);
-            }
-            
-            PropostaEmprestimo proposta = propostas.get(0);
-            
-            // Verificar se está ativa
-            if (!"ATIVA".equals(proposta.getStatus())) {
-                Map<String, Object> response = new HashMap<>();
-                response.put("proposta", proposta);
-                response.put("aviso", "Esta proposta não está mais ativa");
-                return Response.ok(response).build();
-            }
-            
-            return Response.ok(proposta).build();
-            
-        } finally {
-            em.close();
+        if (propostas.isEmpty()) {
+            throw new AppException("Proposta não encontrada", 404);
         }
+        
+        PropostaEmprestimoDTO proposta = propostas.get(0);
+        
+        // Verificar se está ativa
+        if (!"ATIVA".equals(proposta.status())) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("proposta", proposta);
+            response.put("aviso", "Esta proposta não está mais ativa");
+            return Response.ok(response).build();
+        }
+        
+        return Response.ok(proposta).build();
     }
     
     /**
      * Obter detalhes completos da proposta com simulações de parcelas
-     * GET /api/devedor/buscar-propostas/{idPublico}/detalhes
+     * GET /api/devedor/buscar-propostas/{idPublico}/detalhes?sistema=SIMPLES|PRICE|SAC
      */
     @GET
     @Path("/{idPublico}/detalhes")
-    public Response obterDetalhes(@PathParam("idPublico") String idPublico) {
-        EntityManager em = JPAUtil.getEntityManager();
+    @SomenteLeitura
+    public Response obterDetalhes(@PathParam("idPublico") String idPublico,
+                                  @QueryParam("sistema") String sistema) {
+        List<PropostaEmprestimoDTO> propostas = em.createQuery(
+            PropostaEmprestimoDTO.SELECT + " WHERE p.idPublico = :idPublico",
+            PropostaEmprestimoDTO.class
+        )
+        .setParameter("idPublico", idPublico)
+        .getResultList();
         
-        try {
-            List<PropostaEmprestimo> propostas = em.createQuery(
-                "SELECT p FROM PropostaEmprestimo p WHERE p.idPublico = :idPublico",
-                PropostaEmprestimo.class
-            )
-            .setParameter("idPublico", idPublico)
-            .getResultList();
-            
-            if (propostas.isEmpty()) {
-                throw new AppException("Proposta não encontrada", 404);
-            }
-            
-            PropostaEmprestimo proposta = propostas.get(0);
-            
-            // Calcular opções de parcelas
-            List<CalculadoraEmprestimo.OpcaoParcela> opcoesParcelas = 
-                CalculadoraEmprestimo.calcularOpcoesParcelas(
-                    proposta.getValorDisponivel(),
-                    proposta.getParcelasMinimas(),
-                    proposta.getParcelasMaximas(),
-                    proposta.getTaxaJuros()
-                );
-            
-            // Calcular data da primeira parcela
-            java.time.LocalDate dataPrimeiraParcela = CalculadoraEmprestimo.calcularDataPrimeiraParcela(
-                java.time.LocalDate.now(),
-                proposta.getDiasAtePrimeiraCobranca()
-            );
-            
-            // Contar interesses
-            Long countInteresses = em.createQuery(
-                "SELECT COUNT(i) FROM InteresseProposta i WHERE i.proposta.id = :propostaId",
-                Long.class
-            )
-            .setParameter("propostaId", proposta.getId())
-            .getSingleResult();
-            
-            // Montar resposta detalhada
-            Map<String, Object> detalhes = new HashMap<>();
-            detalhes.put("proposta", proposta);
-            detalhes.put("opcoesParcelas", opcoesParcelas);
-            detalhes.put("dataPrimeiraParcela", dataPrimeiraParcela);
-            detalhes.put("totalInteresses", countInteresses);
-            detalhes.put("disponivel", "ATIVA".equals(proposta.getStatus()));
-            
-            return Response.ok(detalhes).build();
-            
-        } finally {
-            em.close();
+        if (propostas.isEmpty()) {
+            throw new AppException("Proposta não encontrada", 404);
         }
+        
+        PropostaEmprestimoDTO proposta = propostas.get(0);
+        
+        // Opções de parcelas (JSON pronto do cache: os termos da proposta não mudam)
+        RawValue opcoesParcelas = new RawValue(CacheOpcoesParcelas.opcoes(
+                Dinheiro.centavos(proposta.valorDisponivel()),
+                proposta.parcelasMinimas(),
+                proposta.parcelasMaximas(),
+                proposta.taxaJuros(),
+                SistemaAmortizacao.de(sistema)
+            ));
+        
+        // Calcular data da primeira parcela
+        java.time.LocalDate dataPrimeiraParcela = CalculadoraEmprestimo.calcularDataPrimeiraParcela(
+            java.time.LocalDate.now(),
+            proposta.diasAtePrimeiraCobranca()
+        );
+        
+        // Contar interesses
+        Long countInteresses = em.createQuery(
+            "SELECT COUNT(i) FROM InteresseProposta i WHERE i.proposta.id = :propostaId",
+            Long.class
+        )
+        .setParameter("propostaId", proposta.id())
+        .getSingleResult();
+        
+        // Montar resposta detalhada
+        Map<String, Object> detalhes = new HashMap<>();
+        detalhes.put("proposta", proposta);
+        detalhes.put("sistemaAmortizacao", SistemaAmortizacao.de(sistema));
+        detalhes.put("opcoesParcelas", opcoesParcelas);
+        detalhes.put("dataPrimeiraParcela", dataPrimeiraParcela);
+        detalhes.put("totalInteresses", countInteresses);
+        detalhes.put("disponivel", "ATIVA".equals(proposta.status()));
+        
+        return Response.ok(detalhes).build();
     }
     
     /**
@@ -233,21 +243,17 @@ public class BuscarPropostasController {
     @GET
     @Path("/menor-taxa")
     public Response buscarMenorTaxa(@QueryParam("limite") @DefaultValue("10") Integer limite) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
-        try {
-            var propostas = em.createQuery(
-                "SELECT p FROM PropostaEmprestimo p WHERE p.status = 'ATIVA' ORDER BY p.taxaJuros ASC",
-                PropostaEmprestimo.class
-            )
-            .setMaxResults(limite)
-            .getResultList();
-            
-            return Response.ok(propostas).build();
-            
-        } finally {
-            em.close();
+        if (IndicePropostas.carregado()) {
+            return Response.ok(IndicePropostas.menorTaxa(limite)).build();
         }
+        var propostas = em.createQuery(
+            PropostaEmprestimoDTO.SELECT + " WHERE p.status = 'ATIVA' ORDER BY p.taxaJuros ASC",
+            PropostaEmprestimoDTO.class
+        )
+        .setMaxResults(limite)
+        .getResultList();
+        
+        return Response.ok(propostas).build();
     }
     
     /**
@@ -257,21 +263,17 @@ public class BuscarPropostasController {
     @GET
     @Path("/recentes")
     public Response buscarRecentes(@QueryParam("limite") @DefaultValue("10") Integer limite) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
-        try {
-            var propostas = em.createQuery(
-                "SELECT p FROM PropostaEmprestimo p WHERE p.status = 'ATIVA' ORDER BY p.dataCriacao DESC",
-                PropostaEmprestimo.class
-            )
-            .setMaxResults(limite)
-            .getResultList();
-            
-            return Response.ok(propostas).build();
-            
-        } finally {
-            em.close();
+        if (IndicePropostas.carregado()) {
+            return Response.ok(IndicePropostas.recentes(limite)).build();
         }
+        var propostas = em.createQuery(
+            PropostaEmprestimoDTO.SELECT + " WHERE p.status = 'ATIVA' ORDER BY p.dataCriacao DESC",
+            PropostaEmprestimoDTO.class
+        )
+        .setMaxResults(limite)
+        .getResultList();
+        
+        return Response.ok(propostas).build();
     }
 }
 
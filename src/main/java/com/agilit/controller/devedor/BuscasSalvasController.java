@@ -0,0 +1,148 @@
+package com.agilit.controller.devedor;
+
+import com.agilit.config.AppException;
+import com.agilit.config.SomenteLeitura;
+import com.agilit.config.Transacional;
+import com.agilit.model.BuscaSalva;
+import com.agilit.model.Devedor;
+import com.agilit.model.dao.BuscaSalvaDAO;
+import com.agilit.model.dto.BuscaSalvaDTO;
+import com.agilit.util.Dinheiro;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Buscas salvas do Devedor
+ * Grava os filtros de /devedor/buscar-propostas; cada proposta nova que os
+ * atende gera uma notificação PROPOSTA_COMPATIVEL para o devedor, em vez de
+ * ele repetir a busca esperando uma taxa boa.
+ *
+ * Endpoints:
+ * - POST   /api/devedor/buscas-salvas - Salva uma busca
+ * - GET    /api/devedor/buscas-salvas/minhas/{devedorId} - Buscas salvas do devedor
+ * - DELETE /api/devedor/buscas-salvas/{id} - Exclui uma busca salva
+ *
+ * Body exemplo:
+ * {
+ *   "devedorId": 1,
+ *   "nome": "Até 5 mil, juros baixos",
+ *   "valorMax": 5000.0,
+ *   "parcelasMin": 6,
+ *   "taxaJurosMax": 2.0
+ * }
+ *
+ * Regras de Negócio:
+ * - Mesmos filtros (e mesmo significado) da busca de propostas
+ * - Pelo menos um filtro: sem filtro, toda proposta nova notificaria
+ * - No máximo MAX_BUSCAS_POR_DEVEDOR buscas por devedor
+ */
+@Path("/devedor/buscas-salvas")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class BuscasSalvasController {
+
+    static final int MAX_BUSCAS_POR_DEVEDOR = 10;
+
+    @Inject
+    private EntityManager em;
+
+    /**
+     * Salvar uma busca
+     * POST /api/devedor/buscas-salvas
+     */
+    @POST
+    @Transacional
+    public Response salvar(BuscaSalvaEntradaDTO dto) {
+        if (dto == null || dto.devedorId == null) {
+            throw new AppException("ID do devedor é obrigatório", 400);
+        }
+        if (dto.valorMin == null && dto.valorMax == null && dto.parcelasMin == null
+                && dto.parcelasMax == null && dto.taxaJurosMax == null) {
+            throw new AppException("Informe pelo menos um filtro", 400);
+        }
+        if ((dto.valorMin != null && dto.valorMin < 0) || (dto.valorMax != null && dto.valorMax < 0)) {
+            throw new AppException("Valores devem ser maiores ou iguais a zero", 400);
+        }
+        if (dto.valorMin != null && dto.valorMax != null && dto.valorMin > dto.valorMax) {
+            throw new AppException("Valor mínimo maior que o valor máximo", 400);
+        }
+        if ((dto.parcelasMin != null && dto.parcelasMin < 1) || (dto.parcelasMax != null && dto.parcelasMax < 1)) {
+            throw new AppException("Parcelas devem ser maiores que zero", 400);
+        }
+        if (dto.parcelasMin != null && dto.parcelasMax != null && dto.parcelasMin > dto.parcelasMax) {
+            throw new AppException("Parcelas mínimas maiores que as parcelas máximas", 400);
+        }
+        if (dto.taxaJurosMax != null && dto.taxaJurosMax < 0) {
+            throw new AppException("Taxa de juros deve ser maior ou igual a zero", 400);
+        }
+        if (dto.nome != null && dto.nome.length() > 100) {
+            throw new AppException("Nome deve ter no máximo 100 caracteres", 400);
+        }
+
+        Devedor devedor = em.find(Devedor.class, dto.devedorId);
+        if (devedor == null) {
+            throw new AppException("Devedor não encontrado", 404);
+        }
+
+        BuscaSalvaDAO dao = new BuscaSalvaDAO(em);
+        if (dao.countByDevedor(dto.devedorId) >= MAX_BUSCAS_POR_DEVEDOR) {
+            throw new AppException("Limite de " + MAX_BUSCAS_POR_DEVEDOR + " buscas salvas atingido", 400);
+        }
+
+        BuscaSalva busca = new BuscaSalva();
+        busca.setDevedor(devedor);
+        busca.setNome(dto.nome);
+        busca.setValorMinCentavos(dto.valorMin != null ? Dinheiro.centavos(dto.valorMin) : null);
+        busca.setValorMaxCentavos(dto.valorMax != null ? Dinheiro.centavos(dto.valorMax) : null);
+        busca.setParcelasMin(dto.parcelasMin);
+        busca.setParcelasMax(dto.parcelasMax);
+        busca.setTaxaJurosMax(dto.taxaJurosMax);
+        dao.save(busca);
+
+        return Response.status(Response.Status.CREATED).entity(BuscaSalvaDTO.de(busca)).build();
+    }
+
+    /**
+     * Listar buscas salvas do devedor
+     * GET /api/devedor/buscas-salvas/minhas/{devedorId}
+     */
+    @GET
+    @Path("/minhas/{devedorId}")
+    @SomenteLeitura
+    public Response listarMinhas(@PathParam("devedorId") Long devedorId) {
+        return Response.ok(new BuscaSalvaDAO(em).findByDevedor(devedorId)).build();
+    }
+
+    /**
+     * Excluir busca salva
+     * DELETE /api/devedor/buscas-salvas/{id}
+     */
+    @DELETE
+    @Path("/{id}")
+    @Transacional
+    public Response excluir(@PathParam("id") Long id) {
+        BuscaSalvaDAO dao = new BuscaSalvaDAO(em);
+        BuscaSalva busca = dao.findById(id);
+        if (busca == null) {
+            throw new AppException("Busca salva não encontrada", 404);
+        }
+        dao.delete(busca);
+        return Response.noContent().build();
+    }
+
+    /**
+     * DTO para salvar busca (valores em reais, como na busca de propostas)
+     */
+    public static class BuscaSalvaEntradaDTO {
+        public Long devedorId;
+        public String nome;
+        public Double valorMin;
+        public Double valorMax;
+        public Integer parcelasMin;
+        public Integer parcelasMax;
+        public Double taxaJurosMax;
+    }
+}
@@ -1,9 +1,10 @@
 package com.agilit.controller.devedor;
 
 import com.agilit.config.AppException;
-import com.agilit.config.JPAUtil;
 import com.agilit.config.PasswordUtil;
+import com.agilit.config.Transacional;
 import com.agilit.model.Devedor;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
@@ -36,14 +37,14 @@ import java.util.List;
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class CriarContaDevedorController {
+
+    @Inject
+    private EntityManager em;
     
     @POST
+    @Transacional
     public Response criarConta(Devedor novoDevedor) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-            
             // Validações de campos obrigatórios
             if (novoDevedor.getNome() == null || novoDevedor.getNome().trim().isEmpty()) {
                 throw new AppException("Nome é obrigatório", 400);
@@ -86,22 +87,12 @@ public class CriarContaDevedorController {
             novoDevedor.setSenhaHash(senhaHash);
             
             em.persist(novoDevedor);
-            em.getTransaction().commit();
             
             return Response.status(Response.Status.CREATED).entity(novoDevedor).build();
-            
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao criar conta: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
     
@@ -111,15 +102,11 @@ public class CriarContaDevedorController {
      */
     @PUT
     @Path("/{devedorId}/completar-dados")
+    @Transacional
     public Response completarDados(
             @PathParam("devedorId") Long devedorId,
             DadosComplementaresDTO dto) {
-        
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-            
             Devedor devedor = em.find(Devedor.class, devedorId);
             
             if (devedor == null) {
@@ -154,22 +141,12 @@ public class CriarContaDevedorController {
             }
             
             em.merge(devedor);
-            em.getTransaction().commit();
             
             return Response.ok(devedor).build();
-            
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao completar dados: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
     
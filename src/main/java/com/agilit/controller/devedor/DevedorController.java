@@ -2,15 +2,21 @@ package com.agilit.controller.devedor;
 
 import com.agilit.model.Devedor;
 import com.agilit.model.Credor;
-import com.agilit.config.JPAUtil;
+import com.agilit.model.dao.DevedorDAO;
+import com.agilit.model.dao.Pagina;
+import com.agilit.model.dto.DevedorDTO;
+import com.agilit.config.Paginacao;
 import com.agilit.config.PasswordUtil;
+import com.agilit.config.SomenteLeitura;
+import com.agilit.config.Transacional;
 
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
-
-import java.util.List;
+import jakarta.ws.rs.core.UriInfo;
 
 /**
  * Controller para gerenciar Devedores.
@@ -24,16 +30,21 @@ import java.util.List;
 @Consumes(MediaType.APPLICATION_JSON)
 public class DevedorController {
 
+    @Inject
+    private EntityManager em;
+
     // ================================
     // LISTAR TODOS
     // ================================
     @GET
-    public List<Devedor> getAll() {
-        EntityManager em = JPAUtil.getEntityManager();
-        List<Devedor> lista =
-                em.createQuery("SELECT d FROM Devedor d", Devedor.class).getResultList();
-        em.close();
-        return lista;
+    @SomenteLeitura
+    public Response getAll(@QueryParam("cursor") String cursor,
+                           @QueryParam("limite") Integer limite,
+                           @Context UriInfo uriInfo) {
+        int tamanho = Paginacao.limite(limite);
+        Pagina<DevedorDTO> pagina =
+                new DevedorDAO(em).findPagina(Paginacao.cursor(cursor, Long.class), tamanho);
+        return Paginacao.resposta(pagina, tamanho, uriInfo);
     }
 
     // ================================
@@ -41,27 +52,23 @@ public class DevedorController {
     // ================================
     @GET
     @Path("/{id}")
+    @SomenteLeitura
     public Response getById(@PathParam("id") Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
         Devedor devedor = em.find(Devedor.class, id);
-        em.close();
 
         if (devedor == null) {
             return Response.status(Response.Status.NOT_FOUND).build();
         }
 
-        return Response.ok(devedor).build();
+        return Response.ok(DevedorDTO.de(devedor)).build();
     }
 
     // ================================
     // CRIAR DEVEDOR
     // ================================
     @POST
+    @Transacional
     public Response create(Devedor devedorEntrada) {
-
-        EntityManager em = JPAUtil.getEntityManager();
-        em.getTransaction().begin();
-
         // 1 — HASH DA SENHA
         if (devedorEntrada.getSenhaHash() != null) {
             String hash = PasswordUtil.hash(devedorEntrada.getSenhaHash());
@@ -71,12 +78,9 @@ public class DevedorController {
         // 2 — Validar credor associado
         if (devedorEntrada.getCredor() != null &&
             devedorEntrada.getCredor().getId() != null) {
-
             Credor credor = em.find(Credor.class, devedorEntrada.getCredor().getId());
 
             if (credor == null) {
-                em.getTransaction().rollback();
-                em.close();
                 return Response.status(Response.Status.BAD_REQUEST)
                         .entity("Credor informado não existe").build();
             }
@@ -86,8 +90,6 @@ public class DevedorController {
 
         // Persistência
         em.persist(devedorEntrada);
-        em.getTransaction().commit();
-        em.close();
 
         return Response.status(Response.Status.CREATED).entity(devedorEntrada).build();
     }
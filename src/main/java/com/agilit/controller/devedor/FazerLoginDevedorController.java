@@ -1,6 +1,7 @@
 package com.agilit.controller.devedor;
 
 import com.agilit.config.AppException;
+import com.agilit.config.SemIdempotencia;
 import com.agilit.model.Devedor;
 import com.agilit.service.AuthService;
 import jakarta.ws.rs.*;
@@ -41,6 +42,7 @@ public class FazerLoginDevedorController {
     private final AuthService authService = new AuthService();
     
     @POST
+    @SemIdempotencia
     public Response login(LoginDTO dto) {
         // Validações
         if (dto.email == null || dto.email.trim().isEmpty()) {
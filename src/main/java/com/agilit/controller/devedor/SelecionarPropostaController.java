@@ -1,11 +1,13 @@
 package com.agilit.controller.devedor;
 
 import com.agilit.config.AppException;
-import com.agilit.config.JPAUtil;
+import com.agilit.config.SomenteLeitura;
+import com.agilit.config.Transacional;
 import com.agilit.model.Devedor;
 import com.agilit.model.InteresseProposta;
 import com.agilit.model.PropostaEmprestimo;
 import com.agilit.util.NotificacaoService;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
@@ -36,17 +38,17 @@ import java.util.Map;
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class SelecionarPropostaController {
+
+    @Inject
+    private EntityManager em;
     
     /**
      * Demonstrar interesse em uma proposta
      */
     @POST
+    @Transacional
     public Response selecionarProposta(SelecionarPropostaDTO dto) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-            
             // Validações básicas
             if (dto.propostaId == null) {
                 throw new AppException("ID da proposta é obrigatório", 400);
@@ -108,9 +110,7 @@ public class SelecionarPropostaController {
             
             // Notificar credor sobre novo interesse
             NotificacaoService.notificarNovoInteresse(em, proposta.getCredor(), proposta, devedor);
-            
-            em.getTransaction().commit();
-            
+
             // Montar resposta
             Map<String, Object> response = new HashMap<>();
             response.put("mensagem", "Interesse registrado com sucesso");
@@ -118,19 +118,10 @@ public class SelecionarPropostaController {
             response.put("proximoPasso", "Aguarde a aprovação do credor");
             
             return Response.status(Response.Status.CREATED).entity(response).build();
-            
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao selecionar proposta: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
     
@@ -140,22 +131,16 @@ public class SelecionarPropostaController {
      */
     @GET
     @Path("/meus/{devedorId}")
+    @SomenteLeitura
     public Response listarMeusInteresses(@PathParam("devedorId") Long devedorId) {
-        EntityManager em = JPAUtil.getEntityManager();
+        var interesses = em.createQuery(
+            "SELECT i FROM InteresseProposta i WHERE i.devedor.id = :devedorId ORDER BY i.dataInteresse DESC",
+            InteresseProposta.class
+        )
+        .setParameter("devedorId", devedorId)
+        .getResultList();
         
-        try {
-            var interesses = em.createQuery(
-                "SELECT i FROM InteresseProposta i WHERE i.devedor.id = :devedorId ORDER BY i.dataInteresse DESC",
-                InteresseProposta.class
-            )
-            .setParameter("devedorId", devedorId)
-            .getResultList();
-            
-            return Response.ok(interesses).build();
-            
-        } finally {
-            em.close();
-        }
+        return Response.ok(interesses).build();
     }
     
     /**
@@ -164,22 +149,16 @@ public class SelecionarPropostaController {
      */
     @GET
     @Path("/meus/{devedorId}/pendentes")
+    @SomenteLeitura
     public Response listarInteressesPendentes(@PathParam("devedorId") Long devedorId) {
-        EntityManager em = JPAUtil.getEntityManager();
+        var interesses = em.createQuery(
+            "SELECT i FROM InteresseProposta i WHERE i.devedor.id = :devedorId AND i.status = 'PENDENTE' ORDER BY i.dataInteresse DESC",
+            InteresseProposta.class
+        )
+        .setParameter("devedorId", devedorId)
+        .getResultList();
         
-        try {
-            var interesses = em.createQuery(
-                "SELECT i FROM InteresseProposta i WHERE i.devedor.id = :devedorId AND i.status = 'PENDENTE' ORDER BY i.dataInteresse DESC",
-                InteresseProposta.class
-            )
-            .setParameter("devedorId", devedorId)
-            .getResultList();
-            
-            return Response.ok(interesses).build();
-            
-        } finally {
-            em.close();
-        }
+        return Response.ok(interesses).build();
     }
     
     /**
@@ -188,22 +167,16 @@ public class SelecionarPropostaController {
      */
     @GET
     @Path("/meus/{devedorId}/aprovados")
+    @SomenteLeitura
     public Response listarInteressesAprovados(@PathParam("devedorId") Long devedorId) {
-        EntityManager em = JPAUtil.getEntityManager();
+        var interesses = em.createQuery(
+            "SELECT i FROM InteresseProposta i WHERE i.devedor.id = :devedorId AND i.status = 'APROVADO' ORDER BY i.dataInteresse DESC",
+            InteresseProposta.class
+        )
+        .setParameter("devedorId", devedorId)
+        .getResultList();
         
-        try {
-            var interesses = em.createQuery(
-                "SELECT i FROM InteresseProposta i WHERE i.devedor.id = :devedorId AND i.status = 'APROVADO' ORDER BY i.dataInteresse DESC",
-                InteresseProposta.class
-            )
-            .setParameter("devedorId", devedorId)
-            .getResultList();
-            
-            return Response.ok(interesses).build();
-            
-        } finally {
-            em.close();
-        }
+        return Response.ok(interesses).build();
     }
     
     /**
@@ -212,12 +185,9 @@ public class SelecionarPropostaController {
      */
     @DELETE
     @Path("/{interesseId}")
+    @Transacional
     public Response cancelarInteresse(@PathParam("interesseId") Long interesseId) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-            
             InteresseProposta interesse = em.find(InteresseProposta.class, interesseId);
             
             if (interesse == null) {
@@ -231,26 +201,15 @@ public class SelecionarPropostaController {
             
             interesse.setStatus("CANCELADO");
             em.merge(interesse);
-            
-            em.getTransaction().commit();
-            
+
             Map<String, Object> response = new HashMap<>();
             response.put("mensagem", "Interesse cancelado com sucesso");
             
             return Response.ok(response).build();
-            
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao cancelar interesse: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
     
@@ -260,28 +219,33 @@ public class SelecionarPropostaController {
      */
     @GET
     @Path("/interesse/{interesseId}")
+    @SomenteLeitura
     public Response obterDetalhesInteresse(@PathParam("interesseId") Long interesseId) {
-        EntityManager em = JPAUtil.getEntityManager();
+        // JOIN FETCH: a proposta vai na resposta e precisa ser a entidade real, não um proxy lazy
+        InteresseProposta interesse = em.createQuery(
+            "SELECT i FROM InteresseProposta i " +
+            "JOIN FETCH i.proposta p " +
+            "JOIN FETCH p.credor " +
+            "WHERE i.id = :interesseId",
+            InteresseProposta.class
+        )
+        .setParameter("interesseId", interesseId)
+        .getResultStream()
+        .findFirst()
+        .orElse(null);
         
-        try {
-            InteresseProposta interesse = em.find(InteresseProposta.class, interesseId);
-            
-            if (interesse == null) {
-                throw new AppException("Interesse não encontrado", 404);
-            }
-            
-            Map<String, Object> detalhes = new HashMap<>();
-            detalhes.put("interesse", interesse);
-            detalhes.put("proposta", interesse.getProposta());
-            detalhes.put("credor", interesse.getProposta().getCredor().getNome());
-            detalhes.put("podeConfirmar", "APROVADO".equals(interesse.getStatus()) && !interesse.getConfirmacaoDevedor());
-            detalhes.put("podeCancelar", "PENDENTE".equals(interesse.getStatus()));
-            
-            return Response.ok(detalhes).build();
-            
-        } finally {
-            em.close();
+        if (interesse == null) {
+            throw new AppException("Interesse não encontrado", 404);
         }
+        
+        Map<String, Object> detalhes = new HashMap<>();
+        detalhes.put("interesse", interesse);
+        detalhes.put("proposta", interesse.getProposta());
+        detalhes.put("credor", interesse.getProposta().getCredor().getNome());
+        detalhes.put("podeConfirmar", "APROVADO".equals(interesse.getStatus()) && !interesse.getConfirmacaoDevedor());
+        detalhes.put("podeCancelar", "PENDENTE".equals(interesse.getStatus()));
+        
+        return Response.ok(detalhes).build();
     }
     
     /**
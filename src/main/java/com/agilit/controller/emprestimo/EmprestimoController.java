@@ -1,32 +1,44 @@
 package com.agilit.controller.emprestimo;
 
 import com.agilit.model.Emprestimo;
-import com.agilit.config.JPAUtil;
+import com.agilit.config.Paginacao;
+import com.agilit.config.SomenteLeitura;
+import com.agilit.config.Transacional;
 import com.agilit.model.Credor;
 import com.agilit.model.Devedor;
+import com.agilit.model.dao.EmprestimoDAO;
+import com.agilit.model.dao.Pagina;
+import com.agilit.model.dto.EmprestimoDTO;
 
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
 
-import java.util.List;
 
 @Path("/emprestimo")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class EmprestimoController {
 
+    @Inject
+    private EntityManager em;
+
     // =====================
     // LISTAR TODOS
     // =====================
     @GET
-    public List<Emprestimo> getAll() {
-        EntityManager em = JPAUtil.getEntityManager();
-        List<Emprestimo> lista = em.createQuery("SELECT e FROM Emprestimo e", Emprestimo.class)
-                                   .getResultList();
-        em.close();
-        return lista;
+    @SomenteLeitura
+    public Response getAll(@QueryParam("cursor") String cursor,
+                           @QueryParam("limite") Integer limite,
+                           @Context UriInfo uriInfo) {
+        int tamanho = Paginacao.limite(limite);
+        Pagina<EmprestimoDTO> pagina =
+                new EmprestimoDAO(em).findPagina(Paginacao.cursor(cursor, Long.class), tamanho);
+        return Paginacao.resposta(pagina, tamanho, uriInfo);
     }
 
 
@@ -35,10 +47,9 @@ public class EmprestimoController {
     // =====================
     @GET
     @Path("/{id}")
+    @SomenteLeitura
     public Response getById(@PathParam("id") Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
         Emprestimo emprestimo = em.find(Emprestimo.class, id);
-        em.close();
 
         if (emprestimo == null)
             return Response.status(Response.Status.NOT_FOUND).build();
@@ -51,18 +62,13 @@ public class EmprestimoController {
     // CRIAR EMPRÉSTIMO
     // =====================
     @POST
+    @Transacional
     public Response create(Emprestimo entrada) {
-
-        EntityManager em = JPAUtil.getEntityManager();
-        em.getTransaction().begin();
-
         // ---- Resolvendo Credor e Devedor ----
         Credor credor = em.find(Credor.class, entrada.getCredor().getId());
         Devedor devedor = em.find(Devedor.class, entrada.getDevedor().getId());
 
         if (credor == null || devedor == null) {
-            em.getTransaction().rollback();
-            em.close();
             return Response.status(Response.Status.BAD_REQUEST)
                     .entity("Credor ou Devedor inexistente").build();
         }
@@ -71,8 +77,6 @@ public class EmprestimoController {
         entrada.setDevedor(devedor);
 
         em.persist(entrada);
-        em.getTransaction().commit();
-        em.close();
 
         return Response.status(Response.Status.CREATED).entity(entrada).build();
     }
@@ -83,18 +87,14 @@ public class EmprestimoController {
     // =====================
     @PUT
     @Path("/{id}")
+    @Transacional
     public Response update(@PathParam("id") Long id, Emprestimo entrada) {
-
-        EntityManager em = JPAUtil.getEntityManager();
         Emprestimo existente = em.find(Emprestimo.class, id);
 
         if (existente == null) {
-            em.close();
             return Response.status(Response.Status.NOT_FOUND).build();
         }
 
-        em.getTransaction().begin();
-
         // Atualizar campos simples
         existente.setValorPrincipal(entrada.getValorPrincipal());
         existente.setJurosAplicados(entrada.getJurosAplicados());
@@ -114,9 +114,6 @@ public class EmprestimoController {
             existente.setDevedor(devedor);
         }
 
-        em.getTransaction().commit();
-        em.close();
-
         return Response.ok(existente).build();
     }
 
@@ -126,19 +123,15 @@ public class EmprestimoController {
     // =====================
     @DELETE
     @Path("/{id}")
+    @Transacional
     public Response delete(@PathParam("id") Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
         Emprestimo emprestimo = em.find(Emprestimo.class, id);
 
         if (emprestimo == null) {
-            em.close();
             return Response.status(Response.Status.NOT_FOUND).build();
         }
 
-        em.getTransaction().begin();
         em.remove(emprestimo);
-        em.getTransaction().commit();
-        em.close();
 
         return Response.noContent().build();
     }
@@ -2,19 +2,19 @@ package com.agilit.controller.interesse;
 
 import com.agilit.config.AppException;
 import com.agilit.config.JPAUtil;
-import com.agilit.controller.emprestimo.StatusEmprestimo;
+import com.agilit.config.SomenteLeitura;
+import com.agilit.config.Transacional;
 import com.agilit.model.*;
-import com.agilit.util.CalculadoraEmprestimo;
+import com.agilit.service.OriginacaoEmprestimoService;
 import com.agilit.util.NotificacaoService;
 
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -26,17 +26,17 @@ import java.util.List;
 @Consumes(MediaType.APPLICATION_JSON)
 public class InteressePropostaController {
 
+    @Inject
+    private EntityManager em;
+
     /**
      * Devedor demonstra interesse em uma proposta
      * POST /api/interesse
      */
     @POST
+    @Transacional
     public Response demonstrarInteresse(InteresseProposta interesse) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-
             // Validações
             if (interesse.getProposta() == null || interesse.getProposta().getId() == null) {
                 throw new AppException("Proposta é obrigatória", 400);
@@ -98,22 +98,11 @@ public class InteressePropostaController {
             // Notificar credor
             NotificacaoService.notificarNovoInteresse(em, proposta.getCredor(), proposta, devedor);
 
-            em.getTransaction().commit();
-
             return Response.status(Response.Status.CREATED).entity(interesse).build();
-
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao demonstrar interesse: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
 
@@ -123,22 +112,16 @@ public class InteressePropostaController {
      */
     @GET
     @Path("/proposta/{propostaId}")
+    @SomenteLeitura
     public Response listarInteressados(@PathParam("propostaId") Long propostaId) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
-        try {
-            List<InteresseProposta> interesses = em.createQuery(
-                "SELECT i FROM InteresseProposta i WHERE i.proposta.id = :propostaId ORDER BY i.dataInteresse DESC",
-                InteresseProposta.class
-            )
-            .setParameter("propostaId", propostaId)
-            .getResultList();
-
-            return Response.ok(interesses).build();
-
-        } finally {
-            em.close();
-        }
+        List<InteresseProposta> interesses = em.createQuery(
+            "SELECT i FROM InteresseProposta i WHERE i.proposta.id = :propostaId ORDER BY i.dataInteresse DESC",
+            InteresseProposta.class
+        )
+        .setParameter("propostaId", propostaId)
+        .getResultList();
+
+        return Response.ok(interesses).build();
     }
 
     /**
@@ -147,22 +130,16 @@ public class InteressePropostaController {
      */
     @GET
     @Path("/devedor/{devedorId}")
+    @SomenteLeitura
     public Response listarMeusInteresses(@PathParam("devedorId") Long devedorId) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
-        try {
-            List<InteresseProposta> interesses = em.createQuery(
-                "SELECT i FROM InteresseProposta i WHERE i.devedor.id = :devedorId ORDER BY i.dataInteresse DESC",
-                InteresseProposta.class
-            )
-            .setParameter("devedorId", devedorId)
-            .getResultList();
-
-            return Response.ok(interesses).build();
-
-        } finally {
-            em.close();
-        }
+        List<InteresseProposta> interesses = em.createQuery(
+            "SELECT i FROM InteresseProposta i WHERE i.devedor.id = :devedorId ORDER BY i.dataInteresse DESC",
+            InteresseProposta.class
+        )
+        .setParameter("devedorId", devedorId)
+        .getResultList();
+
+        return Response.ok(interesses).build();
     }
 
     /**
@@ -171,13 +148,10 @@ public class InteressePropostaController {
      */
     @PUT
     @Path("/{id}/aprovar")
+    @Transacional
     public Response aprovar(@PathParam("id") Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-
-            InteresseProposta interesse = em.find(InteresseProposta.class, id);
+            InteresseProposta interesse = em.find(InteresseProposta.class, id, JPAUtil.comGrafo(em, InteresseProposta.GRAFO_PROPOSTA_DEVEDOR));
             
             if (interesse == null) {
                 throw new AppException("Interesse não encontrado", 404);
@@ -193,22 +167,11 @@ public class InteressePropostaController {
             // Notificar devedor
             NotificacaoService.notificarAprovacao(em, interesse.getDevedor(), interesse);
 
-            em.getTransaction().commit();
-
             return Response.ok(interesse).build();
-
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao aprovar interesse: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
 
@@ -218,13 +181,10 @@ public class InteressePropostaController {
      */
     @PUT
     @Path("/{id}/rejeitar")
+    @Transacional
     public Response rejeitar(@PathParam("id") Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-
-            InteresseProposta interesse = em.find(InteresseProposta.class, id);
+            InteresseProposta interesse = em.find(InteresseProposta.class, id, JPAUtil.comGrafo(em, InteresseProposta.GRAFO_PROPOSTA_DEVEDOR));
             
             if (interesse == null) {
                 throw new AppException("Interesse não encontrado", 404);
@@ -240,183 +200,54 @@ public class InteressePropostaController {
             // Notificar devedor
             NotificacaoService.notificarRejeicao(em, interesse.getDevedor(), interesse);
 
-            em.getTransaction().commit();
-
             return Response.ok(interesse).build();
-
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao rejeitar interesse: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
 
     /**
      * Credor confirma empréstimo
      * PUT /api/interesse/{id}/confirmar-credor
+     *
+     * Sem @Transacional: o OriginacaoEmprestimoService abre a própria
+     * transação e a repete em caso de conflito com a confirmação do devedor.
      */
     @POST
     @Path("/{id}/confirmar-credor")
     public Response confirmarCredor(@PathParam("id") Long id, ConfirmacaoDTO dto) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-
-            InteresseProposta interesse = em.find(InteresseProposta.class, id);
-            
-            if (interesse == null) {
-                throw new AppException("Interesse não encontrado", 404);
-            }
-
-            if (!"APROVADO".equals(interesse.getStatus())) {
-                throw new AppException("Interesse deve estar aprovado para confirmação", 400);
-            }
-
-            if (interesse.getConfirmacaoCredor()) {
-                throw new AppException("Credor já confirmou", 400);
-            }
-
-            // Validar número de parcelas escolhido
-            if (dto.numeroParcelas == null) {
-                throw new AppException("Número de parcelas é obrigatório", 400);
-            }
-
-            PropostaEmprestimo proposta = interesse.getProposta();
-            if (dto.numeroParcelas < proposta.getParcelasMinimas() || 
-                dto.numeroParcelas > proposta.getParcelasMaximas()) {
-                throw new AppException(
-                    String.format("Número de parcelas deve estar entre %d e %d", 
-                                 proposta.getParcelasMinimas(), proposta.getParcelasMaximas()),
-                    400
-                );
-            }
-
-            // Verificar saldo do credor
-            Credor credor = proposta.getCredor();
-            if (credor.getSaldoDisponivel() < proposta.getValorDisponivel()) {
-                throw new AppException("Credor não possui saldo disponível suficiente", 400);
-            }
-
-            interesse.setConfirmacaoCredor(true);
-            interesse.setDataConfirmacaoCredor(LocalDateTime.now());
-            em.merge(interesse);
-
-            // Se ambos confirmaram, criar empréstimo
-            if (interesse.getConfirmacaoDevedor()) {
-                criarEmprestimo(em, interesse, dto.numeroParcelas);
-            } else {
-                // Notificar devedor para confirmar
-                NotificacaoService.criarNotificacao(
-                    em, "DEVEDOR", interesse.getDevedor().getId(),
-                    "CONFIRMACAO_PENDENTE",
-                    "Aguardando sua Confirmação",
-                    "O credor confirmou o empréstimo. Confirme para finalizar."
-                );
-            }
-
-            em.getTransaction().commit();
-
-            return Response.ok(interesse).build();
+            OriginacaoEmprestimoService.Resultado resultado = new OriginacaoEmprestimoService()
+                .confirmar(id, OriginacaoEmprestimoService.Parte.CREDOR, dto.numeroParcelas);
 
+            return Response.ok(resultado.interesse()).build();
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao confirmar: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
 
     /**
      * Devedor confirma empréstimo
      * PUT /api/interesse/{id}/confirmar-devedor
+     *
+     * Sem @Transacional, como confirmarCredor
      */
     @POST
     @Path("/{id}/confirmar-devedor")
     public Response confirmarDevedor(@PathParam("id") Long id, ConfirmacaoDTO dto) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-
-            InteresseProposta interesse = em.find(InteresseProposta.class, id);
-            
-            if (interesse == null) {
-                throw new AppException("Interesse não encontrado", 404);
-            }
-
-            if (!"APROVADO".equals(interesse.getStatus())) {
-                throw new AppException("Interesse deve estar aprovado para confirmação", 400);
-            }
-
-            if (interesse.getConfirmacaoDevedor()) {
-                throw new AppException("Devedor já confirmou", 400);
-            }
-
-            // Validar número de parcelas
-            if (dto.numeroParcelas == null) {
-                throw new AppException("Número de parcelas é obrigatório", 400);
-            }
-
-            PropostaEmprestimo proposta = interesse.getProposta();
-            if (dto.numeroParcelas < proposta.getParcelasMinimas() || 
-                dto.numeroParcelas > proposta.getParcelasMaximas()) {
-                throw new AppException(
-                    String.format("Número de parcelas deve estar entre %d e %d", 
-                                 proposta.getParcelasMinimas(), proposta.getParcelasMaximas()),
-                    400
-                );
-            }
-
-            interesse.setConfirmacaoDevedor(true);
-            interesse.setDataConfirmacaoDevedor(LocalDateTime.now());
-            em.merge(interesse);
-
-            // Se ambos confirmaram, criar empréstimo
-            if (interesse.getConfirmacaoCredor()) {
-                criarEmprestimo(em, interesse, dto.numeroParcelas);
-            } else {
-                // Notificar credor para confirmar
-                NotificacaoService.criarNotificacao(
-                    em, "CREDOR", proposta.getCredor().getId(),
-                    "CONFIRMACAO_PENDENTE",
-                    "Aguardando sua Confirmação",
-                    String.format("O devedor %s confirmou interesse na proposta %s", 
-                                 interesse.getDevedor().getNome(), proposta.getIdPublico())
-                );
-            }
-
-            em.getTransaction().commit();
-
-            return Response.ok(interesse).build();
+            OriginacaoEmprestimoService.Resultado resultado = new OriginacaoEmprestimoService()
+                .confirmar(id, OriginacaoEmprestimoService.Parte.DEVEDOR, dto.numeroParcelas);
 
+            return Response.ok(resultado.interesse()).build();
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao confirmar: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
 
@@ -426,12 +257,9 @@ public class InteressePropostaController {
      */
     @DELETE
     @Path("/{id}")
+    @Transacional
     public Response cancelar(@PathParam("id") Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-
             InteresseProposta interesse = em.find(InteresseProposta.class, id);
             
             if (interesse == null) {
@@ -446,92 +274,12 @@ public class InteressePropostaController {
             interesse.setStatus("CANCELADO");
             em.merge(interesse);
 
-            em.getTransaction().commit();
-
             return Response.noContent().build();
-
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao cancelar interesse: " + e.getMessage(), 500);
-        } finally {
-            em.close();
-        }
-    }
-
-    /**
-     * Método privado para criar empréstimo após confirmação bilateral
-     */
-    private void criarEmprestimo(EntityManager em, InteresseProposta interesse, Integer numeroParcelas) {
-        PropostaEmprestimo proposta = interesse.getProposta();
-        Credor credor = proposta.getCredor();
-        Devedor devedor = interesse.getDevedor();
-
-        // Calcular valores
-        double valorPrincipal = proposta.getValorDisponivel();
-        double juros = CalculadoraEmprestimo.calcularJurosSimples(
-            valorPrincipal, proposta.getTaxaJuros(), numeroParcelas
-        );
-        double valorTotal = valorPrincipal + juros;
-        double valorParcela = valorTotal / numeroParcelas;
-
-        // Criar empréstimo
-        Emprestimo emprestimo = new Emprestimo();
-        emprestimo.setDevedor(devedor);
-        emprestimo.setCredor(credor);
-        emprestimo.setPropostaOrigem(proposta);
-        emprestimo.setInteresseOrigem(interesse);
-        emprestimo.setValorPrincipal(valorPrincipal);
-        emprestimo.setJurosAplicados(juros);
-        emprestimo.setValorTotal(valorTotal);
-        emprestimo.setNumeroParcelas(numeroParcelas);
-        emprestimo.setParcelasPagas(0);
-        emprestimo.setDataInicio(LocalDate.now());
-        
-        // Calcular data de vencimento
-        LocalDate dataVencimento = CalculadoraEmprestimo.calcularDataVencimentoFinal(
-            LocalDate.now(), numeroParcelas, proposta.getDiasAtePrimeiraCobranca()
-        );
-        emprestimo.setDataVencimento(dataVencimento);
-        emprestimo.setStatus(StatusEmprestimo.EM_ANDAMENTO);
-
-        // Criar parcelas
-        List<LocalDate> datasParcelas = CalculadoraEmprestimo.calcularDatasParcelas(
-            LocalDate.now(), numeroParcelas, proposta.getDiasAtePrimeiraCobranca()
-        );
-
-        List<Parcela> parcelas = new ArrayList<>();
-        for (int i = 0; i < numeroParcelas; i++) {
-            Parcela parcela = new Parcela();
-            parcela.setEmprestimo(emprestimo);
-            parcela.setNumeroParcela(i + 1);
-            parcela.setValor(CalculadoraEmprestimo.arredondar(valorParcela));
-            parcela.setDataVencimento(datasParcelas.get(i));
-            parcela.setPaga(false);
-            parcela.setAtrasada(false);
-            parcelas.add(parcela);
         }
-
-        emprestimo.setParcelas(parcelas);
-        em.persist(emprestimo);
-
-        // Atualizar saldo do credor
-        credor.setSaldoDisponivel(credor.getSaldoDisponivel() - valorPrincipal);
-        em.merge(credor);
-
-        // Atualizar status da proposta
-        proposta.setStatus("ACEITA");
-        em.merge(proposta);
-
-        // Notificar ambos
-        NotificacaoService.notificarConfirmacao(em, "CREDOR", credor.getId(), emprestimo);
-        NotificacaoService.notificarConfirmacao(em, "DEVEDOR", devedor.getId(), emprestimo);
     }
 
     /**
@@ -1,13 +1,25 @@
 package com.agilit.controller.notificacao;
 
 import com.agilit.config.AppException;
-import com.agilit.config.JPAUtil;
+import com.agilit.config.FluxoNotificacoes;
+import com.agilit.config.Paginacao;
+import com.agilit.config.SomenteLeitura;
+import com.agilit.config.Transacional;
 import com.agilit.model.Notificacao;
+import com.agilit.model.dao.NotificacaoDAO;
+import com.agilit.model.dao.Pagina;
+import com.agilit.model.dto.NotificacaoDTO;
 
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseEventSink;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -15,12 +27,19 @@ import java.util.List;
 /**
  * Controller para gerenciar Notificações.
  * Permite listar, marcar como lida e deletar notificações.
+ *
+ * As listagens são paginadas por cursor (?limite=&cursor=), ver Paginacao.
+ * Notificações novas e o total de não lidas também chegam por stream SSE,
+ * sem polling (ver FluxoNotificacoes).
  */
 @Path("/notificacao")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class NotificacaoController {
 
+    @Inject
+    private EntityManager em;
+
     /**
      * Listar todas as notificações de um usuário
      * GET /api/notificacao/{tipoDestinatario}/{destinatarioId}
@@ -30,31 +49,24 @@ public class NotificacaoController {
      */
     @GET
     @Path("/{tipoDestinatario}/{destinatarioId}")
+    @SomenteLeitura
     public Response listar(
             @PathParam("tipoDestinatario") String tipoDestinatario,
-            @PathParam("destinatarioId") Long destinatarioId) {
-        
-        EntityManager em = JPAUtil.getEntityManager();
-        
-        try {
-            // Validar tipo
-            if (!tipoDestinatario.matches("CREDOR|DEVEDOR")) {
-                throw new AppException("Tipo de destinatário inválido. Use: CREDOR ou DEVEDOR", 400);
-            }
-
-            List<Notificacao> notificacoes = em.createQuery(
-                "SELECT n FROM Notificacao n WHERE n.tipoDestinatario = :tipo AND n.destinatarioId = :id ORDER BY n.dataCriacao DESC",
-                Notificacao.class
-            )
-            .setParameter("tipo", tipoDestinatario)
-            .setParameter("id", destinatarioId)
-            .getResultList();
+            @PathParam("destinatarioId") Long destinatarioId,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("limite") Integer limite,
+            @Context UriInfo uriInfo) {
+        // Validar tipo
+        if (!tipoDestinatario.matches("CREDOR|DEVEDOR")) {
+            throw new AppException("Tipo de destinatário inválido. Use: CREDOR ou DEVEDOR", 400);
+        }
 
-            return Response.ok(notificacoes).build();
+        int tamanho = Paginacao.limite(limite);
+        Pagina<NotificacaoDTO> pagina = new NotificacaoDAO(em).findPaginaByDestinatario(
+            tipoDestinatario, destinatarioId, false, null, null,
+            Paginacao.cursor(cursor, LocalDateTime.class), tamanho);
 
-        } finally {
-            em.close();
-        }
+        return Paginacao.resposta(pagina, tamanho, uriInfo);
     }
 
     /**
@@ -63,31 +75,24 @@ public class NotificacaoController {
      */
     @GET
     @Path("/{tipoDestinatario}/{destinatarioId}/nao-lidas")
+    @SomenteLeitura
     public Response listarNaoLidas(
             @PathParam("tipoDestinatario") String tipoDestinatario,
-            @PathParam("destinatarioId") Long destinatarioId) {
-        
-        EntityManager em = JPAUtil.getEntityManager();
-        
-        try {
-            // Validar tipo
-            if (!tipoDestinatario.matches("CREDOR|DEVEDOR")) {
-                throw new AppException("Tipo de destinatário inválido. Use: CREDOR ou DEVEDOR", 400);
-            }
-
-            List<Notificacao> notificacoes = em.createQuery(
-                "SELECT n FROM Notificacao n WHERE n.tipoDestinatario = :tipo AND n.destinatarioId = :id AND n.lida = false ORDER BY n.dataCriacao DESC",
-                Notificacao.class
-            )
-            .setParameter("tipo", tipoDestinatario)
-            .setParameter("id", destinatarioId)
-            .getResultList();
+            @PathParam("destinatarioId") Long destinatarioId,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("limite") Integer limite,
+            @Context UriInfo uriInfo) {
+        // Validar tipo
+        if (!tipoDestinatario.matches("CREDOR|DEVEDOR")) {
+            throw new AppException("Tipo de destinatário inválido. Use: CREDOR ou DEVEDOR", 400);
+        }
 
-            return Response.ok(notificacoes).build();
+        int tamanho = Paginacao.limite(limite);
+        Pagina<NotificacaoDTO> pagina = new NotificacaoDAO(em).findPaginaByDestinatario(
+            tipoDestinatario, destinatarioId, true, null, null,
+            Paginacao.cursor(cursor, LocalDateTime.class), tamanho);
 
-        } finally {
-            em.close();
-        }
+        return Paginacao.resposta(pagina, tamanho, uriInfo);
     }
 
     /**
@@ -96,31 +101,48 @@ public class NotificacaoController {
      */
     @GET
     @Path("/{tipoDestinatario}/{destinatarioId}/count-nao-lidas")
+    @SomenteLeitura
     public Response contarNaoLidas(
             @PathParam("tipoDestinatario") String tipoDestinatario,
             @PathParam("destinatarioId") Long destinatarioId) {
-        
-        EntityManager em = JPAUtil.getEntityManager();
-        
-        try {
-            // Validar tipo
-            if (!tipoDestinatario.matches("CREDOR|DEVEDOR")) {
-                throw new AppException("Tipo de destinatário inválido. Use: CREDOR ou DEVEDOR", 400);
-            }
+        // Validar tipo
+        if (!tipoDestinatario.matches("CREDOR|DEVEDOR")) {
+            throw new AppException("Tipo de destinatário inválido. Use: CREDOR ou DEVEDOR", 400);
+        }
 
-            Long count = em.createQuery(
-                "SELECT COUNT(n) FROM Notificacao n WHERE n.tipoDestinatario = :tipo AND n.destinatarioId = :id AND n.lida = false",
-                Long.class
-            )
-            .setParameter("tipo", tipoDestinatario)
-            .setParameter("id", destinatarioId)
-            .getSingleResult();
+        Long count = em.createQuery(
+            "SELECT COUNT(n) FROM Notificacao n WHERE n.tipoDestinatario = :tipo AND n.destinatarioId = :id AND n.lida = false",
+            Long.class
+        )
+        .setParameter("tipo", tipoDestinatario)
+        .setParameter("id", destinatarioId)
+        .getSingleResult();
 
-            return Response.ok(count).build();
+        return Response.ok(count).build();
+    }
 
-        } finally {
-            em.close();
+    /**
+     * Stream (SSE) das notificações novas e do total de não lidas
+     * GET /api/notificacao/{tipoDestinatario}/{destinatarioId}/stream
+     *
+     * Ao reconectar com o cabeçalho Last-Event-ID, recebe antes as
+     * notificações gravadas depois daquele evento.
+     */
+    @GET
+    @Path("/{tipoDestinatario}/{destinatarioId}/stream")
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    public void stream(
+            @PathParam("tipoDestinatario") String tipoDestinatario,
+            @PathParam("destinatarioId") Long destinatarioId,
+            @HeaderParam(HttpHeaders.LAST_EVENT_ID_HEADER) String ultimoEvento,
+            @Context SseEventSink sink,
+            @Context Sse sse) {
+        // Validar tipo
+        if (!tipoDestinatario.matches("CREDOR|DEVEDOR")) {
+            throw new AppException("Tipo de destinatário inválido. Use: CREDOR ou DEVEDOR", 400);
         }
+
+        FluxoNotificacoes.conectar(tipoDestinatario, destinatarioId, ultimoEvento, sink, sse);
     }
 
     /**
@@ -129,21 +151,15 @@ public class NotificacaoController {
      */
     @GET
     @Path("/{id}")
+    @SomenteLeitura
     public Response buscarPorId(@PathParam("id") Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
+        Notificacao notificacao = em.find(Notificacao.class, id);
         
-        try {
-            Notificacao notificacao = em.find(Notificacao.class, id);
-            
-            if (notificacao == null) {
-                throw new AppException("Notificação não encontrada", 404);
-            }
-
-            return Response.ok(notificacao).build();
-
-        } finally {
-            em.close();
+        if (notificacao == null) {
+            throw new AppException("Notificação não encontrada", 404);
         }
+
+        return Response.ok(notificacao).build();
     }
 
     /**
@@ -152,12 +168,9 @@ public class NotificacaoController {
      */
     @PUT
     @Path("/{id}/marcar-lida")
+    @Transacional
     public Response marcarComoLida(@PathParam("id") Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-
             Notificacao notificacao = em.find(Notificacao.class, id);
             
             if (notificacao == null) {
@@ -167,24 +180,15 @@ public class NotificacaoController {
             if (!notificacao.getLida()) {
                 notificacao.marcarComoLida();
                 em.merge(notificacao);
+                FluxoNotificacoes.publicar(em, FluxoNotificacoes.naoLidas(
+                    em, notificacao.getTipoDestinatario(), List.of(notificacao.getDestinatarioId())));
             }
 
-            em.getTransaction().commit();
-
             return Response.ok(notificacao).build();
-
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao marcar notificação como lida: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
 
@@ -194,15 +198,11 @@ public class NotificacaoController {
      */
     @PUT
     @Path("/{tipoDestinatario}/{destinatarioId}/marcar-todas-lidas")
+    @Transacional
     public Response marcarTodasComoLidas(
             @PathParam("tipoDestinatario") String tipoDestinatario,
             @PathParam("destinatarioId") Long destinatarioId) {
-        
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-
             // Validar tipo
             if (!tipoDestinatario.matches("CREDOR|DEVEDOR")) {
                 throw new AppException("Tipo de destinatário inválido. Use: CREDOR ou DEVEDOR", 400);
@@ -217,22 +217,16 @@ public class NotificacaoController {
             .setParameter("id", destinatarioId)
             .executeUpdate();
 
-            em.getTransaction().commit();
+            if (updated > 0) {
+                FluxoNotificacoes.publicar(em, FluxoNotificacoes.naoLidas(
+                    em, tipoDestinatario, List.of(destinatarioId)));
+            }
 
             return Response.ok("{\"marcadas\": " + updated + "}").build();
-
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao marcar notificações: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
 
@@ -242,12 +236,9 @@ public class NotificacaoController {
      */
     @DELETE
     @Path("/{id}")
+    @Transacional
     public Response deletar(@PathParam("id") Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-
             Notificacao notificacao = em.find(Notificacao.class, id);
             
             if (notificacao == null) {
@@ -255,22 +246,16 @@ public class NotificacaoController {
             }
 
             em.remove(notificacao);
-            em.getTransaction().commit();
+            if (!notificacao.getLida()) {
+                FluxoNotificacoes.publicar(em, FluxoNotificacoes.naoLidas(
+                    em, notificacao.getTipoDestinatario(), List.of(notificacao.getDestinatarioId())));
+            }
 
             return Response.noContent().build();
-
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao deletar notificação: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
 
@@ -280,15 +265,11 @@ public class NotificacaoController {
      */
     @DELETE
     @Path("/{tipoDestinatario}/{destinatarioId}/lidas")
+    @Transacional
     public Response deletarLidas(
             @PathParam("tipoDestinatario") String tipoDestinatario,
             @PathParam("destinatarioId") Long destinatarioId) {
-        
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-
             // Validar tipo
             if (!tipoDestinatario.matches("CREDOR|DEVEDOR")) {
                 throw new AppException("Tipo de destinatário inválido. Use: CREDOR ou DEVEDOR", 400);
@@ -301,22 +282,11 @@ public class NotificacaoController {
             .setParameter("id", destinatarioId)
             .executeUpdate();
 
-            em.getTransaction().commit();
-
             return Response.ok("{\"deletadas\": " + deleted + "}").build();
-
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao deletar notificações: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
 
@@ -326,34 +296,25 @@ public class NotificacaoController {
      */
     @GET
     @Path("/{tipoDestinatario}/{destinatarioId}/tipo/{tipo}")
+    @SomenteLeitura
     public Response filtrarPorTipo(
             @PathParam("tipoDestinatario") String tipoDestinatario,
             @PathParam("destinatarioId") Long destinatarioId,
-            @PathParam("tipo") String tipo) {
-        
-        EntityManager em = JPAUtil.getEntityManager();
-        
-        try {
-            // Validar tipo destinatário
-            if (!tipoDestinatario.matches("CREDOR|DEVEDOR")) {
-                throw new AppException("Tipo de destinatário inválido. Use: CREDOR ou DEVEDOR", 400);
-            }
-
-            List<Notificacao> notificacoes = em.createQuery(
-                "SELECT n FROM Notificacao n WHERE n.tipoDestinatario = :tipoDestinatario " +
-                "AND n.destinatarioId = :id AND n.tipo = :tipo ORDER BY n.dataCriacao DESC",
-                Notificacao.class
-            )
-            .setParameter("tipoDestinatario", tipoDestinatario)
-            .setParameter("id", destinatarioId)
-            .setParameter("tipo", tipo)
-            .getResultList();
+            @PathParam("tipo") String tipo,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("limite") Integer limite,
+            @Context UriInfo uriInfo) {
+        // Validar tipo destinatário
+        if (!tipoDestinatario.matches("CREDOR|DEVEDOR")) {
+            throw new AppException("Tipo de destinatário inválido. Use: CREDOR ou DEVEDOR", 400);
+        }
 
-            return Response.ok(notificacoes).build();
+        int tamanho = Paginacao.limite(limite);
+        Pagina<NotificacaoDTO> pagina = new NotificacaoDAO(em).findPaginaByDestinatario(
+            tipoDestinatario, destinatarioId, false, tipo, null,
+            Paginacao.cursor(cursor, LocalDateTime.class), tamanho);
 
-        } finally {
-            em.close();
-        }
+        return Paginacao.resposta(pagina, tamanho, uriInfo);
     }
 
     /**
@@ -362,35 +323,26 @@ public class NotificacaoController {
      */
     @GET
     @Path("/{tipoDestinatario}/{destinatarioId}/recentes")
+    @SomenteLeitura
     public Response listarRecentes(
             @PathParam("tipoDestinatario") String tipoDestinatario,
-            @PathParam("destinatarioId") Long destinatarioId) {
-        
-        EntityManager em = JPAUtil.getEntityManager();
-        
-        try {
-            // Validar tipo
-            if (!tipoDestinatario.matches("CREDOR|DEVEDOR")) {
-                throw new AppException("Tipo de destinatário inválido. Use: CREDOR ou DEVEDOR", 400);
-            }
+            @PathParam("destinatarioId") Long destinatarioId,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("limite") Integer limite,
+            @Context UriInfo uriInfo) {
+        // Validar tipo
+        if (!tipoDestinatario.matches("CREDOR|DEVEDOR")) {
+            throw new AppException("Tipo de destinatário inválido. Use: CREDOR ou DEVEDOR", 400);
+        }
 
-            LocalDateTime ultimas24h = LocalDateTime.now().minusHours(24);
+        LocalDateTime ultimas24h = LocalDateTime.now().minusHours(24);
 
-            List<Notificacao> notificacoes = em.createQuery(
-                "SELECT n FROM Notificacao n WHERE n.tipoDestinatario = :tipo " +
-                "AND n.destinatarioId = :id AND n.dataCriacao >= :data ORDER BY n.dataCriacao DESC",
-                Notificacao.class
-            )
-            .setParameter("tipo", tipoDestinatario)
-            .setParameter("id", destinatarioId)
-            .setParameter("data", ultimas24h)
-            .getResultList();
-
-            return Response.ok(notificacoes).build();
+        int tamanho = Paginacao.limite(limite);
+        Pagina<NotificacaoDTO> pagina = new NotificacaoDAO(em).findPaginaByDestinatario(
+            tipoDestinatario, destinatarioId, false, null, ultimas24h,
+            Paginacao.cursor(cursor, LocalDateTime.class), tamanho);
 
-        } finally {
-            em.close();
-        }
+        return Paginacao.resposta(pagina, tamanho, uriInfo);
     }
 }
 
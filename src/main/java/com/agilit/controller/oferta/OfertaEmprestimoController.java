@@ -1,13 +1,17 @@
 package com.agilit.controller.oferta;
 
 import com.agilit.config.AppException;
-import com.agilit.config.JPAUtil;
+import com.agilit.config.SomenteLeitura;
+import com.agilit.config.Transacional;
 import com.agilit.model.Credor;
 import com.agilit.model.OfertaEmprestimo;
 import com.agilit.model.PropostaEmprestimo;
-import com.agilit.util.CalculadoraEmprestimo;
+import com.agilit.util.CacheOpcoesParcelas;
+import com.agilit.util.SistemaAmortizacao;
 import com.agilit.util.GeradorIdPublico;
+import com.agilit.util.NotificacaoService;
 
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
@@ -26,17 +30,17 @@ import java.util.List;
 @Consumes(MediaType.APPLICATION_JSON)
 public class OfertaEmprestimoController {
 
+    @Inject
+    private EntityManager em;
+
     /**
      * Criar nova oferta de empréstimo
      * POST /api/oferta
      */
     @POST
+    @Transacional
     public Response criar(OfertaEmprestimo oferta) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-
             // Validações
             if (oferta.getCredor() == null || oferta.getCredor().getId() == null) {
                 throw new AppException("Credor é obrigatório", 400);
@@ -76,22 +80,12 @@ public class OfertaEmprestimoController {
             oferta.setAtiva(true);
 
             em.persist(oferta);
-            em.getTransaction().commit();
 
             return Response.status(Response.Status.CREATED).entity(oferta).build();
-
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao criar oferta: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
 
@@ -101,22 +95,16 @@ public class OfertaEmprestimoController {
      */
     @GET
     @Path("/credor/{credorId}")
+    @SomenteLeitura
     public Response listarPorCredor(@PathParam("credorId") Long credorId) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
-        try {
-            List<OfertaEmprestimo> ofertas = em.createQuery(
-                "SELECT o FROM OfertaEmprestimo o WHERE o.credor.id = :credorId ORDER BY o.dataCriacao DESC",
-                OfertaEmprestimo.class
-            )
-            .setParameter("credorId", credorId)
-            .getResultList();
-
-            return Response.ok(ofertas).build();
-
-        } finally {
-            em.close();
-        }
+        List<OfertaEmprestimo> ofertas = em.createQuery(
+            "SELECT o FROM OfertaEmprestimo o WHERE o.credor.id = :credorId ORDER BY o.dataCriacao DESC",
+            OfertaEmprestimo.class
+        )
+        .setParameter("credorId", credorId)
+        .getResultList();
+
+        return Response.ok(ofertas).build();
     }
 
     /**
@@ -125,22 +113,16 @@ public class OfertaEmprestimoController {
      */
     @GET
     @Path("/credor/{credorId}/ativas")
+    @SomenteLeitura
     public Response listarAtivasPorCredor(@PathParam("credorId") Long credorId) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
-        try {
-            List<OfertaEmprestimo> ofertas = em.createQuery(
-                "SELECT o FROM OfertaEmprestimo o WHERE o.credor.id = :credorId AND o.ativa = true ORDER BY o.dataCriacao DESC",
-                OfertaEmprestimo.class
-            )
-            .setParameter("credorId", credorId)
-            .getResultList();
-
-            return Response.ok(ofertas).build();
-
-        } finally {
-            em.close();
-        }
+        List<OfertaEmprestimo> ofertas = em.createQuery(
+            "SELECT o FROM OfertaEmprestimo o WHERE o.credor.id = :credorId AND o.ativa = true ORDER BY o.dataCriacao DESC",
+            OfertaEmprestimo.class
+        )
+        .setParameter("credorId", credorId)
+        .getResultList();
+
+        return Response.ok(ofertas).build();
     }
 
     /**
@@ -149,21 +131,15 @@ public class OfertaEmprestimoController {
      */
     @GET
     @Path("/{id}")
+    @SomenteLeitura
     public Response buscarPorId(@PathParam("id") Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
+        OfertaEmprestimo oferta = em.find(OfertaEmprestimo.class, id);
         
-        try {
-            OfertaEmprestimo oferta = em.find(OfertaEmprestimo.class, id);
-            
-            if (oferta == null) {
-                throw new AppException("Oferta não encontrada", 404);
-            }
-
-            return Response.ok(oferta).build();
-
-        } finally {
-            em.close();
+        if (oferta == null) {
+            throw new AppException("Oferta não encontrada", 404);
         }
+
+        return Response.ok(oferta).build();
     }
 
     /**
@@ -172,12 +148,9 @@ public class OfertaEmprestimoController {
      */
     @DELETE
     @Path("/{id}")
+    @Transacional
     public Response deletar(@PathParam("id") Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-
             OfertaEmprestimo oferta = em.find(OfertaEmprestimo.class, id);
             
             if (oferta == null) {
@@ -200,22 +173,12 @@ public class OfertaEmprestimoController {
             }
 
             em.remove(oferta);
-            em.getTransaction().commit();
 
             return Response.noContent().build();
-
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao deletar oferta: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
 
@@ -225,12 +188,9 @@ public class OfertaEmprestimoController {
      */
     @POST
     @Path("/{id}/criar-proposta")
+    @Transacional
     public Response criarProposta(@PathParam("id") Long ofertaId) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-
             OfertaEmprestimo oferta = em.find(OfertaEmprestimo.class, ofertaId);
             
             if (oferta == null) {
@@ -244,33 +204,14 @@ public class OfertaEmprestimoController {
             // Criar proposta baseada na oferta
             PropostaEmprestimo proposta = new PropostaEmprestimo();
             
-            // Gerar ID público único
-            String idPublico;
-            boolean idUnico = false;
-            int tentativas = 0;
-            
-            do {
-                idPublico = GeradorIdPublico.gerar();
-                Long count = em.createQuery(
-                    "SELECT COUNT(p) FROM PropostaEmprestimo p WHERE p.idPublico = :idPublico",
-                    Long.class
-                )
-                .setParameter("idPublico", idPublico)
-                .getSingleResult();
-                
-                idUnico = (count == 0);
-                tentativas++;
-                
-                if (tentativas > 10) {
-                    throw new AppException("Erro ao gerar ID público único", 500);
-                }
-            } while (!idUnico);
+            // ID público único (sequence + permutação, sem consulta de conferência)
+            String idPublico = GeradorIdPublico.gerar(em);
 
             proposta.setIdPublico(idPublico);
             proposta.setOfertaOrigem(oferta);
             proposta.setCredor(oferta.getCredor());
             proposta.setNomeCredor(oferta.getCredor().getNome());
-            proposta.setValorDisponivel(oferta.getValorDisponivel());
+            proposta.setValorDisponivelCentavos(oferta.getValorDisponivelCentavos());
             proposta.setParcelasMinimas(oferta.getParcelasMinimas());
             proposta.setParcelasMaximas(oferta.getParcelasMaximas());
             proposta.setDiasAtePrimeiraCobranca(oferta.getDiasAtePrimeiraCobranca());
@@ -279,54 +220,43 @@ public class OfertaEmprestimoController {
             proposta.setStatus("ATIVA");
 
             em.persist(proposta);
-            em.getTransaction().commit();
 
-            return Response.status(Response.Status.CREATED).entity(proposta).build();
+            // Devedores com busca salva que a proposta atende
+            NotificacaoService.notificarBuscasSalvas(em, proposta);
 
+            return Response.status(Response.Status.CREATED).entity(proposta).build();
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao criar proposta: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
 
     /**
      * Calcular opções de parcelamento para uma oferta
-     * GET /api/oferta/{id}/opcoes-parcelas
+     * GET /api/oferta/{id}/opcoes-parcelas?sistema=SIMPLES|PRICE|SAC
      */
     @GET
     @Path("/{id}/opcoes-parcelas")
-    public Response calcularOpcoesParcelas(@PathParam("id") Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
+    @SomenteLeitura
+    public Response calcularOpcoesParcelas(@PathParam("id") Long id,
+                                           @QueryParam("sistema") String sistema) {
+        OfertaEmprestimo oferta = em.find(OfertaEmprestimo.class, id);
         
-        try {
-            OfertaEmprestimo oferta = em.find(OfertaEmprestimo.class, id);
-            
-            if (oferta == null) {
-                throw new AppException("Oferta não encontrada", 404);
-            }
-
-            List<CalculadoraEmprestimo.OpcaoParcela> opcoes = 
-                CalculadoraEmprestimo.calcularOpcoesParcelas(
-                    oferta.getValorDisponivel(),
-                    oferta.getParcelasMinimas(),
-                    oferta.getParcelasMaximas(),
-                    oferta.getTaxaJuros()
-                );
+        if (oferta == null) {
+            throw new AppException("Oferta não encontrada", 404);
+        }
 
-            return Response.ok(opcoes).build();
+        // JSON já pronto (termos da oferta não mudam), ver CacheOpcoesParcelas
+        byte[] opcoes = CacheOpcoesParcelas.opcoes(
+                oferta.getValorDisponivelCentavos(),
+                oferta.getParcelasMinimas(),
+                oferta.getParcelasMaximas(),
+                oferta.getTaxaJuros(),
+                SistemaAmortizacao.de(sistema)
+            ).asUnquotedUTF8();
 
-        } finally {
-            em.close();
-        }
+        return Response.ok(opcoes, MediaType.APPLICATION_JSON).build();
     }
 }
 
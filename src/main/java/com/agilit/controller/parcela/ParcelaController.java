@@ -2,16 +2,27 @@ package com.agilit.controller.parcela;
 
 import com.agilit.config.AppException;
 import com.agilit.config.JPAUtil;
+import com.agilit.config.Paginacao;
+import com.agilit.config.SomenteLeitura;
+import com.agilit.config.Transacional;
 // import com.agilit.model.Credor;
 import com.agilit.model.Emprestimo;
+import com.agilit.model.MovimentacaoSaldo;
 import com.agilit.model.Parcela;
+import com.agilit.model.dao.Pagina;
+import com.agilit.model.dao.ParcelaDAO;
+import com.agilit.model.dto.ParcelaDTO;
+import com.agilit.service.SaldoCredorService;
 import com.agilit.util.NotificacaoService;
 import com.agilit.util.VerificadorStatusEmprestimo;
 
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
 
 import java.time.LocalDate;
 import java.util.HashMap;
@@ -27,39 +38,36 @@ import java.util.Map;
 @Consumes(MediaType.APPLICATION_JSON)
 public class ParcelaController {
 
+    @Inject
+    private EntityManager em;
+
     /**
      * Listar parcelas de um empréstimo
      * GET /api/parcela/emprestimo/{emprestimoId}
      */
     @GET
     @Path("/emprestimo/{emprestimoId}")
+    @SomenteLeitura
     public Response listarPorEmprestimo(@PathParam("emprestimoId") Long emprestimoId) {
-        EntityManager em = JPAUtil.getEntityManager();
+        Emprestimo emprestimo = em.find(Emprestimo.class, emprestimoId);
         
-        try {
-            Emprestimo emprestimo = em.find(Emprestimo.class, emprestimoId);
-            
-            if (emprestimo == null) {
-                throw new AppException("Empréstimo não encontrado", 404);
-            }
-
-            List<Parcela> parcelas = em.createQuery(
-                "SELECT p FROM Parcela p WHERE p.emprestimo.id = :emprestimoId ORDER BY p.numeroParcela",
-                Parcela.class
-            )
-            .setParameter("emprestimoId", emprestimoId)
-            .getResultList();
-
-            // Atualizar status de atraso
-            for (Parcela parcela : parcelas) {
-                parcela.verificarAtraso();
-            }
+        if (emprestimo == null) {
+            throw new AppException("Empréstimo não encontrado", 404);
+        }
 
-            return Response.ok(parcelas).build();
+        List<Parcela> parcelas = em.createQuery(
+            "SELECT p FROM Parcela p WHERE p.emprestimo.id = :emprestimoId ORDER BY p.numeroParcela",
+            Parcela.class
+        )
+        .setParameter("emprestimoId", emprestimoId)
+        .getResultList();
 
-        } finally {
-            em.close();
+        // Atualizar status de atraso
+        for (Parcela parcela : parcelas) {
+            parcela.verificarAtraso();
         }
+
+        return Response.ok(parcelas).build();
     }
 
     /**
@@ -68,23 +76,17 @@ public class ParcelaController {
      */
     @GET
     @Path("/{id}")
+    @SomenteLeitura
     public Response buscarPorId(@PathParam("id") Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
+        Parcela parcela = em.find(Parcela.class, id);
         
-        try {
-            Parcela parcela = em.find(Parcela.class, id);
-            
-            if (parcela == null) {
-                throw new AppException("Parcela não encontrada", 404);
-            }
-
-            parcela.verificarAtraso();
+        if (parcela == null) {
+            throw new AppException("Parcela não encontrada", 404);
+        }
 
-            return Response.ok(parcela).build();
+        parcela.verificarAtraso();
 
-        } finally {
-            em.close();
-        }
+        return Response.ok(parcela).build();
     }
 
     /**
@@ -93,13 +95,10 @@ public class ParcelaController {
      */
     @PUT
     @Path("/{id}/pagar")
+    @Transacional
     public Response marcarComoPaga(@PathParam("id") Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-
-            Parcela parcela = em.find(Parcela.class, id);
+            Parcela parcela = em.find(Parcela.class, id, JPAUtil.comGrafo(em, Parcela.GRAFO_EMPRESTIMO));
             
             if (parcela == null) {
                 throw new AppException("Parcela não encontrada", 404);
@@ -112,8 +111,12 @@ public class ParcelaController {
             // Marcar como paga usando o utilitário
             VerificadorStatusEmprestimo.marcarParcelaPaga(parcela, em);
 
-            // Verificar se empréstimo foi quitado
+            // Valor recebido volta ao saldo do credor (um recebimento por parcela)
             Emprestimo emprestimo = parcela.getEmprestimo();
+            SaldoCredorService.creditar(em, emprestimo.getCredor().getId(), MovimentacaoSaldo.Tipo.RECEBIMENTO,
+                                        parcela.getValorCentavos(), "PARCELA", parcela.getId());
+
+            // Verificar se empréstimo foi quitado
             if (VerificadorStatusEmprestimo.isQuitado(emprestimo)) {
                 // Notificar ambos sobre quitação
                 NotificacaoService.notificarQuitacao(
@@ -129,22 +132,11 @@ public class ParcelaController {
                 );
             }
 
-            em.getTransaction().commit();
-
             return Response.ok(parcela).build();
-
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao marcar parcela como paga: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
 
@@ -154,27 +146,21 @@ public class ParcelaController {
      */
     @GET
     @Path("/emprestimo/{emprestimoId}/pendentes")
+    @SomenteLeitura
     public Response listarPendentes(@PathParam("emprestimoId") Long emprestimoId) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
-        try {
-            List<Parcela> parcelas = em.createQuery(
-                "SELECT p FROM Parcela p WHERE p.emprestimo.id = :emprestimoId AND p.paga = false ORDER BY p.numeroParcela",
-                Parcela.class
-            )
-            .setParameter("emprestimoId", emprestimoId)
-            .getResultList();
-
-            // Atualizar status de atraso
-            for (Parcela parcela : parcelas) {
-                parcela.verificarAtraso();
-            }
-
-            return Response.ok(parcelas).build();
-
-        } finally {
-            em.close();
+        List<Parcela> parcelas = em.createQuery(
+            "SELECT p FROM Parcela p WHERE p.emprestimo.id = :emprestimoId AND p.paga = false ORDER BY p.numeroParcela",
+            Parcela.class
+        )
+        .setParameter("emprestimoId", emprestimoId)
+        .getResultList();
+
+        // Atualizar status de atraso
+        for (Parcela parcela : parcelas) {
+            parcela.verificarAtraso();
         }
+
+        return Response.ok(parcelas).build();
     }
 
     /**
@@ -183,22 +169,16 @@ public class ParcelaController {
      */
     @GET
     @Path("/emprestimo/{emprestimoId}/pagas")
+    @SomenteLeitura
     public Response listarPagas(@PathParam("emprestimoId") Long emprestimoId) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
-        try {
-            List<Parcela> parcelas = em.createQuery(
-                "SELECT p FROM Parcela p WHERE p.emprestimo.id = :emprestimoId AND p.paga = true ORDER BY p.numeroParcela",
-                Parcela.class
-            )
-            .setParameter("emprestimoId", emprestimoId)
-            .getResultList();
-
-            return Response.ok(parcelas).build();
-
-        } finally {
-            em.close();
-        }
+        List<Parcela> parcelas = em.createQuery(
+            "SELECT p FROM Parcela p WHERE p.emprestimo.id = :emprestimoId AND p.paga = true ORDER BY p.numeroParcela",
+            Parcela.class
+        )
+        .setParameter("emprestimoId", emprestimoId)
+        .getResultList();
+
+        return Response.ok(parcelas).build();
     }
 
     /**
@@ -207,30 +187,24 @@ public class ParcelaController {
      */
     @GET
     @Path("/emprestimo/{emprestimoId}/atrasadas")
+    @SomenteLeitura
     public Response listarAtrasadas(@PathParam("emprestimoId") Long emprestimoId) {
-        EntityManager em = JPAUtil.getEntityManager();
+        LocalDate hoje = LocalDate.now();
         
-        try {
-            LocalDate hoje = LocalDate.now();
-            
-            List<Parcela> parcelas = em.createQuery(
-                "SELECT p FROM Parcela p WHERE p.emprestimo.id = :emprestimoId AND p.paga = false AND p.dataVencimento < :hoje ORDER BY p.numeroParcela",
-                Parcela.class
-            )
-            .setParameter("emprestimoId", emprestimoId)
-            .setParameter("hoje", hoje)
-            .getResultList();
-
-            // Atualizar status de atraso
-            for (Parcela parcela : parcelas) {
-                parcela.verificarAtraso();
-            }
-
-            return Response.ok(parcelas).build();
-
-        } finally {
-            em.close();
+        List<Parcela> parcelas = em.createQuery(
+            "SELECT p FROM Parcela p WHERE p.emprestimo.id = :emprestimoId AND p.paga = false AND p.dataVencimento < :hoje ORDER BY p.numeroParcela",
+            Parcela.class
+        )
+        .setParameter("emprestimoId", emprestimoId)
+        .setParameter("hoje", hoje)
+        .getResultList();
+
+        // Atualizar status de atraso
+        for (Parcela parcela : parcelas) {
+            parcela.verificarAtraso();
         }
+
+        return Response.ok(parcelas).build();
     }
 
     /**
@@ -239,83 +213,77 @@ public class ParcelaController {
      */
     @GET
     @Path("/emprestimo/{emprestimoId}/resumo")
+    @SomenteLeitura
     public Response obterResumo(@PathParam("emprestimoId") Long emprestimoId) {
-        EntityManager em = JPAUtil.getEntityManager();
+        Emprestimo emprestimo = em.find(Emprestimo.class, emprestimoId);
         
-        try {
-            Emprestimo emprestimo = em.find(Emprestimo.class, emprestimoId);
-            
-            if (emprestimo == null) {
-                throw new AppException("Empréstimo não encontrado", 404);
-            }
-
-            // Atualizar status do empréstimo
-            VerificadorStatusEmprestimo.atualizarStatusEmprestimo(emprestimo);
-
-            // Calcular totais
-            double totalPago = VerificadorStatusEmprestimo.calcularTotalPago(emprestimo);
-            double totalPendente = VerificadorStatusEmprestimo.calcularTotalPendente(emprestimo);
-            long parcelasAtrasadas = VerificadorStatusEmprestimo.contarParcelasAtrasadas(emprestimo);
-
-            // Contar parcelas por status
-            Long parcelasPagas = em.createQuery(
-                "SELECT COUNT(p) FROM Parcela p WHERE p.emprestimo.id = :emprestimoId AND p.paga = true",
-                Long.class
-            ).setParameter("emprestimoId", emprestimoId).getSingleResult();
-
-            Long parcelasPendentes = em.createQuery(
-                "SELECT COUNT(p) FROM Parcela p WHERE p.emprestimo.id = :emprestimoId AND p.paga = false",
-                Long.class
-            ).setParameter("emprestimoId", emprestimoId).getSingleResult();
-
-            // Próxima parcela a vencer
-            List<Parcela> proximasParcelas = em.createQuery(
-                "SELECT p FROM Parcela p WHERE p.emprestimo.id = :emprestimoId AND p.paga = false ORDER BY p.dataVencimento",
-                Parcela.class
-            )
-            .setParameter("emprestimoId", emprestimoId)
-            .setMaxResults(1)
-            .getResultList();
-
-            Parcela proximaParcela = proximasParcelas.isEmpty() ? null : proximasParcelas.get(0);
-
-            // Montar resumo
-            Map<String, Object> resumo = new HashMap<>();
-            resumo.put("emprestimoId", emprestimoId);
-            resumo.put("valorTotal", emprestimo.getValorTotal());
-            resumo.put("totalPago", totalPago);
-            resumo.put("totalPendente", totalPendente);
-            resumo.put("numeroParcelas", emprestimo.getNumeroParcelas());
-            resumo.put("parcelasPagas", parcelasPagas);
-            resumo.put("parcelasPendentes", parcelasPendentes);
-            resumo.put("parcelasAtrasadas", parcelasAtrasadas);
-            resumo.put("status", emprestimo.getStatus());
-            resumo.put("proximaParcela", proximaParcela);
-            resumo.put("percentualPago", (totalPago / emprestimo.getValorTotal()) * 100);
-
-            return Response.ok(resumo).build();
-
-        } finally {
-            em.close();
+        if (emprestimo == null) {
+            throw new AppException("Empréstimo não encontrado", 404);
         }
+
+        // Atualizar status do empréstimo
+        VerificadorStatusEmprestimo.atualizarStatusEmprestimo(emprestimo);
+
+        // Calcular totais
+        double totalPago = VerificadorStatusEmprestimo.calcularTotalPago(emprestimo);
+        double totalPendente = VerificadorStatusEmprestimo.calcularTotalPendente(emprestimo);
+        long parcelasAtrasadas = VerificadorStatusEmprestimo.contarParcelasAtrasadas(emprestimo);
+
+        // Contar parcelas por status
+        Long parcelasPagas = em.createQuery(
+            "SELECT COUNT(p) FROM Parcela p WHERE p.emprestimo.id = :emprestimoId AND p.paga = true",
+            Long.class
+        ).setParameter("emprestimoId", emprestimoId).getSingleResult();
+
+        Long parcelasPendentes = em.createQuery(
+            "SELECT COUNT(p) FROM Parcela p WHERE p.emprestimo.id = :emprestimoId AND p.paga = false",
+            Long.class
+        ).setParameter("emprestimoId", emprestimoId).getSingleResult();
+
+        // Próxima parcela a vencer
+        List<Parcela> proximasParcelas = em.createQuery(
+            "SELECT p FROM Parcela p WHERE p.emprestimo.id = :emprestimoId AND p.paga = false ORDER BY p.dataVencimento",
+            Parcela.class
+        )
+        .setParameter("emprestimoId", emprestimoId)
+        .setMaxResults(1)
+        .getResultList();
+
+        Parcela proximaParcela = proximasParcelas.isEmpty() ? null : proximasParcelas.get(0);
+
+        // Montar resumo
+        Map<String, Object> resumo = new HashMap<>();
+        resumo.put("emprestimoId", emprestimoId);
+        resumo.put("valorTotal", emprestimo.getValorTotal());
+        resumo.put("totalPago", totalPago);
+        resumo.put("totalPendente", totalPendente);
+        resumo.put("numeroParcelas", emprestimo.getNumeroParcelas());
+        resumo.put("parcelasPagas", parcelasPagas);
+        resumo.put("parcelasPendentes", parcelasPendentes);
+        resumo.put("parcelasAtrasadas", parcelasAtrasadas);
+        resumo.put("status", emprestimo.getStatus());
+        resumo.put("proximaParcela", proximaParcela);
+        resumo.put("percentualPago", (totalPago / emprestimo.getValorTotal()) * 100);
+
+        return Response.ok(resumo).build();
     }
 
     /**
      * Listar todas as parcelas vencidas do sistema (para job de notificação)
-     * GET /api/parcela/vencidas
+     * GET /api/parcela/vencidas?limite={n}&cursor={token}
      */
     @GET
     @Path("/vencidas")
-    public Response listarTodasVencidas() {
-        EntityManager em = JPAUtil.getEntityManager();
-        
-        try {
-            List<Parcela> parcelas = VerificadorStatusEmprestimo.buscarParcelasVencidas();
-            return Response.ok(parcelas).build();
-
-        } finally {
-            em.close();
-        }
+    @SomenteLeitura
+    public Response listarTodasVencidas(
+            @QueryParam("cursor") String cursor,
+            @QueryParam("limite") Integer limite,
+            @Context UriInfo uriInfo) {
+        int tamanho = Paginacao.limite(limite);
+        Pagina<ParcelaDTO> pagina = new ParcelaDAO(em).findPaginaParcelasVencidas(
+            Paginacao.cursor(cursor, LocalDate.class), tamanho);
+
+        return Paginacao.resposta(pagina, tamanho, uriInfo);
     }
 
     /**
@@ -324,30 +292,24 @@ public class ParcelaController {
      */
     @GET
     @Path("/emprestimo/{emprestimoId}/proximas-vencimento")
+    @SomenteLeitura
     public Response listarProximasVencimento(@PathParam("emprestimoId") Long emprestimoId) {
-        EntityManager em = JPAUtil.getEntityManager();
+        LocalDate hoje = LocalDate.now();
+        LocalDate daquiSete = hoje.plusDays(7);
         
-        try {
-            LocalDate hoje = LocalDate.now();
-            LocalDate daquiSete = hoje.plusDays(7);
-            
-            List<Parcela> parcelas = em.createQuery(
-                "SELECT p FROM Parcela p WHERE p.emprestimo.id = :emprestimoId " +
-                "AND p.paga = false " +
-                "AND p.dataVencimento BETWEEN :hoje AND :daquiSete " +
-                "ORDER BY p.dataVencimento",
-                Parcela.class
-            )
-            .setParameter("emprestimoId", emprestimoId)
-            .setParameter("hoje", hoje)
-            .setParameter("daquiSete", daquiSete)
-            .getResultList();
-
-            return Response.ok(parcelas).build();
-
-        } finally {
-            em.close();
-        }
+        List<Parcela> parcelas = em.createQuery(
+            "SELECT p FROM Parcela p WHERE p.emprestimo.id = :emprestimoId " +
+            "AND p.paga = false " +
+            "AND p.dataVencimento BETWEEN :hoje AND :daquiSete " +
+            "ORDER BY p.dataVencimento",
+            Parcela.class
+        )
+        .setParameter("emprestimoId", emprestimoId)
+        .setParameter("hoje", hoje)
+        .setParameter("daquiSete", daquiSete)
+        .getResultList();
+
+        return Response.ok(parcelas).build();
     }
 }
 
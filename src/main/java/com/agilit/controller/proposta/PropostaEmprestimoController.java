@@ -1,16 +1,29 @@
 package com.agilit.controller.proposta;
 
 import com.agilit.config.AppException;
-import com.agilit.config.JPAUtil;
+import com.agilit.config.Paginacao;
+import com.agilit.config.SomenteLeitura;
+import com.agilit.config.Transacional;
 import com.agilit.model.PropostaEmprestimo;
+import com.agilit.model.dao.Pagina;
+import com.agilit.model.dao.PropostaEmprestimoDAO;
+import com.agilit.model.dto.PropostaEmprestimoDTO;
+import com.agilit.util.CacheOpcoesParcelas;
 import com.agilit.util.CalculadoraEmprestimo;
+import com.agilit.util.Dinheiro;
+import com.agilit.util.SistemaAmortizacao;
 
+import com.fasterxml.jackson.databind.util.RawValue;
+import jakarta.inject.Inject;
 import jakarta.persistence.EntityManager;
 import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.Context;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,26 +38,25 @@ import java.util.Map;
 @Consumes(MediaType.APPLICATION_JSON)
 public class PropostaEmprestimoController {
 
+    @Inject
+    private EntityManager em;
+
     /**
      * Listar todas as propostas ativas (públicas para Devedores)
-     * GET /api/proposta/publicas
+     * GET /api/proposta/publicas?limite={n}&cursor={token}
      */
     @GET
     @Path("/publicas")
-    public Response listarPropostasPublicas() {
-        EntityManager em = JPAUtil.getEntityManager();
-        
-        try {
-            List<PropostaEmprestimo> propostas = em.createQuery(
-                "SELECT p FROM PropostaEmprestimo p WHERE p.status = 'ATIVA' ORDER BY p.dataCriacao DESC",
-                PropostaEmprestimo.class
-            ).getResultList();
-
-            return Response.ok(propostas).build();
-
-        } finally {
-            em.close();
-        }
+    @SomenteLeitura
+    public Response listarPropostasPublicas(
+            @QueryParam("cursor") String cursor,
+            @QueryParam("limite") Integer limite,
+            @Context UriInfo uriInfo) {
+        int tamanho = Paginacao.limite(limite);
+        Pagina<PropostaEmprestimoDTO> pagina = new PropostaEmprestimoDAO(em).findPaginaByStatus(
+            "ATIVA", Paginacao.cursor(cursor, LocalDateTime.class), tamanho);
+
+        return Paginacao.resposta(pagina, tamanho, uriInfo);
     }
 
     /**
@@ -53,22 +65,16 @@ public class PropostaEmprestimoController {
      */
     @GET
     @Path("/credor/{credorId}")
+    @SomenteLeitura
     public Response listarPorCredor(@PathParam("credorId") Long credorId) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
-        try {
-            List<PropostaEmprestimo> propostas = em.createQuery(
-                "SELECT p FROM PropostaEmprestimo p WHERE p.credor.id = :credorId ORDER BY p.dataCriacao DESC",
-                PropostaEmprestimo.class
-            )
-            .setParameter("credorId", credorId)
-            .getResultList();
-
-            return Response.ok(propostas).build();
-
-        } finally {
-            em.close();
-        }
+        List<PropostaEmprestimoDTO> propostas = em.createQuery(
+            PropostaEmprestimoDTO.SELECT + " WHERE p.credor.id = :credorId ORDER BY p.dataCriacao DESC",
+            PropostaEmprestimoDTO.class
+        )
+        .setParameter("credorId", credorId)
+        .getResultList();
+
+        return Response.ok(propostas).build();
     }
 
     /**
@@ -77,26 +83,20 @@ public class PropostaEmprestimoController {
      */
     @GET
     @Path("/publico/{idPublico}")
+    @SomenteLeitura
     public Response buscarPorIdPublico(@PathParam("idPublico") String idPublico) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
-        try {
-            List<PropostaEmprestimo> propostas = em.createQuery(
-                "SELECT p FROM PropostaEmprestimo p WHERE p.idPublico = :idPublico",
-                PropostaEmprestimo.class
-            )
-            .setParameter("idPublico", idPublico)
-            .getResultList();
-
-            if (propostas.isEmpty()) {
-                throw new AppException("Proposta não encontrada", 404);
-            }
-
-            return Response.ok(propostas.get(0)).build();
-
-        } finally {
-            em.close();
+        List<PropostaEmprestimoDTO> propostas = em.createQuery(
+            PropostaEmprestimoDTO.SELECT + " WHERE p.idPublico = :idPublico",
+            PropostaEmprestimoDTO.class
+        )
+        .setParameter("idPublico", idPublico)
+        .getResultList();
+
+        if (propostas.isEmpty()) {
+            throw new AppException("Proposta não encontrada", 404);
         }
+
+        return Response.ok(propostas.get(0)).build();
     }
 
     /**
@@ -105,21 +105,15 @@ public class PropostaEmprestimoController {
      */
     @GET
     @Path("/{id}")
+    @SomenteLeitura
     public Response buscarPorId(@PathParam("id") Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
+        PropostaEmprestimo proposta = em.find(PropostaEmprestimo.class, id);
         
-        try {
-            PropostaEmprestimo proposta = em.find(PropostaEmprestimo.class, id);
-            
-            if (proposta == null) {
-                throw new AppException("Proposta não encontrada", 404);
-            }
-
-            return Response.ok(proposta).build();
-
-        } finally {
-            em.close();
+        if (proposta == null) {
+            throw new AppException("Proposta não encontrada", 404);
         }
+
+        return Response.ok(PropostaEmprestimoDTO.de(proposta)).build();
     }
 
     /**
@@ -128,12 +122,9 @@ public class PropostaEmprestimoController {
      */
     @PUT
     @Path("/{id}/cancelar")
+    @Transacional
     public Response cancelar(@PathParam("id") Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
         try {
-            em.getTransaction().begin();
-
             PropostaEmprestimo proposta = em.find(PropostaEmprestimo.class, id);
             
             if (proposta == null) {
@@ -165,105 +156,85 @@ public class PropostaEmprestimoController {
 
             proposta.setStatus("CANCELADA");
             em.merge(proposta);
-            em.getTransaction().commit();
 
             return Response.ok(proposta).build();
-
         } catch (AppException e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw e;
         } catch (Exception e) {
-            if (em.getTransaction().isActive()) {
-                em.getTransaction().rollback();
-            }
             throw new AppException("Erro ao cancelar proposta: " + e.getMessage(), 500);
-        } finally {
-            em.close();
         }
     }
 
     /**
      * Obter detalhes completos da proposta com cálculos
-     * GET /api/proposta/{id}/detalhes
+     * GET /api/proposta/{id}/detalhes?sistema=SIMPLES|PRICE|SAC
      */
     @GET
     @Path("/{id}/detalhes")
-    public Response obterDetalhes(@PathParam("id") Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
+    @SomenteLeitura
+    public Response obterDetalhes(@PathParam("id") Long id, @QueryParam("sistema") String sistema) {
+        PropostaEmprestimo proposta = em.find(PropostaEmprestimo.class, id);
         
-        try {
-            PropostaEmprestimo proposta = em.find(PropostaEmprestimo.class, id);
-            
-            if (proposta == null) {
-                throw new AppException("Proposta não encontrada", 404);
-            }
-
-            // Calcular opções de parcelas
-            List<CalculadoraEmprestimo.OpcaoParcela> opcoesParcelas = 
-                CalculadoraEmprestimo.calcularOpcoesParcelas(
-                    proposta.getValorDisponivel(),
-                    proposta.getParcelasMinimas(),
-                    proposta.getParcelasMaximas(),
-                    proposta.getTaxaJuros()
-                );
-
-            // Calcular data da primeira parcela
-            LocalDate dataPrimeiraParcela = CalculadoraEmprestimo.calcularDataPrimeiraParcela(
-                LocalDate.now(),
-                proposta.getDiasAtePrimeiraCobranca()
-            );
-
-            // Contar interesses
-            Long countInteresses = em.createQuery(
-                "SELECT COUNT(i) FROM InteresseProposta i WHERE i.proposta.id = :propostaId",
-                Long.class
-            )
-            .setParameter("propostaId", id)
-            .getSingleResult();
-
-            // Montar resposta
-            Map<String, Object> detalhes = new HashMap<>();
-            detalhes.put("proposta", proposta);
-            detalhes.put("opcoesParcelas", opcoesParcelas);
-            detalhes.put("dataPrimeiraParcela", dataPrimeiraParcela);
-            detalhes.put("totalInteresses", countInteresses);
-
-            return Response.ok(detalhes).build();
-
-        } finally {
-            em.close();
+        if (proposta == null) {
+            throw new AppException("Proposta não encontrada", 404);
         }
+
+        // Opções de parcelas (JSON pronto do cache: os termos da proposta não mudam)
+        RawValue opcoesParcelas = new RawValue(CacheOpcoesParcelas.opcoes(
+                proposta.getValorDisponivelCentavos(),
+                proposta.getParcelasMinimas(),
+                proposta.getParcelasMaximas(),
+                proposta.getTaxaJuros(),
+                SistemaAmortizacao.de(sistema)
+            ));
+
+        // Calcular data da primeira parcela
+        LocalDate dataPrimeiraParcela = CalculadoraEmprestimo.calcularDataPrimeiraParcela(
+            LocalDate.now(),
+            proposta.getDiasAtePrimeiraCobranca()
+        );
+
+        // Contar interesses
+        Long countInteresses = em.createQuery(
+            "SELECT COUNT(i) FROM InteresseProposta i WHERE i.proposta.id = :propostaId",
+            Long.class
+        )
+        .setParameter("propostaId", id)
+        .getSingleResult();
+
+        // Montar resposta
+        Map<String, Object> detalhes = new HashMap<>();
+        detalhes.put("proposta", PropostaEmprestimoDTO.de(proposta));
+        detalhes.put("sistemaAmortizacao", SistemaAmortizacao.de(sistema));
+        detalhes.put("opcoesParcelas", opcoesParcelas);
+        detalhes.put("dataPrimeiraParcela", dataPrimeiraParcela);
+        detalhes.put("totalInteresses", countInteresses);
+
+        return Response.ok(detalhes).build();
     }
 
     /**
      * Listar propostas por status
-     * GET /api/proposta/status/{status}
+     * GET /api/proposta/status/{status}?limite={n}&cursor={token}
      */
     @GET
     @Path("/status/{status}")
-    public Response listarPorStatus(@PathParam("status") String status) {
-        EntityManager em = JPAUtil.getEntityManager();
-        
-        try {
-            // Validar status
-            if (!status.matches("ATIVA|CANCELADA|ACEITA")) {
-                throw new AppException("Status inválido. Use: ATIVA, CANCELADA ou ACEITA", 400);
-            }
-
-            List<PropostaEmprestimo> propostas = em.createQuery(
-                "SELECT p FROM PropostaEmprestimo p WHERE p.status = :status ORDER BY p.dataCriacao DESC",
-                PropostaEmprestimo.class
-            )
-            .setParameter("status", status)
-            .getResultList();
+    @SomenteLeitura
+    public Response listarPorStatus(
+            @PathParam("status") String status,
+            @QueryParam("cursor") String cursor,
+            @QueryParam("limite") Integer limite,
+            @Context UriInfo uriInfo) {
+        // Validar status
+        if (!status.matches("ATIVA|CANCELADA|ACEITA")) {
+            throw new AppException("Status inválido. Use: ATIVA, CANCELADA ou ACEITA", 400);
+        }
 
-            return Response.ok(propostas).build();
+        int tamanho = Paginacao.limite(limite);
+        Pagina<PropostaEmprestimoDTO> pagina = new PropostaEmprestimoDAO(em).findPaginaByStatus(
+            status, Paginacao.cursor(cursor, LocalDateTime.class), tamanho);
 
-        } finally {
-            em.close();
-        }
+        return Paginacao.resposta(pagina, tamanho, uriInfo);
     }
 
     /**
@@ -272,44 +243,37 @@ public class PropostaEmprestimoController {
      */
     @GET
     @Path("/buscar")
+    @SomenteLeitura
     public Response buscarPorValor(
             @QueryParam("valorMin") Double valorMin,
             @QueryParam("valorMax") Double valorMax) {
-        
-        EntityManager em = JPAUtil.getEntityManager();
-        
-        try {
-            StringBuilder jpql = new StringBuilder(
-                "SELECT p FROM PropostaEmprestimo p WHERE p.status = 'ATIVA'"
-            );
+        StringBuilder jpql = new StringBuilder(
+            PropostaEmprestimoDTO.SELECT + " WHERE p.status = 'ATIVA'"
+        );
 
-            if (valorMin != null) {
-                jpql.append(" AND p.valorDisponivel >= :valorMin");
-            }
-
-            if (valorMax != null) {
-                jpql.append(" AND p.valorDisponivel <= :valorMax");
-            }
+        if (valorMin != null) {
+            jpql.append(" AND p.valorDisponivel >= :valorMin");
+        }
 
-            jpql.append(" ORDER BY p.dataCriacao DESC");
+        if (valorMax != null) {
+            jpql.append(" AND p.valorDisponivel <= :valorMax");
+        }
 
-            var query = em.createQuery(jpql.toString(), PropostaEmprestimo.class);
+        jpql.append(" ORDER BY p.dataCriacao DESC");
 
-            if (valorMin != null) {
-                query.setParameter("valorMin", valorMin);
-            }
+        var query = em.createQuery(jpql.toString(), PropostaEmprestimoDTO.class);
 
-            if (valorMax != null) {
-                query.setParameter("valorMax", valorMax);
-            }
+        if (valorMin != null) {
+            query.setParameter("valorMin", Dinheiro.centavos(valorMin));
+        }
 
-            List<PropostaEmprestimo> propostas = query.getResultList();
+        if (valorMax != null) {
+            query.setParameter("valorMax", Dinheiro.centavos(valorMax));
+        }
 
-            return Response.ok(propostas).build();
+        List<PropostaEmprestimoDTO> propostas = query.getResultList();
 
-        } finally {
-            em.close();
-        }
+        return Response.ok(propostas).build();
     }
 
     /**
@@ -318,49 +282,43 @@ public class PropostaEmprestimoController {
      */
     @GET
     @Path("/{id}/estatisticas")
+    @SomenteLeitura
     public Response obterEstatisticas(@PathParam("id") Long id) {
-        EntityManager em = JPAUtil.getEntityManager();
+        PropostaEmprestimo proposta = em.find(PropostaEmprestimo.class, id);
         
-        try {
-            PropostaEmprestimo proposta = em.find(PropostaEmprestimo.class, id);
-            
-            if (proposta == null) {
-                throw new AppException("Proposta não encontrada", 404);
-            }
-
-            // Contar interesses por status
-            Long totalInteresses = em.createQuery(
-                "SELECT COUNT(i) FROM InteresseProposta i WHERE i.proposta.id = :propostaId",
-                Long.class
-            ).setParameter("propostaId", id).getSingleResult();
-
-            Long interessesPendentes = em.createQuery(
-                "SELECT COUNT(i) FROM InteresseProposta i WHERE i.proposta.id = :propostaId AND i.status = 'PENDENTE'",
-                Long.class
-            ).setParameter("propostaId", id).getSingleResult();
-
-            Long interessesAprovados = em.createQuery(
-                "SELECT COUNT(i) FROM InteresseProposta i WHERE i.proposta.id = :propostaId AND i.status = 'APROVADO'",
-                Long.class
-            ).setParameter("propostaId", id).getSingleResult();
-
-            Long emprestimosGerados = em.createQuery(
-                "SELECT COUNT(e) FROM Emprestimo e WHERE e.propostaOrigem.id = :propostaId",
-                Long.class
-            ).setParameter("propostaId", id).getSingleResult();
-
-            Map<String, Object> estatisticas = new HashMap<>();
-            estatisticas.put("totalInteresses", totalInteresses);
-            estatisticas.put("interessesPendentes", interessesPendentes);
-            estatisticas.put("interessesAprovados", interessesAprovados);
-            estatisticas.put("emprestimosGerados", emprestimosGerados);
-            estatisticas.put("status", proposta.getStatus());
-
-            return Response.ok(estatisticas).build();
-
-        } finally {
-            em.close();
+        if (proposta == null) {
+            throw new AppException("Proposta não encontrada", 404);
         }
+
+        // Contar interesses por status
+        Long totalInteresses = em.createQuery(
+            "SELECT COUNT(i) FROM InteresseProposta i WHERE i.proposta.id = :propostaId",
+            Long.class
+        ).setParameter("propostaId", id).getSingleResult();
+
+        Long interessesPendentes = em.createQuery(
+            "SELECT COUNT(i) FROM InteresseProposta i WHERE i.proposta.id = :propostaId AND i.status = 'PENDENTE'",
+            Long.class
+        ).setParameter("propostaId", id).getSingleResult();
+
+        Long interessesAprovados = em.createQuery(
+            "SELECT COUNT(i) FROM InteresseProposta i WHERE i.proposta.id = :propostaId AND i.status = 'APROVADO'",
+            Long.class
+        ).setParameter("propostaId", id).getSingleResult();
+
+        Long emprestimosGerados = em.createQuery(
+            "SELECT COUNT(e) FROM Emprestimo e WHERE e.propostaOrigem.id = :propostaId",
+            Long.class
+        ).setParameter("propostaId", id).getSingleResult();
+
+        Map<String, Object> estatisticas = new HashMap<>();
+        estatisticas.put("totalInteresses", totalInteresses);
+        estatisticas.put("interessesPendentes", interessesPendentes);
+        estatisticas.put("interessesAprovados", interessesAprovados);
+        estatisticas.put("emprestimosGerados", emprestimosGerados);
+        estatisticas.put("status", proposta.getStatus());
+
+        return Response.ok(estatisticas).build();
     }
 }
 
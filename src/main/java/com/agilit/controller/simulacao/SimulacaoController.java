@@ -0,0 +1,280 @@
+package com.agilit.controller.simulacao;
+
+import com.agilit.config.AppException;
+import com.agilit.config.SomenteLeitura;
+import com.agilit.model.dto.PropostaEmprestimoDTO;
+import com.agilit.util.CalculadoraEmprestimo;
+import com.agilit.util.Dinheiro;
+import com.agilit.util.SistemaAmortizacao;
+
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Simulação de empréstimos em lote.
+ *
+ * Uma requisição leva centenas de simulações (ex: todas as posições do
+ * slider de parcelas, para várias propostas), em vez de uma requisição e um
+ * EntityManager por simulação. As propostas citadas são lidas numa única
+ * consulta; o cálculo não toca no banco e roda em paralelo.
+ *
+ * Endpoints:
+ * - POST /api/simulacao/lote
+ */
+@Path("/simulacao")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class SimulacaoController {
+
+    // Limites por requisição
+    static final int MAXIMO_SIMULACOES = 2_000;
+    static final int MAXIMO_PARCELAS = 600;
+
+    // Abaixo disso o lote é calculado na própria thread da requisição
+    private static final int MINIMO_PARALELO = 64;
+
+    // Pool próprio: não disputa o ForkJoinPool comum com o resto da JVM
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    @Inject
+    private EntityManager em;
+
+    /**
+     * Simular vários empréstimos de uma vez
+     * POST /api/simulacao/lote
+     *
+     * Aceita simulações avulsas ("itens") e/ou propostas x números de
+     * parcelas ("propostas" x "parcelas"; sem "parcelas", todas as opções
+     * de cada proposta). Os resultados saem na ordem do pedido: primeiro os
+     * itens, depois as combinações de proposta e parcelas.
+     */
+    @POST
+    @Path("/lote")
+    @SomenteLeitura
+    public Response simularLote(LoteDTO dto) {
+        if (dto == null) {
+            throw new AppException("Corpo da requisição é obrigatório", 400);
+        }
+
+        SistemaAmortizacao sistemaPadrao = SistemaAmortizacao.de(dto.sistema);
+        List<Simulacao> simulacoes = new ArrayList<>();
+
+        if (dto.itens != null) {
+            for (int i = 0; i < dto.itens.size(); i++) {
+                simulacoes.add(Simulacao.de(dto.itens.get(i), i, sistemaPadrao));
+                limitar(simulacoes.size());
+            }
+        }
+
+        if (dto.propostas != null && !dto.propostas.isEmpty()) {
+            if (dto.parcelas != null) {
+                for (Integer parcelas : dto.parcelas) {
+                    if (parcelas == null || parcelas < 1 || parcelas > MAXIMO_PARCELAS) {
+                        throw new AppException("parcelas: cada valor deve estar entre 1 e " + MAXIMO_PARCELAS, 400);
+                    }
+                }
+            }
+
+            Map<Long, PropostaEmprestimoDTO> propostas = carregarPropostas(dto.propostas);
+            for (Long propostaId : new LinkedHashSet<>(dto.propostas)) {
+                PropostaEmprestimoDTO proposta = propostas.get(propostaId);
+                if (proposta == null || incompleta(proposta)) {
+                    simulacoes.add(Simulacao.erro(propostaId, null,
+                        proposta == null ? "Proposta não encontrada" : "Proposta sem valor, taxa ou parcelas"));
+                    limitar(simulacoes.size());
+                    continue;
+                }
+                List<Integer> opcoes = dto.parcelas != null ? dto.parcelas : todasAsParcelas(proposta);
+                for (Integer parcelas : opcoes) {
+                    simulacoes.add(Simulacao.de(proposta, parcelas, sistemaPadrao));
+                    limitar(simulacoes.size());
+                }
+            }
+        }
+
+        boolean cronograma = Boolean.TRUE.equals(dto.cronograma);
+        LocalDate hoje = LocalDate.now();
+        List<Map<String, Object>> resultados = calcular(simulacoes, cronograma, hoje);
+
+        Map<String, Object> resposta = new HashMap<>();
+        resposta.put("total", resultados.size());
+        resposta.put("resultados", resultados);
+        return Response.ok(resposta).build();
+    }
+
+    /**
+     * Todas as propostas citadas numa consulta só
+     */
+    private Map<Long, PropostaEmprestimoDTO> carregarPropostas(List<Long> ids) {
+        List<Long> distintos = ids.stream().filter(id -> id != null).distinct().toList();
+        if (distintos.size() > MAXIMO_SIMULACOES) {
+            throw new AppException("Máximo de " + MAXIMO_SIMULACOES + " simulações por lote", 400);
+        }
+        Map<Long, PropostaEmprestimoDTO> propostas = new HashMap<>();
+        if (distintos.isEmpty()) {
+            return propostas;
+        }
+        em.createQuery(PropostaEmprestimoDTO.SELECT + " WHERE p.id IN :ids", PropostaEmprestimoDTO.class)
+            .setParameter("ids", distintos)
+            .getResultList()
+            .forEach(proposta -> propostas.put(proposta.id(), proposta));
+        return propostas;
+    }
+
+    private static boolean incompleta(PropostaEmprestimoDTO proposta) {
+        return proposta.valorDisponivel() == null || proposta.taxaJuros() == null
+            || proposta.parcelasMinimas() == null || proposta.parcelasMaximas() == null;
+    }
+
+    private static List<Integer> todasAsParcelas(PropostaEmprestimoDTO proposta) {
+        int minimo = Math.max(1, proposta.parcelasMinimas());
+        int maximo = Math.min(MAXIMO_PARCELAS, proposta.parcelasMaximas());
+        List<Integer> parcelas = new ArrayList<>(Math.max(0, maximo - minimo + 1));
+        for (int n = minimo; n <= maximo; n++) {
+            parcelas.add(n);
+        }
+        return parcelas;
+    }
+
+    private static void limitar(int quantidade) {
+        if (quantidade > MAXIMO_SIMULACOES) {
+            throw new AppException("Máximo de " + MAXIMO_SIMULACOES + " simulações por lote", 400);
+        }
+    }
+
+    /**
+     * Calcula os resultados, em paralelo quando o lote é grande. A ordem do
+     * pedido é mantida.
+     */
+    static List<Map<String, Object>> calcular(List<Simulacao> simulacoes, boolean cronograma, LocalDate hoje) {
+        if (simulacoes.size() < MINIMO_PARALELO) {
+            return simulacoes.stream().map(s -> s.calcular(cronograma, hoje)).toList();
+        }
+        try {
+            return POOL.submit(() ->
+                simulacoes.parallelStream().map(s -> s.calcular(cronograma, hoje)).toList()
+            ).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AppException("Simulação interrompida", 503);
+        } catch (ExecutionException e) {
+            throw new AppException("Erro ao simular: " + e.getCause().getMessage(), 500);
+        }
+    }
+
+    /**
+     * Uma simulação já validada (ou o erro dela), pronta para calcular
+     */
+    record Simulacao(Long propostaId, Integer indice, long valor, int parcelas, double taxaJuros,
+                     int diasAtePrimeiraCobranca, SistemaAmortizacao sistema, String erro) {
+
+        static Simulacao de(ItemDTO item, int indice, SistemaAmortizacao sistemaPadrao) {
+            String prefixo = "itens[" + indice + "]: ";
+            if (item == null) {
+                throw new AppException(prefixo + "item vazio", 400);
+            }
+            if (item.valor == null || item.valor <= 0) {
+                throw new AppException(prefixo + "valor deve ser maior que zero", 400);
+            }
+            if (item.parcelas == null || item.parcelas < 1 || item.parcelas > MAXIMO_PARCELAS) {
+                throw new AppException(prefixo + "parcelas deve estar entre 1 e " + MAXIMO_PARCELAS, 400);
+            }
+            if (item.taxa == null || item.taxa < 0) {
+                throw new AppException(prefixo + "taxa não pode ser negativa", 400);
+            }
+            int dias = item.diasAtePrimeiraCobranca != null ? item.diasAtePrimeiraCobranca : 30;
+            if (dias < 0) {
+                throw new AppException(prefixo + "diasAtePrimeiraCobranca não pode ser negativo", 400);
+            }
+            SistemaAmortizacao sistema = item.sistema != null ? SistemaAmortizacao.de(item.sistema) : sistemaPadrao;
+            return new Simulacao(null, indice, Dinheiro.centavos(item.valor), item.parcelas, item.taxa,
+                                 dias, sistema, null);
+        }
+
+        static Simulacao de(PropostaEmprestimoDTO proposta, int parcelas, SistemaAmortizacao sistema) {
+            if (parcelas < proposta.parcelasMinimas() || parcelas > proposta.parcelasMaximas()) {
+                return erro(proposta.id(), parcelas, String.format("Número de parcelas deve estar entre %d e %d",
+                            proposta.parcelasMinimas(), proposta.parcelasMaximas()));
+            }
+            int dias = proposta.diasAtePrimeiraCobranca() != null ? proposta.diasAtePrimeiraCobranca() : 30;
+            return new Simulacao(proposta.id(), null, Dinheiro.centavos(proposta.valorDisponivel()), parcelas,
+                                 proposta.taxaJuros(), dias, sistema, null);
+        }
+
+        static Simulacao erro(Long propostaId, Integer parcelas, String erro) {
+            return new Simulacao(propostaId, null, 0, parcelas != null ? parcelas : 0, 0, 0, null, erro);
+        }
+
+        Map<String, Object> calcular(boolean incluirCronograma, LocalDate hoje) {
+            Map<String, Object> resultado = new LinkedHashMap<>();
+            if (indice != null) {
+                resultado.put("indice", indice);
+            }
+            if (propostaId != null) {
+                resultado.put("propostaId", propostaId);
+            }
+            resultado.put("numeroParcelas", parcelas);
+            if (erro != null) {
+                resultado.put("erro", erro);
+                return resultado;
+            }
+
+            CalculadoraEmprestimo.OpcaoParcela opcao =
+                CalculadoraEmprestimo.calcularOpcoesParcelas(valor, parcelas, parcelas, taxaJuros, sistema).get(0);
+
+            resultado.put("sistemaAmortizacao", sistema);
+            resultado.put("valorPrincipal", Dinheiro.reais(valor));
+            resultado.put("taxaJuros", taxaJuros);
+            resultado.put("valorParcela", opcao.getValorParcela());
+            resultado.put("valorUltimaParcela", opcao.getValorUltimaParcela());
+            resultado.put("valorTotal", opcao.getValorTotal());
+            resultado.put("juros", opcao.getJuros());
+            resultado.put("primeiraParcela",
+                CalculadoraEmprestimo.calcularDataPrimeiraParcela(hoje, diasAtePrimeiraCobranca));
+            resultado.put("ultimaParcela",
+                CalculadoraEmprestimo.calcularDataVencimentoFinal(hoje, parcelas, diasAtePrimeiraCobranca));
+            if (incluirCronograma) {
+                resultado.put("cronograma",
+                    CalculadoraEmprestimo.calcularCronograma(valor, parcelas, taxaJuros, sistema));
+            }
+            return resultado;
+        }
+    }
+
+    // ========== DTOs ==========
+
+    /**
+     * Pedido de simulação em lote
+     */
+    public static class LoteDTO {
+        public List<ItemDTO> itens;       // simulações avulsas
+        public List<Long> propostas;      // ids de PropostaEmprestimo
+        public List<Integer> parcelas;    // números de parcelas para cada proposta (opcional)
+        public String sistema;            // SIMPLES (padrão), PRICE ou SAC
+        public Boolean cronograma;        // incluir o cronograma de cada simulação
+    }
+
+    /**
+     * Uma simulação avulsa
+     */
+    public static class ItemDTO {
+        public Double valor;
+        public Integer parcelas;
+        public Double taxa;                       // percentual ao mês
+        public Integer diasAtePrimeiraCobranca;   // padrão 30
+        public String sistema;                    // padrão: o do lote
+    }
+}
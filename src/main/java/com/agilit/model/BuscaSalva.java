@@ -0,0 +1,141 @@
+package com.agilit.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Busca salva de um Devedor: os mesmos filtros de /devedor/buscar-propostas.
+ * Cada proposta nova que atende aos filtros gera uma notificação para o
+ * devedor (ver service.IndiceBuscasSalvas), sem ele refazer a busca.
+ *
+ * Filtro null = sem limite naquele critério.
+ */
+@Entity
+@Table(name = "busca_salva", indexes = {
+    // Buscas salvas do devedor
+    @Index(name = "idx_busca_salva_devedor", columnList = "devedor_id, data_criacao DESC")
+})
+public class BuscaSalva {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "busca_salva_seq")
+    @SequenceGenerator(name = "busca_salva_seq", sequenceName = "busca_salva_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "devedor_id", nullable = false)
+    @JsonIgnore
+    private Devedor devedor;
+
+    @Column(length = 100)
+    private String nome;
+
+    // Centavos (coluna NUMERIC em reais, ver CentavosConverter)
+    @Column(name = "valor_min", precision = 15, scale = 2)
+    @Convert(converter = CentavosConverter.class)
+    private Long valorMin;
+
+    @Column(name = "valor_max", precision = 15, scale = 2)
+    @Convert(converter = CentavosConverter.class)
+    private Long valorMax;
+
+    @Column(name = "parcelas_min")
+    private Integer parcelasMin;
+
+    @Column(name = "parcelas_max")
+    private Integer parcelasMax;
+
+    @Column(name = "taxa_juros_max")
+    private Double taxaJurosMax;
+
+    @Column(name = "data_criacao", nullable = false)
+    private LocalDateTime dataCriacao;
+
+    // Construtor padrão
+    public BuscaSalva() {
+    }
+
+    @PrePersist
+    private void preencherPadroes() {
+        if (dataCriacao == null) {
+            dataCriacao = LocalDateTime.now();
+        }
+    }
+
+    // Getters e Setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Devedor getDevedor() {
+        return devedor;
+    }
+
+    public void setDevedor(Devedor devedor) {
+        this.devedor = devedor;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public void setNome(String nome) {
+        this.nome = nome;
+    }
+
+    /** Em centavos */
+    public Long getValorMinCentavos() {
+        return valorMin;
+    }
+
+    public void setValorMinCentavos(Long valorMinCentavos) {
+        this.valorMin = valorMinCentavos;
+    }
+
+    /** Em centavos */
+    public Long getValorMaxCentavos() {
+        return valorMax;
+    }
+
+    public void setValorMaxCentavos(Long valorMaxCentavos) {
+        this.valorMax = valorMaxCentavos;
+    }
+
+    public Integer getParcelasMin() {
+        return parcelasMin;
+    }
+
+    public void setParcelasMin(Integer parcelasMin) {
+        this.parcelasMin = parcelasMin;
+    }
+
+    public Integer getParcelasMax() {
+        return parcelasMax;
+    }
+
+    public void setParcelasMax(Integer parcelasMax) {
+        this.parcelasMax = parcelasMax;
+    }
+
+    public Double getTaxaJurosMax() {
+        return taxaJurosMax;
+    }
+
+    public void setTaxaJurosMax(Double taxaJurosMax) {
+        this.taxaJurosMax = taxaJurosMax;
+    }
+
+    public LocalDateTime getDataCriacao() {
+        return dataCriacao;
+    }
+
+    public void setDataCriacao(LocalDateTime dataCriacao) {
+        this.dataCriacao = dataCriacao;
+    }
+}
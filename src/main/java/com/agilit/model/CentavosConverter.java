@@ -0,0 +1,27 @@
+package com.agilit.model;
+
+import com.agilit.util.Dinheiro;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Mapeia valores em centavos (long) para colunas NUMERIC(15,2) em reais.
+ *
+ * No banco o valor continua legível e somável em reais; nas entidades ele
+ * é um inteiro de centavos, sem erro de ponto flutuante.
+ */
+@Converter
+public class CentavosConverter implements AttributeConverter<Long, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Long centavos) {
+        return centavos == null ? null : Dinheiro.decimal(centavos);
+    }
+
+    @Override
+    public Long convertToEntityAttribute(BigDecimal valor) {
+        return valor == null ? null : Dinheiro.centavos(valor);
+    }
+}
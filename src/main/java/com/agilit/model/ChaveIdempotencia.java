@@ -0,0 +1,98 @@
+package com.agilit.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Idempotency-Key recebida num POST/PUT e a resposta dada a ela
+ * (ver config.IdempotenciaFilter e config.ChavesIdempotencia).
+ *
+ * Enquanto a requisição original está em andamento, status é null e
+ * expiraEm é o prazo da reserva; depois guarda status, tipo, cabeçalhos e
+ * bytes da resposta, e expiraEm passa a ser o fim da validade da chave.
+ */
+@Entity
+@Table(name = "chave_idempotencia", indexes = {
+    // Limpeza das chaves vencidas
+    @Index(name = "idx_chave_idempotencia_expira", columnList = "expira_em")
+})
+public class ChaveIdempotencia {
+
+    @Id
+    @Column(length = 255)
+    private String chave;
+
+    // Método e caminho da requisição original (ex.: "PUT parcela/1/pagar")
+    @Column(nullable = false, length = 500)
+    private String requisicao;
+
+    private Integer status;
+
+    @Column(name = "tipo_conteudo")
+    private String tipoConteudo;
+
+    // Uma linha "Nome: valor" por valor (ver config.IdempotenciaFilter)
+    @Column(length = 4000)
+    private String cabecalhos;
+
+    private byte[] corpo;
+
+    @Column(name = "data_criacao", nullable = false)
+    private LocalDateTime dataCriacao;
+
+    @Column(name = "expira_em", nullable = false)
+    private LocalDateTime expiraEm;
+
+    // Construtor padrão
+    public ChaveIdempotencia() {
+    }
+
+    /**
+     * Reserva da chave para uma requisição que vai começar
+     */
+    public ChaveIdempotencia(String chave, String requisicao, LocalDateTime dataCriacao, LocalDateTime prazo) {
+        this.chave = chave;
+        this.requisicao = requisicao;
+        this.dataCriacao = dataCriacao;
+        this.expiraEm = prazo;
+    }
+
+    /** Se a resposta já foi gravada */
+    public boolean concluida() {
+        return status != null;
+    }
+
+    // Getters (a linha só muda pelo ChaveIdempotenciaDAO)
+
+    public String getChave() {
+        return chave;
+    }
+
+    public String getRequisicao() {
+        return requisicao;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public String getTipoConteudo() {
+        return tipoConteudo;
+    }
+
+    public String getCabecalhos() {
+        return cabecalhos;
+    }
+
+    public byte[] getCorpo() {
+        return corpo;
+    }
+
+    public LocalDateTime getDataCriacao() {
+        return dataCriacao;
+    }
+
+    public LocalDateTime getExpiraEm() {
+        return expiraEm;
+    }
+}
@@ -1,19 +1,30 @@
 package com.agilit.model;
 
 import com.agilit.config.PasswordUtil;
+import com.agilit.util.Dinheiro;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "credor")
 @Table(name = "credor")
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Credor implements Usuario {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "credor_seq")
+    @SequenceGenerator(name = "credor_seq", sequenceName = "credor_seq", allocationSize = 50)
     private Long id;
+
+    // Lock otimista: edições simultâneas do cadastro (o saldo não passa por aqui)
+    @Version
+    @JsonIgnore
+    private Long versao;
     
     @Column
     private String nome;
@@ -30,8 +41,12 @@ public class Credor implements Usuario {
     @Column(name = "senha_hash")
     private String senhaHash;
     
-    @Column
-    private Double saldoDisponivel;
+    // Centavos (coluna NUMERIC em reais, ver CentavosConverter).
+    // Gravado só no INSERT; depois, apenas pelo SaldoCredorService (UPDATE
+    // condicional + livro MovimentacaoSaldo), nunca pelo flush da entidade
+    @Column(nullable = false, updatable = false, precision = 15, scale = 2)
+    @Convert(converter = CentavosConverter.class)
+    private Long saldoDisponivel;
 
     @OneToMany(mappedBy = "credor", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @JsonIgnore
@@ -54,6 +69,13 @@ public class Credor implements Usuario {
 
     }
 
+    @PrePersist
+    private void preencherPadroes() {
+        if (saldoDisponivel == null) {
+            saldoDisponivel = 0L;
+        }
+    }
+
     // Construtor completo
     public Credor(Long id, String nome, String cpf, String telefone,
                   String email, String senhaHash, Double saldoDisponivel,
@@ -64,7 +86,7 @@ public class Credor implements Usuario {
         this.telefone = telefone;
         this.email = email;
         this.senhaHash = senhaHash;
-        this.saldoDisponivel = saldoDisponivel;
+        this.saldoDisponivel = saldoDisponivel == null ? null : Dinheiro.centavos(saldoDisponivel);
         this.clientes = clientes;
     }
 
@@ -118,12 +140,23 @@ public class Credor implements Usuario {
         this.senhaHash = senhaHash;
     }
 
+    /** Em reais (JSON); para cálculos use getSaldoDisponivelCentavos */
     public Double getSaldoDisponivel() {
-        return saldoDisponivel;
+        return saldoDisponivel == null ? null : Dinheiro.reais(saldoDisponivel);
     }
 
     public void setSaldoDisponivel(Double saldoDisponivel) {
-        this.saldoDisponivel = saldoDisponivel;
+        this.saldoDisponivel = saldoDisponivel == null ? null : Dinheiro.centavos(saldoDisponivel);
+    }
+
+    @JsonIgnore
+    public Long getSaldoDisponivelCentavos() {
+        return saldoDisponivel;
+    }
+
+    @JsonIgnore
+    public void setSaldoDisponivelCentavos(Long saldoDisponivelCentavos) {
+        this.saldoDisponivel = saldoDisponivelCentavos;
     }
 
     public List<Devedor> getClientes() {
@@ -3,15 +3,20 @@ package com.agilit.model;
 import com.agilit.config.PasswordUtil;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDate;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "devedor")
 @Table(name = "devedor")
 public class Devedor implements Usuario {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "devedor_seq")
+    @SequenceGenerator(name = "devedor_seq", sequenceName = "devedor_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -41,7 +46,7 @@ public class Devedor implements Usuario {
     private LocalDate dataNascimento;
     
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "credor_id")
     @JsonIgnore
     private Credor credor;
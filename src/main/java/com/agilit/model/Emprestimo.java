@@ -1,8 +1,10 @@
 package com.agilit.model;
 
 import com.agilit.controller.emprestimo.StatusEmprestimo;
+import com.agilit.util.Dinheiro;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -12,41 +14,58 @@ import java.util.List;
  * Possui parcelas para controle de pagamento.
  */
 @Entity
-@Table(name = "emprestimo")
+@NamedEntityGraph(
+    name = Emprestimo.GRAFO_PARTICIPANTES,
+    attributeNodes = {@NamedAttributeNode("devedor"), @NamedAttributeNode("credor")}
+)
+@Table(name = "emprestimo", indexes = {
+    // Empréstimos do credor / devedor, mais recentes primeiro
+    @Index(name = "idx_emprestimo_credor_inicio", columnList = "credor_id, data_inicio DESC"),
+    @Index(name = "idx_emprestimo_devedor_inicio", columnList = "devedor_id, data_inicio DESC"),
+    @Index(name = "idx_emprestimo_proposta", columnList = "proposta_origem_id")
+})
 public class Emprestimo {
 
+    /** Devedor e credor, usados nas notificações do empréstimo */
+    public static final String GRAFO_PARTICIPANTES = "Emprestimo.participantes";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "emprestimo_seq")
+    @SequenceGenerator(name = "emprestimo_seq", sequenceName = "emprestimo_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "devedor_id", nullable = false)
     @JsonIgnore
     private Devedor devedor;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "credor_id", nullable = false)
     @JsonIgnore
     private Credor credor;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "proposta_origem_id")
     @JsonIgnore
     private PropostaEmprestimo propostaOrigem;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "interesse_origem_id")
     @JsonIgnore
     private InteresseProposta interesseOrigem;
 
-    @Column(name = "valor_principal", nullable = false)
-    private Double valorPrincipal;
+    // Centavos (coluna NUMERIC em reais, ver CentavosConverter)
+    @Column(name = "valor_principal", nullable = false, precision = 15, scale = 2)
+    @Convert(converter = CentavosConverter.class)
+    private long valorPrincipal;
 
-    @Column(name = "juros_aplicados", nullable = false)
-    private Double jurosAplicados;
+    @Column(name = "juros_aplicados", nullable = false, precision = 15, scale = 2)
+    @Convert(converter = CentavosConverter.class)
+    private long jurosAplicados;
 
-    @Column(name = "valor_total", nullable = false)
-    private Double valorTotal;
+    @Column(name = "valor_total", nullable = false, precision = 15, scale = 2)
+    @Convert(converter = CentavosConverter.class)
+    private long valorTotal;
 
     @Column(name = "numero_parcelas", nullable = false)
     private Integer numeroParcelas;
@@ -63,7 +82,9 @@ public class Emprestimo {
     @Column(nullable = false)
     private StatusEmprestimo status; // EM_ANDAMENTO, PAGO, ATRASADO
 
-    @OneToMany(mappedBy = "emprestimo", fetch = FetchType.LAZY, orphanRemoval = true)
+    // PERSIST: as parcelas são gravadas junto com o empréstimo (em lote, ver hibernate.jdbc.batch_size)
+    @OneToMany(mappedBy = "emprestimo", fetch = FetchType.LAZY, cascade = CascadeType.PERSIST, orphanRemoval = true)
+    @BatchSize(size = 25)
     @JsonIgnore
     private List<Parcela> parcelas;
 
@@ -84,9 +105,9 @@ public class Emprestimo {
         this.credor = credor;
         this.propostaOrigem = propostaOrigem;
         this.interesseOrigem = interesseOrigem;
-        this.valorPrincipal = valorPrincipal;
-        this.jurosAplicados = jurosAplicados;
-        this.valorTotal = valorTotal;
+        this.valorPrincipal = valorPrincipal == null ? 0 : Dinheiro.centavos(valorPrincipal);
+        this.jurosAplicados = jurosAplicados == null ? 0 : Dinheiro.centavos(jurosAplicados);
+        this.valorTotal = valorTotal == null ? 0 : Dinheiro.centavos(valorTotal);
         this.numeroParcelas = numeroParcelas;
         this.parcelasPagas = 0;
         this.dataInicio = LocalDate.now();
@@ -170,28 +191,61 @@ public class Emprestimo {
         this.interesseOrigem = interesseOrigem;
     }
 
+    /** Em reais (JSON); para cálculos use getValorPrincipalCentavos */
     public Double getValorPrincipal() {
-        return valorPrincipal;
+        return Dinheiro.reais(valorPrincipal);
     }
 
     public void setValorPrincipal(Double valorPrincipal) {
-        this.valorPrincipal = valorPrincipal;
+        this.valorPrincipal = valorPrincipal == null ? 0 : Dinheiro.centavos(valorPrincipal);
     }
 
+    @JsonIgnore
+    public long getValorPrincipalCentavos() {
+        return valorPrincipal;
+    }
+
+    @JsonIgnore
+    public void setValorPrincipalCentavos(long valorPrincipalCentavos) {
+        this.valorPrincipal = valorPrincipalCentavos;
+    }
+
+    /** Em reais (JSON); para cálculos use getJurosAplicadosCentavos */
     public Double getJurosAplicados() {
-        return jurosAplicados;
+        return Dinheiro.reais(jurosAplicados);
     }
 
     public void setJurosAplicados(Double jurosAplicados) {
-        this.jurosAplicados = jurosAplicados;
+        this.jurosAplicados = jurosAplicados == null ? 0 : Dinheiro.centavos(jurosAplicados);
     }
 
+    @JsonIgnore
+    public long getJurosAplicadosCentavos() {
+        return jurosAplicados;
+    }
+
+    @JsonIgnore
+    public void setJurosAplicadosCentavos(long jurosAplicadosCentavos) {
+        this.jurosAplicados = jurosAplicadosCentavos;
+    }
+
+    /** Em reais (JSON); para cálculos use getValorTotalCentavos */
     public Double getValorTotal() {
-        return valorTotal;
+        return Dinheiro.reais(valorTotal);
     }
 
     public void setValorTotal(Double valorTotal) {
-        this.valorTotal = valorTotal;
+        this.valorTotal = valorTotal == null ? 0 : Dinheiro.centavos(valorTotal);
+    }
+
+    @JsonIgnore
+    public long getValorTotalCentavos() {
+        return valorTotal;
+    }
+
+    @JsonIgnore
+    public void setValorTotalCentavos(long valorTotalCentavos) {
+        this.valorTotal = valorTotalCentavos;
     }
 
     public Integer getNumeroParcelas() {
@@ -0,0 +1,100 @@
+package com.agilit.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Notificação ainda não entregue (fila de saída, tabela evento_notificacao).
+ *
+ * Gravada pelo NotificacaoService na transação de negócio, no lugar da
+ * Notificacao: só o modelo da mensagem e os argumentos. A entrega
+ * (service.EntregaNotificacoes) monta a Notificacao e apaga o evento.
+ */
+@Entity
+@Table(name = "evento_notificacao", indexes = {
+    // Entrega na ordem de criação
+    @Index(name = "idx_evento_notificacao_ordem", columnList = "data_criacao, id")
+})
+public class EventoNotificacao {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "evento_notificacao_seq")
+    @SequenceGenerator(name = "evento_notificacao_seq", sequenceName = "evento_notificacao_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "tipo_destinatario", nullable = false, length = 10)
+    private String tipoDestinatario; // CREDOR ou DEVEDOR
+
+    @Column(name = "destinatario_id", nullable = false)
+    private Long destinatarioId;
+
+    @Column(nullable = false, length = 30)
+    private String modelo; // NotificacaoService.Modelo
+
+    @Column(length = 2000)
+    private String argumentos; // Valores do modelo separados por U+001F
+
+    @Column(name = "tipo_referencia", length = 20)
+    private String tipoReferencia; // EMPRESTIMO, PROPOSTA, PARCELA, INTERESSE
+
+    @Column
+    private Long referencia;
+
+    @Column(name = "data_criacao", nullable = false)
+    private LocalDateTime dataCriacao;
+
+    // Construtor padrão
+    public EventoNotificacao() {
+    }
+
+    public EventoNotificacao(String tipoDestinatario, Long destinatarioId, String modelo, String argumentos,
+                             String tipoReferencia, Long referencia) {
+        this.tipoDestinatario = tipoDestinatario;
+        this.destinatarioId = destinatarioId;
+        this.modelo = modelo;
+        this.argumentos = argumentos;
+        this.tipoReferencia = tipoReferencia;
+        this.referencia = referencia;
+    }
+
+    @PrePersist
+    private void preencherPadroes() {
+        if (dataCriacao == null) {
+            dataCriacao = LocalDateTime.now();
+        }
+    }
+
+    // Getters (sem setters: o evento só é gravado e, depois de entregue, apagado)
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTipoDestinatario() {
+        return tipoDestinatario;
+    }
+
+    public Long getDestinatarioId() {
+        return destinatarioId;
+    }
+
+    public String getModelo() {
+        return modelo;
+    }
+
+    public String getArgumentos() {
+        return argumentos;
+    }
+
+    public String getTipoReferencia() {
+        return tipoReferencia;
+    }
+
+    public Long getReferencia() {
+        return referencia;
+    }
+
+    public LocalDateTime getDataCriacao() {
+        return dataCriacao;
+    }
+}
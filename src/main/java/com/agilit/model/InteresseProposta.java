@@ -9,19 +9,42 @@ import java.time.LocalDateTime;
  * Gerencia o fluxo de confirmação bilateral (Credor + Devedor).
  */
 @Entity
-@Table(name = "interesse_proposta", uniqueConstraints = @UniqueConstraint(columnNames = {"proposta_id", "devedor_id"}))
+@NamedEntityGraph(
+    name = InteresseProposta.GRAFO_PROPOSTA_DEVEDOR,
+    attributeNodes = {
+        @NamedAttributeNode(value = "proposta", subgraph = "proposta"),
+        @NamedAttributeNode("devedor")
+    },
+    subgraphs = @NamedSubgraph(name = "proposta", attributeNodes = @NamedAttributeNode("credor"))
+)
+@Table(name = "interesse_proposta",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"proposta_id", "devedor_id"}),
+       indexes = {
+           // Interesses do devedor, por status e por data
+           @Index(name = "idx_interesse_devedor_status", columnList = "devedor_id, status"),
+           @Index(name = "idx_interesse_devedor_data", columnList = "devedor_id, data_interesse DESC")
+       })
 public class InteresseProposta {
 
+    /** Proposta (com credor) e devedor: tudo que o fluxo de confirmação navega */
+    public static final String GRAFO_PROPOSTA_DEVEDOR = "InteresseProposta.propostaDevedor";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "interesse_proposta_seq")
+    @SequenceGenerator(name = "interesse_proposta_seq", sequenceName = "interesse_proposta_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    // Lock otimista: confirmações e débitos simultâneos (ver OriginacaoEmprestimoService)
+    @Version
+    @JsonIgnore
+    private Long versao;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "proposta_id", nullable = false)
     @JsonIgnore
     private PropostaEmprestimo proposta;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "devedor_id", nullable = false)
     @JsonIgnore
     private Devedor devedor;
@@ -47,9 +70,9 @@ public class InteresseProposta {
     @Column(name = "data_confirmacao_devedor")
     private LocalDateTime dataConfirmacaoDevedor;
 
-    @OneToOne(mappedBy = "interesseOrigem")
-    @JsonIgnore
-    private Emprestimo emprestimo;
+    // Sem o lado inverso de Emprestimo.interesseOrigem: um @OneToOne(mappedBy) não pode
+    // ser lazy sem bytecode enhancement e disparava um SELECT extra por interesse carregado.
+    // O empréstimo gerado é buscado por "SELECT e FROM Emprestimo e WHERE e.interesseOrigem = :i".
 
     // Construtor padrão
     public InteresseProposta() {
@@ -61,8 +84,7 @@ public class InteresseProposta {
                             LocalDateTime dataInteresse, String status, String mensagem,
                             Boolean confirmacaoCredor, Boolean confirmacaoDevedor,
                             LocalDateTime dataConfirmacaoCredor,
-                            LocalDateTime dataConfirmacaoDevedor,
-                            Emprestimo emprestimo) {
+                            LocalDateTime dataConfirmacaoDevedor) {
         this.id = id;
         this.proposta = proposta;
         this.devedor = devedor;
@@ -73,7 +95,6 @@ public class InteresseProposta {
         this.confirmacaoDevedor = false;
         this.dataConfirmacaoCredor = dataConfirmacaoCredor;
         this.dataConfirmacaoDevedor = dataConfirmacaoDevedor;
-        this.emprestimo = emprestimo;
     }
 
 
@@ -164,14 +185,6 @@ public class InteresseProposta {
     public void setDataConfirmacaoDevedor(LocalDateTime dataConfirmacaoDevedor) {
         this.dataConfirmacaoDevedor = dataConfirmacaoDevedor;
     }
-
-    public Emprestimo getEmprestimo() {
-        return emprestimo;
-    }
-
-    public void setEmprestimo(Emprestimo emprestimo) {
-        this.emprestimo = emprestimo;
-    }
 }
 
  
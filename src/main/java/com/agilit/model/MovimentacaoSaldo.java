@@ -0,0 +1,121 @@
+package com.agilit.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Linha do livro de saldo de um Credor: cada depósito, desembolso de
+ * empréstimo ou recebimento de parcela. Só recebe INSERT (ver
+ * service.SaldoCredorService); o saldo corrente fica em
+ * Credor.saldoDisponivel, atualizado na mesma transação.
+ *
+ * valor é sempre positivo; o tipo diz se entrou ou saiu.
+ */
+@Entity
+@Table(name = "movimentacao_saldo", indexes = {
+    // Extrato do credor, mais recentes primeiro
+    @Index(name = "idx_movimentacao_saldo_credor", columnList = "credor_id, id DESC")
+})
+public class MovimentacaoSaldo {
+
+    public enum Tipo {
+        /** Entrada: depósito do credor (inclui o saldo inicial da conta) */
+        DEPOSITO,
+        /** Saída: valor principal de um empréstimo criado */
+        DESEMBOLSO,
+        /** Entrada: parcela paga pelo devedor */
+        RECEBIMENTO;
+
+        public boolean entrada() {
+            return this != DESEMBOLSO;
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movimentacao_saldo_seq")
+    @SequenceGenerator(name = "movimentacao_saldo_seq", sequenceName = "movimentacao_saldo_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "credor_id", nullable = false)
+    @JsonIgnore
+    private Credor credor;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Tipo tipo;
+
+    // Centavos (coluna NUMERIC em reais, ver CentavosConverter)
+    @Column(nullable = false, precision = 15, scale = 2)
+    @Convert(converter = CentavosConverter.class)
+    private Long valor;
+
+    @Column(name = "saldo_apos", nullable = false, precision = 15, scale = 2)
+    @Convert(converter = CentavosConverter.class)
+    private Long saldoApos;
+
+    @Column(name = "tipo_referencia", length = 20)
+    private String tipoReferencia; // EMPRESTIMO, PARCELA
+
+    @Column
+    private Long referencia;
+
+    @Column(name = "data_criacao", nullable = false)
+    private LocalDateTime dataCriacao;
+
+    // Construtor padrão
+    public MovimentacaoSaldo() {
+    }
+
+    public MovimentacaoSaldo(Credor credor, Tipo tipo, long valor, long saldoApos,
+                             String tipoReferencia, Long referencia) {
+        this.credor = credor;
+        this.tipo = tipo;
+        this.valor = valor;
+        this.saldoApos = saldoApos;
+        this.tipoReferencia = tipoReferencia;
+        this.referencia = referencia;
+    }
+
+    @PrePersist
+    private void preencherPadroes() {
+        if (dataCriacao == null) {
+            dataCriacao = LocalDateTime.now();
+        }
+    }
+
+    // Getters (sem setters: linha do livro não muda depois de gravada)
+
+    public Long getId() {
+        return id;
+    }
+
+    public Credor getCredor() {
+        return credor;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public Long getValorCentavos() {
+        return valor;
+    }
+
+    public Long getSaldoAposCentavos() {
+        return saldoApos;
+    }
+
+    public String getTipoReferencia() {
+        return tipoReferencia;
+    }
+
+    public Long getReferencia() {
+        return referencia;
+    }
+
+    public LocalDateTime getDataCriacao() {
+        return dataCriacao;
+    }
+}
@@ -1,5 +1,6 @@
 package com.agilit.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
@@ -8,11 +9,22 @@ import java.time.LocalDateTime;
  * Notifica sobre novos interesses, aprovações, confirmações, vencimentos e atrasos.
  */
 @Entity
-@Table(name = "notificacao")
+@Table(name = "notificacao", indexes = {
+    // Listagens paginadas por destinatário: keyset em (data_criacao, id)
+    @Index(name = "idx_notificacao_destinatario_data",
+           columnList = "tipo_destinatario, destinatario_id, data_criacao DESC, id DESC"),
+    // Lidas / não lidas e contagem de não lidas
+    @Index(name = "idx_notificacao_destinatario_lida",
+           columnList = "tipo_destinatario, destinatario_id, lida, data_criacao DESC"),
+    // Retomada do stream (SSE): posição (lote, id)
+    @Index(name = "idx_notificacao_destinatario_lote",
+           columnList = "tipo_destinatario, destinatario_id, lote, id")
+})
 public class Notificacao {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notificacao_seq")
+    @SequenceGenerator(name = "notificacao_seq", sequenceName = "notificacao_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "tipo_destinatario", nullable = false)
@@ -45,10 +57,26 @@ public class Notificacao {
     @Column(name = "tipo_referencia", length = 50)
     private String tipoReferencia; // Tipo da entidade (ex: EMPRESTIMO, PROPOSTA, PARCELA)
 
+    // Lote de entrega (ver EntregaNotificacoes): com o id, a posição no stream
+    @Column
+    @JsonIgnore
+    private Long lote;
+
     // Construtor padrão
     public Notificacao() {
     }
 
+    // O NotificacaoService usa o construtor padrão: sem isso o INSERT falhava (colunas NOT NULL)
+    @PrePersist
+    private void preencherPadroes() {
+        if (dataCriacao == null) {
+            dataCriacao = LocalDateTime.now();
+        }
+        if (lida == null) {
+            lida = false;
+        }
+    }
+
     // Construtor completo
     public Notificacao(Long id, String tipoDestinatario, Long destinatarioId,
                       String tipo, String titulo, String mensagem, Boolean lida,
@@ -162,6 +190,12 @@ public class Notificacao {
     public void setTipoReferencia(String tipoReferencia) {
         this.tipoReferencia = tipoReferencia;
     }
-}
 
- 
+    public Long getLote() {
+        return lote;
+    }
+
+    public void setLote(Long lote) {
+        this.lote = lote;
+    }
+}
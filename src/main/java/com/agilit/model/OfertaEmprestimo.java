@@ -1,5 +1,6 @@
 package com.agilit.model;
 
+import com.agilit.util.Dinheiro;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
@@ -11,20 +12,26 @@ import java.util.List;
  * Serve como template para criar Propostas públicas.
  */
 @Entity
-@Table(name = "oferta_emprestimo")
+@Table(name = "oferta_emprestimo", indexes = {
+    // Ofertas do credor (todas ou só ativas), mais recentes primeiro
+    @Index(name = "idx_oferta_credor_data", columnList = "credor_id, data_criacao DESC")
+})
 public class OfertaEmprestimo {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "oferta_emprestimo_seq")
+    @SequenceGenerator(name = "oferta_emprestimo_seq", sequenceName = "oferta_emprestimo_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "credor_id", nullable = false)
     @JsonIgnore
     private Credor credor;
 
-    @Column(name = "valor_disponivel", nullable = false)
-    private Double valorDisponivel;
+    // Centavos (coluna NUMERIC em reais, ver CentavosConverter)
+    @Column(name = "valor_disponivel", nullable = false, precision = 15, scale = 2)
+    @Convert(converter = CentavosConverter.class)
+    private long valorDisponivel;
 
     @Column(name = "parcelas_minimas", nullable = false)
     private Integer parcelasMinimas;
@@ -61,7 +68,7 @@ public class OfertaEmprestimo {
                            List<PropostaEmprestimo> propostas) {
         this.id = id;
         this.credor = credor;
-        this.valorDisponivel = valorDisponivel;
+        this.valorDisponivel = valorDisponivel == null ? 0 : Dinheiro.centavos(valorDisponivel);
         this.parcelasMinimas = parcelasMinimas;
         this.parcelasMaximas = parcelasMaximas;
         this.diasAtePrimeiraCobranca = diasAtePrimeiraCobranca;
@@ -89,12 +96,23 @@ public class OfertaEmprestimo {
         this.credor = credor;
     }
 
+    /** Em reais (JSON); para cálculos use getValorDisponivelCentavos */
     public Double getValorDisponivel() {
-        return valorDisponivel;
+        return Dinheiro.reais(valorDisponivel);
     }
 
     public void setValorDisponivel(Double valorDisponivel) {
-        this.valorDisponivel = valorDisponivel;
+        this.valorDisponivel = valorDisponivel == null ? 0 : Dinheiro.centavos(valorDisponivel);
+    }
+
+    @JsonIgnore
+    public long getValorDisponivelCentavos() {
+        return valorDisponivel;
+    }
+
+    @JsonIgnore
+    public void setValorDisponivelCentavos(long valorDisponivelCentavos) {
+        this.valorDisponivel = valorDisponivelCentavos;
     }
 
     public Integer getParcelasMinimas() {
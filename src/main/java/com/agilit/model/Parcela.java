@@ -1,5 +1,6 @@
 package com.agilit.model;
 
+import com.agilit.util.Dinheiro;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDate;
@@ -10,14 +11,32 @@ import java.time.temporal.ChronoUnit;
  * Controla pagamento, vencimento e atrasos.
  */
 @Entity
-@Table(name = "parcela")
+@NamedEntityGraph(
+    name = Parcela.GRAFO_EMPRESTIMO,
+    attributeNodes = @NamedAttributeNode(value = "emprestimo", subgraph = "emprestimo"),
+    subgraphs = @NamedSubgraph(
+        name = "emprestimo",
+        attributeNodes = {@NamedAttributeNode("devedor"), @NamedAttributeNode("credor")}
+    )
+)
+@Table(name = "parcela", indexes = {
+    // Parcelas de um empréstimo, em ordem
+    @Index(name = "idx_parcela_emprestimo_numero", columnList = "emprestimo_id, numero_parcela"),
+    // Parcelas vencidas paginadas: keyset em (data_vencimento, id)
+    // A migração V3 cria este índice como parcial (WHERE paga = false)
+    @Index(name = "idx_parcela_vencimento_pendente", columnList = "data_vencimento, id")
+})
 public class Parcela {
 
+    /** Empréstimo (com devedor e credor), usado ao registrar pagamento */
+    public static final String GRAFO_EMPRESTIMO = "Parcela.emprestimo";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "parcela_seq")
+    @SequenceGenerator(name = "parcela_seq", sequenceName = "parcela_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "emprestimo_id", nullable = false)
     @JsonIgnore
     private Emprestimo emprestimo;
@@ -25,8 +44,10 @@ public class Parcela {
     @Column(name = "numero_parcela", nullable = false)
     private Integer numeroParcela;
 
-    @Column(nullable = false)
-    private Double valor;
+    // Centavos (coluna NUMERIC em reais, ver CentavosConverter)
+    @Column(nullable = false, precision = 15, scale = 2)
+    @Convert(converter = CentavosConverter.class)
+    private long valor;
 
     @Column(name = "data_vencimento", nullable = false)
     private LocalDate dataVencimento;
@@ -52,7 +73,7 @@ public class Parcela {
         this.id = id;
         this.emprestimo = emprestimo;
         this.numeroParcela = numeroParcela;
-        this.valor = valor;
+        this.valor = valor == null ? 0 : Dinheiro.centavos(valor);
         this.dataVencimento = dataVencimento;
         this.dataPagamento = dataPagamento;
         this.paga = false;
@@ -107,12 +128,23 @@ public class Parcela {
         this.numeroParcela = numeroParcela;
     }
 
+    /** Em reais (JSON); para cálculos use getValorCentavos */
     public Double getValor() {
-        return valor;
+        return Dinheiro.reais(valor);
     }
 
     public void setValor(Double valor) {
-        this.valor = valor;
+        this.valor = valor == null ? 0 : Dinheiro.centavos(valor);
+    }
+
+    @JsonIgnore
+    public long getValorCentavos() {
+        return valor;
+    }
+
+    @JsonIgnore
+    public void setValorCentavos(long valorCentavos) {
+        this.valor = valorCentavos;
     }
 
     public LocalDate getDataVencimento() {
@@ -1,7 +1,12 @@
 package com.agilit.model;
 
+import com.agilit.util.CacheOpcoesParcelas;
+import com.agilit.util.Dinheiro;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -11,22 +16,38 @@ import java.util.List;
  * Possui ID público único para identificação.
  */
 @Entity
-@Table(name = "proposta_emprestimo")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "proposta_emprestimo")
+@Table(name = "proposta_emprestimo", indexes = {
+    // Listagens paginadas por status: keyset em (data_criacao, id)
+    @Index(name = "idx_proposta_status_data", columnList = "status, data_criacao DESC, id DESC"),
+    // Marketplace ordenado pela menor taxa
+    @Index(name = "idx_proposta_status_taxa", columnList = "status, taxa_juros"),
+    // Propostas do credor e da oferta de origem
+    @Index(name = "idx_proposta_credor_data", columnList = "credor_id, data_criacao DESC"),
+    @Index(name = "idx_proposta_oferta_data", columnList = "oferta_origem_id, data_criacao DESC")
+})
 public class PropostaEmprestimo {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "proposta_emprestimo_seq")
+    @SequenceGenerator(name = "proposta_emprestimo_seq", sequenceName = "proposta_emprestimo_seq", allocationSize = 50)
     private Long id;
 
+    // Lock otimista: confirmações e débitos simultâneos (ver OriginacaoEmprestimoService)
+    @Version
+    @JsonIgnore
+    private Long versao;
+
     @Column(name = "id_publico", nullable = false, unique = true)
     private String idPublico; // Formato: #ABC123
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "oferta_origem_id", nullable = false)
     @JsonIgnore
     private OfertaEmprestimo ofertaOrigem;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "credor_id", nullable = false)
     @JsonIgnore
     private Credor credor;
@@ -34,8 +55,10 @@ public class PropostaEmprestimo {
     @Column(name = "nome_credor", nullable = false)
     private String nomeCredor; // Desnormalizado para performance
 
-    @Column(name = "valor_disponivel", nullable = false)
-    private Double valorDisponivel;
+    // Centavos (coluna NUMERIC em reais, ver CentavosConverter)
+    @Column(name = "valor_disponivel", nullable = false, precision = 15, scale = 2)
+    @Convert(converter = CentavosConverter.class)
+    private long valorDisponivel;
 
     @Column(name = "parcelas_minimas", nullable = false)
     private Integer parcelasMinimas;
@@ -56,6 +79,7 @@ public class PropostaEmprestimo {
     private String status; // ATIVA, CANCELADA, ACEITA
 
     @OneToMany(mappedBy = "proposta", fetch = FetchType.LAZY)
+    @BatchSize(size = 25)
     @JsonIgnore
     private List<InteresseProposta> interesses;
 
@@ -81,7 +105,7 @@ public class PropostaEmprestimo {
         this.ofertaOrigem = ofertaOrigem;
         this.credor = credor;
         this.nomeCredor = nomeCredor;
-        this.valorDisponivel = valorDisponivel;
+        this.valorDisponivel = valorDisponivel == null ? 0 : Dinheiro.centavos(valorDisponivel);
         this.parcelasMinimas = parcelasMinimas;
         this.parcelasMaximas = parcelasMaximas;
         this.diasAtePrimeiraCobranca = diasAtePrimeiraCobranca;
@@ -134,12 +158,23 @@ public class PropostaEmprestimo {
         this.nomeCredor = nomeCredor;
     }
 
+    /** Em reais (JSON); para cálculos use getValorDisponivelCentavos */
     public Double getValorDisponivel() {
-        return valorDisponivel;
+        return Dinheiro.reais(valorDisponivel);
     }
 
     public void setValorDisponivel(Double valorDisponivel) {
-        this.valorDisponivel = valorDisponivel;
+        this.valorDisponivel = valorDisponivel == null ? 0 : Dinheiro.centavos(valorDisponivel);
+    }
+
+    @JsonIgnore
+    public long getValorDisponivelCentavos() {
+        return valorDisponivel;
+    }
+
+    @JsonIgnore
+    public void setValorDisponivelCentavos(long valorDisponivelCentavos) {
+        this.valorDisponivel = valorDisponivelCentavos;
     }
 
     public Integer getParcelasMinimas() {
@@ -190,6 +225,17 @@ public class PropostaEmprestimo {
         this.status = status;
     }
 
+    /**
+     * Proposta que deixa de estar ATIVA não aparece mais no marketplace:
+     * as opções de parcelamento dos termos dela saem do cache
+     */
+    @PostUpdate
+    void descartarOpcoesSeInativa() {
+        if (!"ATIVA".equals(status) && parcelasMinimas != null && parcelasMaximas != null && taxaJuros != null) {
+            CacheOpcoesParcelas.descartar(valorDisponivel, parcelasMinimas, parcelasMaximas, taxaJuros);
+        }
+    }
+
     public List<InteresseProposta> getInteresses() {
         return interesses;
     }
@@ -0,0 +1,114 @@
+package com.agilit.model.dao;
+
+import com.agilit.model.BuscaSalva;
+import com.agilit.model.dto.BuscaSalvaDTO;
+import jakarta.persistence.EntityManager;
+
+import java.util.List;
+
+/**
+ * DAO para operações de banco de dados relacionadas a BuscaSalva.
+ * Recebe EntityManager no construtor e NUNCA gerencia transações.
+ * Transações são gerenciadas apenas pelos Controllers.
+ */
+public class BuscaSalvaDAO {
+
+    private final EntityManager em;
+
+    /**
+     * Construtor que recebe o EntityManager
+     * @param em EntityManager gerenciado pelo Controller
+     */
+    public BuscaSalvaDAO(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * Buscar busca salva por ID
+     * @param id ID da busca salva
+     * @return BuscaSalva ou null
+     */
+    public BuscaSalva findById(Long id) {
+        return em.find(BuscaSalva.class, id);
+    }
+
+    /**
+     * Buscas salvas do devedor, mais recentes primeiro
+     * @param devedorId ID do devedor
+     * @return Lista de buscas salvas
+     */
+    public List<BuscaSalvaDTO> findByDevedor(Long devedorId) {
+        return em.createQuery(
+            BuscaSalvaDTO.SELECT + " WHERE b.devedor.id = :devedorId ORDER BY b.dataCriacao DESC, b.id DESC",
+            BuscaSalvaDTO.class
+        )
+        .setParameter("devedorId", devedorId)
+        .getResultList();
+    }
+
+    /**
+     * Contar buscas salvas do devedor
+     * @param devedorId ID do devedor
+     * @return Quantidade de buscas salvas
+     */
+    public long countByDevedor(Long devedorId) {
+        return em.createQuery(
+            "SELECT COUNT(b) FROM BuscaSalva b WHERE b.devedor.id = :devedorId",
+            Long.class
+        )
+        .setParameter("devedorId", devedorId)
+        .getSingleResult();
+    }
+
+    /**
+     * Devedores com alguma busca salva que a proposta atende (mesma
+     * conferência do IndiceBuscasSalvas, direto no banco)
+     * @param valorCentavos Valor disponível da proposta, em centavos
+     * @param parcelasMinimas Parcelas mínimas da proposta
+     * @param parcelasMaximas Parcelas máximas da proposta
+     * @param taxaJuros Taxa de juros da proposta
+     * @return IDs dos devedores, sem repetição
+     */
+    public List<Long> findDevedoresCompativeis(long valorCentavos, int parcelasMinimas,
+                                               int parcelasMaximas, double taxaJuros) {
+        return em.createQuery(
+            "SELECT DISTINCT b.devedor.id FROM BuscaSalva b " +
+            "WHERE (b.valorMin IS NULL OR b.valorMin <= :valor) " +
+            "AND (b.valorMax IS NULL OR b.valorMax >= :valor) " +
+            "AND (b.parcelasMin IS NULL OR b.parcelasMin <= :parcelasMaximas) " +
+            "AND (b.parcelasMax IS NULL OR b.parcelasMax >= :parcelasMinimas) " +
+            "AND (b.taxaJurosMax IS NULL OR b.taxaJurosMax >= :taxaJuros)",
+            Long.class
+        )
+        .setParameter("valor", valorCentavos)
+        .setParameter("parcelasMinimas", parcelasMinimas)
+        .setParameter("parcelasMaximas", parcelasMaximas)
+        .setParameter("taxaJuros", taxaJuros)
+        .getResultList();
+    }
+
+    /**
+     * Salvar busca salva
+     * @param busca Busca salva a ser salva
+     * @return Busca salva persistida
+     */
+    public BuscaSalva save(BuscaSalva busca) {
+        if (busca.getId() == null) {
+            em.persist(busca);
+            return busca;
+        } else {
+            return em.merge(busca);
+        }
+    }
+
+    /**
+     * Deletar busca salva
+     * @param busca Busca salva a ser deletada
+     */
+    public void delete(BuscaSalva busca) {
+        if (!em.contains(busca)) {
+            busca = em.merge(busca);
+        }
+        em.remove(busca);
+    }
+}
@@ -0,0 +1,125 @@
+package com.agilit.model.dao;
+
+import com.agilit.model.ChaveIdempotencia;
+import jakarta.persistence.EntityManager;
+
+import java.time.LocalDateTime;
+
+/**
+ * DAO para operações de banco de dados relacionadas a ChaveIdempotencia.
+ * Recebe EntityManager no construtor e NUNCA gerencia transações.
+ *
+ * As alterações de uma reserva conferem o prazo lido (expiraEm): se a
+ * reserva venceu e outra requisição a assumiu, o UPDATE/DELETE de quem
+ * chegou atrasado não encontra a linha.
+ */
+public class ChaveIdempotenciaDAO {
+
+    private final EntityManager em;
+
+    /**
+     * Construtor que recebe o EntityManager
+     * @param em EntityManager gerenciado por quem chama
+     */
+    public ChaveIdempotenciaDAO(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * Buscar chave
+     * @param chave Idempotency-Key
+     * @return ChaveIdempotencia ou null
+     */
+    public ChaveIdempotencia findByChave(String chave) {
+        return em.find(ChaveIdempotencia.class, chave);
+    }
+
+    /**
+     * Gravar reserva nova (falha na chave primária se outra requisição reservou antes)
+     * @param chave Reserva
+     * @return Reserva persistida
+     */
+    public ChaveIdempotencia save(ChaveIdempotencia chave) {
+        em.persist(chave);
+        return chave;
+    }
+
+    /**
+     * Reaproveitar uma chave vencida para uma requisição nova
+     * @param chave Idempotency-Key
+     * @param expiraEmLido Prazo lido da linha vencida
+     * @param requisicao Método e caminho da requisição nova
+     * @param agora Data da reserva
+     * @param prazo Prazo da reserva nova
+     * @return Linhas alteradas (0 se outra requisição assumiu a chave antes)
+     */
+    public int renovar(String chave, LocalDateTime expiraEmLido, String requisicao,
+                       LocalDateTime agora, LocalDateTime prazo) {
+        return em.createQuery(
+            "UPDATE ChaveIdempotencia c SET c.requisicao = :requisicao, c.status = NULL, " +
+            "c.tipoConteudo = NULL, c.cabecalhos = NULL, c.corpo = NULL, c.dataCriacao = :agora, " +
+            "c.expiraEm = :prazo " +
+            "WHERE c.chave = :chave AND c.expiraEm = :lido"
+        )
+        .setParameter("requisicao", requisicao)
+        .setParameter("agora", agora)
+        .setParameter("prazo", prazo)
+        .setParameter("chave", chave)
+        .setParameter("lido", expiraEmLido)
+        .executeUpdate();
+    }
+
+    /**
+     * Gravar a resposta de uma reserva
+     * @param chave Idempotency-Key
+     * @param prazo Prazo da reserva
+     * @param status Status HTTP
+     * @param tipoConteudo Content-Type, ou null
+     * @param cabecalhos Demais cabeçalhos, uma linha "Nome: valor" por valor
+     * @param corpo Bytes da resposta
+     * @param expiraEm Fim da validade da chave
+     * @return Linhas alteradas (0 se a reserva venceu e foi assumida)
+     */
+    public int concluir(String chave, LocalDateTime prazo, int status, String tipoConteudo,
+                        String cabecalhos, byte[] corpo, LocalDateTime expiraEm) {
+        return em.createQuery(
+            "UPDATE ChaveIdempotencia c SET c.status = :status, c.tipoConteudo = :tipoConteudo, " +
+            "c.cabecalhos = :cabecalhos, c.corpo = :corpo, c.expiraEm = :expiraEm " +
+            "WHERE c.chave = :chave AND c.status IS NULL AND c.expiraEm = :prazo"
+        )
+        .setParameter("status", status)
+        .setParameter("tipoConteudo", tipoConteudo)
+        .setParameter("cabecalhos", cabecalhos)
+        .setParameter("corpo", corpo)
+        .setParameter("expiraEm", expiraEm)
+        .setParameter("chave", chave)
+        .setParameter("prazo", prazo)
+        .executeUpdate();
+    }
+
+    /**
+     * Desfazer uma reserva sem resposta (a requisição pode ser repetida)
+     * @param chave Idempotency-Key
+     * @param prazo Prazo da reserva
+     * @return Linhas apagadas
+     */
+    public int liberar(String chave, LocalDateTime prazo) {
+        return em.createQuery(
+            "DELETE FROM ChaveIdempotencia c WHERE c.chave = :chave AND c.status IS NULL AND c.expiraEm = :prazo"
+        )
+        .setParameter("chave", chave)
+        .setParameter("prazo", prazo)
+        .executeUpdate();
+    }
+
+    /**
+     * Apagar chaves vencidas (respostas fora da validade e reservas abandonadas)
+     * @param agora Data de corte
+     * @return Linhas apagadas
+     */
+    public int deleteVencidas(LocalDateTime agora) {
+        return em.createQuery("DELETE FROM ChaveIdempotencia c WHERE c.expiraEm < :agora")
+                 .setParameter("agora", agora)
+                 .executeUpdate();
+    }
+}
@@ -1,7 +1,9 @@
 package com.agilit.model.dao;
 
 import com.agilit.model.Credor;
+import com.agilit.model.dto.CredorDTO;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 
 import java.util.List;
 
@@ -41,6 +43,23 @@ public class CredorDAO {
                 .getResultList();
     }
 
+    /**
+     * Página de credores em ordem de id (keyset)
+     * @param apos Cursor da página anterior, ou null para a primeira página
+     * @param limite Tamanho da página
+     * @return Página de credores
+     */
+    public Pagina<CredorDTO> findPagina(Cursor apos, int limite) {
+        String filtro = apos == null ? "" : " WHERE c.id > :ultimoId";
+        TypedQuery<CredorDTO> query = em.createQuery(
+            CredorDTO.SELECT + filtro + " ORDER BY c.id", CredorDTO.class)
+            .setMaxResults(limite + 1);
+        if (apos != null) {
+            query.setParameter("ultimoId", apos.id());
+        }
+        return Pagina.de(query.getResultList(), limite, c -> Cursor.de(c.id()));
+    }
+
     /**
      * Buscar credor por email
      * @param email Email do credor
@@ -170,6 +189,54 @@ public class CredorDAO {
         }
     }
 
+    /**
+     * Somar ao saldo do credor num único UPDATE (sem ler antes)
+     * @param credorId ID do credor
+     * @param valorCentavos Valor positivo, em centavos
+     * @return Linhas alteradas (0 se o credor não existe)
+     */
+    public int creditarSaldo(Long credorId, long valorCentavos) {
+        return em.createQuery(
+            "UPDATE Credor c SET c.saldoDisponivel = c.saldoDisponivel + :valor WHERE c.id = :id"
+        )
+        .setParameter("valor", valorCentavos)
+        .setParameter("id", credorId)
+        .executeUpdate();
+    }
+
+    /**
+     * Subtrair do saldo do credor só se houver saldo, num único UPDATE
+     * condicional: a conferência e o débito não podem ser intercalados
+     * @param credorId ID do credor
+     * @param valorCentavos Valor positivo, em centavos
+     * @return Linhas alteradas (0 se o credor não existe ou o saldo não basta)
+     */
+    public int debitarSaldo(Long credorId, long valorCentavos) {
+        return em.createQuery(
+            "UPDATE Credor c SET c.saldoDisponivel = c.saldoDisponivel - :valor " +
+            "WHERE c.id = :id AND c.saldoDisponivel >= :valor"
+        )
+        .setParameter("valor", valorCentavos)
+        .setParameter("id", credorId)
+        .executeUpdate();
+    }
+
+    /**
+     * Saldo atual do credor, lido do banco (não do contexto de persistência)
+     * @param credorId ID do credor
+     * @return Saldo em centavos, ou null se o credor não existe
+     */
+    public Long findSaldo(Long credorId) {
+        List<Long> result = em.createQuery(
+            "SELECT c.saldoDisponivel FROM Credor c WHERE c.id = :id",
+            Long.class
+        )
+        .setParameter("id", credorId)
+        .getResultList();
+
+        return result.isEmpty() ? null : result.get(0);
+    }
+
     /**
      * Deletar credor
      * @param credor Credor a ser deletado
@@ -0,0 +1,82 @@
+package com.agilit.model.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posição de paginação keyset: a chave de ordenação e o id da última linha
+ * entregue. A próxima página começa estritamente depois dessa tupla, então o
+ * custo é o mesmo em qualquer profundidade (sem OFFSET).
+ *
+ * Para o cliente o cursor é um token opaco (Base64 URL-safe).
+ */
+public record Cursor(String chave, long id) {
+
+    private static final char SEPARADOR = '~';
+
+    public static Cursor de(LocalDateTime chave, Long id) {
+        return new Cursor(chave.toString(), id);
+    }
+
+    public static Cursor de(LocalDate chave, Long id) {
+        return new Cursor(chave.toString(), id);
+    }
+
+    /**
+     * Cursor de listas ordenadas só pelo id
+     */
+    public static Cursor de(Long id) {
+        return new Cursor("", id);
+    }
+
+    public LocalDateTime dataHora() {
+        return LocalDateTime.parse(chave);
+    }
+
+    public LocalDate data() {
+        return LocalDate.parse(chave);
+    }
+
+    public String codificar() {
+        byte[] bytes = (chave + SEPARADOR + id).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * @throws IllegalArgumentException se o token não foi gerado por codificar()
+     */
+    public static Cursor decodificar(String token) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separador = texto.lastIndexOf(SEPARADOR);
+            if (separador < 0) {
+                throw new IllegalArgumentException("Cursor inválido: " + token);
+            }
+            return new Cursor(texto.substring(0, separador), Long.parseLong(texto.substring(separador + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + token, e);
+        }
+    }
+
+    /**
+     * Valida a chave para o tipo esperado pela consulta
+     * @throws IllegalArgumentException se a chave não for do tipo pedido
+     */
+    public Cursor exigir(Class<?> tipoChave) {
+        try {
+            if (tipoChave == LocalDateTime.class) {
+                dataHora();
+            } else if (tipoChave == LocalDate.class) {
+                data();
+            } else if (!chave.isEmpty()) {
+                throw new IllegalArgumentException("Cursor inválido para esta listagem");
+            }
+            return this;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido para esta listagem", e);
+        }
+    }
+}
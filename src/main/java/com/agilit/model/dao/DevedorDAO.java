@@ -1,7 +1,9 @@
 package com.agilit.model.dao;
 
 import com.agilit.model.Devedor;
+import com.agilit.model.dto.DevedorDTO;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 
 import java.util.List;
 
@@ -41,6 +43,23 @@ public class DevedorDAO {
                 .getResultList();
     }
 
+    /**
+     * Página de devedores em ordem de id (keyset)
+     * @param apos Cursor da página anterior, ou null para a primeira página
+     * @param limite Tamanho da página
+     * @return Página de devedores
+     */
+    public Pagina<DevedorDTO> findPagina(Cursor apos, int limite) {
+        String filtro = apos == null ? "" : " WHERE d.id > :ultimoId";
+        TypedQuery<DevedorDTO> query = em.createQuery(
+            DevedorDTO.SELECT + filtro + " ORDER BY d.id", DevedorDTO.class)
+            .setMaxResults(limite + 1);
+        if (apos != null) {
+            query.setParameter("ultimoId", apos.id());
+        }
+        return Pagina.de(query.getResultList(), limite, d -> Cursor.de(d.id()));
+    }
+
     /**
      * Buscar devedor por email
      * @param email Email do devedor
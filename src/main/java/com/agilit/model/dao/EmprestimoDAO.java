@@ -1,8 +1,12 @@
 package com.agilit.model.dao;
 
 import com.agilit.model.Emprestimo;
+import com.agilit.model.dto.EmprestimoDTO;
+import com.agilit.util.Dinheiro;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -42,6 +46,23 @@ public class EmprestimoDAO {
                 .getResultList();
     }
 
+    /**
+     * Página de empréstimos, mais recentes primeiro (keyset no id)
+     * @param apos Cursor da página anterior, ou null para a primeira página
+     * @param limite Tamanho da página
+     * @return Página de empréstimos
+     */
+    public Pagina<EmprestimoDTO> findPagina(Cursor apos, int limite) {
+        String filtro = apos == null ? "" : " WHERE e.id < :ultimoId";
+        TypedQuery<EmprestimoDTO> query = em.createQuery(
+            EmprestimoDTO.SELECT + filtro + " ORDER BY e.id DESC", EmprestimoDTO.class)
+            .setMaxResults(limite + 1);
+        if (apos != null) {
+            query.setParameter("ultimoId", apos.id());
+        }
+        return Pagina.de(query.getResultList(), limite, e -> Cursor.de(e.id()));
+    }
+
     /**
      * Buscar empréstimos por devedor
      * @param devedorId ID do devedor
@@ -297,14 +318,16 @@ public class EmprestimoDAO {
      * @return Valor total
      */
     public Double calcularTotalEmprestadoPorCredor(Long credorId) {
-        Double total = em.createQuery(
-            "SELECT SUM(e.valorPrincipal) FROM Emprestimo e WHERE e.credor.id = :credorId",
-            Double.class
+        // SUM direto no atributo convertido devolveria um Long sem passar pelo
+        // CentavosConverter; o CAST soma a coluna NUMERIC, já em reais
+        BigDecimal total = em.createQuery(
+            "SELECT SUM(CAST(e.valorPrincipal AS BigDecimal)) FROM Emprestimo e WHERE e.credor.id = :credorId",
+            BigDecimal.class
         )
         .setParameter("credorId", credorId)
         .getSingleResult();
         
-        return total != null ? total : 0.0;
+        return total != null ? total.doubleValue() : 0.0;
     }
 
     /**
@@ -313,14 +336,14 @@ public class EmprestimoDAO {
      * @return Valor total
      */
     public Double calcularTotalDevidoPorDevedor(Long devedorId) {
-        Double total = em.createQuery(
-            "SELECT SUM(e.valorTotal) FROM Emprestimo e WHERE e.devedor.id = :devedorId AND e.status != 'Pago'",
-            Double.class
+        BigDecimal total = em.createQuery(
+            "SELECT SUM(CAST(e.valorTotal AS BigDecimal)) FROM Emprestimo e WHERE e.devedor.id = :devedorId AND e.status != 'Pago'",
+            BigDecimal.class
         )
         .setParameter("devedorId", devedorId)
         .getSingleResult();
         
-        return total != null ? total : 0.0;
+        return total != null ? total.doubleValue() : 0.0;
     }
 
     /**
@@ -329,14 +352,14 @@ public class EmprestimoDAO {
      * @return Valor total
      */
     public Double calcularTotalAReceberPorCredor(Long credorId) {
-        Double total = em.createQuery(
-            "SELECT SUM(e.valorTotal) FROM Emprestimo e WHERE e.credor.id = :credorId AND e.status != 'Pago'",
-            Double.class
+        BigDecimal total = em.createQuery(
+            "SELECT SUM(CAST(e.valorTotal AS BigDecimal)) FROM Emprestimo e WHERE e.credor.id = :credorId AND e.status != 'Pago'",
+            BigDecimal.class
         )
         .setParameter("credorId", credorId)
         .getSingleResult();
         
-        return total != null ? total : 0.0;
+        return total != null ? total.doubleValue() : 0.0;
     }
 
     /**
@@ -373,8 +396,8 @@ public class EmprestimoDAO {
 
     /**
      * Buscar empréstimos por faixa de valor
-     * @param valorMin Valor mínimo
-     * @param valorMax Valor máximo
+     * @param valorMin Valor mínimo (reais)
+     * @param valorMax Valor máximo (reais)
      * @return Lista de empréstimos
      */
     public List<Emprestimo> findByValorRange(Double valorMin, Double valorMax) {
@@ -382,8 +405,8 @@ public class EmprestimoDAO {
             "SELECT e FROM Emprestimo e WHERE e.valorPrincipal BETWEEN :min AND :max ORDER BY e.valorPrincipal",
             Emprestimo.class
         )
-        .setParameter("min", valorMin)
-        .setParameter("max", valorMax)
+        .setParameter("min", Dinheiro.centavos(valorMin))
+        .setParameter("max", Dinheiro.centavos(valorMax))
         .getResultList();
     }
 
@@ -0,0 +1,71 @@
+package com.agilit.model.dao;
+
+import com.agilit.model.EventoNotificacao;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+
+import java.util.List;
+
+/**
+ * DAO para operações de banco de dados relacionadas a EventoNotificacao.
+ * Recebe EntityManager no construtor e NUNCA gerencia transações.
+ */
+public class EventoNotificacaoDAO {
+
+    private final EntityManager em;
+
+    /**
+     * Construtor que recebe o EntityManager
+     * @param em EntityManager gerenciado por quem chama
+     */
+    public EventoNotificacaoDAO(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * Gravar evento
+     * @param evento Evento a ser entregue
+     * @return Evento persistido
+     */
+    public EventoNotificacao save(EventoNotificacao evento) {
+        em.persist(evento);
+        return evento;
+    }
+
+    /**
+     * Próximos eventos a entregar, na ordem de criação, travados (SELECT ...
+     * FOR UPDATE) até o fim da transação. Sem SKIP LOCKED de propósito: a
+     * entrega de outra instância espera esta terminar, em vez de pular para
+     * eventos mais novos do mesmo destinatário.
+     *
+     * @param limite Tamanho do lote
+     * @return Eventos mais antigos primeiro
+     */
+    public List<EventoNotificacao> findLote(int limite) {
+        return em.createQuery(
+            "SELECT e FROM EventoNotificacao e ORDER BY e.dataCriacao, e.id", EventoNotificacao.class)
+            .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+            .setMaxResults(limite)
+            .getResultList();
+    }
+
+    /**
+     * Apagar eventos entregues
+     * @param ids IDs dos eventos
+     * @return Linhas apagadas
+     */
+    public int deleteByIds(List<Long> ids) {
+        return em.createQuery("DELETE FROM EventoNotificacao e WHERE e.id IN :ids")
+                 .setParameter("ids", ids)
+                 .executeUpdate();
+    }
+
+    /**
+     * Contar eventos ainda não entregues
+     * @return Quantidade
+     */
+    public long countPendentes() {
+        return em.createQuery("SELECT COUNT(e) FROM EventoNotificacao e", Long.class)
+                 .getSingleResult();
+    }
+}
@@ -0,0 +1,72 @@
+package com.agilit.model.dao;
+
+import com.agilit.model.MovimentacaoSaldo;
+import com.agilit.model.dto.MovimentacaoSaldoDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+import java.util.List;
+
+/**
+ * DAO para operações de banco de dados relacionadas a MovimentacaoSaldo.
+ * Recebe EntityManager no construtor e NUNCA gerencia transações.
+ * Transações são gerenciadas apenas pelos Controllers.
+ *
+ * O livro só recebe INSERT: não há update nem delete aqui.
+ */
+public class MovimentacaoSaldoDAO {
+
+    private final EntityManager em;
+
+    /**
+     * Construtor que recebe o EntityManager
+     * @param em EntityManager gerenciado pelo Controller
+     */
+    public MovimentacaoSaldoDAO(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * Página do extrato do credor, mais recentes primeiro (keyset por id)
+     * @param credorId ID do credor
+     * @param apos Cursor da página anterior, ou null para a primeira página
+     * @param limite Tamanho da página
+     * @return Página de movimentações
+     */
+    public Pagina<MovimentacaoSaldoDTO> findPaginaByCredor(Long credorId, Cursor apos, int limite) {
+        String filtro = apos == null ? "" : " AND m.id < :ultimoId";
+        TypedQuery<MovimentacaoSaldoDTO> query = em.createQuery(
+            MovimentacaoSaldoDTO.SELECT + " WHERE m.credor.id = :credorId" + filtro + " ORDER BY m.id DESC",
+            MovimentacaoSaldoDTO.class)
+            .setParameter("credorId", credorId)
+            .setMaxResults(limite + 1);
+        if (apos != null) {
+            query.setParameter("ultimoId", apos.id());
+        }
+        return Pagina.de(query.getResultList(), limite, m -> Cursor.de(m.id()));
+    }
+
+    /**
+     * Movimentações do credor em ordem de gravação
+     * @param credorId ID do credor
+     * @return Lista de movimentações
+     */
+    public List<MovimentacaoSaldo> findByCredor(Long credorId) {
+        return em.createQuery(
+            "SELECT m FROM MovimentacaoSaldo m WHERE m.credor.id = :credorId ORDER BY m.id",
+            MovimentacaoSaldo.class
+        )
+        .setParameter("credorId", credorId)
+        .getResultList();
+    }
+
+    /**
+     * Registrar movimentação
+     * @param movimentacao Movimentação a ser gravada
+     * @return Movimentação persistida
+     */
+    public MovimentacaoSaldo save(MovimentacaoSaldo movimentacao) {
+        em.persist(movimentacao);
+        return movimentacao;
+    }
+}
@@ -1,10 +1,16 @@
 package com.agilit.model.dao;
 
 import com.agilit.model.Notificacao;
+import com.agilit.model.dto.NotificacaoDTO;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
 
 /**
  * DAO para operações de banco de dados relacionadas a Notificacao.
@@ -141,6 +147,54 @@ public class NotificacaoDAO {
         .getResultList();
     }
 
+    /**
+     * Página de notificações de um destinatário, mais recentes primeiro.
+     * Keyset em (dataCriacao, id): qualquer página custa o mesmo que a primeira.
+     * @param tipoDestinatario Tipo do destinatário
+     * @param destinatarioId ID do destinatário
+     * @param somenteNaoLidas true para trazer só as não lidas
+     * @param tipoNotificacao Tipo da notificação, ou null para todos
+     * @param desde Data mínima de criação, ou null para todas
+     * @param apos Cursor da página anterior, ou null para a primeira página
+     * @param limite Tamanho da página
+     * @return Página de notificações
+     */
+    public Pagina<NotificacaoDTO> findPaginaByDestinatario(String tipoDestinatario, Long destinatarioId,
+                                                          boolean somenteNaoLidas, String tipoNotificacao,
+                                                          LocalDateTime desde, Cursor apos, int limite) {
+        StringBuilder jpql = new StringBuilder(NotificacaoDTO.SELECT)
+            .append(" WHERE n.tipoDestinatario = :tipoDestinatario AND n.destinatarioId = :id");
+        if (somenteNaoLidas) {
+            jpql.append(" AND n.lida = false");
+        }
+        if (tipoNotificacao != null) {
+            jpql.append(" AND n.tipo = :tipoNotificacao");
+        }
+        if (desde != null) {
+            jpql.append(" AND n.dataCriacao >= :desde");
+        }
+        if (apos != null) {
+            jpql.append(" AND (n.dataCriacao, n.id) < (:chave, :ultimoId)");
+        }
+        jpql.append(" ORDER BY n.dataCriacao DESC, n.id DESC");
+
+        TypedQuery<NotificacaoDTO> query = em.createQuery(jpql.toString(), NotificacaoDTO.class)
+            .setParameter("tipoDestinatario", tipoDestinatario)
+            .setParameter("id", destinatarioId)
+            .setMaxResults(limite + 1);
+        if (tipoNotificacao != null) {
+            query.setParameter("tipoNotificacao", tipoNotificacao);
+        }
+        if (desde != null) {
+            query.setParameter("desde", desde);
+        }
+        if (apos != null) {
+            query.setParameter("chave", apos.dataHora()).setParameter("ultimoId", apos.id());
+        }
+
+        return Pagina.de(query.getResultList(), limite, n -> Cursor.de(n.dataCriacao(), n.id()));
+    }
+
     /**
      * Salvar ou atualizar notificação
      * @param notificacao Notificação a ser salva
@@ -278,6 +332,53 @@ public class NotificacaoDAO {
         .getSingleResult();
     }
 
+    /**
+     * Contar notificações não lidas de vários destinatários do mesmo tipo
+     * @param tipoDestinatario Tipo do destinatário
+     * @param destinatarioIds IDs dos destinatários
+     * @return ID do destinatário -> não lidas (sem os que não têm nenhuma)
+     */
+    public Map<Long, Long> countNaoLidasByDestinatarios(String tipoDestinatario, Collection<Long> destinatarioIds) {
+        Map<Long, Long> totais = new HashMap<>();
+        if (destinatarioIds.isEmpty()) {
+            return totais;
+        }
+        List<Object[]> linhas = em.createQuery(
+            "SELECT n.destinatarioId, COUNT(n) FROM Notificacao n WHERE n.tipoDestinatario = :tipo " +
+            "AND n.destinatarioId IN :ids AND n.lida = false GROUP BY n.destinatarioId",
+            Object[].class
+        )
+        .setParameter("tipo", tipoDestinatario)
+        .setParameter("ids", destinatarioIds)
+        .getResultList();
+        for (Object[] linha : linhas) {
+            totais.put((Long) linha[0], (Long) linha[1]);
+        }
+        return totais;
+    }
+
+    /**
+     * Travar as não lidas de destinatários até o fim da transação
+     * (pg_advisory_xact_lock, só PostgreSQL). As travas são tomadas na
+     * ordem dos IDs.
+     * @param tipoDestinatario Tipo do destinatário
+     * @param destinatarioIds IDs dos destinatários, em ordem crescente
+     */
+    public void travarNaoLidas(String tipoDestinatario, List<Long> destinatarioIds) {
+        if (destinatarioIds.isEmpty()) {
+            return;
+        }
+        StringJoiner ids = new StringJoiner(",");
+        destinatarioIds.forEach(id -> ids.add(id.toString()));
+        em.createNativeQuery(
+            "SELECT COUNT(pg_advisory_xact_lock(hashtextextended('notificacao_nao_lidas:' || :tipo || ':' || id, 0))) " +
+            "FROM unnest(string_to_array(:ids, ',')) AS d(id)"
+        )
+        .setParameter("tipo", tipoDestinatario)
+        .setParameter("ids", ids.toString())
+        .getSingleResult();
+    }
+
     /**
      * Contar notificações por tipo
      * @param tipoDestinatario Tipo do destinatário
@@ -324,6 +425,41 @@ public class NotificacaoDAO {
         .setMaxResults(limite)
         .getResultList();
     }
-}
 
- 
+    /**
+     * Notificações de um destinatário gravadas depois de uma posição do
+     * stream (lote, id), na ordem de gravação
+     * @param tipoDestinatario Tipo do destinatário
+     * @param destinatarioId ID do destinatário
+     * @param lote Lote da última notificação recebida
+     * @param ultimoId ID da última notificação recebida
+     * @param limite Número máximo de notificações
+     * @return Lista de notificações
+     */
+    public List<Notificacao> findAposPosicao(String tipoDestinatario, Long destinatarioId,
+                                             long lote, long ultimoId, int limite) {
+        return em.createQuery(
+            "SELECT n FROM Notificacao n WHERE n.tipoDestinatario = :tipo AND n.destinatarioId = :id " +
+            "AND (n.lote, n.id) > (:lote, :ultimoId) ORDER BY n.lote, n.id",
+            Notificacao.class
+        )
+        .setParameter("tipo", tipoDestinatario)
+        .setParameter("id", destinatarioId)
+        .setParameter("lote", lote)
+        .setParameter("ultimoId", ultimoId)
+        .setMaxResults(limite)
+        .getResultList();
+    }
+
+    /**
+     * Próximo número de lote de entrega (sequence notificacao_lote_seq, sem faixas).
+     * Antes trava a linha de trava_lote_notificacao até o fim da transação:
+     * o próximo lote só é tirado depois do commit deste, e os lotes crescem
+     * na ordem dos commits (ver V13__trava_lote_notificacao.sql)
+     * @return Número do lote
+     */
+    public long proximoLote() {
+        em.createNativeQuery("SELECT id FROM trava_lote_notificacao WHERE id = 1 FOR UPDATE").getSingleResult();
+        return ((Number) em.createNativeQuery("SELECT nextval('notificacao_lote_seq')").getSingleResult()).longValue();
+    }
+}
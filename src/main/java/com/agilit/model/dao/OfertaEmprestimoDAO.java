@@ -1,6 +1,7 @@
 package com.agilit.model.dao;
 
 import com.agilit.model.OfertaEmprestimo;
+import com.agilit.util.Dinheiro;
 import jakarta.persistence.EntityManager;
 
 import java.util.List;
@@ -151,8 +152,8 @@ public class OfertaEmprestimoDAO {
 
     /**
      * Buscar ofertas por faixa de valor
-     * @param valorMin Valor mínimo
-     * @param valorMax Valor máximo
+     * @param valorMin Valor mínimo (reais)
+     * @param valorMax Valor máximo (reais)
      * @return Lista de ofertas
      */
     public List<OfertaEmprestimo> findByValorRange(Double valorMin, Double valorMax) {
@@ -160,8 +161,8 @@ public class OfertaEmprestimoDAO {
             "SELECT o FROM OfertaEmprestimo o WHERE o.valorDisponivel BETWEEN :min AND :max ORDER BY o.valorDisponivel",
             OfertaEmprestimo.class
         )
-        .setParameter("min", valorMin)
-        .setParameter("max", valorMax)
+        .setParameter("min", Dinheiro.centavos(valorMin))
+        .setParameter("max", Dinheiro.centavos(valorMax))
         .getResultList();
     }
 }
\ No newline at end of file
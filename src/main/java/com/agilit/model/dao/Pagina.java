@@ -0,0 +1,29 @@
+package com.agilit.model.dao;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Uma página de resultados keyset.
+ *
+ * @param itens linhas da página (no máximo "limite")
+ * @param proximo cursor da página seguinte, ou null se esta é a última
+ */
+public record Pagina<T>(List<T> itens, Cursor proximo) {
+
+    /**
+     * Monta a página a partir de uma consulta que buscou limite + 1 linhas:
+     * a linha extra só indica que existe próxima página e é descartada.
+     */
+    public static <T> Pagina<T> de(List<T> linhas, int limite, Function<T, Cursor> cursorDe) {
+        if (linhas.size() <= limite) {
+            return new Pagina<>(linhas, null);
+        }
+        List<T> itens = List.copyOf(linhas.subList(0, limite));
+        return new Pagina<>(itens, cursorDe.apply(itens.get(limite - 1)));
+    }
+
+    public boolean temProxima() {
+        return proximo != null;
+    }
+}
@@ -1,8 +1,11 @@
 package com.agilit.model.dao;
 
 import com.agilit.model.Parcela;
+import com.agilit.model.dto.ParcelaDTO;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -111,6 +114,28 @@ public class ParcelaDAO {
         .getResultList();
     }
 
+    /**
+     * Página de parcelas vencidas, da mais antiga para a mais nova.
+     * Keyset em (dataVencimento, id).
+     * @param apos Cursor da página anterior, ou null para a primeira página
+     * @param limite Tamanho da página
+     * @return Página de parcelas vencidas
+     */
+    public Pagina<ParcelaDTO> findPaginaParcelasVencidas(Cursor apos, int limite) {
+        String filtro = apos == null ? "" : " AND (p.dataVencimento, p.id) > (:chave, :ultimoId)";
+        TypedQuery<ParcelaDTO> query = em.createQuery(
+            ParcelaDTO.SELECT + " WHERE p.paga = false AND p.dataVencimento < :hoje" + filtro +
+            " ORDER BY p.dataVencimento ASC, p.id ASC",
+            ParcelaDTO.class
+        )
+        .setParameter("hoje", LocalDate.now())
+        .setMaxResults(limite + 1);
+        if (apos != null) {
+            query.setParameter("chave", apos.data()).setParameter("ultimoId", apos.id());
+        }
+        return Pagina.de(query.getResultList(), limite, p -> Cursor.de(p.dataVencimento(), p.id()));
+    }
+
     /**
      * Buscar parcelas que vencem hoje
      * @return Lista de parcelas que vencem hoje
@@ -265,14 +290,15 @@ public class ParcelaDAO {
      * @return Valor total pago
      */
     public Double calcularTotalPago(Long emprestimoId) {
-        Double total = em.createQuery(
-            "SELECT SUM(p.valor) FROM Parcela p WHERE p.emprestimo.id = :emprestimoId AND p.paga = true",
-            Double.class
+        // CAST para somar a coluna em reais (ver EmprestimoDAO.calcularTotalEmprestadoPorCredor)
+        BigDecimal total = em.createQuery(
+            "SELECT SUM(CAST(p.valor AS BigDecimal)) FROM Parcela p WHERE p.emprestimo.id = :emprestimoId AND p.paga = true",
+            BigDecimal.class
         )
         .setParameter("emprestimoId", emprestimoId)
         .getSingleResult();
         
-        return total != null ? total : 0.0;
+        return total != null ? total.doubleValue() : 0.0;
     }
 
     /**
@@ -281,14 +307,14 @@ public class ParcelaDAO {
      * @return Valor total pendente
      */
     public Double calcularTotalPendente(Long emprestimoId) {
-        Double total = em.createQuery(
-            "SELECT SUM(p.valor) FROM Parcela p WHERE p.emprestimo.id = :emprestimoId AND p.paga = false",
-            Double.class
+        BigDecimal total = em.createQuery(
+            "SELECT SUM(CAST(p.valor AS BigDecimal)) FROM Parcela p WHERE p.emprestimo.id = :emprestimoId AND p.paga = false",
+            BigDecimal.class
         )
         .setParameter("emprestimoId", emprestimoId)
         .getSingleResult();
         
-        return total != null ? total : 0.0;
+        return total != null ? total.doubleValue() : 0.0;
     }
 
     /**
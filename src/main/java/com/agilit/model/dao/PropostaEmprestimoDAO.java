@@ -1,7 +1,9 @@
 package com.agilit.model.dao;
 
 import com.agilit.model.PropostaEmprestimo;
+import com.agilit.model.dto.PropostaEmprestimoDTO;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 
 import java.util.List;
 
@@ -83,6 +85,29 @@ public class PropostaEmprestimoDAO {
         .getResultList();
     }
 
+    /**
+     * Página de propostas com o status informado, mais recentes primeiro.
+     * Keyset em (dataCriacao, id).
+     * @param status Status da proposta (ATIVA, CANCELADA, ACEITA)
+     * @param apos Cursor da página anterior, ou null para a primeira página
+     * @param limite Tamanho da página
+     * @return Página de propostas
+     */
+    public Pagina<PropostaEmprestimoDTO> findPaginaByStatus(String status, Cursor apos, int limite) {
+        String filtro = apos == null ? "" : " AND (p.dataCriacao, p.id) < (:chave, :ultimoId)";
+        TypedQuery<PropostaEmprestimoDTO> query = em.createQuery(
+            PropostaEmprestimoDTO.SELECT + " WHERE p.status = :status" + filtro +
+            " ORDER BY p.dataCriacao DESC, p.id DESC",
+            PropostaEmprestimoDTO.class
+        )
+        .setParameter("status", status)
+        .setMaxResults(limite + 1);
+        if (apos != null) {
+            query.setParameter("chave", apos.dataHora()).setParameter("ultimoId", apos.id());
+        }
+        return Pagina.de(query.getResultList(), limite, p -> Cursor.de(p.dataCriacao(), p.id()));
+    }
+
     /**
      * Buscar propostas por credor
      * @param credorId ID do credor
@@ -0,0 +1,43 @@
+package com.agilit.model.dto;
+
+import com.agilit.model.BuscaSalva;
+import com.agilit.util.Dinheiro;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projeção de leitura de BuscaSalva, com os valores em reais (como os
+ * filtros de /devedor/buscar-propostas).
+ */
+public record BuscaSalvaDTO(
+        Long id,
+        Long devedorId,
+        String nome,
+        Double valorMin,
+        Double valorMax,
+        Integer parcelasMin,
+        Integer parcelasMax,
+        Double taxaJurosMax,
+        LocalDateTime dataCriacao) {
+
+    /** Constructor expression JPQL, alias "b" */
+    public static final String SELECT =
+            "SELECT new com.agilit.model.dto.BuscaSalvaDTO(" +
+            "b.id, b.devedor.id, b.nome, b.valorMin, b.valorMax, b.parcelasMin, b.parcelasMax, " +
+            "b.taxaJurosMax, b.dataCriacao) " +
+            "FROM BuscaSalva b";
+
+    /** Usado pelo SELECT: valorMin e valorMax vêm em centavos (CentavosConverter) */
+    public BuscaSalvaDTO(Long id, Long devedorId, String nome, Long valorMin, Long valorMax,
+                         Integer parcelasMin, Integer parcelasMax, Double taxaJurosMax,
+                         LocalDateTime dataCriacao) {
+        this(id, devedorId, nome, Dinheiro.reais(valorMin), Dinheiro.reais(valorMax),
+             parcelasMin, parcelasMax, taxaJurosMax, dataCriacao);
+    }
+
+    public static BuscaSalvaDTO de(BuscaSalva b) {
+        return new BuscaSalvaDTO(
+                b.getId(), b.getDevedor().getId(), b.getNome(), b.getValorMinCentavos(), b.getValorMaxCentavos(),
+                b.getParcelasMin(), b.getParcelasMax(), b.getTaxaJurosMax(), b.getDataCriacao());
+    }
+}
@@ -0,0 +1,31 @@
+package com.agilit.model.dto;
+
+import com.agilit.model.Credor;
+import com.agilit.util.Dinheiro;
+
+/**
+ * Projeção de leitura de Credor. Não expõe o hash da senha.
+ */
+public record CredorDTO(
+        Long id,
+        String nome,
+        String cpf,
+        String telefone,
+        String email,
+        Double saldoDisponivel) {
+
+    /** Constructor expression JPQL, alias "c" */
+    public static final String SELECT =
+            "SELECT new com.agilit.model.dto.CredorDTO(c.id, c.nome, c.cpf, c.telefone, c.email, c.saldoDisponivel) " +
+            "FROM Credor c";
+
+    /** Usado pelo SELECT: o saldo vem em centavos (CentavosConverter) */
+    public CredorDTO(Long id, String nome, String cpf, String telefone, String email, Long saldoDisponivel) {
+        this(id, nome, cpf, telefone, email, Dinheiro.reais(saldoDisponivel));
+    }
+
+    public static CredorDTO de(Credor c) {
+        return new CredorDTO(c.getId(), c.getNome(), c.getCpf(), c.getTelefone(), c.getEmail(),
+                             c.getSaldoDisponivel());
+    }
+}
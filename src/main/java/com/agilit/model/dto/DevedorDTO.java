@@ -0,0 +1,33 @@
+package com.agilit.model.dto;
+
+import com.agilit.model.Devedor;
+
+import java.time.LocalDate;
+
+/**
+ * Projeção de leitura de Devedor. Não expõe o hash da senha.
+ */
+public record DevedorDTO(
+        Long id,
+        String nome,
+        String cpf,
+        String telefone,
+        String email,
+        String endereco,
+        String cidade,
+        String estado,
+        String cep,
+        LocalDate dataNascimento) {
+
+    /** Constructor expression JPQL, alias "d" */
+    public static final String SELECT =
+            "SELECT new com.agilit.model.dto.DevedorDTO(" +
+            "d.id, d.nome, d.cpf, d.telefone, d.email, d.endereco, d.cidade, d.estado, d.cep, d.dataNascimento) " +
+            "FROM Devedor d";
+
+    public static DevedorDTO de(Devedor d) {
+        return new DevedorDTO(d.getId(), d.getNome(), d.getCpf(), d.getTelefone(), d.getEmail(),
+                              d.getEndereco(), d.getCidade(), d.getEstado(), d.getCep(),
+                              d.getDataNascimento());
+    }
+}
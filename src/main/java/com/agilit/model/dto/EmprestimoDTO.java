@@ -0,0 +1,36 @@
+package com.agilit.model.dto;
+
+import com.agilit.controller.emprestimo.StatusEmprestimo;
+import com.agilit.util.Dinheiro;
+
+import java.time.LocalDate;
+
+/**
+ * Projeção de leitura de Emprestimo (mesmos campos do JSON da entidade).
+ */
+public record EmprestimoDTO(
+        Long id,
+        Double valorPrincipal,
+        Double jurosAplicados,
+        Double valorTotal,
+        Integer numeroParcelas,
+        Integer parcelasPagas,
+        LocalDate dataInicio,
+        LocalDate dataVencimento,
+        StatusEmprestimo status) {
+
+    /** Constructor expression JPQL, alias "e" */
+    public static final String SELECT =
+            "SELECT new com.agilit.model.dto.EmprestimoDTO(" +
+            "e.id, e.valorPrincipal, e.jurosAplicados, e.valorTotal, e.numeroParcelas, e.parcelasPagas, " +
+            "e.dataInicio, e.dataVencimento, e.status) " +
+            "FROM Emprestimo e";
+
+    /** Usado pelo SELECT: os valores vêm em centavos (CentavosConverter) */
+    public EmprestimoDTO(Long id, Long valorPrincipal, Long jurosAplicados, Long valorTotal,
+                         Integer numeroParcelas, Integer parcelasPagas,
+                         LocalDate dataInicio, LocalDate dataVencimento, StatusEmprestimo status) {
+        this(id, Dinheiro.reais(valorPrincipal), Dinheiro.reais(jurosAplicados), Dinheiro.reais(valorTotal),
+             numeroParcelas, parcelasPagas, dataInicio, dataVencimento, status);
+    }
+}
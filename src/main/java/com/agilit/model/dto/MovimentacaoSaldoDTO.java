@@ -0,0 +1,39 @@
+package com.agilit.model.dto;
+
+import com.agilit.model.MovimentacaoSaldo;
+import com.agilit.util.Dinheiro;
+
+import java.time.LocalDateTime;
+
+/**
+ * Linha do extrato do credor, com os valores em reais.
+ */
+public record MovimentacaoSaldoDTO(
+        Long id,
+        Long credorId,
+        MovimentacaoSaldo.Tipo tipo,
+        Double valor,
+        Double saldoApos,
+        String tipoReferencia,
+        Long referencia,
+        LocalDateTime dataCriacao) {
+
+    /** Constructor expression JPQL, alias "m" */
+    public static final String SELECT =
+            "SELECT new com.agilit.model.dto.MovimentacaoSaldoDTO(" +
+            "m.id, m.credor.id, m.tipo, m.valor, m.saldoApos, m.tipoReferencia, m.referencia, m.dataCriacao) " +
+            "FROM MovimentacaoSaldo m";
+
+    /** Usado pelo SELECT: valor e saldoApos vêm em centavos (CentavosConverter) */
+    public MovimentacaoSaldoDTO(Long id, Long credorId, MovimentacaoSaldo.Tipo tipo, Long valor, Long saldoApos,
+                                String tipoReferencia, Long referencia, LocalDateTime dataCriacao) {
+        this(id, credorId, tipo, Dinheiro.reais(valor), Dinheiro.reais(saldoApos),
+             tipoReferencia, referencia, dataCriacao);
+    }
+
+    public static MovimentacaoSaldoDTO de(MovimentacaoSaldo m) {
+        return new MovimentacaoSaldoDTO(
+                m.getId(), m.getCredor().getId(), m.getTipo(), m.getValorCentavos(), m.getSaldoAposCentavos(),
+                m.getTipoReferencia(), m.getReferencia(), m.getDataCriacao());
+    }
+}
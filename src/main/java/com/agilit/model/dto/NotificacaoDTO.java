@@ -0,0 +1,35 @@
+package com.agilit.model.dto;
+
+import com.agilit.model.Notificacao;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projeção de leitura de Notificacao (mesmos campos do JSON da entidade).
+ */
+public record NotificacaoDTO(
+        Long id,
+        String tipoDestinatario,
+        Long destinatarioId,
+        String tipo,
+        String titulo,
+        String mensagem,
+        Boolean lida,
+        LocalDateTime dataCriacao,
+        LocalDateTime dataLeitura,
+        String referencia,
+        String tipoReferencia) {
+
+    /** Constructor expression JPQL, alias "n" */
+    public static final String SELECT =
+            "SELECT new com.agilit.model.dto.NotificacaoDTO(" +
+            "n.id, n.tipoDestinatario, n.destinatarioId, n.tipo, n.titulo, n.mensagem, n.lida, " +
+            "n.dataCriacao, n.dataLeitura, n.referencia, n.tipoReferencia) " +
+            "FROM Notificacao n";
+
+    public static NotificacaoDTO de(Notificacao n) {
+        return new NotificacaoDTO(n.getId(), n.getTipoDestinatario(), n.getDestinatarioId(), n.getTipo(),
+                                  n.getTitulo(), n.getMensagem(), n.getLida(), n.getDataCriacao(),
+                                  n.getDataLeitura(), n.getReferencia(), n.getTipoReferencia());
+    }
+}
@@ -0,0 +1,30 @@
+package com.agilit.model.dto;
+
+import com.agilit.util.Dinheiro;
+
+import java.time.LocalDate;
+
+/**
+ * Projeção de leitura de Parcela (mesmos campos do JSON da entidade).
+ */
+public record ParcelaDTO(
+        Long id,
+        Integer numeroParcela,
+        Double valor,
+        LocalDate dataVencimento,
+        LocalDate dataPagamento,
+        Boolean paga,
+        Boolean atrasada) {
+
+    /** Constructor expression JPQL, alias "p" */
+    public static final String SELECT =
+            "SELECT new com.agilit.model.dto.ParcelaDTO(" +
+            "p.id, p.numeroParcela, p.valor, p.dataVencimento, p.dataPagamento, p.paga, p.atrasada) " +
+            "FROM Parcela p";
+
+    /** Usado pelo SELECT: o valor vem em centavos (CentavosConverter) */
+    public ParcelaDTO(Long id, Integer numeroParcela, Long valor, LocalDate dataVencimento,
+                      LocalDate dataPagamento, Boolean paga, Boolean atrasada) {
+        this(id, numeroParcela, Dinheiro.reais(valor), dataVencimento, dataPagamento, paga, atrasada);
+    }
+}
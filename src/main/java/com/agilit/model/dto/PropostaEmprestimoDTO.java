@@ -0,0 +1,48 @@
+package com.agilit.model.dto;
+
+import com.agilit.model.PropostaEmprestimo;
+import com.agilit.util.Dinheiro;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projeção de leitura de PropostaEmprestimo (mesmos campos do JSON da entidade).
+ *
+ * Listas usam SELECT + " WHERE ...", que traz só as colunas necessárias
+ * e não coloca nada no contexto de persistência.
+ */
+public record PropostaEmprestimoDTO(
+        Long id,
+        String idPublico,
+        String nomeCredor,
+        Double valorDisponivel,
+        Integer parcelasMinimas,
+        Integer parcelasMaximas,
+        Integer diasAtePrimeiraCobranca,
+        Double taxaJuros,
+        LocalDateTime dataCriacao,
+        String status) {
+
+    /** Constructor expression JPQL, alias "p" */
+    public static final String SELECT =
+            "SELECT new com.agilit.model.dto.PropostaEmprestimoDTO(" +
+            "p.id, p.idPublico, p.nomeCredor, p.valorDisponivel, p.parcelasMinimas, p.parcelasMaximas, " +
+            "p.diasAtePrimeiraCobranca, p.taxaJuros, p.dataCriacao, p.status) " +
+            "FROM PropostaEmprestimo p";
+
+    /** Usado pelo SELECT: valorDisponivel vem em centavos (CentavosConverter) */
+    public PropostaEmprestimoDTO(Long id, String idPublico, String nomeCredor, Long valorDisponivel,
+                                 Integer parcelasMinimas, Integer parcelasMaximas,
+                                 Integer diasAtePrimeiraCobranca, Double taxaJuros,
+                                 LocalDateTime dataCriacao, String status) {
+        this(id, idPublico, nomeCredor, Dinheiro.reais(valorDisponivel), parcelasMinimas, parcelasMaximas,
+             diasAtePrimeiraCobranca, taxaJuros, dataCriacao, status);
+    }
+
+    public static PropostaEmprestimoDTO de(PropostaEmprestimo p) {
+        return new PropostaEmprestimoDTO(
+                p.getId(), p.getIdPublico(), p.getNomeCredor(), p.getValorDisponivel(),
+                p.getParcelasMinimas(), p.getParcelasMaximas(), p.getDiasAtePrimeiraCobranca(),
+                p.getTaxaJuros(), p.getDataCriacao(), p.getStatus());
+    }
+}
@@ -0,0 +1,204 @@
+package com.agilit.service;
+
+import com.agilit.config.FluxoNotificacoes;
+import com.agilit.config.HistogramaLatencia;
+import com.agilit.model.EventoNotificacao;
+import com.agilit.model.Notificacao;
+import com.agilit.model.dao.EventoNotificacaoDAO;
+import com.agilit.model.dao.NotificacaoDAO;
+import com.agilit.util.NotificacaoService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Entrega das notificações: lê a fila de saída (evento_notificacao,
+ * gravada pelo NotificacaoService nas transações de negócio), grava as
+ * notificações em lote e apaga os eventos entregues.
+ *
+ * Cada lote é uma transação: os eventos mais antigos são travados (ver
+ * EventoNotificacaoDAO.findLote), as notificações vão num INSERT em lote
+ * (hibernate.jdbc.batch_size) e os eventos saem num DELETE só. Uma falha
+ * no meio desfaz o lote inteiro, que é entregue de novo na próxima vez:
+ * nenhum evento se perde, e nenhum vira duas notificações.
+ *
+ * Ordem por destinatário: dentro do lote as notificações são gravadas na
+ * ordem de criação dos eventos, com a data de criação do evento. Entre
+ * instâncias, a trava dos primeiros eventos da fila faz uma entrega esperar
+ * a outra, em vez de as duas gravarem eventos do mesmo destinatário fora
+ * de ordem.
+ *
+ * Um evento que não se monta (modelo removido, argumentos que não servem
+ * ao modelo) é descartado e registrado, para não travar a fila.
+ *
+ * As notificações de um lote levam o mesmo número de lote, tirado sob uma
+ * trava que dura até o commit (ver NotificacaoDAO.proximoLote), então os
+ * lotes crescem na ordem dos commits: é a posição que os streams SSE usam
+ * para retomar (ver FluxoNotificacoes). As notificações e o total de não lidas de cada
+ * destinatário, contado no fim da transação, são publicados para os
+ * streams no commit.
+ *
+ * Agendada por config.InicializacaoEntregaNotificacoes.
+ */
+public final class EntregaNotificacoes {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EntregaNotificacoes.class);
+
+    private static final LongAdder LOTES = new LongAdder();
+    private static final LongAdder ENTREGUES = new LongAdder();
+    private static final LongAdder DESCARTADOS = new LongAdder();
+    private static final LongAdder FALHAS = new LongAdder();
+
+    // Do evento gravado até a notificação gravada
+    private static final HistogramaLatencia ATRASO = new HistogramaLatencia();
+    // Transação do lote inteiro
+    private static final HistogramaLatencia DURACAO_LOTE = new HistogramaLatencia();
+
+    private static volatile LocalDateTime ultimaEntrega;
+
+    private EntregaNotificacoes() {
+    }
+
+    /**
+     * Entrega lotes até esvaziar a fila
+     *
+     * @param emf EntityManagerFactory
+     * @param limite Tamanho de cada lote
+     * @return Eventos tirados da fila (entregues ou descartados)
+     */
+    public static int entregarPendentes(EntityManagerFactory emf, int limite) {
+        int total = 0;
+        int lote;
+        do {
+            lote = entregarLote(emf, limite);
+            total += lote;
+        } while (lote == limite);
+        return total;
+    }
+
+    /**
+     * Entrega um lote
+     *
+     * @param emf EntityManagerFactory
+     * @param limite Tamanho do lote
+     * @return Eventos tirados da fila (entregues ou descartados)
+     */
+    public static int entregarLote(EntityManagerFactory emf, int limite) {
+        long inicio = System.nanoTime();
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction transacao = em.getTransaction();
+        try {
+            transacao.begin();
+            EventoNotificacaoDAO dao = new EventoNotificacaoDAO(em);
+            List<EventoNotificacao> eventos = dao.findLote(limite);
+            if (eventos.isEmpty()) {
+                transacao.commit();
+                return 0;
+            }
+
+            long numeroLote = new NotificacaoDAO(em).proximoLote();
+            List<Long> ids = new ArrayList<>(eventos.size());
+            List<EventoNotificacao> entregues = new ArrayList<>(eventos.size());
+            List<FluxoNotificacoes.Sinal> sinais = new ArrayList<>(eventos.size());
+            // Tipo do destinatário -> IDs com notificações novas
+            Map<String, Set<Long>> destinatarios = new TreeMap<>();
+            int descartados = 0;
+            for (EventoNotificacao evento : eventos) {
+                ids.add(evento.getId());
+                try {
+                    Notificacao notificacao = NotificacaoService.montar(evento);
+                    notificacao.setLote(numeroLote);
+                    em.persist(notificacao);
+                    entregues.add(evento);
+                    sinais.add(FluxoNotificacoes.Sinal.nova(notificacao));
+                    destinatarios.computeIfAbsent(notificacao.getTipoDestinatario(), t -> new HashSet<>())
+                                 .add(notificacao.getDestinatarioId());
+                } catch (IllegalArgumentException e) {
+                    descartados++;
+                    // Sai da fila junto com o lote: este log é o único registro dele
+                    LOGGER.error("Evento de notificação {} ({}) descartado", evento.getId(), evento.getModelo(), e);
+                }
+            }
+            em.flush();
+            dao.deleteByIds(ids);
+            destinatarios.forEach((tipo, destinatarioIds) ->
+                sinais.addAll(FluxoNotificacoes.naoLidas(em, tipo, destinatarioIds)));
+            FluxoNotificacoes.publicar(em, sinais);
+            transacao.commit();
+
+            LocalDateTime agora = LocalDateTime.now();
+            for (EventoNotificacao evento : entregues) {
+                ATRASO.registrarNanos(Duration.between(evento.getDataCriacao(), agora).toNanos());
+            }
+            LOTES.increment();
+            ENTREGUES.add(entregues.size());
+            DESCARTADOS.add(descartados);
+            DURACAO_LOTE.registrarNanos(System.nanoTime() - inicio);
+            ultimaEntrega = agora;
+            return eventos.size();
+        } catch (RuntimeException e) {
+            FALHAS.increment();
+            throw e;
+        } finally {
+            if (transacao.isActive()) {
+                transacao.rollback();
+            }
+            em.close();
+        }
+    }
+
+    /**
+     * Eventos ainda na fila (de todas as instâncias)
+     *
+     * @param emf EntityManagerFactory
+     * @return Quantidade
+     */
+    public static long pendentes(EntityManagerFactory emf) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return new EventoNotificacaoDAO(em).countPendentes();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Zera os contadores e histogramas
+     */
+    public static void limpar() {
+        LOTES.reset();
+        ENTREGUES.reset();
+        DESCARTADOS.reset();
+        FALHAS.reset();
+        ATRASO.reset();
+        DURACAO_LOTE.reset();
+    }
+
+    /**
+     * Lotes, notificações entregues, descartes, falhas e atraso da entrega
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("lotes", LOTES.sum());
+        snapshot.put("entregues", ENTREGUES.sum());
+        snapshot.put("descartados", DESCARTADOS.sum());
+        snapshot.put("falhas", FALHAS.sum());
+        snapshot.put("ultimaEntrega", ultimaEntrega == null ? null : ultimaEntrega.toString());
+        snapshot.put("atraso", ATRASO.snapshot());
+        snapshot.put("duracaoLote", DURACAO_LOTE.snapshot());
+        return snapshot;
+    }
+}
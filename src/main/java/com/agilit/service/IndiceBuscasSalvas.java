@@ -0,0 +1,231 @@
+package com.agilit.service;
+
+import com.agilit.model.BuscaSalva;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Índice invertido em memória das buscas salvas dos devedores: dada uma
+ * proposta nova, quais devedores têm uma busca que ela atende.
+ *
+ * É o caminho inverso do IndicePropostas: lá os filtros são a consulta e
+ * as propostas estão indexadas; aqui a proposta é a consulta e os filtros
+ * estão indexados. Cada limite de busca vira uma condição sobre um valor
+ * da proposta, e as buscas ficam ordenadas por cada limite:
+ * - valorMin ASC: valorMin <= valor é um prefixo
+ * - valorMax ASC: valorMax >= valor é um sufixo
+ * - parcelasMin ASC: parcelasMin <= parcelasMaximas da proposta é um prefixo
+ * - parcelasMax ASC: parcelasMax >= parcelasMinimas da proposta é um sufixo
+ * - taxaJurosMax ASC: taxaJurosMax >= taxa é um sufixo
+ * Filtro ausente vira o limite extremo (entra em toda faixa). Cada faixa
+ * sai de uma busca binária; a menor delas é percorrida conferindo os outros
+ * limites. Os mesmos critérios de BuscarPropostasController.
+ *
+ * Mesma estrutura do IndicePropostas (IndiceOrdenado): imutável, com cada
+ * busca criada ou excluída entrando ou saindo das ordens sem ordenar tudo
+ * de novo. Mantido pelos listeners pós-commit (ver
+ * config.IndiceMemoriaListener) e recarregado do banco na subida e a
+ * cada AGILIT_INDICE_PROPOSTAS_RECARGA_S segundos. Enquanto não foi
+ * carregado, carregado() é false e a conferência vai ao banco.
+ */
+public final class IndiceBuscasSalvas {
+
+    private static final Comparator<Assinatura> POR_ID = Comparator.comparingLong(Assinatura::id);
+
+    // Ordens do índice (IndiceOrdenado.Versao.coluna)
+    private static final int VALOR_MIN = 0;
+    private static final int VALOR_MAX = 1;
+    private static final int PARCELAS_MIN = 2;
+    private static final int PARCELAS_MAX = 3;
+    private static final int TAXA_MAX = 4;
+
+    private static final IndiceOrdenado<Assinatura> INDICE = new IndiceOrdenado<>(
+            Assinatura.class, Assinatura::id, List.of(
+                    new IndiceOrdenado.Ordem<>(Assinatura::valorMin, POR_ID),
+                    new IndiceOrdenado.Ordem<>(Assinatura::valorMax, POR_ID),
+                    new IndiceOrdenado.Ordem<>(Assinatura::parcelasMin, POR_ID),
+                    new IndiceOrdenado.Ordem<>(Assinatura::parcelasMax, POR_ID),
+                    new IndiceOrdenado.Ordem<>(a -> IndiceOrdenado.chave(a.taxaMax()), POR_ID)));
+
+    private static final LongAdder PROPOSTAS_AVALIADAS = new LongAdder();
+    private static final LongAdder DEVEDORES_ENCONTRADOS = new LongAdder();
+
+    private static final String SELECT =
+            "SELECT b.id, b.devedor.id, b.valorMin, b.valorMax, b.parcelasMin, b.parcelasMax, b.taxaJurosMax " +
+            "FROM BuscaSalva b";
+
+    private IndiceBuscasSalvas() {
+    }
+
+    /**
+     * Se o índice já foi carregado do banco
+     */
+    public static boolean carregado() {
+        return INDICE.atual() != null;
+    }
+
+    /**
+     * Devedores (sem repetição, em ordem de ID) com alguma busca salva que a
+     * proposta atende
+     */
+    public static long[] devedores(long valorCentavos, int parcelasMinimas, int parcelasMaximas, double taxaJuros) {
+        IndiceOrdenado.Versao<Assinatura> indice = INDICE.atual();
+        if (indice == null) {
+            throw new IllegalStateException("Índice de buscas salvas ainda não carregado");
+        }
+        long[] devedores = devedores(indice, valorCentavos, parcelasMinimas, parcelasMaximas, taxaJuros);
+        PROPOSTAS_AVALIADAS.increment();
+        DEVEDORES_ENCONTRADOS.add(devedores.length);
+        return devedores;
+    }
+
+    /**
+     * Busca salva criada ou alterada (já confirmada no banco)
+     */
+    public static void atualizar(BuscaSalva busca) {
+        if (busca.getId() == null) {
+            return;
+        }
+        INDICE.atualizar(Assinatura.de(busca));
+    }
+
+    /**
+     * Busca salva excluída
+     */
+    public static void remover(Long id) {
+        INDICE.remover(id);
+    }
+
+    /**
+     * Recarrega todas as buscas salvas do banco. Alterações confirmadas
+     * durante a leitura são reaplicadas por cima do que foi lido.
+     */
+    public static void reconstruir(EntityManagerFactory emf) {
+        INDICE.reconstruir(() -> {
+            List<Object[]> linhas;
+            EntityManager em = emf.createEntityManager();
+            try {
+                linhas = em.createQuery(SELECT, Object[].class).getResultList();
+            } finally {
+                em.close();
+            }
+            List<Assinatura> buscas = new ArrayList<>(linhas.size());
+            for (Object[] linha : linhas) {
+                buscas.add(new Assinatura((Long) linha[0], (Long) linha[1], (Long) linha[2],
+                        (Long) linha[3], (Integer) linha[4], (Integer) linha[5], (Double) linha[6]));
+            }
+            return buscas;
+        });
+    }
+
+    /**
+     * Recarrega a partir da leitura dada (todas as buscas salvas)
+     */
+    static void reconstruir(Supplier<List<BuscaSalva>> leitura) {
+        INDICE.reconstruir(() -> leitura.get().stream().map(Assinatura::de).toList());
+    }
+
+    /**
+     * Tamanho, propostas avaliadas, devedores encontrados e última reconstrução
+     */
+    public static Map<String, Object> snapshot() {
+        IndiceOrdenado.Versao<Assinatura> indice = INDICE.atual();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("carregado", indice != null);
+        snapshot.put("buscasSalvas", indice != null ? indice.tamanho() : 0);
+        snapshot.put("propostasAvaliadas", PROPOSTAS_AVALIADAS.sum());
+        snapshot.put("devedoresEncontrados", DEVEDORES_ENCONTRADOS.sum());
+        INDICE.snapshot(snapshot);
+        return snapshot;
+    }
+
+    private static long[] devedores(IndiceOrdenado.Versao<Assinatura> indice, long valor, int minimas,
+                                    int maximas, double taxa) {
+        int n = indice.tamanho();
+
+        // Faixa de cada limite nas chaves ordenadas; fica a menor
+        IndiceOrdenado.Coluna<Assinatura> candidatas = indice.coluna(VALOR_MIN);
+        int inicio = 0, fim = candidatas.primeiroMaior(valor);
+
+        int de = indice.coluna(VALOR_MAX).primeiroMaiorOuIgual(valor);
+        if (n - de < fim - inicio) {
+            candidatas = indice.coluna(VALOR_MAX);
+            inicio = de;
+            fim = n;
+        }
+        int ate = indice.coluna(PARCELAS_MIN).primeiroMaior(maximas);
+        if (ate < fim - inicio) {
+            candidatas = indice.coluna(PARCELAS_MIN);
+            inicio = 0;
+            fim = ate;
+        }
+        de = indice.coluna(PARCELAS_MAX).primeiroMaiorOuIgual(minimas);
+        if (n - de < fim - inicio) {
+            candidatas = indice.coluna(PARCELAS_MAX);
+            inicio = de;
+            fim = n;
+        }
+        de = indice.coluna(TAXA_MAX).primeiroMaiorOuIgual(IndiceOrdenado.chave(taxa));
+        if (n - de < fim - inicio) {
+            candidatas = indice.coluna(TAXA_MAX);
+            inicio = de;
+            fim = n;
+        }
+
+        if (fim <= inicio) {
+            return new long[0];
+        }
+
+        long[] encontrados = new long[fim - inicio];
+        int total = 0;
+        for (int k = inicio; k < fim; k++) {
+            Assinatura a = candidatas.item(k);
+            if (a.valorMin() <= valor && a.valorMax() >= valor
+                    && a.parcelasMin() <= maximas && a.parcelasMax() >= minimas
+                    && a.taxaMax() >= taxa) {
+                encontrados[total++] = a.devedorId();
+            }
+        }
+
+        // Um devedor com várias buscas atendidas recebe uma notificação só
+        Arrays.sort(encontrados, 0, total);
+        int distintos = 0;
+        for (int k = 0; k < total; k++) {
+            if (distintos == 0 || encontrados[k] != encontrados[distintos - 1]) {
+                encontrados[distintos++] = encontrados[k];
+            }
+        }
+        return Arrays.copyOf(encontrados, distintos);
+    }
+
+    /**
+     * Limites de uma busca salva; filtro ausente vira o limite extremo
+     */
+    private record Assinatura(long id, long devedorId, long valorMin, long valorMax,
+                              long parcelasMin, long parcelasMax, double taxaMax) {
+
+        Assinatura(Long id, Long devedorId, Long valorMin, Long valorMax,
+                   Integer parcelasMin, Integer parcelasMax, Double taxaMax) {
+            this(id, devedorId,
+                 valorMin != null ? valorMin : Long.MIN_VALUE,
+                 valorMax != null ? valorMax : Long.MAX_VALUE,
+                 parcelasMin != null ? parcelasMin : Long.MIN_VALUE,
+                 parcelasMax != null ? parcelasMax : Long.MAX_VALUE,
+                 taxaMax != null ? taxaMax : Double.POSITIVE_INFINITY);
+        }
+
+        static Assinatura de(BuscaSalva b) {
+            return new Assinatura(b.getId(), b.getDevedor().getId(), b.getValorMinCentavos(),
+                    b.getValorMaxCentavos(), b.getParcelasMin(), b.getParcelasMax(), b.getTaxaJurosMax());
+        }
+    }
+}
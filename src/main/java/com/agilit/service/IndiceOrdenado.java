@@ -0,0 +1,362 @@
+package com.agilit.service;
+
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Índice em memória com os itens em várias ordens, para faixas por busca
+ * binária. Base do IndicePropostas e do IndiceBuscasSalvas.
+ *
+ * Cada versão é imutável: uma alteração monta a próxima e troca a
+ * referência (copy-on-write). As consultas leem a versão atual sem lock;
+ * as alterações são serializadas. Uma alteração não ordena nada de novo:
+ * em cada ordem, o item sai e entra na posição achada por busca binária
+ * (System.arraycopy, O(n) sem ordenação). Um item igual (equals) ao que
+ * já está no índice não gera versão nova.
+ *
+ * A reconstrução lê tudo do banco; alterações confirmadas durante a
+ * leitura são reaplicadas por cima do que foi lido.
+ *
+ * @param <T> Item indexado (record imutável)
+ */
+final class IndiceOrdenado<T> {
+
+    /**
+     * Uma ordem do índice: chave crescente, e o desempate, que deve ser uma
+     * ordem total dos itens (ex.: terminar pelo ID)
+     */
+    record Ordem<T>(ToLongFunction<T> chave, Comparator<T> desempate) {
+    }
+
+    private final Class<T> tipo;
+    private final ToLongFunction<T> id;
+    private final List<Ordem<T>> ordens;
+
+    private final Object escrita = new Object();
+
+    private volatile Versao<T> atual;
+
+    // Alterações recebidas durante uma reconstrução, reaplicadas no final
+    private List<Alteracao<T>> pendentes;
+
+    private volatile LocalDateTime ultimaReconstrucao;
+    private volatile long duracaoReconstrucaoMs;
+
+    private final LongAdder alteracoes = new LongAdder();
+    private final LongAdder alteracoesSemEfeito = new LongAdder();
+    private final LongAdder reconstrucoes = new LongAdder();
+
+    /**
+     * @param tipo Classe dos itens
+     * @param id ID de cada item
+     * @param ordens Ordens mantidas; Versao.coluna(k) é a ordem k
+     */
+    IndiceOrdenado(Class<T> tipo, ToLongFunction<T> id, List<Ordem<T>> ordens) {
+        this.tipo = tipo;
+        this.id = id;
+        this.ordens = List.copyOf(ordens);
+    }
+
+    /**
+     * Chave que mantém a ordem dos doubles (para Ordem.chave e para os
+     * limites das buscas)
+     */
+    static long chave(double valor) {
+        long bits = Double.doubleToLongBits(valor);
+        return bits < 0 ? bits ^ Long.MAX_VALUE : bits;
+    }
+
+    /**
+     * Versão atual, ou null se ainda não foi carregado do banco
+     */
+    Versao<T> atual() {
+        return atual;
+    }
+
+    /**
+     * Item criado ou alterado (já confirmado no banco)
+     */
+    void atualizar(T item) {
+        alterar(id.applyAsLong(item), item);
+    }
+
+    /**
+     * Item removido
+     */
+    void remover(long idItem) {
+        alterar(idItem, null);
+    }
+
+    private void alterar(long idItem, T item) {
+        synchronized (escrita) {
+            alteracoes.increment();
+            if (pendentes != null) {
+                pendentes.add(new Alteracao<>(idItem, item));
+            }
+            Versao<T> versao = atual;
+            if (versao == null) {
+                return;
+            }
+            T anterior = versao.buscar(idItem);
+            if (anterior == null ? item == null : anterior.equals(item)) {
+                alteracoesSemEfeito.increment();
+                return;
+            }
+            atual = versao.trocar(anterior, item);
+        }
+    }
+
+    /**
+     * Recarrega todos os itens
+     *
+     * @param leitura Consulta de todos os itens no banco
+     */
+    synchronized void reconstruir(Supplier<? extends Collection<T>> leitura) {
+        long inicio = System.nanoTime();
+        synchronized (escrita) {
+            pendentes = new ArrayList<>();
+        }
+
+        Collection<T> lidos;
+        try {
+            lidos = leitura.get();
+        } catch (RuntimeException e) {
+            synchronized (escrita) {
+                pendentes = null;
+            }
+            throw e;
+        }
+
+        synchronized (escrita) {
+            Map<Long, T> itens = new HashMap<>(lidos.size() * 2);
+            lidos.forEach(item -> itens.put(id.applyAsLong(item), item));
+            for (Alteracao<T> alteracao : pendentes) {
+                if (alteracao.item() != null) {
+                    itens.put(alteracao.id(), alteracao.item());
+                } else {
+                    itens.remove(alteracao.id());
+                }
+            }
+            pendentes = null;
+            atual = new Versao<>(this, itens.values());
+        }
+
+        reconstrucoes.increment();
+        duracaoReconstrucaoMs = (System.nanoTime() - inicio) / 1_000_000;
+        ultimaReconstrucao = LocalDateTime.now();
+    }
+
+    /**
+     * Acrescenta alterações e reconstruções ao snapshot de métricas
+     */
+    void snapshot(Map<String, Object> snapshot) {
+        snapshot.put("alteracoes", alteracoes.sum());
+        snapshot.put("alteracoesSemEfeito", alteracoesSemEfeito.sum());
+        snapshot.put("reconstrucoes", reconstrucoes.sum());
+        snapshot.put("ultimaReconstrucao", ultimaReconstrucao != null ? ultimaReconstrucao.toString() : null);
+        snapshot.put("duracaoReconstrucaoMs", duracaoReconstrucaoMs);
+    }
+
+    /** Item atualizado, ou removido (item null) */
+    private record Alteracao<T>(long id, T item) {
+    }
+
+    /**
+     * Uma versão imutável do índice: os itens por ID e em cada ordem
+     */
+    static final class Versao<T> {
+
+        private final IndiceOrdenado<T> indice;
+        private final Coluna<T> porId;
+        private final List<Coluna<T>> colunas;
+
+        private Versao(IndiceOrdenado<T> indice, Coluna<T> porId, List<Coluna<T>> colunas) {
+            this.indice = indice;
+            this.porId = porId;
+            this.colunas = colunas;
+        }
+
+        private Versao(IndiceOrdenado<T> indice, Collection<T> itens) {
+            this.indice = indice;
+            this.porId = new Coluna<>(indice.tipo, new Ordem<>(indice.id, (a, b) -> 0), itens);
+            List<Coluna<T>> ordenadas = new ArrayList<>(indice.ordens.size());
+            for (Ordem<T> ordem : indice.ordens) {
+                ordenadas.add(new Coluna<>(indice.tipo, ordem, itens));
+            }
+            this.colunas = List.copyOf(ordenadas);
+        }
+
+        int tamanho() {
+            return porId.tamanho();
+        }
+
+        /**
+         * Itens na ordem k (a ordem k do construtor do IndiceOrdenado)
+         */
+        Coluna<T> coluna(int k) {
+            return colunas.get(k);
+        }
+
+        T buscar(long idItem) {
+            int k = porId.primeiroMaiorOuIgual(idItem);
+            return k < porId.tamanho() && porId.chave(k) == idItem ? porId.item(k) : null;
+        }
+
+        private Versao<T> trocar(T anterior, T novo) {
+            List<Coluna<T>> trocadas = new ArrayList<>(colunas.size());
+            for (Coluna<T> coluna : colunas) {
+                trocadas.add(coluna.trocar(anterior, novo));
+            }
+            return new Versao<>(indice, porId.trocar(anterior, novo), List.copyOf(trocadas));
+        }
+    }
+
+    /**
+     * Os itens numa ordem, com as chaves num array à parte para a busca
+     * binária
+     */
+    static final class Coluna<T> {
+
+        private final Class<T> tipo;
+        private final Ordem<T> ordem;
+        private final long[] chaves;
+        private final Object[] itens;
+        private final List<T> lista;
+
+        private Coluna(Class<T> tipo, Ordem<T> ordem, long[] chaves, Object[] itens) {
+            this.tipo = tipo;
+            this.ordem = ordem;
+            this.chaves = chaves;
+            this.itens = itens;
+            this.lista = new AbstractList<>() {
+                @Override
+                public T get(int k) {
+                    return item(k);
+                }
+
+                @Override
+                public int size() {
+                    return itens.length;
+                }
+            };
+        }
+
+        private Coluna(Class<T> tipo, Ordem<T> ordem, Collection<T> itens) {
+            this(tipo, ordem, new long[itens.size()], itens.toArray());
+            Arrays.sort(this.itens, (a, b) -> comparar(tipo.cast(a), tipo.cast(b)));
+            for (int k = 0; k < this.itens.length; k++) {
+                chaves[k] = ordem.chave().applyAsLong(item(k));
+            }
+        }
+
+        int tamanho() {
+            return itens.length;
+        }
+
+        long chave(int k) {
+            return chaves[k];
+        }
+
+        T item(int k) {
+            return tipo.cast(itens[k]);
+        }
+
+        /**
+         * Os itens nesta ordem (visão só de leitura, sem cópia)
+         */
+        List<T> itens() {
+            return lista;
+        }
+
+        /** Primeira posição com chave >= valor */
+        int primeiroMaiorOuIgual(long valor) {
+            int baixo = 0, alto = chaves.length;
+            while (baixo < alto) {
+                int meio = (baixo + alto) >>> 1;
+                if (chaves[meio] < valor) baixo = meio + 1; else alto = meio;
+            }
+            return baixo;
+        }
+
+        /** Primeira posição com chave > valor */
+        int primeiroMaior(long valor) {
+            int baixo = 0, alto = chaves.length;
+            while (baixo < alto) {
+                int meio = (baixo + alto) >>> 1;
+                if (chaves[meio] <= valor) baixo = meio + 1; else alto = meio;
+            }
+            return baixo;
+        }
+
+        private int comparar(T a, T b) {
+            int porChave = Long.compare(ordem.chave().applyAsLong(a), ordem.chave().applyAsLong(b));
+            return porChave != 0 ? porChave : ordem.desempate().compare(a, b);
+        }
+
+        // Posição do item, ou onde ele entraria
+        private int posicao(T item) {
+            long chave = ordem.chave().applyAsLong(item);
+            int baixo = 0, alto = chaves.length;
+            while (baixo < alto) {
+                int meio = (baixo + alto) >>> 1;
+                int comparacao = chaves[meio] != chave
+                        ? Long.compare(chaves[meio], chave)
+                        : ordem.desempate().compare(item(meio), item);
+                if (comparacao < 0) baixo = meio + 1; else alto = meio;
+            }
+            return baixo;
+        }
+
+        // Sem "sai" (se não for null) e com "entra" (se não for null), numa cópia só
+        private Coluna<T> trocar(T sai, T entra) {
+            int n = itens.length;
+            int r = sai != null ? posicao(sai) : -1;
+            int i = entra != null ? posicao(entra) : -1;
+            if (r >= 0 && (i == r || i == r + 1)) {
+                // Mesma posição (ex.: só mudou o que esta ordem não usa)
+                long[] novasChaves = chaves.clone();
+                Object[] novosItens = itens.clone();
+                novasChaves[r] = ordem.chave().applyAsLong(entra);
+                novosItens[r] = entra;
+                return new Coluna<>(tipo, ordem, novasChaves, novosItens);
+            }
+
+            int m = n - (r >= 0 ? 1 : 0) + (i >= 0 ? 1 : 0);
+            long[] novasChaves = new long[m];
+            Object[] novosItens = new Object[m];
+            // Trechos do array atual, sem a posição r, com "entra" antes da posição i
+            int destino = 0;
+            int origem = 0;
+            for (int corte : new int[] {Math.min(r, i), Math.max(r, i)}) {
+                if (corte < 0) {
+                    continue;
+                }
+                System.arraycopy(chaves, origem, novasChaves, destino, corte - origem);
+                System.arraycopy(itens, origem, novosItens, destino, corte - origem);
+                destino += corte - origem;
+                origem = corte;
+                if (corte == r) {
+                    origem++;
+                    r = -1;
+                } else {
+                    novasChaves[destino] = ordem.chave().applyAsLong(entra);
+                    novosItens[destino] = entra;
+                    destino++;
+                }
+            }
+            System.arraycopy(chaves, origem, novasChaves, destino, n - origem);
+            System.arraycopy(itens, origem, novosItens, destino, n - origem);
+            return new Coluna<>(tipo, ordem, novasChaves, novosItens);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.agilit.service;
+
+import com.agilit.model.PropostaEmprestimo;
+import com.agilit.model.dto.PropostaEmprestimoDTO;
+import com.agilit.util.Dinheiro;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Índice em memória das propostas ATIVAS, para a busca do marketplace
+ * (BuscarPropostasController) sem ida ao banco.
+ *
+ * O índice é imutável: cada alteração monta um novo e troca a referência
+ * (copy-on-write, ver IndiceOrdenado). As buscas leem a referência atual
+ * sem lock. Uma alteração só move a proposta em cada ordem, sem ordenar
+ * tudo de novo, e uma alteração que não muda nada do que a busca devolve
+ * (ex.: só a versão da proposta) não mexe no índice.
+ *
+ * Ordens (desempate por data, mais recentes primeiro):
+ * - dataCriacao DESC (ordem das listagens)
+ * - valorDisponivel e taxaJuros, para faixas por busca binária
+ * - parcelasMinimas e parcelasMaximas, para a sobreposição de
+ *   [parcelasMinimas, parcelasMaximas] com a faixa pedida
+ *
+ * A busca pega a faixa mais seletiva entre os filtros informados, confere
+ * os outros filtros só nas propostas dela e devolve na ordem por data.
+ *
+ * Mantido pelos listeners pós-commit (ver config.IndiceMemoriaListener) e
+ * reconstruído do banco na subida e a cada AGILIT_INDICE_PROPOSTAS_RECARGA_S
+ * segundos (padrão 60; 0 desliga), para pegar alterações feitas por outras
+ * instâncias. Enquanto não foi carregado, carregado() é false e a busca
+ * vai ao banco.
+ */
+public final class IndicePropostas {
+
+    private static final Comparator<PropostaEmprestimoDTO> POR_DATA =
+            Comparator.comparing(PropostaEmprestimoDTO::dataCriacao, Comparator.reverseOrder())
+                      .thenComparing(PropostaEmprestimoDTO::id, Comparator.reverseOrder());
+
+    // Ordens do índice (IndiceOrdenado.Versao.coluna)
+    private static final int DATA = 0;
+    private static final int VALOR = 1;
+    private static final int MINIMAS = 2;
+    private static final int MAXIMAS = 3;
+    private static final int TAXA = 4;
+
+    private static final IndiceOrdenado<PropostaEmprestimoDTO> INDICE = new IndiceOrdenado<>(
+            PropostaEmprestimoDTO.class, PropostaEmprestimoDTO::id, List.of(
+                    new IndiceOrdenado.Ordem<>(IndicePropostas::instanteInvertido, POR_DATA),
+                    new IndiceOrdenado.Ordem<>(p -> Dinheiro.centavos(p.valorDisponivel()), POR_DATA),
+                    new IndiceOrdenado.Ordem<>(PropostaEmprestimoDTO::parcelasMinimas, POR_DATA),
+                    new IndiceOrdenado.Ordem<>(PropostaEmprestimoDTO::parcelasMaximas, POR_DATA),
+                    new IndiceOrdenado.Ordem<>(p -> IndiceOrdenado.chave(p.taxaJuros()), POR_DATA)));
+
+    private static final LongAdder BUSCAS = new LongAdder();
+
+    private IndicePropostas() {
+    }
+
+    /**
+     * Se o índice já foi carregado do banco
+     */
+    public static boolean carregado() {
+        return INDICE.atual() != null;
+    }
+
+    /**
+     * Propostas ativas com os filtros informados (null = sem filtro), mais
+     * recentes primeiro. Mesmos critérios da consulta do marketplace:
+     * valor na faixa, faixa de parcelas da proposta sobrepondo
+     * [parcelasMin, parcelasMax] e taxa até taxaJurosMax.
+     */
+    public static List<PropostaEmprestimoDTO> buscar(Long valorMinCentavos, Long valorMaxCentavos,
+                                                     Integer parcelasMin, Integer parcelasMax,
+                                                     Double taxaJurosMax) {
+        BUSCAS.increment();
+        IndiceOrdenado.Versao<PropostaEmprestimoDTO> indice = exigir();
+        int n = indice.tamanho();
+
+        // Faixa de cada filtro nas chaves ordenadas; fica a menor
+        IndiceOrdenado.Coluna<PropostaEmprestimoDTO> candidatas = null;
+        int inicio = 0, fim = n;
+        if (valorMinCentavos != null || valorMaxCentavos != null) {
+            IndiceOrdenado.Coluna<PropostaEmprestimoDTO> porValor = indice.coluna(VALOR);
+            candidatas = porValor;
+            inicio = valorMinCentavos != null ? porValor.primeiroMaiorOuIgual(valorMinCentavos) : 0;
+            fim = valorMaxCentavos != null ? porValor.primeiroMaior(valorMaxCentavos) : n;
+        }
+        if (parcelasMin != null) {
+            // parcelasMaximas >= parcelasMin
+            int de = indice.coluna(MAXIMAS).primeiroMaiorOuIgual(parcelasMin);
+            if (candidatas == null || n - de < fim - inicio) {
+                candidatas = indice.coluna(MAXIMAS);
+                inicio = de;
+                fim = n;
+            }
+        }
+        if (parcelasMax != null) {
+            // parcelasMinimas <= parcelasMax
+            int ate = indice.coluna(MINIMAS).primeiroMaior(parcelasMax);
+            if (candidatas == null || ate < fim - inicio) {
+                candidatas = indice.coluna(MINIMAS);
+                inicio = 0;
+                fim = ate;
+            }
+        }
+        if (taxaJurosMax != null) {
+            int ate = indice.coluna(TAXA).primeiroMaior(IndiceOrdenado.chave(taxaJurosMax));
+            if (candidatas == null || ate < fim - inicio) {
+                candidatas = indice.coluna(TAXA);
+                inicio = 0;
+                fim = ate;
+            }
+        }
+
+        if (candidatas == null) {
+            return indice.coluna(DATA).itens();
+        }
+        if (fim <= inicio) {
+            return List.of();
+        }
+
+        List<PropostaEmprestimoDTO> encontradas = new ArrayList<>(fim - inicio);
+        for (int k = inicio; k < fim; k++) {
+            PropostaEmprestimoDTO p = candidatas.item(k);
+            long valor = Dinheiro.centavos(p.valorDisponivel());
+            if ((valorMinCentavos == null || valor >= valorMinCentavos)
+                    && (valorMaxCentavos == null || valor <= valorMaxCentavos)
+                    && (parcelasMin == null || p.parcelasMaximas() >= parcelasMin)
+                    && (parcelasMax == null || p.parcelasMinimas() <= parcelasMax)
+                    && (taxaJurosMax == null || p.taxaJuros() <= taxaJurosMax)) {
+                encontradas.add(p);
+            }
+        }
+        encontradas.sort(POR_DATA);
+        return encontradas;
+    }
+
+    /**
+     * As {@code limite} propostas ativas de menor taxa
+     */
+    public static List<PropostaEmprestimoDTO> menorTaxa(int limite) {
+        BUSCAS.increment();
+        List<PropostaEmprestimoDTO> porTaxa = exigir().coluna(TAXA).itens();
+        return porTaxa.subList(0, Math.min(Math.max(limite, 0), porTaxa.size()));
+    }
+
+    /**
+     * As {@code limite} propostas ativas mais recentes
+     */
+    public static List<PropostaEmprestimoDTO> recentes(int limite) {
+        BUSCAS.increment();
+        List<PropostaEmprestimoDTO> porData = exigir().coluna(DATA).itens();
+        return porData.subList(0, Math.min(Math.max(limite, 0), porData.size()));
+    }
+
+    /**
+     * Proposta criada ou alterada (já confirmada no banco): entra no índice
+     * se está ATIVA, sai se não está
+     */
+    public static void atualizar(PropostaEmprestimo proposta) {
+        if (proposta.getId() == null) {
+            return;
+        }
+        if (!"ATIVA".equals(proposta.getStatus())) {
+            remover(proposta.getId());
+            return;
+        }
+        INDICE.atualizar(PropostaEmprestimoDTO.de(proposta));
+    }
+
+    /**
+     * Proposta removida ou que deixou de estar ATIVA
+     */
+    public static void remover(Long id) {
+        INDICE.remover(id);
+    }
+
+    /**
+     * Recarrega todas as propostas ATIVAS do banco. Alterações confirmadas
+     * durante a leitura são reaplicadas por cima do que foi lido.
+     */
+    public static void reconstruir(EntityManagerFactory emf) {
+        reconstruir(() -> {
+            EntityManager em = emf.createEntityManager();
+            try {
+                return em.createQuery(PropostaEmprestimoDTO.SELECT + " WHERE p.status = 'ATIVA'",
+                                      PropostaEmprestimoDTO.class)
+                         .getResultList();
+            } finally {
+                em.close();
+            }
+        });
+    }
+
+    /**
+     * Recarrega a partir da leitura dada (as propostas ATIVAS)
+     */
+    static void reconstruir(Supplier<List<PropostaEmprestimoDTO>> leitura) {
+        INDICE.reconstruir(leitura);
+    }
+
+    /**
+     * Tamanho, buscas, alterações e última reconstrução
+     */
+    public static Map<String, Object> snapshot() {
+        IndiceOrdenado.Versao<PropostaEmprestimoDTO> indice = INDICE.atual();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("carregado", indice != null);
+        snapshot.put("propostas", indice != null ? indice.tamanho() : 0);
+        snapshot.put("buscas", BUSCAS.sum());
+        INDICE.snapshot(snapshot);
+        return snapshot;
+    }
+
+    private static IndiceOrdenado.Versao<PropostaEmprestimoDTO> exigir() {
+        IndiceOrdenado.Versao<PropostaEmprestimoDTO> indice = INDICE.atual();
+        if (indice == null) {
+            throw new IllegalStateException("Índice de propostas ainda não carregado");
+        }
+        return indice;
+    }
+
+    // Chave crescente = dataCriacao decrescente
+    private static long instanteInvertido(PropostaEmprestimoDTO p) {
+        return -(p.dataCriacao().toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + p.dataCriacao().getNano());
+    }
+}
@@ -0,0 +1,293 @@
+package com.agilit.service;
+
+import com.agilit.config.AppException;
+import com.agilit.config.JPAUtil;
+import com.agilit.controller.emprestimo.StatusEmprestimo;
+import com.agilit.model.*;
+import com.agilit.util.CalculadoraEmprestimo;
+import com.agilit.util.NotificacaoService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.OptimisticLockException;
+import org.hibernate.StaleStateException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Confirmação bilateral do interesse e originação do empréstimo.
+ * Único caminho para criar um Emprestimo a partir de um interesse aprovado
+ * (InteressePropostaController, RegistrarEmprestimoController e
+ * PedirEmprestimoController).
+ *
+ * Credor e devedor confirmam em requisições separadas; a que encontra a
+ * outra parte já confirmada cria o empréstimo, debita o saldo do credor
+ * (SaldoCredorService, débito condicional) e marca a proposta como ACEITA.
+ * Interesse e proposta têm @Version: se duas confirmações correm juntas, o
+ * UPDATE da que perder não encontra a versão lida e a transação inteira é
+ * desfeita. Ela é refeita do zero (até MAX_TENTATIVAS vezes), agora vendo
+ * a confirmação da outra. Assim a passagem para "ambos confirmaram"
+ * acontece em uma transação só: um empréstimo e um débito, nunca dois,
+ * nunca nenhum.
+ *
+ * Por isso o serviço abre e fecha as próprias transações (como o
+ * AuthService, com EntityManager próprio): a transação do @Transacional
+ * só terminaria depois do método do controller, sem chance de repetir.
+ */
+public class OriginacaoEmprestimoService {
+
+    /** Tentativas por confirmação antes de desistir com 409 */
+    static final int MAX_TENTATIVAS = 5;
+
+    /** Quem está confirmando */
+    public enum Parte {
+        CREDOR, DEVEDOR
+    }
+
+    /**
+     * Interesse confirmado e, se esta foi a segunda confirmação, o
+     * empréstimo criado (null caso contrário)
+     */
+    public record Resultado(InteresseProposta interesse, Emprestimo emprestimo) {
+    }
+
+    private final EntityManagerFactory emf;
+
+    public OriginacaoEmprestimoService() {
+        this(JPAUtil.getEntityManagerFactory());
+    }
+
+    public OriginacaoEmprestimoService(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    /**
+     * Registra a confirmação de uma das partes e, se a outra já confirmou,
+     * cria o empréstimo. Erros de regra de negócio (AppException) não são
+     * repetidos; conflitos de versão são, até MAX_TENTATIVAS.
+     *
+     * @param interesseId Interesse aprovado pelo credor
+     * @param parte Quem confirma
+     * @param numeroParcelas Parcelas escolhidas (dentro da faixa da proposta)
+     * @return Interesse e empréstimo criado (ou null)
+     */
+    public Resultado confirmar(Long interesseId, Parte parte, Integer numeroParcelas) {
+        for (int tentativa = 1; ; tentativa++) {
+            EntityManager em = emf.createEntityManager();
+            EntityTransaction transacao = em.getTransaction();
+            try {
+                transacao.begin();
+                Resultado resultado = confirmar(em, interesseId, parte, numeroParcelas);
+                // Flush explícito: o conflito de versão aparece aqui, não embrulhado no commit
+                em.flush();
+                transacao.commit();
+                return resultado;
+            } catch (RuntimeException e) {
+                if (transacao.isActive()) {
+                    transacao.rollback();
+                }
+                if (!conflitoDeVersao(e)) {
+                    throw e;
+                }
+                if (tentativa >= MAX_TENTATIVAS) {
+                    throw new AppException("Confirmação em conflito com outra operação. Tente novamente.", 409);
+                }
+                aguardar(tentativa);
+            } finally {
+                em.close();
+            }
+        }
+    }
+
+    private Resultado confirmar(EntityManager em, Long interesseId, Parte parte, Integer numeroParcelas) {
+        InteresseProposta interesse = em.find(InteresseProposta.class, interesseId,
+                JPAUtil.comGrafo(em, InteresseProposta.GRAFO_PROPOSTA_DEVEDOR));
+
+        if (interesse == null) {
+            throw new AppException("Interesse não encontrado", 404);
+        }
+
+        if (!"APROVADO".equals(interesse.getStatus())) {
+            throw new AppException("Interesse deve estar aprovado pelo credor para confirmação", 400);
+        }
+
+        boolean credor = parte == Parte.CREDOR;
+        if (credor ? interesse.getConfirmacaoCredor() : interesse.getConfirmacaoDevedor()) {
+            throw new AppException((credor ? "Credor" : "Devedor") + " já confirmou este empréstimo", 400);
+        }
+
+        if (numeroParcelas == null) {
+            throw new AppException("Número de parcelas é obrigatório", 400);
+        }
+
+        PropostaEmprestimo proposta = interesse.getProposta();
+        if (numeroParcelas < proposta.getParcelasMinimas() ||
+            numeroParcelas > proposta.getParcelasMaximas()) {
+            throw new AppException(
+                String.format("Número de parcelas deve estar entre %d e %d",
+                             proposta.getParcelasMinimas(), proposta.getParcelasMaximas()),
+                400
+            );
+        }
+
+        boolean ambos = credor ? interesse.getConfirmacaoDevedor() : interesse.getConfirmacaoCredor();
+
+        // O credor só confirma com saldo; quem cria o empréstimo confere no
+        // próprio débito (UPDATE condicional)
+        if (credor && !ambos) {
+            verificarSaldo(em, proposta);
+        }
+
+        if (credor) {
+            interesse.setConfirmacaoCredor(true);
+            interesse.setDataConfirmacaoCredor(LocalDateTime.now());
+        } else {
+            interesse.setConfirmacaoDevedor(true);
+            interesse.setDataConfirmacaoDevedor(LocalDateTime.now());
+        }
+
+        if (ambos) {
+            // UPDATE versionado do interesse antes do INSERT do empréstimo (o
+            // flush põe inserts antes de updates): quem perder a corrida falha
+            // aqui, com conflito de versão, e não na chave única do empréstimo
+            em.flush();
+            return new Resultado(interesse, criarEmprestimo(em, interesse, numeroParcelas));
+        }
+
+        // Avisar a outra parte
+        if (credor) {
+            NotificacaoService.criarNotificacao(
+                em, "DEVEDOR", interesse.getDevedor().getId(),
+                "CONFIRMACAO_PENDENTE",
+                "Aguardando sua Confirmação",
+                "O credor confirmou o empréstimo. Confirme para finalizar."
+            );
+        } else {
+            NotificacaoService.criarNotificacao(
+                em, "CREDOR", proposta.getCredor().getId(),
+                "CONFIRMACAO_PENDENTE",
+                "Aguardando sua Confirmação",
+                String.format("O devedor %s confirmou interesse na proposta %s",
+                             interesse.getDevedor().getNome(), proposta.getIdPublico())
+            );
+        }
+        return new Resultado(interesse, null);
+    }
+
+    private static void verificarSaldo(EntityManager em, PropostaEmprestimo proposta) {
+        // Relido do banco: pode ter vindo do cache de segundo nível
+        Credor credor = proposta.getCredor();
+        em.refresh(credor);
+        if (credor.getSaldoDisponivelCentavos() < proposta.getValorDisponivelCentavos()) {
+            throw new AppException(
+                String.format("Saldo insuficiente. Disponível: R$ %.2f, Necessário: R$ %.2f",
+                             credor.getSaldoDisponivel(), proposta.getValorDisponivel()),
+                400
+            );
+        }
+    }
+
+    /**
+     * Empréstimo e parcelas, débito do credor e proposta ACEITA, na
+     * transação da segunda confirmação
+     */
+    private static Emprestimo criarEmprestimo(EntityManager em, InteresseProposta interesse, Integer numeroParcelas) {
+        PropostaEmprestimo proposta = interesse.getProposta();
+        Credor credor = proposta.getCredor();
+        Devedor devedor = interesse.getDevedor();
+
+        // Outro interesse da mesma proposta pode ter virado empréstimo antes
+        if (!"ATIVA".equals(proposta.getStatus())) {
+            throw new AppException("Esta proposta não está mais ativa", 400);
+        }
+
+        // Calcular valores (em centavos)
+        long valorPrincipal = proposta.getValorDisponivelCentavos();
+        long juros = CalculadoraEmprestimo.calcularJurosSimplesCentavos(
+            valorPrincipal, proposta.getTaxaJuros(), numeroParcelas
+        );
+        long valorTotal = valorPrincipal + juros;
+
+        // Criar empréstimo
+        Emprestimo emprestimo = new Emprestimo();
+        emprestimo.setDevedor(devedor);
+        emprestimo.setCredor(credor);
+        emprestimo.setPropostaOrigem(proposta);
+        emprestimo.setInteresseOrigem(interesse);
+        emprestimo.setValorPrincipalCentavos(valorPrincipal);
+        emprestimo.setJurosAplicadosCentavos(juros);
+        emprestimo.setValorTotalCentavos(valorTotal);
+        emprestimo.setNumeroParcelas(numeroParcelas);
+        emprestimo.setParcelasPagas(0);
+        emprestimo.setDataInicio(LocalDate.now());
+
+        // Calcular data de vencimento
+        LocalDate dataVencimento = CalculadoraEmprestimo.calcularDataVencimentoFinal(
+            LocalDate.now(), numeroParcelas, proposta.getDiasAtePrimeiraCobranca()
+        );
+        emprestimo.setDataVencimento(dataVencimento);
+        emprestimo.setStatus(StatusEmprestimo.EM_ANDAMENTO);
+
+        // Criar parcelas
+        List<LocalDate> datasParcelas = CalculadoraEmprestimo.calcularDatasParcelas(
+            LocalDate.now(), numeroParcelas, proposta.getDiasAtePrimeiraCobranca()
+        );
+
+        List<Parcela> parcelas = new ArrayList<>();
+        for (int i = 0; i < numeroParcelas; i++) {
+            Parcela parcela = new Parcela();
+            parcela.setEmprestimo(emprestimo);
+            parcela.setNumeroParcela(i + 1);
+            parcela.setValorCentavos(
+                CalculadoraEmprestimo.calcularValorParcelaCentavos(valorTotal, numeroParcelas, i));
+            parcela.setDataVencimento(datasParcelas.get(i));
+            parcela.setPaga(false);
+            parcela.setAtrasada(false);
+            parcelas.add(parcela);
+        }
+
+        emprestimo.setParcelas(parcelas);
+        em.persist(emprestimo);
+
+        // Débito do credor: só passa se houver saldo (senão 400 e a transação é desfeita)
+        SaldoCredorService.debitar(em, credor.getId(), valorPrincipal, "EMPRESTIMO", emprestimo.getId());
+
+        // Atualizar status da proposta
+        proposta.setStatus("ACEITA");
+
+        // Notificar ambos
+        NotificacaoService.notificarConfirmacao(em, "CREDOR", credor.getId(), emprestimo);
+        NotificacaoService.notificarConfirmacao(em, "DEVEDOR", devedor.getId(), emprestimo);
+
+        return emprestimo;
+    }
+
+    /**
+     * Se a falha foi de versão (outra transação gravou antes): vale repetir
+     */
+    static boolean conflitoDeVersao(Throwable erro) {
+        for (Throwable e = erro; e != null; e = e.getCause()) {
+            if (e instanceof OptimisticLockException || e instanceof StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Espera curta e aleatória antes de repetir, crescendo a cada tentativa,
+     * para as transações em conflito não colidirem de novo ao mesmo tempo
+     */
+    private static void aguardar(int tentativa) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, 5L * tentativa + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AppException("Confirmação interrompida", 503);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.agilit.service;
+
+import com.agilit.config.AppException;
+import com.agilit.model.Credor;
+import com.agilit.model.MovimentacaoSaldo;
+import com.agilit.model.dao.CredorDAO;
+import com.agilit.model.dao.MovimentacaoSaldoDAO;
+import com.agilit.util.Dinheiro;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.exception.ConstraintViolationException;
+
+/**
+ * Único caminho para mudar o saldo de um Credor.
+ *
+ * Cada movimentação é um UPDATE direto no saldo (crédito soma; débito só
+ * subtrai se houver saldo, na mesma instrução) e uma linha no livro
+ * (MovimentacaoSaldo) com o saldo resultante. Não há leitura antes da
+ * escrita: depósitos e débitos simultâneos no mesmo credor se enfileiram
+ * no lock da linha do credor, e nenhum se perde.
+ *
+ * Credor.saldoDisponivel não é gravado pela entidade (updatable = false);
+ * quem tiver o Credor carregado e precisar do saldo novo deve dar refresh.
+ * Os métodos participam da transação de quem chama.
+ */
+public class SaldoCredorService {
+
+    /** Índice único do livro: um desembolso por empréstimo, um recebimento por parcela */
+    private static final String INDICE_REFERENCIA = "uk_movimentacao_saldo_referencia";
+
+    private SaldoCredorService() {
+    }
+
+    /**
+     * Soma ao saldo do credor (depósito ou recebimento de parcela)
+     *
+     * @param em EntityManager (transação deve estar ativa)
+     * @param credorId Credor que recebe
+     * @param tipo DEPOSITO ou RECEBIMENTO
+     * @param valorCentavos Valor positivo, em centavos
+     * @param tipoReferencia PARCELA, ou null
+     * @param referencia ID da referência, ou null
+     * @return Movimentação gravada
+     */
+    public static MovimentacaoSaldo creditar(EntityManager em, Long credorId, MovimentacaoSaldo.Tipo tipo,
+                                             long valorCentavos, String tipoReferencia, Long referencia) {
+        if (!tipo.entrada()) {
+            throw new IllegalArgumentException("Tipo de crédito inválido: " + tipo);
+        }
+        exigirPositivo(valorCentavos);
+
+        CredorDAO credores = new CredorDAO(em);
+        if (credores.creditarSaldo(credorId, valorCentavos) == 0) {
+            throw new AppException("Credor não encontrado", 404);
+        }
+        return registrar(em, credores, credorId, tipo, valorCentavos, tipoReferencia, referencia);
+    }
+
+    /**
+     * Subtrai do saldo do credor se houver saldo (desembolso de empréstimo)
+     *
+     * @param em EntityManager (transação deve estar ativa)
+     * @param credorId Credor que paga
+     * @param valorCentavos Valor positivo, em centavos
+     * @param tipoReferencia EMPRESTIMO
+     * @param referencia ID do empréstimo
+     * @return Movimentação gravada
+     */
+    public static MovimentacaoSaldo debitar(EntityManager em, Long credorId, long valorCentavos,
+                                            String tipoReferencia, Long referencia) {
+        exigirPositivo(valorCentavos);
+
+        CredorDAO credores = new CredorDAO(em);
+        if (credores.debitarSaldo(credorId, valorCentavos) == 0) {
+            Long saldo = credores.findSaldo(credorId);
+            if (saldo == null) {
+                throw new AppException("Credor não encontrado", 404);
+            }
+            throw new AppException(
+                String.format("Saldo insuficiente. Disponível: R$ %.2f, Necessário: R$ %.2f",
+                             Dinheiro.reais(saldo), Dinheiro.reais(valorCentavos)),
+                400
+            );
+        }
+        return registrar(em, credores, credorId, MovimentacaoSaldo.Tipo.DESEMBOLSO,
+                         valorCentavos, tipoReferencia, referencia);
+    }
+
+    /**
+     * Livro de um credor recém-criado: o saldo informado no cadastro entra
+     * como depósito, para a soma do livro bater com o saldo
+     *
+     * @param em EntityManager (transação deve estar ativa)
+     * @param credor Credor já persistido
+     */
+    public static void registrarSaldoInicial(EntityManager em, Credor credor) {
+        long saldo = credor.getSaldoDisponivelCentavos();
+        if (saldo < 0) {
+            throw new AppException("Saldo inicial não pode ser negativo", 400);
+        }
+        if (saldo > 0) {
+            new MovimentacaoSaldoDAO(em).save(
+                new MovimentacaoSaldo(credor, MovimentacaoSaldo.Tipo.DEPOSITO, saldo, saldo, null, null));
+        }
+    }
+
+    /**
+     * Linha do livro com o saldo depois do UPDATE. A linha do credor está
+     * travada por esta transação desde o UPDATE, então o saldo lido é o
+     * que ela deixou
+     */
+    private static MovimentacaoSaldo registrar(EntityManager em, CredorDAO credores, Long credorId,
+                                               MovimentacaoSaldo.Tipo tipo, long valorCentavos,
+                                               String tipoReferencia, Long referencia) {
+        long saldoApos = credores.findSaldo(credorId);
+        MovimentacaoSaldo movimentacao = new MovimentacaoSaldo(
+            em.getReference(Credor.class, credorId), tipo, valorCentavos, saldoApos, tipoReferencia, referencia);
+        new MovimentacaoSaldoDAO(em).save(movimentacao);
+
+        if (referencia != null) {
+            // Mesma referência duas vezes (ex.: parcela paga em duas requisições
+            // simultâneas): o índice único barra, e aqui vira 409 em vez de 500
+            try {
+                em.flush();
+            } catch (PersistenceException e) {
+                if (violouIndiceReferencia(e)) {
+                    throw new AppException("Movimentação já registrada para " + tipoReferencia + " " + referencia, 409);
+                }
+                throw e;
+            }
+        }
+        return movimentacao;
+    }
+
+    private static boolean violouIndiceReferencia(Throwable erro) {
+        for (Throwable e = erro; e != null; e = e.getCause()) {
+            if (e instanceof ConstraintViolationException violacao) {
+                String nome = violacao.getConstraintName();
+                return nome != null && nome.toLowerCase().contains(INDICE_REFERENCIA);
+            }
+        }
+        return false;
+    }
+
+    private static void exigirPositivo(long valorCentavos) {
+        if (valorCentavos <= 0) {
+            throw new AppException("Valor da movimentação deve ser maior que zero", 400);
+        }
+    }
+}
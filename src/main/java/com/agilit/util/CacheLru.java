@@ -0,0 +1,135 @@
+package com.agilit.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache em memória limitado pelo tamanho estimado em bytes, que descarta
+ * as entradas menos usadas. Usado pelo CacheOpcoesParcelas e pelo
+ * ChavesIdempotencia.
+ *
+ * O peso de uma entrada é o do valor (função informada) mais um custo fixo
+ * por entrada (chave, nós do mapa). Um valor que sozinho passa do limite
+ * não é guardado. Todos os métodos são sincronizados.
+ */
+public final class CacheLru<K, V> {
+
+    private final long limiteBytes;
+    private final long custoEntrada;
+    private final ToLongFunction<V> pesoValor;
+
+    // Ordem de acesso: o primeiro é o menos usado
+    private final LinkedHashMap<K, V> entradas = new LinkedHashMap<>(256, 0.75f, true);
+    private long bytes;
+    private long removidasPorTamanho;
+
+    /**
+     * @param limiteBytes Soma máxima dos pesos
+     * @param custoEntrada Estimativa do que cada entrada ocupa além do valor
+     * @param pesoValor Bytes de um valor
+     */
+    public CacheLru(long limiteBytes, long custoEntrada, ToLongFunction<V> pesoValor) {
+        this.limiteBytes = limiteBytes;
+        this.custoEntrada = custoEntrada;
+        this.pesoValor = pesoValor;
+    }
+
+    /**
+     * Valor da chave (e a marca como usada), ou null
+     */
+    public synchronized V get(K chave) {
+        return entradas.get(chave);
+    }
+
+    /**
+     * Guarda o valor e descarta as entradas menos usadas até caber no limite
+     */
+    public synchronized void guardar(K chave, V valor) {
+        long peso = peso(valor);
+        if (peso > limiteBytes) {
+            return;
+        }
+        V anterior = entradas.put(chave, valor);
+        if (anterior != null) {
+            bytes -= peso(anterior);
+        }
+        bytes += peso;
+
+        Iterator<V> menosUsadas = entradas.values().iterator();
+        while (bytes > limiteBytes && menosUsadas.hasNext()) {
+            bytes -= peso(menosUsadas.next());
+            menosUsadas.remove();
+            removidasPorTamanho++;
+        }
+    }
+
+    /**
+     * Remove a chave
+     *
+     * @return Valor removido, ou null
+     */
+    public synchronized V remover(K chave) {
+        V valor = entradas.remove(chave);
+        if (valor != null) {
+            bytes -= peso(valor);
+        }
+        return valor;
+    }
+
+    /**
+     * Remove a chave só se ainda estiver com este valor (o mesmo objeto)
+     */
+    public synchronized void remover(K chave, V valor) {
+        if (entradas.get(chave) == valor && entradas.remove(chave) != null) {
+            bytes -= peso(valor);
+        }
+    }
+
+    /**
+     * Remove as entradas cujo valor atende ao filtro
+     */
+    public synchronized void removerSe(Predicate<V> filtro) {
+        Iterator<V> valores = entradas.values().iterator();
+        while (valores.hasNext()) {
+            V valor = valores.next();
+            if (filtro.test(valor)) {
+                bytes -= peso(valor);
+                valores.remove();
+            }
+        }
+    }
+
+    /**
+     * Esvazia o cache e zera o contador de remoções
+     */
+    public synchronized void limpar() {
+        entradas.clear();
+        bytes = 0;
+        removidasPorTamanho = 0;
+    }
+
+    public synchronized int tamanho() {
+        return entradas.size();
+    }
+
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    public long limiteBytes() {
+        return limiteBytes;
+    }
+
+    /**
+     * Entradas descartadas para caber no limite
+     */
+    public synchronized long removidasPorTamanho() {
+        return removidasPorTamanho;
+    }
+
+    private long peso(V valor) {
+        return pesoValor.applyAsLong(valor) + custoEntrada;
+    }
+}
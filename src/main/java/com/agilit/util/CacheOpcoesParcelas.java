@@ -0,0 +1,131 @@
+package com.agilit.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache das opções de parcelamento, já serializadas em JSON.
+ *
+ * Os termos de uma proposta (valor, parcelas mínimas/máximas, taxa) não
+ * mudam depois de criada, então as opções calculadas para eles também não.
+ * A chave são os termos (e o sistema de amortização), não o id: ofertas e
+ * propostas com os mesmos termos compartilham a entrada.
+ *
+ * Guarda os bytes UTF-8 do JSON: a resposta só copia os bytes, sem
+ * recalcular nem serializar de novo. O cache é limitado pelo tamanho em
+ * bytes (AGILIT_CACHE_OPCOES_MB, padrão 16) e descarta as entradas menos
+ * usadas. Quando uma proposta deixa de estar ATIVA, as entradas dos termos
+ * dela saem do cache (ver PropostaEmprestimo).
+ */
+public final class CacheOpcoesParcelas {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // Estimativa do que cada entrada ocupa além do JSON (chave, nós do mapa)
+    private static final int CUSTO_ENTRADA = 160;
+
+    // JSON é ASCII aqui: 1 byte por caractere na String e 1 no array UTF-8
+    private static final CacheLru<Chave, SerializedString> ENTRADAS =
+        new CacheLru<>(limiteBytes(), CUSTO_ENTRADA, json -> 2L * json.charLength());
+
+    private static final LongAdder ACERTOS = new LongAdder();
+    private static final LongAdder FALTAS = new LongAdder();
+    private static final LongAdder DESCARTES = new LongAdder();
+
+    private CacheOpcoesParcelas() {
+    }
+
+    private record Chave(long valor, int parcelasMinimas, int parcelasMaximas, double taxaJuros,
+                         SistemaAmortizacao sistema) {
+    }
+
+    /**
+     * Opções de parcelamento em JSON, do cache ou calculadas e guardadas.
+     * Para embutir numa resposta maior, use {@code new RawValue(...)}; para
+     * responder só com elas, {@code asUnquotedUTF8()}.
+     */
+    public static SerializedString opcoes(long valorCentavos, int parcelasMinimas, int parcelasMaximas,
+                                          double taxaJuros, SistemaAmortizacao sistema) {
+        Chave chave = new Chave(valorCentavos, parcelasMinimas, parcelasMaximas, taxaJuros, sistema);
+        SerializedString cacheado = ENTRADAS.get(chave);
+        if (cacheado != null) {
+            ACERTOS.increment();
+            return cacheado;
+        }
+        FALTAS.increment();
+
+        // Calculado fora do lock: duas faltas simultâneas calculam o mesmo valor
+        List<CalculadoraEmprestimo.OpcaoParcela> opcoes = CalculadoraEmprestimo.calcularOpcoesParcelas(
+            valorCentavos, parcelasMinimas, parcelasMaximas, taxaJuros, sistema);
+        SerializedString json = serializar(opcoes);
+        ENTRADAS.guardar(chave, json);
+        return json;
+    }
+
+    /**
+     * Remove as entradas (de todos os sistemas) dos termos dados
+     */
+    public static void descartar(long valorCentavos, int parcelasMinimas, int parcelasMaximas, double taxaJuros) {
+        for (SistemaAmortizacao sistema : SistemaAmortizacao.values()) {
+            if (ENTRADAS.remover(new Chave(valorCentavos, parcelasMinimas, parcelasMaximas, taxaJuros, sistema)) != null) {
+                DESCARTES.increment();
+            }
+        }
+    }
+
+    /**
+     * Esvazia o cache e zera os contadores
+     */
+    public static void limpar() {
+        ENTRADAS.limpar();
+        ACERTOS.reset();
+        FALTAS.reset();
+        DESCARTES.reset();
+    }
+
+    /**
+     * Acertos, faltas, remoções e ocupação
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        long acertos = ACERTOS.sum();
+        long faltas = FALTAS.sum();
+        snapshot.put("entradas", ENTRADAS.tamanho());
+        snapshot.put("bytes", ENTRADAS.bytes());
+        snapshot.put("limiteBytes", ENTRADAS.limiteBytes());
+        snapshot.put("acertos", acertos);
+        snapshot.put("faltas", faltas);
+        snapshot.put("taxaAcerto", acertos + faltas == 0 ? 0.0 : (double) acertos / (acertos + faltas));
+        snapshot.put("removidasPorTamanho", ENTRADAS.removidasPorTamanho());
+        snapshot.put("descartadasPorStatus", DESCARTES.sum());
+        return snapshot;
+    }
+
+    private static SerializedString serializar(List<CalculadoraEmprestimo.OpcaoParcela> opcoes) {
+        try {
+            SerializedString json = new SerializedString(MAPPER.writeValueAsString(opcoes));
+            json.asUnquotedUTF8(); // bytes calculados agora, não na primeira resposta
+            return json;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Erro ao serializar opções de parcelamento", e);
+        }
+    }
+
+    private static long limiteBytes() {
+        String valor = System.getenv("AGILIT_CACHE_OPCOES_MB");
+        if (valor == null || valor.isBlank()) {
+            return 16L * 1024 * 1024;
+        }
+        try {
+            return Long.parseLong(valor.trim()) * 1024 * 1024;
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Variável de ambiente AGILIT_CACHE_OPCOES_MB deve ser numérica: " + valor, e);
+        }
+    }
+}
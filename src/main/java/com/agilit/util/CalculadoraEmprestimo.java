@@ -7,6 +7,13 @@ import java.util.List;
 /**
  * Utilitário para cálculos relacionados a empréstimos.
  * Calcula juros, valores de parcelas e datas de vencimento.
+ *
+ * Os métodos *Centavos trabalham com valores em centavos (long, ver Dinheiro)
+ * e são os usados para gravar empréstimos e parcelas: o cronograma soma
+ * exatamente o valor total. Os métodos em double ficam para estimativas.
+ *
+ * Opções de parcelamento e cronogramas aceitam um SistemaAmortizacao
+ * (SIMPLES, PRICE ou SAC); sem ele, vale SIMPLES.
  */
 public class CalculadoraEmprestimo {
 
@@ -53,9 +60,40 @@ public class CalculadoraEmprestimo {
         return valorPrincipal * (taxaJuros / 100.0) * numeroParcelas;
     }
 
+    /**
+     * Juros simples em centavos, arredondados uma única vez
+     * Fórmula: J = P * (i/100) * n
+     *
+     * @param principalCentavos Valor principal em centavos
+     * @param taxaJuros Taxa de juros (percentual)
+     * @param numeroParcelas Número de parcelas (período)
+     * @return Valor dos juros em centavos
+     */
+    public static long calcularJurosSimplesCentavos(long principalCentavos, double taxaJuros, int numeroParcelas) {
+        return Dinheiro.percentual(principalCentavos, taxaJuros * numeroParcelas);
+    }
+
+    /**
+     * Valor de uma parcela do cronograma em centavos. Todas as parcelas têm o
+     * mesmo valor, exceto a última, que recebe os centavos que sobram da
+     * divisão; a soma das parcelas é exatamente o total.
+     *
+     * @param totalCentavos Valor total (com juros) em centavos
+     * @param numeroParcelas Número de parcelas
+     * @param indice Índice da parcela (0 = primeira)
+     * @return Valor da parcela em centavos
+     */
+    public static long calcularValorParcelaCentavos(long totalCentavos, int numeroParcelas, int indice) {
+        if (numeroParcelas <= 0) {
+            throw new IllegalArgumentException("Número de parcelas deve ser maior que zero");
+        }
+        return Dinheiro.parcela(totalCentavos, numeroParcelas, indice);
+    }
+
     /**
      * Calcula juros compostos
      * Fórmula: M = P * (1 + i)^n, onde J = M - P
+     * (o fator (1 + i)^n vem da tabela em cache da taxa, ver FatoresJuros)
      * 
      * @param valorPrincipal Valor principal
      * @param taxaJuros Taxa de juros (percentual)
@@ -63,7 +101,7 @@ public class CalculadoraEmprestimo {
      * @return Valor dos juros
      */
     public static double calcularJurosCompostos(double valorPrincipal, double taxaJuros, int numeroParcelas) {
-        double montante = valorPrincipal * Math.pow(1 + (taxaJuros / 100.0), numeroParcelas);
+        double montante = valorPrincipal * FatoresJuros.de(taxaJuros, numeroParcelas).potencia(numeroParcelas);
         return montante - valorPrincipal;
     }
 
@@ -126,31 +164,87 @@ public class CalculadoraEmprestimo {
      */
     public static List<OpcaoParcela> calcularOpcoesParcelas(double valorPrincipal, int parcelasMinimas, 
                                                             int parcelasMaximas, double taxaJuros) {
-        List<OpcaoParcela> opcoes = new ArrayList<>();
-        
-        for (int numParcelas = parcelasMinimas; numParcelas <= parcelasMaximas; numParcelas++) {
-            double valorParcela = calcularValorParcela(valorPrincipal, numParcelas, taxaJuros);
-            double valorTotal = calcularValorTotalComJuros(valorPrincipal, taxaJuros, numParcelas);
-            double juros = valorTotal - valorPrincipal;
-            
-            opcoes.add(new OpcaoParcela(numParcelas, valorParcela, valorTotal, juros));
+        return calcularOpcoesParcelas(Dinheiro.centavos(valorPrincipal), parcelasMinimas, parcelasMaximas, taxaJuros);
+    }
+
+    /**
+     * Opções de parcelamento com valores em centavos (mesmo cálculo usado ao
+     * gravar o empréstimo)
+     *
+     * @param principalCentavos Valor principal em centavos
+     * @param parcelasMinimas Número mínimo de parcelas
+     * @param parcelasMaximas Número máximo de parcelas
+     * @param taxaJuros Taxa de juros
+     * @return Lista com valores para cada opção de parcelamento
+     */
+    public static List<OpcaoParcela> calcularOpcoesParcelas(long principalCentavos, int parcelasMinimas,
+                                                            int parcelasMaximas, double taxaJuros) {
+        return calcularOpcoesParcelas(principalCentavos, parcelasMinimas, parcelasMaximas, taxaJuros,
+                                      SistemaAmortizacao.SIMPLES);
+    }
+
+    /**
+     * Opções de parcelamento no sistema de amortização dado, numa passada
+     * só: cada opção sai em tempo constante (na Price, com os fatores da
+     * taxa montados uma vez e guardados em cache).
+     *
+     * @param principalCentavos Valor principal em centavos
+     * @param parcelasMinimas Número mínimo de parcelas
+     * @param parcelasMaximas Número máximo de parcelas
+     * @param taxaJuros Taxa de juros (percentual ao mês)
+     * @param sistema Sistema de amortização
+     * @return Lista com valores para cada opção de parcelamento
+     */
+    public static List<OpcaoParcela> calcularOpcoesParcelas(long principalCentavos, int parcelasMinimas,
+                                                            int parcelasMaximas, double taxaJuros,
+                                                            SistemaAmortizacao sistema) {
+        int primeira = Math.max(1, parcelasMinimas);
+        List<OpcaoParcela> opcoes = new ArrayList<>(Math.max(0, parcelasMaximas - primeira + 1));
+        if (parcelasMaximas < primeira) {
+            return opcoes;
         }
-        
+
+        FatoresJuros fatores = FatoresJuros.de(taxaJuros, parcelasMaximas);
+        for (int numParcelas = primeira; numParcelas <= parcelasMaximas; numParcelas++) {
+            opcoes.add(sistema.opcao(principalCentavos, numParcelas, taxaJuros, fatores));
+        }
+
         return opcoes;
     }
 
     /**
-     * Classe auxiliar para representar uma opção de parcelamento
+     * Cronograma completo (juros, amortização e saldo de cada parcela)
+     *
+     * @param principalCentavos Valor principal em centavos
+     * @param numeroParcelas Número de parcelas
+     * @param taxaJuros Taxa de juros (percentual ao mês)
+     * @param sistema Sistema de amortização
+     * @return Parcelas, na ordem
+     */
+    public static List<ParcelaCronograma> calcularCronograma(long principalCentavos, int numeroParcelas,
+                                                             double taxaJuros, SistemaAmortizacao sistema) {
+        if (numeroParcelas <= 0) {
+            throw new IllegalArgumentException("Número de parcelas deve ser maior que zero");
+        }
+        return sistema.cronograma(principalCentavos, numeroParcelas, taxaJuros);
+    }
+
+    /**
+     * Classe auxiliar para representar uma opção de parcelamento.
+     * Valores guardados em centavos; os getters devolvem reais (JSON).
      */
     public static class OpcaoParcela {
-        private int numeroParcelas;
-        private double valorParcela;
-        private double valorTotal;
-        private double juros;
+        private final int numeroParcelas;
+        private final long valorParcela;
+        private final long valorUltimaParcela;
+        private final long valorTotal;
+        private final long juros;
 
-        public OpcaoParcela(int numeroParcelas, double valorParcela, double valorTotal, double juros) {
+        public OpcaoParcela(int numeroParcelas, long valorParcela, long valorUltimaParcela,
+                            long valorTotal, long juros) {
             this.numeroParcelas = numeroParcelas;
             this.valorParcela = valorParcela;
+            this.valorUltimaParcela = valorUltimaParcela;
             this.valorTotal = valorTotal;
             this.juros = juros;
         }
@@ -160,21 +254,73 @@ public class CalculadoraEmprestimo {
         }
 
         public double getValorParcela() {
-            return valorParcela;
+            return Dinheiro.reais(valorParcela);
+        }
+
+        /** Na SIMPLES, valorParcela mais os centavos que sobram da divisão; na SAC, a menor parcela */
+        public double getValorUltimaParcela() {
+            return Dinheiro.reais(valorUltimaParcela);
         }
 
         public double getValorTotal() {
-            return valorTotal;
+            return Dinheiro.reais(valorTotal);
         }
 
         public double getJuros() {
-            return juros;
+            return Dinheiro.reais(juros);
         }
 
         @Override
         public String toString() {
             return String.format("%dx de R$ %.2f (Total: R$ %.2f, Juros: R$ %.2f)", 
-                               numeroParcelas, valorParcela, valorTotal, juros);
+                               numeroParcelas, getValorParcela(), getValorTotal(), getJuros());
+        }
+    }
+
+    /**
+     * Uma parcela do cronograma: valor = juros + amortização.
+     * Valores guardados em centavos; os getters devolvem reais (JSON).
+     */
+    public static class ParcelaCronograma {
+        private final int numero;
+        private final long valor;
+        private final long juros;
+        private final long amortizacao;
+        private final long saldoDevedor;
+
+        public ParcelaCronograma(int numero, long valor, long juros, long amortizacao, long saldoDevedor) {
+            this.numero = numero;
+            this.valor = valor;
+            this.juros = juros;
+            this.amortizacao = amortizacao;
+            this.saldoDevedor = saldoDevedor;
+        }
+
+        public int getNumero() {
+            return numero;
+        }
+
+        public double getValor() {
+            return Dinheiro.reais(valor);
+        }
+
+        public double getJuros() {
+            return Dinheiro.reais(juros);
+        }
+
+        public double getAmortizacao() {
+            return Dinheiro.reais(amortizacao);
+        }
+
+        /** Saldo devedor depois desta parcela */
+        public double getSaldoDevedor() {
+            return Dinheiro.reais(saldoDevedor);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d: R$ %.2f (Juros: R$ %.2f, Amortização: R$ %.2f, Saldo: R$ %.2f)",
+                               numero, getValor(), getJuros(), getAmortizacao(), getSaldoDevedor());
         }
     }
 
@@ -0,0 +1,77 @@
+package com.agilit.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Valores monetários em centavos (long).
+ *
+ * Os cálculos de empréstimo trabalham com centavos inteiros: somas e
+ * divisões são exatas, nada é arredondado mais de uma vez e nenhum objeto
+ * é criado (sem Double/BigDecimal no caminho quente). A conversão para
+ * reais (double) fica só na borda, no JSON da API.
+ */
+public final class Dinheiro {
+
+    private Dinheiro() {
+    }
+
+    /**
+     * Reais para centavos, arredondando para o centavo mais próximo
+     */
+    public static long centavos(double reais) {
+        return Math.round(reais * 100.0);
+    }
+
+    /**
+     * Centavos para reais (só para exibição / JSON)
+     */
+    public static double reais(long centavos) {
+        return centavos / 100.0;
+    }
+
+    /**
+     * Como {@link #reais(long)}, mantendo null (colunas opcionais, SELECT new)
+     */
+    public static Double reais(Long centavos) {
+        return centavos == null ? null : centavos / 100.0;
+    }
+
+    /**
+     * Centavos para decimal com 2 casas (coluna NUMERIC)
+     */
+    public static BigDecimal decimal(long centavos) {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    /**
+     * Decimal para centavos, arredondando o que passar de 2 casas
+     */
+    public static long centavos(BigDecimal valor) {
+        return valor.setScale(2, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Percentual de um valor, arredondado para o centavo
+     *
+     * @param centavos Valor base
+     * @param percentual Percentual (ex: 2.5 para 2.5%)
+     */
+    public static long percentual(long centavos, double percentual) {
+        return Math.round(centavos * (percentual / 100.0));
+    }
+
+    /**
+     * Valor da parcela de índice {@code indice} (0 .. numeroParcelas - 1) ao
+     * dividir {@code totalCentavos} em parcelas iguais. Os centavos que sobram
+     * da divisão vão para a última parcela, então a soma das parcelas é
+     * exatamente o total.
+     */
+    public static long parcela(long totalCentavos, int numeroParcelas, int indice) {
+        long base = totalCentavos / numeroParcelas;
+        if (indice == numeroParcelas - 1) {
+            return totalCentavos - base * (numeroParcelas - 1);
+        }
+        return base;
+    }
+}
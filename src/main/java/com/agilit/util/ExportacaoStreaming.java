@@ -0,0 +1,225 @@
+package com.agilit.util;
+
+import com.agilit.config.AppException;
+import com.agilit.config.JPAUtil;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.hibernate.ScrollMode;
+import org.hibernate.Session;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Exportação de listagens grandes direto para o corpo da resposta.
+ *
+ * As linhas são lidas com ScrollableResults (somente para frente, fetch size
+ * limitado) e escritas uma a uma, então a memória fica constante qualquer que
+ * seja o tamanho da tabela. A consulta roda dentro de uma transação porque o
+ * driver do PostgreSQL só usa cursor no servidor (e respeita o fetch size)
+ * com autocommit desligado.
+ *
+ * A conexão fica presa durante toda a exportação: exportações mais longas que
+ * AGILIT_DB_POOL_LEAK_DETECTION_MS aparecem como suspeita de vazamento no pool.
+ *
+ * As linhas devem ser records (constructor expression JPQL). Datas saem em ISO-8601.
+ */
+public class ExportacaoStreaming {
+
+    /** Linhas trazidas do banco por ida (fetch size do cursor JDBC) */
+    public static final int TAMANHO_FETCH = 500;
+
+    /** A cada quantas linhas o persistence context é limpo e a saída é enviada */
+    public static final int LINHAS_POR_LOTE = 1_000;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    public enum Formato {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv; charset=UTF-8", "csv");
+
+        public final String mediaType;
+        public final String extensao;
+
+        Formato(String mediaType, String extensao) {
+            this.mediaType = mediaType;
+            this.extensao = extensao;
+        }
+
+        /**
+         * Formato pedido na query string (padrão NDJSON)
+         */
+        public static Formato de(String nome) {
+            if (nome == null || nome.isBlank()) {
+                return NDJSON;
+            }
+            try {
+                return valueOf(nome.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new AppException("Formato inválido. Use: ndjson ou csv", 400);
+            }
+        }
+    }
+
+    private ExportacaoStreaming() {
+    }
+
+    /**
+     * Corpo da resposta que executa a consulta e escreve as linhas no formato pedido.
+     * O EntityManager é aberto e fechado dentro da escrita, que acontece depois
+     * do método do controller retornar.
+     *
+     * @param jpql Consulta com constructor expression do record informado
+     * @param tipo Record de cada linha (define as colunas do CSV)
+     * @param parametros Parâmetros nomeados da consulta
+     */
+    public static <T extends Record> StreamingOutput exportar(String jpql, Class<T> tipo,
+                                                              Map<String, Object> parametros,
+                                                              Formato formato) {
+        return saida -> {
+            EntityManager em = JPAUtil.getEntityManager();
+            try {
+                em.getTransaction().begin();
+
+                Query<T> query = em.unwrap(Session.class).createQuery(jpql, tipo);
+                parametros.forEach(query::setParameter);
+                query.setFetchSize(TAMANHO_FETCH);
+                query.setReadOnly(true);
+
+                try (ScrollableResults<T> linhas = query.scroll(ScrollMode.FORWARD_ONLY);
+                     Escritor<T> escritor = formato == Formato.CSV
+                             ? new EscritorCsv<>(saida, tipo)
+                             : new EscritorNdjson<>(saida)) {
+
+                    long total = 0;
+                    while (linhas.next()) {
+                        escritor.escrever(linhas.get());
+                        if (++total % LINHAS_POR_LOTE == 0) {
+                            em.clear();
+                            escritor.flush();
+                        }
+                    }
+                }
+
+                em.getTransaction().commit();
+            } finally {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                em.close();
+            }
+        };
+    }
+
+    private interface Escritor<T> extends AutoCloseable {
+        void escrever(T linha) throws IOException;
+
+        void flush() throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    /**
+     * Um objeto JSON por linha
+     */
+    private static class EscritorNdjson<T> implements Escritor<T> {
+        private final JsonGenerator gerador;
+
+        EscritorNdjson(OutputStream saida) throws IOException {
+            gerador = MAPPER.getFactory().createGenerator(saida);
+            gerador.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void escrever(T linha) throws IOException {
+            MAPPER.writeValue(gerador, linha);
+            gerador.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            gerador.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            gerador.flush();
+        }
+    }
+
+    /**
+     * CSV (RFC 4180) com cabeçalho tirado dos componentes do record
+     */
+    private static class EscritorCsv<T extends Record> implements Escritor<T> {
+        private final Writer writer;
+        private final RecordComponent[] colunas;
+
+        EscritorCsv(OutputStream saida, Class<T> tipo) throws IOException {
+            writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+            colunas = tipo.getRecordComponents();
+
+            for (int i = 0; i < colunas.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(colunas[i].getName());
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void escrever(T linha) throws IOException {
+            for (int i = 0; i < colunas.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                Object valor = valor(linha, colunas[i]);
+                if (valor != null) {
+                    writer.write(escapar(valor.toString()));
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private static Object valor(Object linha, RecordComponent coluna) {
+            try {
+                return coluna.getAccessor().invoke(linha);
+            } catch (ReflectiveOperationException e) {
+                throw new UncheckedIOException(new IOException("Falha ao ler " + coluna.getName(), e));
+            }
+        }
+
+        static String escapar(String texto) {
+            if (texto.indexOf(',') < 0 && texto.indexOf('"') < 0
+                    && texto.indexOf('\n') < 0 && texto.indexOf('\r') < 0) {
+                return texto;
+            }
+            return '"' + texto.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.agilit.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tabela de fatores (1 + i)^k, k = 0..n, de uma taxa de juros.
+ *
+ * A tabela é montada uma vez por taxa, numa passada só (cada fator é o
+ * anterior vezes 1 + i), e fica em cache: as ofertas usam poucas taxas
+ * diferentes, e as opções de 1..N parcelas passam a custar uma leitura de
+ * array cada, em vez de um Math.pow.
+ */
+final class FatoresJuros {
+
+    // Tamanho mínimo da tabela (10 anos de parcelas mensais)
+    private static final int TAMANHO_INICIAL = 121;
+
+    // Acima disso não vale guardar; o fator é calculado na hora
+    private static final int TAMANHO_MAXIMO = 1201;
+
+    // Limite de taxas em cache; ao passar, o cache recomeça
+    private static final int MAXIMO_TAXAS = 256;
+
+    private static final Map<Double, FatoresJuros> CACHE = new ConcurrentHashMap<>();
+
+    private final double taxa;
+    private final double[] potencias;
+
+    private FatoresJuros(double taxa, double[] potencias) {
+        this.taxa = taxa;
+        this.potencias = potencias;
+    }
+
+    /**
+     * Fatores da taxa (percentual ao período) até pelo menos {@code numeroParcelas}
+     */
+    static FatoresJuros de(double taxaJuros, int numeroParcelas) {
+        FatoresJuros fatores = CACHE.get(taxaJuros);
+        if (fatores != null && fatores.cobre(numeroParcelas)) {
+            return fatores;
+        }
+        if (numeroParcelas >= TAMANHO_MAXIMO) {
+            return new FatoresJuros(taxaJuros, null);
+        }
+        if (CACHE.size() >= MAXIMO_TAXAS) {
+            CACHE.clear();
+        }
+        return CACHE.compute(taxaJuros, (taxa, atual) -> {
+            if (atual != null && atual.cobre(numeroParcelas)) {
+                return atual;
+            }
+            int tamanho = Math.max(numeroParcelas + 1, TAMANHO_INICIAL);
+            if (atual != null) {
+                tamanho = Math.min(Math.max(tamanho, atual.potencias.length * 2), TAMANHO_MAXIMO);
+            }
+            return new FatoresJuros(taxa, tabela(taxa, tamanho));
+        });
+    }
+
+    private static double[] tabela(double taxaJuros, int tamanho) {
+        double base = 1 + taxaJuros / 100.0;
+        double[] potencias = new double[tamanho];
+        potencias[0] = 1.0;
+        for (int k = 1; k < tamanho; k++) {
+            potencias[k] = potencias[k - 1] * base;
+        }
+        return potencias;
+    }
+
+    private boolean cobre(int numeroParcelas) {
+        return potencias != null && numeroParcelas < potencias.length;
+    }
+
+    /**
+     * (1 + i)^n
+     */
+    double potencia(int n) {
+        if (cobre(n)) {
+            return potencias[n];
+        }
+        return Math.pow(1 + taxa / 100.0, n);
+    }
+}
@@ -1,37 +1,127 @@
 package com.agilit.util;
 
-import java.security.SecureRandom;
-import java.util.Random;
+import jakarta.persistence.EntityManager;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 
 /**
  * Utilitário para gerar IDs públicos únicos para Propostas de Empréstimo.
  * Formato: #ABC123 (# + 6 caracteres alfanuméricos maiúsculos)
+ *
+ * O ID é um número da sequence proposta_id_publico_seq passado por uma
+ * permutação de [0, 36^6) e escrito em base 36. Como a permutação é uma
+ * bijeção, números diferentes dão IDs diferentes: não há colisão nem
+ * consulta de conferência. A ordem da sequence não aparece no ID (números
+ * seguidos dão IDs sem relação aparente).
+ *
+ * A permutação é uma rede de Feistel de 32 bits com chaves derivadas de
+ * AGILIT_ID_PUBLICO_CHAVE, restrita a [0, 36^6) por cycle walking
+ * (reaplica enquanto o resultado cai fora da faixa). Ela esconde a ordem,
+ * mas não é criptografia forte. A chave não pode mudar depois que houver
+ * IDs gerados: com outra chave, a mesma faixa da sequence vira outros IDs,
+ * que podem repetir os já gravados.
+ *
+ * A sequence avança de TAMANHO_BLOCO em TAMANHO_BLOCO (INCREMENT BY da V5):
+ * cada instância reserva um bloco com um nextval e distribui os números
+ * dele em memória.
  */
 public class GeradorIdPublico {
 
     private static final String CARACTERES = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
     private static final int TAMANHO_ID = 6;
-    private static final Random random = new SecureRandom();
+
+    /** 36^6: quantidade de IDs possíveis */
+    static final long TOTAL_IDS = 2_176_782_336L;
+
+    /** Números reservados por nextval (INCREMENT BY da sequence) */
+    static final int TAMANHO_BLOCO = 100;
+
+    private static final int RODADAS = 8;
+    private static final int[] CHAVES = chaves();
+
+    // Valor de cada caractere em CARACTERES, -1 para os que não pertencem
+    private static final byte[] VALOR_CARACTERE = new byte[128];
+
+    static {
+        Arrays.fill(VALOR_CARACTERE, (byte) -1);
+        for (int i = 0; i < CARACTERES.length(); i++) {
+            VALOR_CARACTERE[CARACTERES.charAt(i)] = (byte) i;
+        }
+    }
+
+    // Bloco reservado: próximo número a usar e fim (exclusivo)
+    private static long proximo;
+    private static long fimBloco;
 
     /**
-     * Gera um ID público único no formato #ABC123
-     * 
+     * Próximo ID público. Só vai ao banco (um nextval) quando o bloco
+     * reservado acaba, a cada TAMANHO_BLOCO IDs.
+     *
+     * @param em EntityManager da requisição
      * @return String com o ID público gerado
      */
-    public static String gerar() {
-        StringBuilder id = new StringBuilder("#");
-        
-        for (int i = 0; i < TAMANHO_ID; i++) {
-            int index = random.nextInt(CARACTERES.length());
-            id.append(CARACTERES.charAt(index));
+    public static String gerar(EntityManager em) {
+        return de(proximaSequencia(em));
+    }
+
+    private static synchronized long proximaSequencia(EntityManager em) {
+        if (proximo >= fimBloco) {
+            long inicio = ((Number) em.createNativeQuery("SELECT nextval('proposta_id_publico_seq')")
+                                      .getSingleResult()).longValue();
+            proximo = inicio;
+            fimBloco = Math.min(inicio + TAMANHO_BLOCO, TOTAL_IDS);
+        }
+        if (proximo >= TOTAL_IDS) {
+            throw new IllegalStateException("IDs públicos esgotados");
         }
-        
-        return id.toString();
+        return proximo++;
+    }
+
+    /**
+     * ID público do número da sequence
+     *
+     * @param sequencia número em [0, 36^6)
+     * @return String no formato #ABC123
+     */
+    public static String de(long sequencia) {
+        if (sequencia < 0 || sequencia >= TOTAL_IDS) {
+            throw new IllegalArgumentException("Número fora da faixa de IDs públicos: " + sequencia);
+        }
+        long valor = permutar(sequencia);
+
+        char[] id = new char[TAMANHO_ID + 1];
+        id[0] = '#';
+        for (int i = TAMANHO_ID; i >= 1; i--) {
+            id[i] = CARACTERES.charAt((int) (valor % 36));
+            valor /= 36;
+        }
+        return new String(id);
+    }
+
+    /**
+     * Número da sequence que gerou o ID (inverso de {@link #de})
+     *
+     * @param idPublico ID no formato #ABC123
+     * @return número da sequence, ou -1 se o formato for inválido
+     */
+    public static long sequencia(String idPublico) {
+        if (!validar(idPublico)) {
+            return -1;
+        }
+        long valor = 0;
+        for (int i = 1; i <= TAMANHO_ID; i++) {
+            valor = valor * 36 + VALOR_CARACTERE[idPublico.charAt(i)];
+        }
+        return desfazer(valor);
     }
 
     /**
      * Valida se um ID público está no formato correto
-     * 
+     *
      * @param idPublico ID a ser validado
      * @return true se válido, false caso contrário
      */
@@ -39,28 +129,89 @@ public class GeradorIdPublico {
         if (idPublico == null || idPublico.length() != (TAMANHO_ID + 1)) {
             return false;
         }
-        
-        if (!idPublico.startsWith("#")) {
+
+        if (idPublico.charAt(0) != '#') {
             return false;
         }
-        
-        String parte = idPublico.substring(1);
-        return parte.matches("[A-Z0-9]{" + TAMANHO_ID + "}");
+
+        for (int i = 1; i <= TAMANHO_ID; i++) {
+            char c = idPublico.charAt(i);
+            if (c >= 128 || VALOR_CARACTERE[c] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ========== Permutação ==========
+
+    private static long permutar(long valor) {
+        do {
+            valor = feistel(valor);
+        } while (valor >= TOTAL_IDS);
+        return valor;
+    }
+
+    private static long desfazer(long valor) {
+        do {
+            valor = feistelInverso(valor);
+        } while (valor >= TOTAL_IDS);
+        return valor;
+    }
+
+    private static long feistel(long valor) {
+        int esquerda = (int) (valor >>> 16) & 0xFFFF;
+        int direita = (int) valor & 0xFFFF;
+        for (int r = 0; r < RODADAS; r++) {
+            int nova = esquerda ^ rodada(direita, CHAVES[r]);
+            esquerda = direita;
+            direita = nova;
+        }
+        return ((long) esquerda << 16) | direita;
+    }
+
+    private static long feistelInverso(long valor) {
+        int esquerda = (int) (valor >>> 16) & 0xFFFF;
+        int direita = (int) valor & 0xFFFF;
+        for (int r = RODADAS - 1; r >= 0; r--) {
+            int anterior = direita ^ rodada(esquerda, CHAVES[r]);
+            direita = esquerda;
+            esquerda = anterior;
+        }
+        return ((long) esquerda << 16) | direita;
     }
 
     /**
-     * Gera múltiplos IDs públicos (útil para testes)
-     * 
-     * @param quantidade Número de IDs a gerar
-     * @return Array com os IDs gerados
+     * Função de rodada: mistura (finalizador do MurmurHash3) de metade e chave, 16 bits
      */
-    public static String[] gerarMultiplos(int quantidade) {
-        String[] ids = new String[quantidade];
-        for (int i = 0; i < quantidade; i++) {
-            ids[i] = gerar();
+    private static int rodada(int metade, int chave) {
+        int x = metade * 0x9E3779B9 ^ chave;
+        x ^= x >>> 16;
+        x *= 0x85EBCA6B;
+        x ^= x >>> 13;
+        x *= 0xC2B2AE35;
+        x ^= x >>> 16;
+        return x & 0xFFFF;
+    }
+
+    /**
+     * Chaves das rodadas: SHA-256 de AGILIT_ID_PUBLICO_CHAVE (8 x 32 bits)
+     */
+    private static int[] chaves() {
+        String segredo = System.getenv("AGILIT_ID_PUBLICO_CHAVE");
+        if (segredo == null || segredo.isBlank()) {
+            segredo = "agilit-loan"; // desenvolvimento; em produção, defina a variável
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(segredo.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer buffer = ByteBuffer.wrap(hash);
+            int[] chaves = new int[RODADAS];
+            for (int i = 0; i < RODADAS; i++) {
+                chaves[i] = buffer.getInt();
+            }
+            return chaves;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
         }
-        return ids;
     }
 }
-
- 
@@ -1,16 +1,73 @@
 package com.agilit.util;
 
 import com.agilit.model.*;
+import com.agilit.model.dao.BuscaSalvaDAO;
+import com.agilit.service.IndiceBuscasSalvas;
 import jakarta.persistence.EntityManager;
 
-import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.stream.Collectors;
 
 /**
  * Serviço para criação e envio de notificações.
  * Centraliza a lógica de notificação para diferentes eventos do sistema.
+ *
+ * Os métodos notificar* não gravam a Notificacao: gravam, na transação de
+ * quem chama, um EventoNotificacao com o modelo da mensagem e os
+ * argumentos (fila de saída). Se a transação é desfeita, o evento some
+ * junto. A Notificacao é montada depois (montar) e gravada em lote pela
+ * entrega, ver service.EntregaNotificacoes.
  */
 public class NotificacaoService {
 
+    /**
+     * Modelos de mensagem. O nome é gravado no evento: renomear ou remover
+     * um modelo descarta os eventos ainda não entregues que o usam
+     */
+    public enum Modelo {
+        NOVO_INTERESSE("NOVO_INTERESSE", "Novo Interesse em sua Proposta",
+                       "O devedor %s demonstrou interesse na proposta %s no valor de R$ %s"),
+        APROVACAO("APROVACAO", "Seu Interesse foi Aprovado",
+                  "O credor aprovou seu interesse na proposta %s. Aguardando sua confirmação."),
+        CONFIRMACAO_CREDOR("CONFIRMACAO", "Empréstimo Confirmado",
+                           "Empréstimo de R$ %s para %s foi confirmado e está ativo."),
+        CONFIRMACAO_DEVEDOR("CONFIRMACAO", "Empréstimo Confirmado",
+                            "Seu empréstimo de R$ %s foi confirmado. Total de %s parcelas."),
+        VENCIMENTO("VENCIMENTO", "Parcela Próxima do Vencimento",
+                   "A parcela %s/%s no valor de R$ %s vence em %s"),
+        ATRASO("ATRASO", "Parcela em Atraso",
+               "A parcela %s/%s no valor de R$ %s está atrasada desde %s. Por favor, regularize."),
+        PAGAMENTO("PAGAMENTO", "Parcela Paga",
+                  "O devedor %s pagou a parcela %s/%s no valor de R$ %s"),
+        QUITACAO_CREDOR("QUITACAO", "Empréstimo Quitado",
+                        "O empréstimo de %s no valor de R$ %s foi totalmente quitado."),
+        QUITACAO_DEVEDOR("QUITACAO", "Empréstimo Quitado",
+                         "Parabéns! Seu empréstimo de R$ %s foi totalmente quitado."),
+        REJEICAO("REJEICAO", "Interesse Não Aprovado",
+                 "Seu interesse na proposta %s não foi aprovado pelo credor."),
+        PROPOSTA_COMPATIVEL("PROPOSTA_COMPATIVEL", "Nova Proposta para sua Busca",
+                            "A proposta %s atende a uma busca salva sua: R$ %s em %s a %s parcelas, com juros de %s%%"),
+        /** Notificação genérica: os argumentos são o tipo, o título e a mensagem */
+        LIVRE(null, null, null);
+
+        private final String tipo;
+        private final String titulo;
+        private final String mensagem;
+
+        Modelo(String tipo, String titulo, String mensagem) {
+            this.tipo = tipo;
+            this.titulo = titulo;
+            this.mensagem = mensagem;
+        }
+    }
+
+    // Separa os argumentos no evento (não aparece em nomes nem em valores)
+    private static final char SEPARADOR = '\u001F';
+
+    // Colunas notificacao.titulo e notificacao.mensagem
+    private static final int TAMANHO_MAXIMO_TITULO = 200;
+    private static final int TAMANHO_MAXIMO_MENSAGEM = 1000;
+
     /**
      * Notifica o Credor sobre um novo interesse em sua proposta
      * 
@@ -21,19 +78,8 @@ public class NotificacaoService {
      */
     public static void notificarNovoInteresse(EntityManager em, Credor credor, 
                                               PropostaEmprestimo proposta, Devedor devedor) {
-        Notificacao notificacao = new Notificacao();
-        notificacao.setTipoDestinatario("CREDOR");
-        notificacao.setDestinatarioId(credor.getId());
-        notificacao.setTipo("NOVO_INTERESSE");
-        notificacao.setTitulo("Novo Interesse em sua Proposta");
-        notificacao.setMensagem(
-            String.format("O devedor %s demonstrou interesse na proposta %s no valor de R$ %.2f",
-                         devedor.getNome(), proposta.getIdPublico(), proposta.getValorDisponivel())
-        );
-        notificacao.setReferencia(proposta.getId().toString());
-        notificacao.setTipoReferencia("PROPOSTA");
-        
-        em.persist(notificacao);
+        registrar(em, "CREDOR", credor.getId(), Modelo.NOVO_INTERESSE, "PROPOSTA", proposta.getId(),
+                  devedor.getNome(), proposta.getIdPublico(), reais(proposta.getValorDisponivel()));
     }
 
     /**
@@ -45,19 +91,8 @@ public class NotificacaoService {
      */
     public static void notificarAprovacao(EntityManager em, Devedor devedor, 
                                          InteresseProposta interesse) {
-        Notificacao notificacao = new Notificacao();
-        notificacao.setTipoDestinatario("DEVEDOR");
-        notificacao.setDestinatarioId(devedor.getId());
-        notificacao.setTipo("APROVACAO");
-        notificacao.setTitulo("Seu Interesse foi Aprovado");
-        notificacao.setMensagem(
-            String.format("O credor aprovou seu interesse na proposta %s. Aguardando sua confirmação.",
-                         interesse.getProposta().getIdPublico())
-        );
-        notificacao.setReferencia(interesse.getId().toString());
-        notificacao.setTipoReferencia("INTERESSE");
-        
-        em.persist(notificacao);
+        registrar(em, "DEVEDOR", devedor.getId(), Modelo.APROVACAO, "INTERESSE", interesse.getId(),
+                  interesse.getProposta().getIdPublico());
     }
 
     /**
@@ -70,28 +105,13 @@ public class NotificacaoService {
      */
     public static void notificarConfirmacao(EntityManager em, String tipoDestinatario, 
                                            Long destinatarioId, Emprestimo emprestimo) {
-        Notificacao notificacao = new Notificacao();
-        notificacao.setTipoDestinatario(tipoDestinatario);
-        notificacao.setDestinatarioId(destinatarioId);
-        notificacao.setTipo("CONFIRMACAO");
-        notificacao.setTitulo("Empréstimo Confirmado");
-        
         if ("CREDOR".equals(tipoDestinatario)) {
-            notificacao.setMensagem(
-                String.format("Empréstimo de R$ %.2f para %s foi confirmado e está ativo.",
-                             emprestimo.getValorTotal(), emprestimo.getDevedor().getNome())
-            );
+            registrar(em, tipoDestinatario, destinatarioId, Modelo.CONFIRMACAO_CREDOR, "EMPRESTIMO", emprestimo.getId(),
+                      reais(emprestimo.getValorTotal()), emprestimo.getDevedor().getNome());
         } else {
-            notificacao.setMensagem(
-                String.format("Seu empréstimo de R$ %.2f foi confirmado. Total de %d parcelas.",
-                             emprestimo.getValorTotal(), emprestimo.getNumeroParcelas())
-            );
+            registrar(em, tipoDestinatario, destinatarioId, Modelo.CONFIRMACAO_DEVEDOR, "EMPRESTIMO", emprestimo.getId(),
+                      reais(emprestimo.getValorTotal()), emprestimo.getNumeroParcelas());
         }
-        
-        notificacao.setReferencia(emprestimo.getId().toString());
-        notificacao.setTipoReferencia("EMPRESTIMO");
-        
-        em.persist(notificacao);
     }
 
     /**
@@ -102,22 +122,9 @@ public class NotificacaoService {
      * @param parcela Parcela próxima do vencimento
      */
     public static void notificarVencimento(EntityManager em, Devedor devedor, Parcela parcela) {
-        Notificacao notificacao = new Notificacao();
-        notificacao.setTipoDestinatario("DEVEDOR");
-        notificacao.setDestinatarioId(devedor.getId());
-        notificacao.setTipo("VENCIMENTO");
-        notificacao.setTitulo("Parcela Próxima do Vencimento");
-        notificacao.setMensagem(
-            String.format("A parcela %d/%d no valor de R$ %.2f vence em %s",
-                         parcela.getNumeroParcela(), 
-                         parcela.getEmprestimo().getNumeroParcelas(),
-                         parcela.getValor(),
-                         parcela.getDataVencimento())
-        );
-        notificacao.setReferencia(parcela.getId().toString());
-        notificacao.setTipoReferencia("PARCELA");
-        
-        em.persist(notificacao);
+        registrar(em, "DEVEDOR", devedor.getId(), Modelo.VENCIMENTO, "PARCELA", parcela.getId(),
+                  parcela.getNumeroParcela(), parcela.getEmprestimo().getNumeroParcelas(),
+                  reais(parcela.getValor()), parcela.getDataVencimento());
     }
 
     /**
@@ -128,22 +135,9 @@ public class NotificacaoService {
      * @param parcela Parcela atrasada
      */
     public static void notificarAtraso(EntityManager em, Devedor devedor, Parcela parcela) {
-        Notificacao notificacao = new Notificacao();
-        notificacao.setTipoDestinatario("DEVEDOR");
-        notificacao.setDestinatarioId(devedor.getId());
-        notificacao.setTipo("ATRASO");
-        notificacao.setTitulo("Parcela em Atraso");
-        notificacao.setMensagem(
-            String.format("A parcela %d/%d no valor de R$ %.2f está atrasada desde %s. Por favor, regularize.",
-                         parcela.getNumeroParcela(),
-                         parcela.getEmprestimo().getNumeroParcelas(),
-                         parcela.getValor(),
-                         parcela.getDataVencimento())
-        );
-        notificacao.setReferencia(parcela.getId().toString());
-        notificacao.setTipoReferencia("PARCELA");
-        
-        em.persist(notificacao);
+        registrar(em, "DEVEDOR", devedor.getId(), Modelo.ATRASO, "PARCELA", parcela.getId(),
+                  parcela.getNumeroParcela(), parcela.getEmprestimo().getNumeroParcelas(),
+                  reais(parcela.getValor()), parcela.getDataVencimento());
     }
 
     /**
@@ -154,22 +148,9 @@ public class NotificacaoService {
      * @param parcela Parcela paga
      */
     public static void notificarPagamento(EntityManager em, Credor credor, Parcela parcela) {
-        Notificacao notificacao = new Notificacao();
-        notificacao.setTipoDestinatario("CREDOR");
-        notificacao.setDestinatarioId(credor.getId());
-        notificacao.setTipo("PAGAMENTO");
-        notificacao.setTitulo("Parcela Paga");
-        notificacao.setMensagem(
-            String.format("O devedor %s pagou a parcela %d/%d no valor de R$ %.2f",
-                         parcela.getEmprestimo().getDevedor().getNome(),
-                         parcela.getNumeroParcela(),
-                         parcela.getEmprestimo().getNumeroParcelas(),
-                         parcela.getValor())
-        );
-        notificacao.setReferencia(parcela.getId().toString());
-        notificacao.setTipoReferencia("PARCELA");
-        
-        em.persist(notificacao);
+        registrar(em, "CREDOR", credor.getId(), Modelo.PAGAMENTO, "PARCELA", parcela.getId(),
+                  parcela.getEmprestimo().getDevedor().getNome(), parcela.getNumeroParcela(),
+                  parcela.getEmprestimo().getNumeroParcelas(), reais(parcela.getValor()));
     }
 
     /**
@@ -182,28 +163,13 @@ public class NotificacaoService {
      */
     public static void notificarQuitacao(EntityManager em, String tipoDestinatario,
                                         Long destinatarioId, Emprestimo emprestimo) {
-        Notificacao notificacao = new Notificacao();
-        notificacao.setTipoDestinatario(tipoDestinatario);
-        notificacao.setDestinatarioId(destinatarioId);
-        notificacao.setTipo("QUITACAO");
-        notificacao.setTitulo("Empréstimo Quitado");
-        
         if ("CREDOR".equals(tipoDestinatario)) {
-            notificacao.setMensagem(
-                String.format("O empréstimo de %s no valor de R$ %.2f foi totalmente quitado.",
-                             emprestimo.getDevedor().getNome(), emprestimo.getValorTotal())
-            );
+            registrar(em, tipoDestinatario, destinatarioId, Modelo.QUITACAO_CREDOR, "EMPRESTIMO", emprestimo.getId(),
+                      emprestimo.getDevedor().getNome(), reais(emprestimo.getValorTotal()));
         } else {
-            notificacao.setMensagem(
-                String.format("Parabéns! Seu empréstimo de R$ %.2f foi totalmente quitado.",
-                             emprestimo.getValorTotal())
-            );
+            registrar(em, tipoDestinatario, destinatarioId, Modelo.QUITACAO_DEVEDOR, "EMPRESTIMO", emprestimo.getId(),
+                      reais(emprestimo.getValorTotal()));
         }
-        
-        notificacao.setReferencia(emprestimo.getId().toString());
-        notificacao.setTipoReferencia("EMPRESTIMO");
-        
-        em.persist(notificacao);
     }
 
     /**
@@ -215,19 +181,38 @@ public class NotificacaoService {
      */
     public static void notificarRejeicao(EntityManager em, Devedor devedor,
                                         InteresseProposta interesse) {
-        Notificacao notificacao = new Notificacao();
-        notificacao.setTipoDestinatario("DEVEDOR");
-        notificacao.setDestinatarioId(devedor.getId());
-        notificacao.setTipo("REJEICAO");
-        notificacao.setTitulo("Interesse Não Aprovado");
-        notificacao.setMensagem(
-            String.format("Seu interesse na proposta %s não foi aprovado pelo credor.",
-                         interesse.getProposta().getIdPublico())
-        );
-        notificacao.setReferencia(interesse.getId().toString());
-        notificacao.setTipoReferencia("INTERESSE");
-        
-        em.persist(notificacao);
+        registrar(em, "DEVEDOR", devedor.getId(), Modelo.REJEICAO, "INTERESSE", interesse.getId(),
+                  interesse.getProposta().getIdPublico());
+    }
+
+    /**
+     * Notifica os Devedores com alguma busca salva atendida por uma proposta
+     * nova. A proposta é conferida uma vez contra todas as buscas salvas
+     * (IndiceBuscasSalvas; até ele carregar, uma consulta ao banco), e cada
+     * devedor recebe uma notificação só, mesmo com várias buscas atendidas.
+     *
+     * @param em EntityManager (transação deve estar ativa)
+     * @param proposta Proposta recém-criada (já persistida, com ID)
+     * @return Quantidade de devedores notificados
+     */
+    public static int notificarBuscasSalvas(EntityManager em, PropostaEmprestimo proposta) {
+        long valor = proposta.getValorDisponivelCentavos();
+        int minimas = proposta.getParcelasMinimas();
+        int maximas = proposta.getParcelasMaximas();
+        double taxa = proposta.getTaxaJuros();
+
+        long[] devedores = IndiceBuscasSalvas.carregado()
+                ? IndiceBuscasSalvas.devedores(valor, minimas, maximas, taxa)
+                : new BuscaSalvaDAO(em).findDevedoresCompativeis(valor, minimas, maximas, taxa)
+                                       .stream().mapToLong(Long::longValue).toArray();
+
+        String argumentos = argumentos(proposta.getIdPublico(), reais(proposta.getValorDisponivel()),
+                                       minimas, maximas, String.format("%.2f", taxa));
+        for (long devedorId : devedores) {
+            em.persist(new EventoNotificacao("DEVEDOR", devedorId, Modelo.PROPOSTA_COMPATIVEL.name(), argumentos,
+                                             "PROPOSTA", proposta.getId()));
+        }
+        return devedores.length;
     }
 
     /**
@@ -243,17 +228,64 @@ public class NotificacaoService {
     public static void criarNotificacao(EntityManager em, String tipoDestinatario,
                                        Long destinatarioId, String tipo,
                                        String titulo, String mensagem) {
+        registrar(em, tipoDestinatario, destinatarioId, Modelo.LIVRE, null, null, tipo, titulo, mensagem);
+    }
+
+    /**
+     * Monta a Notificacao de um evento da fila de saída
+     *
+     * @param evento Evento gravado por um dos métodos notificar*
+     * @return Notificacao a gravar, com a data de criação do evento
+     * @throws IllegalArgumentException Modelo desconhecido ou argumentos que não servem ao modelo
+     */
+    public static Notificacao montar(EventoNotificacao evento) {
+        Modelo modelo = Modelo.valueOf(evento.getModelo());
+        Object[] argumentos = evento.getArgumentos() == null
+                ? new Object[0]
+                : evento.getArgumentos().split(String.valueOf(SEPARADOR), -1);
+
         Notificacao notificacao = new Notificacao();
-        notificacao.setTipoDestinatario(tipoDestinatario);
-        notificacao.setDestinatarioId(destinatarioId);
-        notificacao.setTipo(tipo);
-        notificacao.setTitulo(titulo);
-        notificacao.setMensagem(mensagem);
-        notificacao.setDataCriacao(LocalDateTime.now());
+        notificacao.setTipoDestinatario(evento.getTipoDestinatario());
+        notificacao.setDestinatarioId(evento.getDestinatarioId());
+        if (modelo == Modelo.LIVRE) {
+            if (argumentos.length != 3) {
+                throw new IllegalArgumentException("Notificação livre com " + argumentos.length + " argumentos");
+            }
+            notificacao.setTipo((String) argumentos[0]);
+            notificacao.setTitulo(limitar((String) argumentos[1], TAMANHO_MAXIMO_TITULO));
+            notificacao.setMensagem(limitar((String) argumentos[2], TAMANHO_MAXIMO_MENSAGEM));
+        } else {
+            notificacao.setTipo(modelo.tipo);
+            notificacao.setTitulo(modelo.titulo);
+            notificacao.setMensagem(limitar(String.format(modelo.mensagem, argumentos), TAMANHO_MAXIMO_MENSAGEM));
+        }
+        if (evento.getReferencia() != null) {
+            notificacao.setReferencia(evento.getReferencia().toString());
+            notificacao.setTipoReferencia(evento.getTipoReferencia());
+        }
+        notificacao.setDataCriacao(evento.getDataCriacao());
         notificacao.setLida(false);
-        
-        em.persist(notificacao);
+        return notificacao;
+    }
+
+    private static void registrar(EntityManager em, String tipoDestinatario, Long destinatarioId, Modelo modelo,
+                                  String tipoReferencia, Long referencia, Object... argumentos) {
+        em.persist(new EventoNotificacao(tipoDestinatario, destinatarioId, modelo.name(), argumentos(argumentos),
+                                         tipoReferencia, referencia));
+    }
+
+    private static String argumentos(Object... argumentos) {
+        return Arrays.stream(argumentos)
+                     .map(argumento -> String.valueOf(argumento).replace(SEPARADOR, ' '))
+                     .collect(Collectors.joining(String.valueOf(SEPARADOR)));
+    }
+
+    // Mesmo texto do "%.2f" que as mensagens usavam
+    private static String reais(Double valor) {
+        return String.format("%.2f", valor);
     }
-}
 
- 
+    private static String limitar(String texto, int tamanho) {
+        return texto.length() > tamanho ? texto.substring(0, tamanho) : texto;
+    }
+}
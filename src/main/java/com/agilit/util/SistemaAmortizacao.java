@@ -0,0 +1,164 @@
+package com.agilit.util;
+
+import com.agilit.config.AppException;
+import com.agilit.util.CalculadoraEmprestimo.OpcaoParcela;
+import com.agilit.util.CalculadoraEmprestimo.ParcelaCronograma;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sistemas de amortização. Valores em centavos; a taxa é percentual ao
+ * período (mês).
+ *
+ * Cada sistema calcula uma opção de parcelamento (valor da parcela, total e
+ * juros) em tempo constante, para que as opções de 1..N parcelas saiam numa
+ * passada só, e o cronograma completo (juros e amortização de cada parcela).
+ * A soma do cronograma é sempre igual ao total da opção.
+ */
+public enum SistemaAmortizacao {
+
+    /**
+     * Juros simples sobre o principal (J = P * i * n), parcelas iguais.
+     * É o sistema usado até aqui e o padrão.
+     */
+    SIMPLES {
+        @Override
+        OpcaoParcela opcao(long principal, int n, double taxaJuros, FatoresJuros fatores) {
+            long juros = CalculadoraEmprestimo.calcularJurosSimplesCentavos(principal, taxaJuros, n);
+            long total = principal + juros;
+            return new OpcaoParcela(n, Dinheiro.parcela(total, n, 0), Dinheiro.parcela(total, n, n - 1),
+                                    total, juros);
+        }
+
+        @Override
+        List<ParcelaCronograma> cronograma(long principal, int n, double taxaJuros) {
+            long total = principal + CalculadoraEmprestimo.calcularJurosSimplesCentavos(principal, taxaJuros, n);
+            List<ParcelaCronograma> parcelas = new ArrayList<>(n);
+            long saldo = principal;
+            for (int k = 0; k < n; k++) {
+                long valor = Dinheiro.parcela(total, n, k);
+                long amortizacao = Dinheiro.parcela(principal, n, k);
+                saldo -= amortizacao;
+                parcelas.add(new ParcelaCronograma(k + 1, valor, valor - amortizacao, amortizacao, saldo));
+            }
+            return parcelas;
+        }
+    },
+
+    /**
+     * Tabela Price (sistema francês): parcelas iguais,
+     * PMT = P * i * (1+i)^n / ((1+i)^n - 1).
+     *
+     * Os juros de cada parcela são os do saldo devedor; a amortização é o
+     * resto. O arredondamento da PMT fica na divisão juros/amortização da
+     * última parcela, não no valor dela.
+     */
+    PRICE {
+        @Override
+        OpcaoParcela opcao(long principal, int n, double taxaJuros, FatoresJuros fatores) {
+            if (taxaJuros == 0) {
+                return SIMPLES.opcao(principal, n, taxaJuros, fatores);
+            }
+            long parcela = prestacao(principal, n, taxaJuros, fatores);
+            long total = parcela * n;
+            return new OpcaoParcela(n, parcela, parcela, total, total - principal);
+        }
+
+        @Override
+        List<ParcelaCronograma> cronograma(long principal, int n, double taxaJuros) {
+            if (taxaJuros == 0) {
+                return SIMPLES.cronograma(principal, n, taxaJuros);
+            }
+            double i = taxaJuros / 100.0;
+            long parcela = prestacao(principal, n, taxaJuros, FatoresJuros.de(taxaJuros, n));
+            List<ParcelaCronograma> parcelas = new ArrayList<>(n);
+            long saldo = principal;
+            for (int k = 0; k < n; k++) {
+                long amortizacao = k == n - 1 ? saldo : parcela - Math.round(saldo * i);
+                saldo -= amortizacao;
+                parcelas.add(new ParcelaCronograma(k + 1, parcela, parcela - amortizacao, amortizacao, saldo));
+            }
+            return parcelas;
+        }
+
+        private long prestacao(long principal, int n, double taxaJuros, FatoresJuros fatores) {
+            double i = taxaJuros / 100.0;
+            double fator = fatores.potencia(n);
+            return Math.round(principal * i * fator / (fator - 1));
+        }
+    },
+
+    /**
+     * Sistema de Amortização Constante: amortização P / n (os centavos que
+     * sobram vão na última), juros sobre o saldo devedor, parcelas
+     * decrescentes.
+     *
+     * Os juros são arredondados sobre o acumulado (juros da parcela k =
+     * acumulado até k menos acumulado até k-1), então o total de juros é o
+     * valor exato arredondado uma vez e sai em tempo constante.
+     */
+    SAC {
+        @Override
+        OpcaoParcela opcao(long principal, int n, double taxaJuros, FatoresJuros fatores) {
+            double i = taxaJuros / 100.0;
+            long amortizacao = principal / n;
+            long juros = jurosAcumulados(principal, amortizacao, n, i);
+            long primeira = Dinheiro.parcela(principal, n, 0) + jurosAcumulados(principal, amortizacao, 1, i);
+            long ultima = Dinheiro.parcela(principal, n, n - 1)
+                          + juros - jurosAcumulados(principal, amortizacao, n - 1, i);
+            return new OpcaoParcela(n, primeira, ultima, principal + juros, juros);
+        }
+
+        @Override
+        List<ParcelaCronograma> cronograma(long principal, int n, double taxaJuros) {
+            double i = taxaJuros / 100.0;
+            long amortizacaoBase = principal / n;
+            List<ParcelaCronograma> parcelas = new ArrayList<>(n);
+            long saldo = principal;
+            long jurosAnteriores = 0;
+            for (int k = 0; k < n; k++) {
+                long acumulado = jurosAcumulados(principal, amortizacaoBase, k + 1, i);
+                long juros = acumulado - jurosAnteriores;
+                jurosAnteriores = acumulado;
+                long amortizacao = Dinheiro.parcela(principal, n, k);
+                saldo -= amortizacao;
+                parcelas.add(new ParcelaCronograma(k + 1, amortizacao + juros, juros, amortizacao, saldo));
+            }
+            return parcelas;
+        }
+
+        /**
+         * Juros das k primeiras parcelas: i * soma dos saldos devedores antes
+         * de cada uma (P, P - A, ..., P - (k-1)A), arredondado uma vez
+         */
+        private long jurosAcumulados(long principal, long amortizacao, int k, double i) {
+            long somaSaldos = k * principal - amortizacao * ((long) k * (k - 1) / 2);
+            return Math.round(somaSaldos * i);
+        }
+    };
+
+    /**
+     * Opção de parcelamento em {@code n} parcelas, em tempo constante
+     */
+    abstract OpcaoParcela opcao(long principal, int n, double taxaJuros, FatoresJuros fatores);
+
+    /**
+     * Cronograma completo de {@code n} parcelas
+     */
+    abstract List<ParcelaCronograma> cronograma(long principal, int n, double taxaJuros);
+
+    /**
+     * Sistema pelo nome (ex: "price", "SAC"); null ou vazio é SIMPLES
+     */
+    public static SistemaAmortizacao de(String nome) {
+        if (nome == null || nome.isBlank()) {
+            return SIMPLES;
+        }
+        try {
+            return valueOf(nome.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new AppException("Sistema de amortização inválido. Use: SIMPLES, PRICE, SAC", 400);
+        }
+    }
+}
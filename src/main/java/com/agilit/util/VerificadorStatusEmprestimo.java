@@ -174,10 +174,10 @@ public class VerificadorStatusEmprestimo {
             return 0.0;
         }
 
-        return emprestimo.getParcelas().stream()
+        return Dinheiro.reais(emprestimo.getParcelas().stream()
                 .filter(p -> p.getPaga() != null && p.getPaga())
-                .mapToDouble(Parcela::getValor)
-                .sum();
+                .mapToLong(Parcela::getValorCentavos)
+                .sum());
     }
 
     /**
@@ -191,10 +191,10 @@ public class VerificadorStatusEmprestimo {
             return 0.0;
         }
 
-        return emprestimo.getParcelas().stream()
+        return Dinheiro.reais(emprestimo.getParcelas().stream()
                 .filter(p -> p.getPaga() == null || !p.getPaga())
-                .mapToDouble(Parcela::getValor)
-                .sum();
+                .mapToLong(Parcela::getValorCentavos)
+                .sum());
     }
 
     /**
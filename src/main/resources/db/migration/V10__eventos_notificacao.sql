@@ -0,0 +1,28 @@
+-- ============================================
+-- V10: fila de saída (outbox) das notificações
+-- ============================================
+-- As transações de negócio não gravam mais a notificacao (título, mensagem
+-- de até 1000 caracteres e dois índices por destinatário): gravam aqui um
+-- evento curto, com o modelo da mensagem e os argumentos. A entrega
+-- (ver EntregaNotificacoes) lê os eventos em lotes, na ordem de criação,
+-- grava as notificações em lote e apaga os eventos, na mesma transação.
+--
+-- argumentos: valores do modelo separados por U+001F (ver NotificacaoService)
+
+CREATE SEQUENCE IF NOT EXISTS evento_notificacao_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS evento_notificacao (
+    id                 BIGINT NOT NULL,
+    tipo_destinatario  VARCHAR(10) NOT NULL,
+    destinatario_id    BIGINT NOT NULL,
+    modelo             VARCHAR(30) NOT NULL,
+    argumentos         VARCHAR(2000),
+    tipo_referencia    VARCHAR(20),
+    referencia         BIGINT,
+    data_criacao       TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- Entrega na ordem de criação
+CREATE INDEX IF NOT EXISTS idx_evento_notificacao_ordem
+    ON evento_notificacao (data_criacao, id);
@@ -0,0 +1,23 @@
+-- ============================================
+-- V11: posição das notificações no stream (SSE)
+-- ============================================
+-- O stream de notificações (GET /notificacao/{tipo}/{id}/stream) retoma a
+-- partir do Last-Event-ID. O ID da notificação não serve de posição: cada
+-- instância reserva faixas de 50 na notificacao_seq, e uma instância pode
+-- gravar IDs menores depois de outra ter gravado maiores.
+--
+-- lote: número do lote de entrega (ver EntregaNotificacoes), tirado de uma
+-- sequence sem faixas. As entregas de todas as instâncias são feitas uma
+-- de cada vez, então os lotes crescem na ordem de gravação; dentro do lote
+-- os IDs crescem. (lote, id) é a posição no stream.
+--
+-- Notificações gravadas antes desta versão ficam sem lote e não são
+-- reenviadas na retomada.
+
+CREATE SEQUENCE IF NOT EXISTS notificacao_lote_seq START WITH 1 INCREMENT BY 1;
+
+ALTER TABLE notificacao ADD COLUMN IF NOT EXISTS lote BIGINT;
+
+-- Retomada do stream: notificações do destinatário depois de uma posição
+CREATE INDEX IF NOT EXISTS idx_notificacao_destinatario_lote
+    ON notificacao (tipo_destinatario, destinatario_id, lote, id);
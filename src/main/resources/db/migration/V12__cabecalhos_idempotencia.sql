@@ -0,0 +1,11 @@
+-- ============================================
+-- V12: cabeçalhos da resposta gravada por Idempotency-Key
+-- ============================================
+-- A repetição de uma requisição recebe, além de status, tipo e corpo, os
+-- cabeçalhos da resposta original (Location, X-Next-Cursor, Link...).
+--
+-- cabecalhos: uma linha "Nome: valor" por valor, separadas por \n; sem os
+-- cabeçalhos de conexão e os recalculados na repetição (ver
+-- IdempotenciaFilter). NULL nas chaves gravadas antes desta versão.
+
+ALTER TABLE chave_idempotencia ADD COLUMN IF NOT EXISTS cabecalhos VARCHAR(4000);
@@ -0,0 +1,23 @@
+-- ============================================
+-- V13: lotes de notificação na ordem dos commits
+-- ============================================
+-- Corrige V11: a trava dos eventos (EventoNotificacaoDAO.findLote) não faz
+-- as entregas de instâncias diferentes serem uma de cada vez. Um evento
+-- criado antes e confirmado depois dos já travados vem primeiro na ordem de
+-- criação; uma segunda entrega pode travá-lo, completar o lote sem esbarrar
+-- na primeira e tirar um lote maior que o dela, mas fazer commit antes. Um
+-- stream que recebe o lote maior primeiro descarta o menor, e a retomada
+-- pelo Last-Event-ID também o pula.
+--
+-- A entrega trava a linha abaixo (SELECT ... FOR UPDATE) antes de tirar o
+-- número do lote, e a trava dura até o commit (ver
+-- NotificacaoDAO.proximoLote): o lote seguinte só é tirado depois do commit
+-- do anterior, então os lotes crescem na ordem dos commits.
+
+CREATE TABLE IF NOT EXISTS trava_lote_notificacao (
+    id  INTEGER NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO trava_lote_notificacao (id)
+SELECT 1 WHERE NOT EXISTS (SELECT 1 FROM trava_lote_notificacao WHERE id = 1);
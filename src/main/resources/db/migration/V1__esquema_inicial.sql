@@ -0,0 +1,161 @@
+-- ============================================
+-- V1: esquema inicial
+-- ============================================
+-- Tabelas, sequences e chaves estrangeiras como o hbm2ddl (update) criava.
+-- Os nomes das FKs são os gerados pelo Hibernate, para que bancos novos
+-- e bancos antigos fiquem iguais.
+--
+-- Bancos existentes (criados pelo hbm2ddl) não rodam esta versão: o Flyway
+-- marca o esquema atual como V1 (baseline) e aplica apenas as seguintes.
+
+CREATE SEQUENCE credor_seq              START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE devedor_seq             START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE oferta_emprestimo_seq   START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE proposta_emprestimo_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE interesse_proposta_seq  START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE emprestimo_seq          START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE parcela_seq             START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE notificacao_seq         START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE credor (
+    id               BIGINT NOT NULL,
+    cpf              VARCHAR(255) NOT NULL UNIQUE,
+    email            VARCHAR(255) NOT NULL UNIQUE,
+    nome             VARCHAR(255),
+    saldoDisponivel  FLOAT(53),
+    senha_hash       VARCHAR(255),
+    telefone         VARCHAR(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE devedor (
+    id               BIGINT NOT NULL,
+    cep              VARCHAR(255),
+    cidade           VARCHAR(255),
+    cpf              VARCHAR(255) NOT NULL UNIQUE,
+    data_nascimento  DATE,
+    email            VARCHAR(255) NOT NULL,
+    endereco         VARCHAR(255),
+    estado           VARCHAR(255),
+    nome             VARCHAR(255) NOT NULL,
+    senha_hash       VARCHAR(255),
+    telefone         VARCHAR(255) NOT NULL,
+    credor_id        BIGINT,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE oferta_emprestimo (
+    id                          BIGINT NOT NULL,
+    ativa                       BOOLEAN NOT NULL,
+    data_criacao                TIMESTAMP(6) NOT NULL,
+    dias_ate_primeira_cobranca  INTEGER NOT NULL,
+    parcelas_maximas            INTEGER NOT NULL,
+    parcelas_minimas            INTEGER NOT NULL,
+    taxa_juros                  FLOAT(53) NOT NULL,
+    valor_disponivel            FLOAT(53) NOT NULL,
+    credor_id                   BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE proposta_emprestimo (
+    id                          BIGINT NOT NULL,
+    data_criacao                TIMESTAMP(6) NOT NULL,
+    dias_ate_primeira_cobranca  INTEGER NOT NULL,
+    id_publico                  VARCHAR(255) NOT NULL UNIQUE,
+    nome_credor                 VARCHAR(255) NOT NULL,
+    parcelas_maximas            INTEGER NOT NULL,
+    parcelas_minimas            INTEGER NOT NULL,
+    status                      VARCHAR(255) NOT NULL,
+    taxa_juros                  FLOAT(53) NOT NULL,
+    valor_disponivel            FLOAT(53) NOT NULL,
+    credor_id                   BIGINT NOT NULL,
+    oferta_origem_id            BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE interesse_proposta (
+    id                        BIGINT NOT NULL,
+    confirmacao_credor        BOOLEAN NOT NULL,
+    confirmacao_devedor       BOOLEAN NOT NULL,
+    data_confirmacao_credor   TIMESTAMP(6),
+    data_confirmacao_devedor  TIMESTAMP(6),
+    data_interesse            TIMESTAMP(6) NOT NULL,
+    mensagem                  VARCHAR(500),
+    status                    VARCHAR(255) NOT NULL,
+    devedor_id                BIGINT NOT NULL,
+    proposta_id               BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    UNIQUE (proposta_id, devedor_id)
+);
+
+CREATE TABLE emprestimo (
+    id                   BIGINT NOT NULL,
+    data_inicio          DATE NOT NULL,
+    data_vencimento      DATE NOT NULL,
+    juros_aplicados      FLOAT(53) NOT NULL,
+    numero_parcelas      INTEGER NOT NULL,
+    parcelas_pagas       INTEGER NOT NULL,
+    status               SMALLINT NOT NULL CHECK (status BETWEEN 0 AND 2),
+    valor_principal      FLOAT(53) NOT NULL,
+    valor_total          FLOAT(53) NOT NULL,
+    credor_id            BIGINT NOT NULL,
+    devedor_id           BIGINT NOT NULL,
+    interesse_origem_id  BIGINT UNIQUE,
+    proposta_origem_id   BIGINT,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE parcela (
+    id               BIGINT NOT NULL,
+    atrasada         BOOLEAN NOT NULL,
+    data_pagamento   DATE,
+    data_vencimento  DATE NOT NULL,
+    numero_parcela   INTEGER NOT NULL,
+    paga             BOOLEAN NOT NULL,
+    valor            FLOAT(53) NOT NULL,
+    emprestimo_id    BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE notificacao (
+    id                 BIGINT NOT NULL,
+    data_criacao       TIMESTAMP(6) NOT NULL,
+    data_leitura       TIMESTAMP(6),
+    destinatario_id    BIGINT NOT NULL,
+    lida               BOOLEAN NOT NULL,
+    mensagem           VARCHAR(1000) NOT NULL,
+    referencia         VARCHAR(100),
+    tipo               VARCHAR(255) NOT NULL,
+    tipo_destinatario  VARCHAR(255) NOT NULL,
+    tipo_referencia    VARCHAR(50),
+    titulo             VARCHAR(200) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+ALTER TABLE devedor
+    ADD CONSTRAINT FKjj4u5dcmx31sied8g2n299i4l FOREIGN KEY (credor_id) REFERENCES credor;
+
+ALTER TABLE oferta_emprestimo
+    ADD CONSTRAINT FKem8qq6raod2hgfel8qba5q2dn FOREIGN KEY (credor_id) REFERENCES credor;
+
+ALTER TABLE proposta_emprestimo
+    ADD CONSTRAINT FKtonkxlafnx64pxll91inrpdi2 FOREIGN KEY (credor_id) REFERENCES credor;
+ALTER TABLE proposta_emprestimo
+    ADD CONSTRAINT FKefcnya0f43imac3qjrduki03o FOREIGN KEY (oferta_origem_id) REFERENCES oferta_emprestimo;
+
+ALTER TABLE interesse_proposta
+    ADD CONSTRAINT FKk3xf7a0f8vy1qdoy3kehu8fq6 FOREIGN KEY (devedor_id) REFERENCES devedor;
+ALTER TABLE interesse_proposta
+    ADD CONSTRAINT FK8il4dhhj240s6c8nju4wvqjo5 FOREIGN KEY (proposta_id) REFERENCES proposta_emprestimo;
+
+ALTER TABLE emprestimo
+    ADD CONSTRAINT FKfr7towosh5gni59eua0etyaq5 FOREIGN KEY (credor_id) REFERENCES credor;
+ALTER TABLE emprestimo
+    ADD CONSTRAINT FK44r9438hctndhfumtp8oy32le FOREIGN KEY (devedor_id) REFERENCES devedor;
+ALTER TABLE emprestimo
+    ADD CONSTRAINT FKd4qora8c7qaehj6xxjvwqxawh FOREIGN KEY (interesse_origem_id) REFERENCES interesse_proposta;
+ALTER TABLE emprestimo
+    ADD CONSTRAINT FK5ub3470gb0h8rs7la69lxs9ft FOREIGN KEY (proposta_origem_id) REFERENCES proposta_emprestimo;
+
+ALTER TABLE parcela
+    ADD CONSTRAINT FK932unmo8fwu2690g9cv4o8unf FOREIGN KEY (emprestimo_id) REFERENCES emprestimo;
@@ -0,0 +1,32 @@
+-- ============================================
+-- V2: IDENTITY -> SEQUENCE (otimizador pooled)
+-- ============================================
+-- As entidades passaram a usar sequences com allocationSize = 50.
+-- O Hibernate reserva 50 IDs por chamada a nextval() e usa a faixa
+-- (valor - 49 .. valor), o que permite inserir em lote (JDBC batching).
+--
+-- Bancos novos: as sequences já vêm da V1 e o setval não muda nada.
+-- Bancos existentes: cria as sequences que faltarem e posiciona cada uma
+-- para que a primeira faixa reservada fique acima do maior ID já gravado.
+--
+-- As colunas "id" continuam GENERATED BY DEFAULT AS IDENTITY, que aceita
+-- IDs explícitos; nada precisa ser alterado nas tabelas.
+
+CREATE SEQUENCE IF NOT EXISTS credor_seq              START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS devedor_seq             START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS oferta_emprestimo_seq   START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS proposta_emprestimo_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS interesse_proposta_seq  START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS emprestimo_seq          START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS parcela_seq             START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS notificacao_seq         START WITH 1 INCREMENT BY 50;
+
+-- O próximo nextval() devolve MAX(id) + 50, logo a faixa começa em MAX(id) + 1
+SELECT setval('credor_seq',              COALESCE((SELECT MAX(id) FROM credor), 0) + 50, false);
+SELECT setval('devedor_seq',             COALESCE((SELECT MAX(id) FROM devedor), 0) + 50, false);
+SELECT setval('oferta_emprestimo_seq',   COALESCE((SELECT MAX(id) FROM oferta_emprestimo), 0) + 50, false);
+SELECT setval('proposta_emprestimo_seq', COALESCE((SELECT MAX(id) FROM proposta_emprestimo), 0) + 50, false);
+SELECT setval('interesse_proposta_seq',  COALESCE((SELECT MAX(id) FROM interesse_proposta), 0) + 50, false);
+SELECT setval('emprestimo_seq',          COALESCE((SELECT MAX(id) FROM emprestimo), 0) + 50, false);
+SELECT setval('parcela_seq',             COALESCE((SELECT MAX(id) FROM parcela), 0) + 50, false);
+SELECT setval('notificacao_seq',         COALESCE((SELECT MAX(id) FROM notificacao), 0) + 50, false);
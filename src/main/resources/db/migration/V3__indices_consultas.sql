@@ -0,0 +1,58 @@
+-- ============================================
+-- V3: índices secundários das consultas dos DAOs
+-- ============================================
+-- O hbm2ddl (update) nunca criava índices em tabelas já existentes, então
+-- todas as listagens faziam seq scan. Cada índice abaixo cobre o filtro
+-- e a ordenação de um grupo de consultas; os mesmos índices estão
+-- declarados com @Index nas entidades.
+--
+-- IF NOT EXISTS: bancos criados depois do @Index já têm alguns deles.
+
+-- notificacao: listagem por destinatário (keyset em data_criacao, id)
+CREATE INDEX IF NOT EXISTS idx_notificacao_destinatario_data
+    ON notificacao (tipo_destinatario, destinatario_id, data_criacao DESC, id DESC);
+
+-- notificacao: lidas / não lidas e contagem de não lidas
+CREATE INDEX IF NOT EXISTS idx_notificacao_destinatario_lida
+    ON notificacao (tipo_destinatario, destinatario_id, lida, data_criacao DESC);
+
+-- parcela: parcelas de um empréstimo, em ordem
+CREATE INDEX IF NOT EXISTS idx_parcela_emprestimo_numero
+    ON parcela (emprestimo_id, numero_parcela);
+
+-- parcela: vencidas / vencendo (sempre paga = false). O índice parcial
+-- só guarda as pendentes e substitui o antigo (paga, data_vencimento, id)
+DROP INDEX IF EXISTS idx_parcela_vencimento;
+CREATE INDEX IF NOT EXISTS idx_parcela_vencimento_pendente
+    ON parcela (data_vencimento, id) WHERE paga = false;
+
+-- interesse_proposta: interesses do devedor (por status e por data)
+-- Por proposta já existe o índice da UNIQUE (proposta_id, devedor_id)
+CREATE INDEX IF NOT EXISTS idx_interesse_devedor_status
+    ON interesse_proposta (devedor_id, status);
+CREATE INDEX IF NOT EXISTS idx_interesse_devedor_data
+    ON interesse_proposta (devedor_id, data_interesse DESC);
+
+-- proposta_emprestimo: marketplace por status (recentes e menor taxa)
+CREATE INDEX IF NOT EXISTS idx_proposta_status_data
+    ON proposta_emprestimo (status, data_criacao DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_proposta_status_taxa
+    ON proposta_emprestimo (status, taxa_juros);
+
+-- proposta_emprestimo: propostas do credor e da oferta de origem
+CREATE INDEX IF NOT EXISTS idx_proposta_credor_data
+    ON proposta_emprestimo (credor_id, data_criacao DESC);
+CREATE INDEX IF NOT EXISTS idx_proposta_oferta_data
+    ON proposta_emprestimo (oferta_origem_id, data_criacao DESC);
+
+-- oferta_emprestimo: ofertas do credor (todas ou só ativas)
+CREATE INDEX IF NOT EXISTS idx_oferta_credor_data
+    ON oferta_emprestimo (credor_id, data_criacao DESC);
+
+-- emprestimo: empréstimos do credor / devedor e da proposta de origem
+CREATE INDEX IF NOT EXISTS idx_emprestimo_credor_inicio
+    ON emprestimo (credor_id, data_inicio DESC);
+CREATE INDEX IF NOT EXISTS idx_emprestimo_devedor_inicio
+    ON emprestimo (devedor_id, data_inicio DESC);
+CREATE INDEX IF NOT EXISTS idx_emprestimo_proposta
+    ON emprestimo (proposta_origem_id);
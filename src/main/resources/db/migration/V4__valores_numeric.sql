@@ -0,0 +1,26 @@
+-- ============================================
+-- V4: valores monetários em NUMERIC(15,2)
+-- ============================================
+-- As colunas de valor eram float(53) (double): cada parcela era arredondada
+-- separadamente e a soma do cronograma se afastava do valor total.
+-- Agora as entidades guardam centavos (long) e o CentavosConverter grava
+-- NUMERIC(15,2) em reais: exato no banco e ainda legível em relatórios.
+--
+-- Valores já gravados são arredondados para o centavo.
+
+ALTER TABLE credor
+    ALTER COLUMN saldoDisponivel TYPE NUMERIC(15,2) USING ROUND(saldoDisponivel::numeric, 2);
+
+ALTER TABLE oferta_emprestimo
+    ALTER COLUMN valor_disponivel TYPE NUMERIC(15,2) USING ROUND(valor_disponivel::numeric, 2);
+
+ALTER TABLE proposta_emprestimo
+    ALTER COLUMN valor_disponivel TYPE NUMERIC(15,2) USING ROUND(valor_disponivel::numeric, 2);
+
+ALTER TABLE emprestimo
+    ALTER COLUMN valor_principal TYPE NUMERIC(15,2) USING ROUND(valor_principal::numeric, 2),
+    ALTER COLUMN juros_aplicados TYPE NUMERIC(15,2) USING ROUND(juros_aplicados::numeric, 2),
+    ALTER COLUMN valor_total     TYPE NUMERIC(15,2) USING ROUND(valor_total::numeric, 2);
+
+ALTER TABLE parcela
+    ALTER COLUMN valor TYPE NUMERIC(15,2) USING ROUND(valor::numeric, 2);
@@ -0,0 +1,12 @@
+-- ============================================
+-- V5: sequence dos IDs públicos das propostas
+-- ============================================
+-- O ID público (#ABC123) passa a ser um número desta sequence passado por
+-- uma permutação de [0, 36^6) (ver GeradorIdPublico), no lugar de um
+-- sorteio conferido com SELECT COUNT a cada tentativa.
+--
+-- INCREMENT BY 100 = GeradorIdPublico.TAMANHO_BLOCO: cada nextval reserva
+-- 100 números para a instância que o chamou. MAXVALUE = 36^6 - 1.
+
+CREATE SEQUENCE IF NOT EXISTS proposta_id_publico_seq
+    START WITH 0 MINVALUE 0 INCREMENT BY 100 MAXVALUE 2176782335;
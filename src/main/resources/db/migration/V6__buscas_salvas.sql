@@ -0,0 +1,30 @@
+-- ============================================
+-- V6: buscas salvas dos devedores
+-- ============================================
+-- O devedor grava os filtros de /devedor/buscar-propostas e é notificado
+-- quando uma proposta nova os atende (ver IndiceBuscasSalvas), em vez de
+-- repetir a busca. Filtro NULL = sem limite naquele critério.
+--
+-- ON DELETE CASCADE: excluir o devedor leva as buscas dele junto.
+
+CREATE SEQUENCE IF NOT EXISTS busca_salva_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS busca_salva (
+    id              BIGINT NOT NULL,
+    devedor_id      BIGINT NOT NULL,
+    nome            VARCHAR(100),
+    valor_min       NUMERIC(15,2),
+    valor_max       NUMERIC(15,2),
+    parcelas_min    INTEGER,
+    parcelas_max    INTEGER,
+    taxa_juros_max  FLOAT(53),
+    data_criacao    TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+ALTER TABLE busca_salva
+    ADD CONSTRAINT fk_busca_salva_devedor FOREIGN KEY (devedor_id) REFERENCES devedor ON DELETE CASCADE;
+
+-- busca_salva: buscas do devedor, mais recentes primeiro
+CREATE INDEX IF NOT EXISTS idx_busca_salva_devedor
+    ON busca_salva (devedor_id, data_criacao DESC);
@@ -0,0 +1,14 @@
+-- ============================================
+-- V7: coluna de versão (lock otimista)
+-- ============================================
+-- A originação do empréstimo (OriginacaoEmprestimoService) lia e gravava
+-- as confirmações do interesse, o status da proposta e o saldo do credor
+-- sem lock: confirmações simultâneas criavam dois empréstimos ou nenhum.
+-- Com @Version, o UPDATE leva "WHERE versao = ?" e a transação que perder
+-- a corrida falha e é refeita sobre os dados novos.
+--
+-- Linhas existentes começam na versão 0.
+
+ALTER TABLE interesse_proposta  ADD COLUMN IF NOT EXISTS versao BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE proposta_emprestimo ADD COLUMN IF NOT EXISTS versao BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE credor              ADD COLUMN IF NOT EXISTS versao BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,51 @@
+-- ============================================
+-- V8: livro de movimentações do saldo do credor
+-- ============================================
+-- O saldo do credor era lido, somado em Java e gravado de volta: depósitos
+-- e débitos simultâneos perdiam atualizações. Agora cada mudança é um
+-- UPDATE condicional (saldoDisponivel = saldoDisponivel - x WHERE
+-- saldoDisponivel >= x) mais uma linha neste livro, que só recebe INSERT
+-- (ver SaldoCredorService). credor.saldoDisponivel continua sendo o saldo
+-- corrente, lido em O(1); saldo_apos guarda o saldo depois de cada
+-- movimentação, para conferir o livro a partir de qualquer linha.
+--
+-- Bancos existentes: saldo nulo vira 0 e cada saldo positivo ganha um
+-- DEPOSITO de abertura, para a soma do livro bater com o saldo.
+
+UPDATE credor SET saldoDisponivel = 0 WHERE saldoDisponivel IS NULL;
+ALTER TABLE credor ALTER COLUMN saldoDisponivel SET DEFAULT 0;
+ALTER TABLE credor ALTER COLUMN saldoDisponivel SET NOT NULL;
+
+CREATE SEQUENCE IF NOT EXISTS movimentacao_saldo_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS movimentacao_saldo (
+    id               BIGINT NOT NULL,
+    credor_id        BIGINT NOT NULL,
+    tipo             VARCHAR(20) NOT NULL,
+    valor            NUMERIC(15,2) NOT NULL,
+    saldo_apos       NUMERIC(15,2) NOT NULL,
+    tipo_referencia  VARCHAR(20),
+    referencia       BIGINT,
+    data_criacao     TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+ALTER TABLE movimentacao_saldo
+    ADD CONSTRAINT fk_movimentacao_saldo_credor FOREIGN KEY (credor_id) REFERENCES credor ON DELETE CASCADE;
+
+-- Extrato do credor, mais recentes primeiro (keyset por id)
+CREATE INDEX IF NOT EXISTS idx_movimentacao_saldo_credor
+    ON movimentacao_saldo (credor_id, id DESC);
+
+-- Um desembolso por empréstimo, um recebimento por parcela (depósitos não
+-- têm referência, e NULLs não conflitam entre si)
+CREATE UNIQUE INDEX IF NOT EXISTS uk_movimentacao_saldo_referencia
+    ON movimentacao_saldo (tipo, tipo_referencia, referencia);
+
+INSERT INTO movimentacao_saldo (id, credor_id, tipo, valor, saldo_apos, data_criacao)
+SELECT id, id, 'DEPOSITO', saldoDisponivel, saldoDisponivel, CURRENT_TIMESTAMP
+  FROM credor
+ WHERE saldoDisponivel > 0;
+
+-- Mesmo posicionamento da V2: a primeira faixa reservada fica acima dos IDs de abertura
+SELECT setval('movimentacao_saldo_seq', COALESCE((SELECT MAX(id) FROM movimentacao_saldo), 0) + 50, false);
@@ -0,0 +1,25 @@
+-- ============================================
+-- V9: chaves de idempotência
+-- ============================================
+-- Clientes que repetem um POST/PUT depois de um timeout mandam a mesma
+-- Idempotency-Key; a repetição recebe a resposta gravada aqui, sem
+-- executar a operação de novo (ver IdempotenciaFilter e ChavesIdempotencia).
+--
+-- status NULL = requisição ainda em andamento; expira_em é então o prazo
+-- da reserva. Com a resposta gravada, expira_em passa a ser o fim da
+-- validade da chave. Linhas vencidas são apagadas periodicamente.
+
+CREATE TABLE IF NOT EXISTS chave_idempotencia (
+    chave          VARCHAR(255) NOT NULL,
+    requisicao     VARCHAR(500) NOT NULL,
+    status         INTEGER,
+    tipo_conteudo  VARCHAR(255),
+    corpo          BYTEA,
+    data_criacao   TIMESTAMP(6) NOT NULL,
+    expira_em      TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (chave)
+);
+
+-- chave_idempotencia: limpeza das chaves vencidas
+CREATE INDEX IF NOT EXISTS idx_chave_idempotencia_expira
+    ON chave_idempotencia (expira_em);
@@ -0,0 +1,99 @@
+package com.agilit.benchmark;
+
+import com.agilit.util.CalculadoraEmprestimo;
+import com.agilit.util.SistemaAmortizacao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH da CalculadoraEmprestimo nos caminhos de requisição: as
+ * opções de parcelamento (detalhes de oferta/proposta, simulação) e as datas
+ * das parcelas (criação do empréstimo).
+ *
+ * As variantes "*Concorrente" rodam com 4 threads e mostram a disputa no
+ * cache de FatoresJuros e a alocação sob carga.
+ *
+ * Não roda no "mvn test". Uso (depois de mvn test-compile):
+ * java -cp target/test-classes:target/classes:&lt;classpath de teste&gt; com.agilit.benchmark.CalculadoraEmprestimoBenchmark
+ * Números de referência em Docs/BENCHMARKS.md.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculadoraEmprestimoBenchmark {
+
+    private static final long VALOR_PRINCIPAL = 12_345_67L;
+    private static final double TAXA_JUROS = 2.5;
+    private static final int DIAS_ATE_PRIMEIRA_COBRANCA = 30;
+
+    @State(Scope.Thread)
+    public static class Opcoes {
+        @Param({"12", "48"})
+        public int parcelasMaximas;
+
+        @Param({"SIMPLES", "PRICE", "SAC"})
+        public SistemaAmortizacao sistema;
+    }
+
+    @State(Scope.Thread)
+    public static class Datas {
+        @Param({"12", "48"})
+        public int numeroParcelas;
+
+        public LocalDate dataInicio;
+
+        @Setup
+        public void preparar() {
+            dataInicio = LocalDate.of(2025, 1, 31); // fim de mês: plusMonths ajusta o dia
+        }
+    }
+
+    @Benchmark
+    public List<CalculadoraEmprestimo.OpcaoParcela> opcoesParcelas(Opcoes opcoes) {
+        return CalculadoraEmprestimo.calcularOpcoesParcelas(VALOR_PRINCIPAL, 1, opcoes.parcelasMaximas,
+                                                            TAXA_JUROS, opcoes.sistema);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<CalculadoraEmprestimo.OpcaoParcela> opcoesParcelasConcorrente(Opcoes opcoes) {
+        return opcoesParcelas(opcoes);
+    }
+
+    @Benchmark
+    public List<LocalDate> datasParcelas(Datas datas) {
+        return CalculadoraEmprestimo.calcularDatasParcelas(datas.dataInicio, datas.numeroParcelas,
+                                                           DIAS_ATE_PRIMEIRA_COBRANCA);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<LocalDate> datasParcelasConcorrente(Datas datas) {
+        return datasParcelas(datas);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CalculadoraEmprestimoBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,94 @@
+package com.agilit.benchmark;
+
+import com.agilit.util.CalculadoraEmprestimo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH do cronograma de parcelas: double (arredondar por parcela,
+ * como era antes) contra centavos (long, resto na última parcela).
+ *
+ * Os dois geram os valores de todas as parcelas de um empréstimo e a soma do
+ * cronograma; o de double também mostra a diferença entre essa soma e o
+ * valor total, que no de centavos é sempre zero.
+ *
+ * Não roda no "mvn test". Uso (depois de mvn test-compile):
+ * java -cp target/test-classes:target/classes:&lt;classpath de teste&gt; com.agilit.benchmark.CalculoParcelasBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculoParcelasBenchmark {
+
+    @Param({"1000.00", "12345.67"})
+    public double valorPrincipal;
+
+    @Param({"12", "36"})
+    public int numeroParcelas;
+
+    private static final double TAXA_JUROS = 2.5;
+
+    private long valorPrincipalCentavos;
+
+    @Setup
+    public void preparar() {
+        valorPrincipalCentavos = Math.round(valorPrincipal * 100.0);
+    }
+
+    @Benchmark
+    public double cronogramaDouble(Blackhole bh) {
+        double juros = CalculadoraEmprestimo.calcularJurosSimples(valorPrincipal, TAXA_JUROS, numeroParcelas);
+        double valorTotal = valorPrincipal + juros;
+        double soma = 0.0;
+        for (int i = 0; i < numeroParcelas; i++) {
+            // Boxed como no antigo Parcela.setValor(Double)
+            Double parcela = CalculadoraEmprestimo.arredondar(valorTotal / numeroParcelas);
+            bh.consume(parcela);
+            soma += parcela;
+        }
+        // Diferença entre o cronograma e o total (centavos perdidos ou sobrando)
+        return soma - valorTotal;
+    }
+
+    @Benchmark
+    public long cronogramaCentavos(Blackhole bh) {
+        long juros = CalculadoraEmprestimo.calcularJurosSimplesCentavos(valorPrincipalCentavos, TAXA_JUROS, numeroParcelas);
+        long valorTotal = valorPrincipalCentavos + juros;
+        long soma = 0;
+        for (int i = 0; i < numeroParcelas; i++) {
+            long parcela = CalculadoraEmprestimo.calcularValorParcelaCentavos(valorTotal, numeroParcelas, i);
+            bh.consume(parcela);
+            soma += parcela;
+        }
+        return soma - valorTotal;
+    }
+
+    @Benchmark
+    public Object opcoesParcelas() {
+        return CalculadoraEmprestimo.calcularOpcoesParcelas(valorPrincipalCentavos, 1, numeroParcelas, TAXA_JUROS);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CalculoParcelasBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,249 @@
+package com.agilit.benchmark;
+
+import com.agilit.config.AppException;
+import com.agilit.config.JPAUtil;
+import com.agilit.model.Credor;
+import com.agilit.model.Devedor;
+import com.agilit.model.InteresseProposta;
+import com.agilit.model.MovimentacaoSaldo;
+import com.agilit.model.OfertaEmprestimo;
+import com.agilit.model.PropostaEmprestimo;
+import com.agilit.model.dao.CredorDAO;
+import com.agilit.service.OriginacaoEmprestimoService;
+import com.agilit.service.OriginacaoEmprestimoService.Parte;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Teste de estresse da confirmação bilateral (OriginacaoEmprestimoService).
+ *
+ * Dispara N confirmações ao mesmo tempo para o mesmo interesse aprovado,
+ * metade como credor e metade como devedor, e confere o resultado no banco:
+ * exatamente um empréstimo, um débito no saldo do credor (um DESEMBOLSO no
+ * livro) e a proposta ACEITA.
+ * Antes do @Version, o mesmo cenário criava dois empréstimos (ou nenhum).
+ *
+ * Precisa de um banco real (usa o agilitPU via JPAUtil, com as migrações),
+ * por isso é um main e não roda no "mvn test". Os dados criados são
+ * removidos no final. Sai com código 1 se alguma conferência falhar.
+ *
+ * Uso: java ... com.agilit.benchmark.ConfirmacaoConcorrenteStress [confirmacoes] [rodadas]
+ */
+public class ConfirmacaoConcorrenteStress {
+
+    private static final long VALOR_PROPOSTA = 1_000_000L;
+    private static final long SALDO_INICIAL = 5 * VALOR_PROPOSTA;
+    private static final int PARCELAS = 12;
+
+    public static void main(String[] args) throws Exception {
+        int confirmacoes = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int rodadas = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        System.out.println("\n====================================");
+        System.out.printf(" Confirmações simultâneas: %d por interesse, %d rodadas%n", confirmacoes, rodadas);
+        System.out.println("====================================\n");
+
+        EntityManagerFactory emf = JPAUtil.getEntityManagerFactory();
+        OriginacaoEmprestimoService servico = new OriginacaoEmprestimoService(emf);
+        ExecutorService executor = Executors.newFixedThreadPool(confirmacoes);
+        boolean ok = true;
+
+        try {
+            for (int rodada = 1; rodada <= rodadas; rodada++) {
+                Long[] fixture = criarFixture(emf);
+                try {
+                    ok &= executarRodada(rodada, emf, servico, executor, fixture, confirmacoes);
+                } finally {
+                    removerFixture(emf, fixture);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            emf.close();
+        }
+
+        System.out.println(ok ? "OK" : "FALHOU");
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean executarRodada(int rodada, EntityManagerFactory emf, OriginacaoEmprestimoService servico,
+                                          ExecutorService executor, Long[] fixture, int confirmacoes) throws Exception {
+        Long interesseId = fixture[4];
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger sucessos = new AtomicInteger();
+        AtomicInteger emprestimosDevolvidos = new AtomicInteger();
+        Map<Integer, AtomicInteger> erros = new ConcurrentHashMap<>();
+
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (int i = 0; i < confirmacoes; i++) {
+            Parte parte = i % 2 == 0 ? Parte.CREDOR : Parte.DEVEDOR;
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                try {
+                    OriginacaoEmprestimoService.Resultado resultado = servico.confirmar(interesseId, parte, PARCELAS);
+                    sucessos.incrementAndGet();
+                    if (resultado.emprestimo() != null) {
+                        emprestimosDevolvidos.incrementAndGet();
+                    }
+                } catch (AppException e) {
+                    erros.computeIfAbsent(e.getStatus(), s -> new AtomicInteger()).incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        long inicio = System.nanoTime();
+        largada.countDown();
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get();
+        }
+        long duracao = System.nanoTime() - inicio;
+
+        EntityManager em = emf.createEntityManager();
+        long emprestimos;
+        long desembolsos;
+        long saldo;
+        String statusProposta;
+        try {
+            emprestimos = em.createQuery(
+                "SELECT COUNT(e) FROM Emprestimo e WHERE e.interesseOrigem.id = :interesseId", Long.class)
+                .setParameter("interesseId", interesseId)
+                .getSingleResult();
+            desembolsos = em.createQuery(
+                "SELECT COUNT(m) FROM MovimentacaoSaldo m WHERE m.credor.id = :credorId AND m.tipo = :tipo", Long.class)
+                .setParameter("credorId", fixture[0])
+                .setParameter("tipo", MovimentacaoSaldo.Tipo.DESEMBOLSO)
+                .getSingleResult();
+            saldo = new CredorDAO(em).findSaldo(fixture[0]);
+            statusProposta = em.find(PropostaEmprestimo.class, fixture[3]).getStatus();
+        } finally {
+            em.close();
+        }
+
+        boolean ok = emprestimos == 1
+                && desembolsos == 1
+                && emprestimosDevolvidos.get() == 1
+                && sucessos.get() == 2
+                && saldo == SALDO_INICIAL - VALOR_PROPOSTA
+                && "ACEITA".equals(statusProposta);
+
+        System.out.printf("--- rodada %d (%.1f ms) %s ---%n", rodada, duracao / 1e6, ok ? "ok" : "FALHOU");
+        System.out.printf("  confirmações aceitas: %d | erros por status: %s%n", sucessos.get(), erros);
+        System.out.printf("  empréstimos no banco: %d | desembolsos no livro: %d | saldo debitado: %d centavos | proposta: %s%n%n",
+                          emprestimos, desembolsos, SALDO_INICIAL - saldo, statusProposta);
+        return ok;
+    }
+
+    /**
+     * Credor com saldo, oferta, proposta ATIVA, devedor e interesse APROVADO
+     * sem confirmações: {credor, devedor, oferta, proposta, interesse}
+     */
+    private static Long[] criarFixture(EntityManagerFactory emf) {
+        String sufixo = Long.toString(System.nanoTime());
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+
+            Credor credor = new Credor();
+            credor.setNome("Stress Credor");
+            credor.setCpf("stress-c-" + sufixo);
+            credor.setTelefone("0");
+            credor.setEmail("stress-c-" + sufixo + "@agilit.local");
+            credor.setSaldoDisponivelCentavos(SALDO_INICIAL);
+            em.persist(credor);
+
+            Devedor devedor = new Devedor();
+            devedor.setNome("Stress Devedor");
+            devedor.setCpf("stress-d-" + sufixo);
+            devedor.setTelefone("0");
+            devedor.setEmail("stress-d-" + sufixo + "@agilit.local");
+            em.persist(devedor);
+
+            OfertaEmprestimo oferta = new OfertaEmprestimo();
+            oferta.setCredor(credor);
+            oferta.setValorDisponivelCentavos(VALOR_PROPOSTA);
+            oferta.setParcelasMinimas(1);
+            oferta.setParcelasMaximas(24);
+            oferta.setDiasAtePrimeiraCobranca(30);
+            oferta.setTaxaJuros(2.0);
+            oferta.setDataCriacao(LocalDateTime.now());
+            oferta.setAtiva(true);
+            em.persist(oferta);
+
+            PropostaEmprestimo proposta = new PropostaEmprestimo();
+            proposta.setIdPublico("#S" + sufixo.substring(Math.max(0, sufixo.length() - 12)));
+            proposta.setOfertaOrigem(oferta);
+            proposta.setCredor(credor);
+            proposta.setNomeCredor(credor.getNome());
+            proposta.setValorDisponivelCentavos(VALOR_PROPOSTA);
+            proposta.setParcelasMinimas(1);
+            proposta.setParcelasMaximas(24);
+            proposta.setDiasAtePrimeiraCobranca(30);
+            proposta.setTaxaJuros(2.0);
+            proposta.setDataCriacao(LocalDateTime.now());
+            proposta.setStatus("ATIVA");
+            em.persist(proposta);
+
+            InteresseProposta interesse = new InteresseProposta();
+            interesse.setProposta(proposta);
+            interesse.setDevedor(devedor);
+            interesse.setDataInteresse(LocalDateTime.now());
+            interesse.setStatus("APROVADO");
+            interesse.setConfirmacaoCredor(false);
+            interesse.setConfirmacaoDevedor(false);
+            em.persist(interesse);
+
+            em.getTransaction().commit();
+            return new Long[] {credor.getId(), devedor.getId(), oferta.getId(), proposta.getId(), interesse.getId()};
+        } finally {
+            em.close();
+        }
+    }
+
+    private static void removerFixture(EntityManagerFactory emf, Long[] fixture) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.createQuery("DELETE FROM Parcela p WHERE p.emprestimo.id IN "
+                         + "(SELECT e.id FROM Emprestimo e WHERE e.credor.id = :credorId)")
+              .setParameter("credorId", fixture[0])
+              .executeUpdate();
+            em.createQuery("DELETE FROM Emprestimo e WHERE e.credor.id = :credorId")
+              .setParameter("credorId", fixture[0])
+              .executeUpdate();
+            em.createQuery("DELETE FROM Notificacao n WHERE "
+                         + "(n.tipoDestinatario = 'CREDOR' AND n.destinatarioId = :credorId) OR "
+                         + "(n.tipoDestinatario = 'DEVEDOR' AND n.destinatarioId = :devedorId)")
+              .setParameter("credorId", fixture[0])
+              .setParameter("devedorId", fixture[1])
+              .executeUpdate();
+            em.createQuery("DELETE FROM EventoNotificacao n WHERE "
+                         + "(n.tipoDestinatario = 'CREDOR' AND n.destinatarioId = :credorId) OR "
+                         + "(n.tipoDestinatario = 'DEVEDOR' AND n.destinatarioId = :devedorId)")
+              .setParameter("credorId", fixture[0])
+              .setParameter("devedorId", fixture[1])
+              .executeUpdate();
+            em.createQuery("DELETE FROM InteresseProposta i WHERE i.id = :id").setParameter("id", fixture[4]).executeUpdate();
+            em.createQuery("DELETE FROM PropostaEmprestimo p WHERE p.id = :id").setParameter("id", fixture[3]).executeUpdate();
+            em.createQuery("DELETE FROM OfertaEmprestimo o WHERE o.id = :id").setParameter("id", fixture[2]).executeUpdate();
+            em.createQuery("DELETE FROM Devedor d WHERE d.id = :id").setParameter("id", fixture[1]).executeUpdate();
+            em.createQuery("DELETE FROM Credor c WHERE c.id = :id").setParameter("id", fixture[0]).executeUpdate();
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.agilit.benchmark;
+
+import com.agilit.util.GeradorIdPublico;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH do GeradorIdPublico, chamado a cada proposta criada.
+ *
+ * gerar mede a permutação de um número da sequence em ID (o nextval de cada
+ * bloco fica de fora: é uma ida ao banco a cada 100 IDs); validar confere o
+ * formato. As variantes "*Concorrente" rodam com 4 threads.
+ *
+ * Não roda no "mvn test". Uso (depois de mvn test-compile):
+ * java -cp target/test-classes:target/classes:&lt;classpath de teste&gt; com.agilit.benchmark.GeradorIdPublicoBenchmark
+ * Números de referência em Docs/BENCHMARKS.md.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeradorIdPublicoBenchmark {
+
+    // Um válido e um que só falha nos caracteres (passa no tamanho e no "#")
+    public String idValido = "#A1B2C3";
+    public String idInvalido = "#a1b2c3";
+
+    private long sequencia;
+
+    @Benchmark
+    public String gerar() {
+        sequencia = (sequencia + 1) % 1_000_000;
+        return GeradorIdPublico.de(sequencia);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String gerarConcorrente() {
+        return gerar();
+    }
+
+    @Benchmark
+    public boolean validar() {
+        return GeradorIdPublico.validar(idValido) & !GeradorIdPublico.validar(idInvalido);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean validarConcorrente() {
+        return validar();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GeradorIdPublicoBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
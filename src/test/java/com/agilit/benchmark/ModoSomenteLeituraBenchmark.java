@@ -0,0 +1,243 @@
+package com.agilit.benchmark;
+
+import com.agilit.config.PoolConexoes;
+import com.agilit.config.TransacaoInterceptor;
+import com.agilit.controller.emprestimo.StatusEmprestimo;
+import com.agilit.model.Credor;
+import com.agilit.model.Devedor;
+import com.agilit.model.Emprestimo;
+import com.agilit.model.Parcela;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.Session;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmark do modo somente leitura (@SomenteLeitura) nos endpoints GET.
+ *
+ * Executa a mesma leitura de uma requisição típica (empréstimos do credor e,
+ * para cada um, parcelas e contagem de pagas, como o resumo de parcelas) numa
+ * transação normal e numa transação com TransacaoInterceptor.somenteLeitura. Mede memória
+ * alocada por requisição (bytes alocados pela thread), latência (p50/p95) e
+ * quantas entidades passaram por dirty checking nos flushes automáticos
+ * que o Hibernate faz antes de cada consulta.
+ *
+ * Precisa de um banco real (usa o persistence.xml do agilitPU), por isso é um
+ * main e não roda no "mvn test". Os dados criados são removidos no final.
+ *
+ * Uso: java ... com.agilit.benchmark.ModoSomenteLeituraBenchmark [requisicoes] [emprestimos] [parcelas]
+ */
+public class ModoSomenteLeituraBenchmark {
+
+    private static final int AQUECIMENTO = 50;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /** Consome os resultados para o JIT não descartar o trabalho */
+    private static volatile double consumido;
+
+    public static void main(String[] args) {
+        int requisicoes = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int emprestimos = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int parcelas = args.length > 2 ? Integer.parseInt(args[2]) : 24;
+
+        System.out.println("\n====================================");
+        System.out.printf(" Leitura: %d requisições, %d empréstimos x %d parcelas cada%n",
+                          requisicoes, emprestimos, parcelas);
+        System.out.println("====================================\n");
+
+        Map<String, Object> props = PoolConexoes.propriedades();
+        props.put("hibernate.show_sql", "false");
+        props.put("hibernate.cache.use_second_level_cache", "false");
+
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("agilitPU", props);
+        Long[] fixture = criarFixture(emf, emprestimos, parcelas);
+
+        try {
+            // Alternados no aquecimento para o JIT tratar os dois caminhos igual
+            for (int i = 0; i < AQUECIMENTO; i++) {
+                ler(emf, fixture[0], false, new ContadorFlushes());
+                ler(emf, fixture[0], true, new ContadorFlushes());
+            }
+
+            executarCenario("transação normal", emf, fixture[0], false, requisicoes);
+            executarCenario("@SomenteLeitura", emf, fixture[0], true, requisicoes);
+        } finally {
+            removerFixture(emf, fixture);
+            emf.close();
+        }
+    }
+
+    private static void executarCenario(String nome, EntityManagerFactory emf, Long credorId,
+                                        boolean somenteLeitura, int requisicoes) {
+        long[] latencias = new long[requisicoes];
+        long alocados = 0;
+        ContadorFlushes contador = new ContadorFlushes();
+
+        for (int i = 0; i < requisicoes; i++) {
+            long bytesAntes = THREADS.getCurrentThreadAllocatedBytes();
+            long inicio = System.nanoTime();
+            ler(emf, credorId, somenteLeitura, contador);
+            latencias[i] = System.nanoTime() - inicio;
+            alocados += THREADS.getCurrentThreadAllocatedBytes() - bytesAntes;
+        }
+
+        Arrays.sort(latencias);
+        System.out.println("--- " + nome + " ---");
+        System.out.printf("  memória alocada por requisição: %.1f KB%n", alocados / 1024.0 / requisicoes);
+        System.out.printf("  entidades verificadas no auto-flush por requisição: %.0f%n",
+                          contador.entidadesVerificadas / (double) requisicoes);
+        System.out.printf("  latência p50: %.2f ms | p95: %.2f ms%n%n",
+                          latencias[requisicoes / 2] / 1e6,
+                          latencias[(int) (requisicoes * 0.95)] / 1e6);
+    }
+
+    /**
+     * Mesmo trabalho de banco de uma requisição GET, como o TransacaoInterceptor a executa
+     */
+    private static void ler(EntityManagerFactory emf, Long credorId, boolean somenteLeitura, ContadorFlushes contador) {
+        EntityManager em = emf.createEntityManager();
+        em.unwrap(Session.class).addEventListeners(contador);
+
+        try {
+            em.getTransaction().begin();
+            if (somenteLeitura) {
+                TransacaoInterceptor.somenteLeitura(em);
+            }
+
+            List<Emprestimo> emprestimos = em.createQuery(
+                "SELECT e FROM Emprestimo e WHERE e.credor.id = :credorId ORDER BY e.id", Emprestimo.class)
+                .setParameter("credorId", credorId)
+                .getResultList();
+
+            double totalPendente = 0;
+            long parcelasPagas = 0;
+            for (Emprestimo emprestimo : emprestimos) {
+                List<Parcela> parcelas = em.createQuery(
+                    "SELECT p FROM Parcela p WHERE p.emprestimo.id = :emprestimoId ORDER BY p.numeroParcela",
+                    Parcela.class)
+                    .setParameter("emprestimoId", emprestimo.getId())
+                    .getResultList();
+
+                Long pagas = em.createQuery(
+                    "SELECT COUNT(p) FROM Parcela p WHERE p.emprestimo.id = :emprestimoId AND p.paga = true",
+                    Long.class)
+                    .setParameter("emprestimoId", emprestimo.getId())
+                    .getSingleResult();
+
+                for (Parcela parcela : parcelas) {
+                    if (!parcela.getPaga()) {
+                        totalPendente += parcela.getValor();
+                    }
+                }
+                parcelasPagas += pagas;
+            }
+
+            em.getTransaction().commit();
+            consumido = totalPendente + parcelasPagas;
+        } catch (RuntimeException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    private static Long[] criarFixture(EntityManagerFactory emf, int emprestimos, int numeroParcelas) {
+        String sufixo = Long.toString(System.nanoTime());
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+
+            Credor credor = new Credor();
+            credor.setNome("Benchmark Credor");
+            credor.setCpf("bench-c-" + sufixo);
+            credor.setTelefone("0");
+            credor.setEmail("bench-c-" + sufixo + "@agilit.local");
+            credor.setSaldoDisponivel(0.0);
+            em.persist(credor);
+
+            Devedor devedor = new Devedor();
+            devedor.setNome("Benchmark Devedor");
+            devedor.setCpf("bench-d-" + sufixo);
+            devedor.setTelefone("0");
+            devedor.setEmail("bench-d-" + sufixo + "@agilit.local");
+            em.persist(devedor);
+
+            for (int e = 0; e < emprestimos; e++) {
+                Emprestimo emprestimo = new Emprestimo();
+                emprestimo.setCredor(credor);
+                emprestimo.setDevedor(devedor);
+                emprestimo.setValorPrincipal(1_000.0);
+                emprestimo.setJurosAplicados(100.0);
+                emprestimo.setValorTotal(1_100.0);
+                emprestimo.setNumeroParcelas(numeroParcelas);
+                emprestimo.setParcelasPagas(0);
+                emprestimo.setDataInicio(LocalDate.now());
+                emprestimo.setDataVencimento(LocalDate.now().plusMonths(numeroParcelas));
+                emprestimo.setStatus(StatusEmprestimo.EM_ANDAMENTO);
+
+                List<Parcela> lista = new ArrayList<>();
+                for (int i = 0; i < numeroParcelas; i++) {
+                    Parcela parcela = new Parcela();
+                    parcela.setEmprestimo(emprestimo);
+                    parcela.setNumeroParcela(i + 1);
+                    parcela.setValor(1_100.0 / numeroParcelas);
+                    parcela.setDataVencimento(LocalDate.now().plusMonths(i + 1));
+                    parcela.setPaga(false);
+                    parcela.setAtrasada(false);
+                    lista.add(parcela);
+                }
+                emprestimo.setParcelas(lista);
+                em.persist(emprestimo);
+            }
+
+            em.getTransaction().commit();
+            return new Long[] {credor.getId(), devedor.getId()};
+        } finally {
+            em.close();
+        }
+    }
+
+    private static void removerFixture(EntityManagerFactory emf, Long[] fixture) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.createQuery("DELETE FROM Parcela p WHERE p.emprestimo.id IN "
+                         + "(SELECT e.id FROM Emprestimo e WHERE e.credor.id = :credorId)")
+              .setParameter("credorId", fixture[0])
+              .executeUpdate();
+            em.createQuery("DELETE FROM Emprestimo e WHERE e.credor.id = :credorId")
+              .setParameter("credorId", fixture[0])
+              .executeUpdate();
+            em.createQuery("DELETE FROM Devedor d WHERE d.id = :id").setParameter("id", fixture[1]).executeUpdate();
+            em.createQuery("DELETE FROM Credor c WHERE c.id = :id").setParameter("id", fixture[0]).executeUpdate();
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Soma as entidades verificadas nos flushes parciais (auto-flush antes das consultas)
+     */
+    private static class ContadorFlushes extends BaseSessionEventListener {
+        long entidadesVerificadas;
+
+        @Override
+        public void partialFlushEnd(int numberOfEntities, int numberOfCollections) {
+            entidadesVerificadas += numberOfEntities;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.agilit.benchmark;
+
+import com.agilit.config.PoolConexoes;
+import com.agilit.controller.emprestimo.StatusEmprestimo;
+import com.agilit.model.Credor;
+import com.agilit.model.Devedor;
+import com.agilit.model.Emprestimo;
+import com.agilit.model.Parcela;
+import com.agilit.util.CalculadoraEmprestimo;
+import com.agilit.util.NotificacaoService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.Session;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmark do caminho de originação (empréstimo + parcelas + notificações).
+ *
+ * Compara o mesmo fluxo com JDBC batching desligado (uma ida ao banco por linha,
+ * como acontecia com IDENTITY) e ligado (sequences pooled + batch_size).
+ * Mede idas ao banco por empréstimo e latência por empréstimo (p50/p95).
+ *
+ * Precisa de um banco real (usa o persistence.xml do agilitPU), por isso é um
+ * main e não roda no "mvn test". Os dados criados são removidos no final.
+ *
+ * Uso: java ... com.agilit.benchmark.OriginacaoEmprestimoBenchmark [emprestimos] [parcelas]
+ */
+public class OriginacaoEmprestimoBenchmark {
+
+    private static final int AQUECIMENTO = 20;
+
+    public static void main(String[] args) {
+        int emprestimos = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int parcelas = args.length > 1 ? Integer.parseInt(args[1]) : 24;
+
+        System.out.println("\n====================================");
+        System.out.printf(" Originação: %d empréstimos x %d parcelas%n", emprestimos, parcelas);
+        System.out.println("====================================\n");
+
+        executarCenario("sem batch (1 linha por ida ao banco)", "1", emprestimos, parcelas);
+        executarCenario("com batch (batch_size = 50)", "50", emprestimos, parcelas);
+    }
+
+    private static void executarCenario(String nome, String batchSize, int emprestimos, int parcelas) {
+        Map<String, Object> props = PoolConexoes.propriedades();
+        props.put("hibernate.jdbc.batch_size", batchSize);
+        props.put("hibernate.order_inserts", "true");
+        props.put("hibernate.show_sql", "false");
+
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("agilitPU", props);
+        Long[] fixture = criarFixture(emf);
+
+        try {
+            for (int i = 0; i < AQUECIMENTO; i++) {
+                originar(emf, fixture, parcelas, new ContadorIdas());
+            }
+
+            long[] latencias = new long[emprestimos];
+            ContadorIdas contador = new ContadorIdas();
+            for (int i = 0; i < emprestimos; i++) {
+                long inicio = System.nanoTime();
+                originar(emf, fixture, parcelas, contador);
+                latencias[i] = System.nanoTime() - inicio;
+            }
+
+            Arrays.sort(latencias);
+            System.out.println("--- " + nome + " ---");
+            System.out.printf("  statements executados por empréstimo: %.1f%n", contador.statements / (double) emprestimos);
+            System.out.printf("  batches executados por empréstimo:    %.1f%n", contador.batches / (double) emprestimos);
+            System.out.printf("  idas ao banco por empréstimo:         %.1f%n",
+                              (contador.statements + contador.batches) / (double) emprestimos);
+            System.out.printf("  latência p50: %.2f ms | p95: %.2f ms%n%n",
+                              latencias[emprestimos / 2] / 1e6,
+                              latencias[(int) (emprestimos * 0.95)] / 1e6);
+        } finally {
+            removerFixture(emf, fixture);
+            emf.close();
+        }
+    }
+
+    /**
+     * Mesmo trabalho de banco do criarEmprestimo dos controllers
+     */
+    private static void originar(EntityManagerFactory emf, Long[] fixture, int numeroParcelas, ContadorIdas contador) {
+        EntityManager em = emf.createEntityManager();
+        em.unwrap(Session.class).addEventListeners(contador);
+
+        try {
+            em.getTransaction().begin();
+
+            Credor credor = em.find(Credor.class, fixture[0]);
+            Devedor devedor = em.find(Devedor.class, fixture[1]);
+
+            long valorPrincipal = 1_000_000L;
+            long juros = CalculadoraEmprestimo.calcularJurosSimplesCentavos(valorPrincipal, 2.0, numeroParcelas);
+            long valorTotal = valorPrincipal + juros;
+
+            Emprestimo emprestimo = new Emprestimo();
+            emprestimo.setCredor(credor);
+            emprestimo.setDevedor(devedor);
+            emprestimo.setValorPrincipalCentavos(valorPrincipal);
+            emprestimo.setJurosAplicadosCentavos(juros);
+            emprestimo.setValorTotalCentavos(valorTotal);
+            emprestimo.setNumeroParcelas(numeroParcelas);
+            emprestimo.setParcelasPagas(0);
+            emprestimo.setDataInicio(LocalDate.now());
+            emprestimo.setDataVencimento(LocalDate.now().plusMonths(numeroParcelas));
+            emprestimo.setStatus(StatusEmprestimo.EM_ANDAMENTO);
+
+            List<Parcela> lista = new ArrayList<>();
+            for (int i = 0; i < numeroParcelas; i++) {
+                Parcela parcela = new Parcela();
+                parcela.setEmprestimo(emprestimo);
+                parcela.setNumeroParcela(i + 1);
+                parcela.setValorCentavos(CalculadoraEmprestimo.calcularValorParcelaCentavos(valorTotal, numeroParcelas, i));
+                parcela.setDataVencimento(LocalDate.now().plusMonths(i + 1));
+                parcela.setPaga(false);
+                parcela.setAtrasada(false);
+                lista.add(parcela);
+            }
+            emprestimo.setParcelas(lista);
+            em.persist(emprestimo);
+
+            NotificacaoService.notificarConfirmacao(em, "CREDOR", credor.getId(), emprestimo);
+            NotificacaoService.notificarConfirmacao(em, "DEVEDOR", devedor.getId(), emprestimo);
+
+            em.getTransaction().commit();
+        } catch (RuntimeException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    private static Long[] criarFixture(EntityManagerFactory emf) {
+        String sufixo = Long.toString(System.nanoTime());
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+
+            Credor credor = new Credor();
+            credor.setNome("Benchmark Credor");
+            credor.setCpf("bench-c-" + sufixo);
+            credor.setTelefone("0");
+            credor.setEmail("bench-c-" + sufixo + "@agilit.local");
+            credor.setSaldoDisponivel(0.0);
+            em.persist(credor);
+
+            Devedor devedor = new Devedor();
+            devedor.setNome("Benchmark Devedor");
+            devedor.setCpf("bench-d-" + sufixo);
+            devedor.setTelefone("0");
+            devedor.setEmail("bench-d-" + sufixo + "@agilit.local");
+            em.persist(devedor);
+
+            em.getTransaction().commit();
+            return new Long[] {credor.getId(), devedor.getId()};
+        } finally {
+            em.close();
+        }
+    }
+
+    private static void removerFixture(EntityManagerFactory emf, Long[] fixture) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.createQuery("DELETE FROM Parcela p WHERE p.emprestimo.id IN "
+                         + "(SELECT e.id FROM Emprestimo e WHERE e.credor.id = :credorId)")
+              .setParameter("credorId", fixture[0])
+              .executeUpdate();
+            em.createQuery("DELETE FROM Emprestimo e WHERE e.credor.id = :credorId")
+              .setParameter("credorId", fixture[0])
+              .executeUpdate();
+            em.createQuery("DELETE FROM Notificacao n WHERE "
+                         + "(n.tipoDestinatario = 'CREDOR' AND n.destinatarioId = :credorId) OR "
+                         + "(n.tipoDestinatario = 'DEVEDOR' AND n.destinatarioId = :devedorId)")
+              .setParameter("credorId", fixture[0])
+              .setParameter("devedorId", fixture[1])
+              .executeUpdate();
+            em.createQuery("DELETE FROM EventoNotificacao n WHERE "
+                         + "(n.tipoDestinatario = 'CREDOR' AND n.destinatarioId = :credorId) OR "
+                         + "(n.tipoDestinatario = 'DEVEDOR' AND n.destinatarioId = :devedorId)")
+              .setParameter("credorId", fixture[0])
+              .setParameter("devedorId", fixture[1])
+              .executeUpdate();
+            em.createQuery("DELETE FROM Devedor d WHERE d.id = :id").setParameter("id", fixture[1]).executeUpdate();
+            em.createQuery("DELETE FROM Credor c WHERE c.id = :id").setParameter("id", fixture[0]).executeUpdate();
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Conta statements isolados (inclui nextval das sequences) e batches enviados ao driver
+     */
+    private static class ContadorIdas extends BaseSessionEventListener {
+        long statements;
+        long batches;
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            statements++;
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            batches++;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.agilit.benchmark;
+
+import com.agilit.config.AppException;
+import com.agilit.config.JPAUtil;
+import com.agilit.model.Credor;
+import com.agilit.model.MovimentacaoSaldo;
+import com.agilit.model.dao.CredorDAO;
+import com.agilit.model.dao.MovimentacaoSaldoDAO;
+import com.agilit.service.SaldoCredorService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmark de contenção no saldo de um único credor.
+ *
+ * Dispara N operações ao mesmo tempo (depósitos e débitos misturados) contra
+ * o mesmo credor, de dois jeitos:
+ * - ler-somar-gravar: lê o saldo, confere e calcula em Java e grava o valor
+ *   novo, como o CredorRegistrarSaldoController e a originação faziam
+ * - livro: SaldoCredorService (UPDATE condicional + MovimentacaoSaldo)
+ *
+ * Ao final compara o saldo gravado com o esperado (saldo inicial + depósitos
+ * - débitos aceitos): a diferença são atualizações perdidas. No livro confere
+ * também que o saldo nunca ficou negativo e que o livro fecha com o saldo.
+ * Mede vazão e latência por operação (p50/p95/p99).
+ *
+ * Precisa de um banco real (usa o agilitPU via JPAUtil, com as migrações),
+ * por isso é um main e não roda no "mvn test". Os dados criados são
+ * removidos no final.
+ *
+ * Uso: java ... com.agilit.benchmark.SaldoCredorContencaoBenchmark [operacoes] [percentualDebitos]
+ */
+public class SaldoCredorContencaoBenchmark {
+
+    private static final long VALOR = 10_000L;
+
+    /** Saldo inicial: cobre só parte dos débitos, para o débito condicional recusar alguns */
+    private static final long SALDO_INICIAL = 100 * VALOR;
+
+    private interface Operacao {
+        /** true se a operação foi aceita (débito sem saldo devolve false) */
+        boolean executar(EntityManagerFactory emf, Long credorId, boolean debito);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int operacoes = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int percentualDebitos = args.length > 1 ? Integer.parseInt(args[1]) : 70;
+
+        System.out.println("\n====================================");
+        System.out.printf(" Saldo de um credor: %d operações simultâneas, %d%% débitos%n",
+                          operacoes, percentualDebitos);
+        System.out.println("====================================\n");
+
+        EntityManagerFactory emf = JPAUtil.getEntityManagerFactory();
+        try {
+            executarCenario("ler-somar-gravar (antes)", emf, operacoes, percentualDebitos,
+                            SaldoCredorContencaoBenchmark::lerSomarGravar, false);
+            executarCenario("livro + UPDATE condicional", emf, operacoes, percentualDebitos,
+                            SaldoCredorContencaoBenchmark::livro, true);
+        } finally {
+            emf.close();
+        }
+    }
+
+    private static void executarCenario(String nome, EntityManagerFactory emf, int operacoes,
+                                        int percentualDebitos, Operacao operacao, boolean conferirLivro)
+            throws Exception {
+        Long credorId = criarCredor(emf);
+        ExecutorService executor = Executors.newFixedThreadPool(operacoes);
+        try {
+            CountDownLatch largada = new CountDownLatch(1);
+            AtomicInteger depositos = new AtomicInteger();
+            AtomicInteger debitosAceitos = new AtomicInteger();
+            AtomicInteger debitosRecusados = new AtomicInteger();
+            AtomicInteger falhas = new AtomicInteger();
+            long[] latencias = new long[operacoes];
+            AtomicLong fim = new AtomicLong();
+
+            List<Future<?>> tarefas = new ArrayList<>();
+            for (int i = 0; i < operacoes; i++) {
+                int indice = i;
+                boolean debito = i % 100 < percentualDebitos;
+                tarefas.add(executor.submit(() -> {
+                    largada.await();
+                    long inicio = System.nanoTime();
+                    try {
+                        boolean aceita = operacao.executar(emf, credorId, debito);
+                        if (!debito) {
+                            depositos.incrementAndGet();
+                        } else if (aceita) {
+                            debitosAceitos.incrementAndGet();
+                        } else {
+                            debitosRecusados.incrementAndGet();
+                        }
+                    } catch (RuntimeException e) {
+                        falhas.incrementAndGet();
+                    }
+                    latencias[indice] = System.nanoTime() - inicio;
+                    fim.accumulateAndGet(System.nanoTime(), Math::max);
+                    return null;
+                }));
+            }
+
+            long inicio = System.nanoTime();
+            largada.countDown();
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get();
+            }
+            double segundos = (fim.get() - inicio) / 1e9;
+
+            long esperado = SALDO_INICIAL + depositos.get() * VALOR - debitosAceitos.get() * VALOR;
+            long saldo = saldo(emf, credorId);
+
+            Arrays.sort(latencias);
+            System.out.println("--- " + nome + " ---");
+            System.out.printf("  depósitos: %d | débitos aceitos: %d | recusados por saldo: %d | falhas: %d%n",
+                              depositos.get(), debitosAceitos.get(), debitosRecusados.get(), falhas.get());
+            System.out.printf("  saldo esperado: %d | gravado: %d | atualizações perdidas: %d%n",
+                              esperado, saldo, Math.abs(esperado - saldo) / VALOR);
+            System.out.printf("  vazão: %.0f ops/s | latência p50: %.2f ms | p95: %.2f ms | p99: %.2f ms%n",
+                              operacoes / segundos,
+                              latencias[operacoes / 2] / 1e6,
+                              latencias[(int) (operacoes * 0.95)] / 1e6,
+                              latencias[(int) (operacoes * 0.99)] / 1e6);
+            if (conferirLivro) {
+                conferirLivro(emf, credorId, saldo);
+            }
+            System.out.println();
+        } finally {
+            executor.shutdownNow();
+            removerCredor(emf, credorId);
+        }
+    }
+
+    /**
+     * Como era: lê, confere e calcula em Java, grava o resultado. Sem lock,
+     * duas operações que leem o mesmo saldo gravam por cima uma da outra
+     */
+    private static boolean lerSomarGravar(EntityManagerFactory emf, Long credorId, boolean debito) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            long saldo = new CredorDAO(em).findSaldo(credorId);
+            if (debito && saldo < VALOR) {
+                em.getTransaction().rollback();
+                return false;
+            }
+            // Saldo não é gravado pela entidade (updatable = false): UPDATE com o valor calculado
+            em.createQuery("UPDATE Credor c SET c.saldoDisponivel = :saldo WHERE c.id = :id")
+              .setParameter("saldo", debito ? saldo - VALOR : saldo + VALOR)
+              .setParameter("id", credorId)
+              .executeUpdate();
+            em.getTransaction().commit();
+            return true;
+        } finally {
+            fechar(em);
+        }
+    }
+
+    /** Como ficou: SaldoCredorService na transação da operação */
+    private static boolean livro(EntityManagerFactory emf, Long credorId, boolean debito) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            if (debito) {
+                SaldoCredorService.debitar(em, credorId, VALOR, null, null);
+            } else {
+                SaldoCredorService.creditar(em, credorId, MovimentacaoSaldo.Tipo.DEPOSITO, VALOR, null, null);
+            }
+            em.getTransaction().commit();
+            return true;
+        } catch (AppException e) {
+            if (e.getStatus() == 400) {
+                return false;
+            }
+            throw e;
+        } finally {
+            fechar(em);
+        }
+    }
+
+    /**
+     * O livro fecha com o saldo (soma das movimentações = saldo gravado) e
+     * nenhum saldo_apos ficou negativo
+     */
+    private static void conferirLivro(EntityManagerFactory emf, Long credorId, long saldo) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            List<MovimentacaoSaldo> livro = new MovimentacaoSaldoDAO(em).findByCredor(credorId);
+            long soma = 0;
+            long minimo = Long.MAX_VALUE;
+            for (MovimentacaoSaldo m : livro) {
+                soma += m.getTipo().entrada() ? m.getValorCentavos() : -m.getValorCentavos();
+                minimo = Math.min(minimo, m.getSaldoAposCentavos());
+            }
+            System.out.printf("  livro: %d movimentações | soma: %d (%s) | menor saldo após movimentação: %d%n",
+                              livro.size(), soma, soma == saldo ? "fecha com o saldo" : "NÃO FECHA",
+                              minimo);
+        } finally {
+            em.close();
+        }
+    }
+
+    private static long saldo(EntityManagerFactory emf, Long credorId) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return new CredorDAO(em).findSaldo(credorId);
+        } finally {
+            em.close();
+        }
+    }
+
+    private static void fechar(EntityManager em) {
+        if (em.getTransaction().isActive()) {
+            em.getTransaction().rollback();
+        }
+        em.close();
+    }
+
+    private static Long criarCredor(EntityManagerFactory emf) {
+        String sufixo = Long.toString(System.nanoTime());
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+
+            Credor credor = new Credor();
+            credor.setNome("Benchmark Saldo");
+            credor.setCpf("bench-s-" + sufixo);
+            credor.setTelefone("0");
+            credor.setEmail("bench-s-" + sufixo + "@agilit.local");
+            credor.setSaldoDisponivelCentavos(SALDO_INICIAL);
+            em.persist(credor);
+            SaldoCredorService.registrarSaldoInicial(em, credor);
+
+            em.getTransaction().commit();
+            return credor.getId();
+        } finally {
+            em.close();
+        }
+    }
+
+    private static void removerCredor(EntityManagerFactory emf, Long credorId) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            em.createQuery("DELETE FROM MovimentacaoSaldo m WHERE m.credor.id = :id")
+              .setParameter("id", credorId)
+              .executeUpdate();
+            em.createQuery("DELETE FROM Credor c WHERE c.id = :id").setParameter("id", credorId).executeUpdate();
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.agilit.benchmark;
+
+import com.agilit.controller.emprestimo.StatusEmprestimo;
+import com.agilit.model.Emprestimo;
+import com.agilit.model.Parcela;
+import com.agilit.util.VerificadorStatusEmprestimo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH do VerificadorStatusEmprestimo.atualizarStatusEmprestimo,
+ * chamado a cada pagamento de parcela e, para todos os empréstimos em
+ * aberto, no job diário.
+ *
+ * O empréstimo tem metade das parcelas pagas; em "atrasado" a primeira
+ * parcela em aberto já venceu, em "emDia" nenhuma venceu. Só objetos em
+ * memória, sem banco. Cada thread tem o seu empréstimo; a variante
+ * "Concorrente" roda com 4 threads.
+ *
+ * Não roda no "mvn test". Uso (depois de mvn test-compile):
+ * java -cp target/test-classes:target/classes:&lt;classpath de teste&gt; com.agilit.benchmark.VerificadorStatusEmprestimoBenchmark
+ * Números de referência em Docs/BENCHMARKS.md.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VerificadorStatusEmprestimoBenchmark {
+
+    @Param({"12", "48"})
+    public int numeroParcelas;
+
+    @Param({"emDia", "atrasado"})
+    public String situacao;
+
+    private Emprestimo emprestimo;
+
+    @Setup
+    public void preparar() {
+        LocalDate hoje = LocalDate.now();
+        int pagas = numeroParcelas / 2;
+        // A primeira em aberto vence ontem (atrasado) ou daqui a um mês (em dia)
+        LocalDate primeiraEmAberto = "atrasado".equals(situacao) ? hoje.minusDays(1) : hoje.plusMonths(1);
+
+        emprestimo = new Emprestimo();
+        emprestimo.setNumeroParcelas(numeroParcelas);
+        emprestimo.setParcelasPagas(pagas);
+        emprestimo.setStatus(StatusEmprestimo.EM_ANDAMENTO);
+
+        List<Parcela> parcelas = new ArrayList<>(numeroParcelas);
+        for (int i = 0; i < numeroParcelas; i++) {
+            Parcela parcela = new Parcela();
+            parcela.setEmprestimo(emprestimo);
+            parcela.setNumeroParcela(i + 1);
+            parcela.setValorCentavos(100_00L);
+            parcela.setDataVencimento(primeiraEmAberto.plusMonths(i - pagas));
+            parcela.setPaga(i < pagas);
+            parcela.setAtrasada(false);
+            parcelas.add(parcela);
+        }
+        emprestimo.setParcelas(parcelas);
+    }
+
+    @Benchmark
+    public StatusEmprestimo atualizarStatus() {
+        VerificadorStatusEmprestimo.atualizarStatusEmprestimo(emprestimo);
+        return emprestimo.getStatus();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public StatusEmprestimo atualizarStatusConcorrente() {
+        return atualizarStatus();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VerificadorStatusEmprestimoBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
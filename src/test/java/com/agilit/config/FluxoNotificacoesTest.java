@@ -0,0 +1,143 @@
+package com.agilit.config;
+
+import com.agilit.model.dto.NotificacaoDTO;
+import jakarta.ws.rs.sse.OutboundSseEvent;
+import jakarta.ws.rs.sse.Sse;
+import jakarta.ws.rs.sse.SseBroadcaster;
+import jakarta.ws.rs.sse.SseEventSink;
+import org.glassfish.jersey.media.sse.OutboundEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Testes do FluxoNotificacoes sem banco: posição do Last-Event-ID,
+ * descarte das notificações já enviadas e desconexão de quem enche a fila.
+ */
+class FluxoNotificacoesTest {
+
+    /** Conexão SSE que guarda os eventos enviados */
+    private static final class SinkFalso implements SseEventSink {
+        final List<OutboundSseEvent> enviados = new ArrayList<>();
+        boolean fechado;
+
+        @Override
+        public boolean isClosed() {
+            return fechado;
+        }
+
+        @Override
+        public CompletionStage<?> send(OutboundSseEvent evento) {
+            enviados.add(evento);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void close() {
+            fechado = true;
+        }
+    }
+
+    private static final Sse SSE = new Sse() {
+        @Override
+        public OutboundSseEvent.Builder newEventBuilder() {
+            return new OutboundEvent.Builder();
+        }
+
+        @Override
+        public SseBroadcaster newBroadcaster() {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    @Test
+    @DisplayName("Posição \"lote-id\" válida deve ser lida; outros formatos, ignorados")
+    void posicaoDoUltimoEvento() {
+        assertArrayEquals(new long[] {12, 345}, FluxoNotificacoes.posicao("12-345"));
+        assertArrayEquals(new long[] {0, 0}, FluxoNotificacoes.posicao("0-0"));
+        assertArrayEquals(new long[] {7, 8}, FluxoNotificacoes.posicao(" 7 - 8 "));
+
+        for (String invalida : new String[] {null, "", "12", "-5", "12-", "a-1", "1-b", "1-2-3", "lixo"}) {
+            assertNull(FluxoNotificacoes.posicao(invalida), "\"" + invalida + "\"");
+        }
+    }
+
+    @Test
+    @DisplayName("Notificações até a posição do cliente não devem ser reenviadas")
+    void descartaNotificacoesJaEnviadas() {
+        SinkFalso sink = new SinkFalso();
+        FluxoNotificacoes.Conexao conexao = FluxoNotificacoes.registrar("CREDOR", 1L, "5-10", sink, SSE);
+        try {
+            FluxoNotificacoes.enviar(conexao, nova(4, 99));
+            FluxoNotificacoes.enviar(conexao, nova(5, 9));
+            FluxoNotificacoes.enviar(conexao, nova(5, 10));
+            FluxoNotificacoes.enviar(conexao, nova(null, 11));
+            FluxoNotificacoes.enviar(conexao, nova(5, 11));
+            FluxoNotificacoes.enviar(conexao, nova(6, 2));
+            // Repetida (chegou também pela retomada)
+            FluxoNotificacoes.enviar(conexao, nova(6, 2));
+            FluxoNotificacoes.enviar(conexao, nova(6, 1));
+            FluxoNotificacoes.enviar(conexao, FluxoNotificacoes.Sinal.naoLidas("CREDOR", 1L, 3));
+
+            assertEquals(Arrays.asList("5-11", "6-2", null),
+                         sink.enviados.stream().map(OutboundSseEvent::getId).toList());
+            assertEquals("notificacao", sink.enviados.get(0).getName());
+            assertEquals("nao-lidas", sink.enviados.get(2).getName());
+            assertEquals("{\"total\":3}", sink.enviados.get(2).getData());
+            assertEquals(6, conexao.lote);
+            assertEquals(2, conexao.id);
+        } finally {
+            FluxoNotificacoes.fechar(conexao);
+        }
+    }
+
+    @Test
+    @DisplayName("Conexão com a fila cheia deve ser desconectada")
+    void filaCheiaDesconecta() {
+        int fila = (Integer) FluxoNotificacoes.snapshot().get("filaPorConexao");
+        SinkFalso lento = new SinkFalso();
+        SinkFalso outro = new SinkFalso();
+        // Não prontas: nada sai da fila
+        FluxoNotificacoes.Conexao conexao = FluxoNotificacoes.registrar("DEVEDOR", 2L, null, lento, SSE);
+        FluxoNotificacoes.Conexao outroDestinatario = FluxoNotificacoes.registrar("DEVEDOR", 3L, null, outro, SSE);
+        try {
+            long cheias = (Long) FluxoNotificacoes.snapshot().get("desconectadasFilaCheia");
+            List<FluxoNotificacoes.Sinal> sinais = new ArrayList<>();
+            for (int k = 0; k < fila; k++) {
+                sinais.add(FluxoNotificacoes.Sinal.naoLidas("DEVEDOR", 2L, k));
+            }
+            FluxoNotificacoes.despachar(sinais);
+            assertFalse(lento.fechado);
+            assertEquals(fila, conexao.fila.size());
+
+            FluxoNotificacoes.despachar(List.of(FluxoNotificacoes.Sinal.naoLidas("DEVEDOR", 2L, fila)));
+            assertTrue(lento.fechado);
+            assertTrue(conexao.fila.isEmpty());
+            assertEquals(cheias + 1, (Long) FluxoNotificacoes.snapshot().get("desconectadasFilaCheia"));
+
+            // Fechada: não recebe mais nada; o outro destinatário segue conectado
+            FluxoNotificacoes.despachar(List.of(FluxoNotificacoes.Sinal.naoLidas("DEVEDOR", 2L, 0),
+                                                FluxoNotificacoes.Sinal.naoLidas("DEVEDOR", 3L, 1)));
+            assertTrue(conexao.fila.isEmpty());
+            assertFalse(outro.fechado);
+            assertEquals(1, outroDestinatario.fila.size());
+        } finally {
+            FluxoNotificacoes.fechar(conexao);
+            FluxoNotificacoes.fechar(outroDestinatario);
+        }
+    }
+
+    private static FluxoNotificacoes.Sinal nova(Integer lote, long id) {
+        NotificacaoDTO notificacao = new NotificacaoDTO(id, "CREDOR", 1L, "PAGAMENTO", "Título", "Mensagem",
+                                                        false, LocalDateTime.of(2025, 1, 1, 12, 0), null,
+                                                        null, null);
+        return new FluxoNotificacoes.Sinal("CREDOR", 1L, lote == null ? null : lote.longValue(), notificacao, null);
+    }
+}
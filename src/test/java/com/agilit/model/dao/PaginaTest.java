@@ -0,0 +1,70 @@
+package com.agilit.model.dao;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Testes do cursor opaco e da montagem de páginas keyset.
+ */
+class PaginaTest {
+
+    @Test
+    @DisplayName("Cursor deve sobreviver à ida e volta pelo token")
+    void cursorIdaEVolta() {
+        LocalDateTime data = LocalDateTime.of(2025, 3, 14, 15, 9, 26, 535_000_000);
+        Cursor cursor = Cursor.decodificar(Cursor.de(data, 42L).codificar());
+
+        assertEquals(data, cursor.dataHora());
+        assertEquals(42L, cursor.id());
+    }
+
+    @Test
+    @DisplayName("Token do cursor deve ser seguro para URL")
+    void tokenSeguroParaUrl() {
+        String token = Cursor.de(LocalDate.of(2025, 1, 31), Long.MAX_VALUE).codificar();
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), "Token não deve exigir escape na query string");
+    }
+
+    @Test
+    @DisplayName("Token adulterado deve ser rejeitado")
+    void tokenAdulteradoRejeitado() {
+        assertThrows(IllegalArgumentException.class, () -> Cursor.decodificar("não é base64"));
+        assertThrows(IllegalArgumentException.class, () -> Cursor.decodificar("c2VtLXNlcGFyYWRvcg"));
+    }
+
+    @Test
+    @DisplayName("Cursor de outra listagem deve ser rejeitado")
+    void cursorDeOutraListagem() {
+        Cursor porId = Cursor.de(10L);
+        assertThrows(IllegalArgumentException.class, () -> porId.exigir(LocalDateTime.class));
+
+        Cursor porData = Cursor.de(LocalDate.of(2025, 1, 1), 10L);
+        assertThrows(IllegalArgumentException.class, () -> porData.exigir(Long.class));
+        assertSame(porData, porData.exigir(LocalDate.class));
+    }
+
+    @Test
+    @DisplayName("Linha extra indica próxima página e é descartada")
+    void linhaExtraIndicaProximaPagina() {
+        Pagina<Long> pagina = Pagina.de(List.of(1L, 2L, 3L, 4L), 3, Cursor::de);
+
+        assertEquals(List.of(1L, 2L, 3L), pagina.itens());
+        assertTrue(pagina.temProxima());
+        assertEquals(3L, pagina.proximo().id());
+    }
+
+    @Test
+    @DisplayName("Sem linha extra é a última página")
+    void ultimaPagina() {
+        Pagina<Long> pagina = Pagina.de(List.of(1L, 2L, 3L), 3, Cursor::de);
+
+        assertEquals(3, pagina.itens().size());
+        assertFalse(pagina.temProxima());
+        assertNull(pagina.proximo());
+    }
+}
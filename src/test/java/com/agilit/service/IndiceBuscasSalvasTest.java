@@ -0,0 +1,101 @@
+package com.agilit.service;
+
+import com.agilit.model.BuscaSalva;
+import com.agilit.model.Devedor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Testes do IndiceBuscasSalvas contra o filtro ingênuo das buscas salvas
+ * (as mesmas condições de BuscaSalvaDAO.findDevedoresCompativeis), com
+ * criações, alterações e exclusões aleatórias.
+ */
+class IndiceBuscasSalvasTest {
+
+    @Test
+    @DisplayName("Devedores devem bater com o filtro ingênuo das buscas salvas")
+    void devedoresIguaisAoFiltroIngenuo() {
+        Random random = new Random(20_250_301L);
+        Map<Long, BuscaSalva> buscas = new HashMap<>();
+        for (long id = 1; id <= 400; id++) {
+            buscas.put(id, busca(random, id));
+        }
+        IndiceBuscasSalvas.reconstruir(() -> new ArrayList<>(buscas.values()));
+
+        for (int passo = 0; passo < 20_000; passo++) {
+            long id = 1 + random.nextInt(500);
+            int operacao = random.nextInt(10);
+            if (operacao < 3) {
+                BuscaSalva busca = busca(random, id);
+                buscas.put(id, busca);
+                IndiceBuscasSalvas.atualizar(busca);
+            } else if (operacao < 4) {
+                buscas.remove(id);
+                IndiceBuscasSalvas.remover(id);
+            } else {
+                conferir(random, buscas);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Busca sem filtros deve atender qualquer proposta")
+    void buscaSemFiltrosAtendeTudo() {
+        BuscaSalva busca = new BuscaSalva();
+        busca.setId(1L);
+        busca.setDevedor(devedor(7L));
+        IndiceBuscasSalvas.reconstruir(() -> List.of(busca));
+
+        assertArrayEquals(new long[] {7}, IndiceBuscasSalvas.devedores(Long.MAX_VALUE, 1, 360, 99.0));
+        assertArrayEquals(new long[] {7}, IndiceBuscasSalvas.devedores(0, 0, 0, 0.0));
+    }
+
+    private static void conferir(Random random, Map<Long, BuscaSalva> buscas) {
+        // Valores sobre a mesma grade dos limites: cai na borda com frequência
+        long valor = 100_000L * random.nextInt(21);
+        int minimas = 1 + random.nextInt(24);
+        int maximas = minimas + random.nextInt(12);
+        double taxa = random.nextInt(13) * 0.25;
+
+        long[] esperados = buscas.values().stream()
+                .filter(b -> (b.getValorMinCentavos() == null || b.getValorMinCentavos() <= valor)
+                        && (b.getValorMaxCentavos() == null || b.getValorMaxCentavos() >= valor)
+                        && (b.getParcelasMin() == null || b.getParcelasMin() <= maximas)
+                        && (b.getParcelasMax() == null || b.getParcelasMax() >= minimas)
+                        && (b.getTaxaJurosMax() == null || b.getTaxaJurosMax() >= taxa))
+                .mapToLong(b -> b.getDevedor().getId())
+                .distinct()
+                .sorted()
+                .toArray();
+
+        assertArrayEquals(esperados, IndiceBuscasSalvas.devedores(valor, minimas, maximas, taxa),
+                          "valor " + valor + ", parcelas " + minimas + " a " + maximas + ", taxa " + taxa);
+    }
+
+    // Poucos devedores: vários com mais de uma busca atendida
+    private static BuscaSalva busca(Random random, long id) {
+        BuscaSalva busca = new BuscaSalva();
+        busca.setId(id);
+        busca.setDevedor(devedor(1L + random.nextInt(60)));
+        busca.setNome("Busca " + id);
+        busca.setValorMinCentavos(random.nextBoolean() ? 100_000L * random.nextInt(21) : null);
+        busca.setValorMaxCentavos(random.nextBoolean() ? 100_000L * random.nextInt(21) : null);
+        busca.setParcelasMin(random.nextBoolean() ? 1 + random.nextInt(36) : null);
+        busca.setParcelasMax(random.nextBoolean() ? 1 + random.nextInt(36) : null);
+        busca.setTaxaJurosMax(random.nextBoolean() ? random.nextInt(13) * 0.25 : null);
+        return busca;
+    }
+
+    private static Devedor devedor(long id) {
+        Devedor devedor = new Devedor();
+        devedor.setId(id);
+        return devedor;
+    }
+}
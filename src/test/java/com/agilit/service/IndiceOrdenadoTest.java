@@ -0,0 +1,196 @@
+package com.agilit.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.ToLongFunction;
+
+/**
+ * Testes do IndiceOrdenado contra uma referência ingênua (mapa por ID,
+ * ordenado a cada conferência), com inserções, alterações e remoções
+ * aleatórias.
+ */
+class IndiceOrdenadoTest {
+
+    private record Item(long id, int grupo, double nota) {
+    }
+
+    private static final ToLongFunction<Item> POR_GRUPO = Item::grupo;
+    private static final ToLongFunction<Item> POR_NOTA = item -> IndiceOrdenado.chave(item.nota());
+
+    private static final List<Comparator<Item>> ORDENS = List.of(
+        Comparator.comparingInt(Item::grupo).thenComparingLong(Item::id),
+        Comparator.comparingDouble(Item::nota).thenComparing(Item::id, Comparator.reverseOrder()));
+
+    private static IndiceOrdenado<Item> novoIndice() {
+        return new IndiceOrdenado<>(Item.class, Item::id, List.of(
+            new IndiceOrdenado.Ordem<>(POR_GRUPO, Comparator.comparingLong(Item::id)),
+            new IndiceOrdenado.Ordem<>(POR_NOTA, Comparator.comparing(Item::id, Comparator.reverseOrder()))));
+    }
+
+    // Poucos valores distintos: muitos empates de chave, resolvidos pelo desempate
+    private static Item item(Random random, long id) {
+        return new Item(id, random.nextInt(8), (random.nextInt(21) - 10) * 0.5);
+    }
+
+    @Test
+    @DisplayName("Chave de double deve manter a ordem dos valores")
+    void chaveDeDoubleMantemOrdem() {
+        double[] valores = {Double.NEGATIVE_INFINITY, -1e300, -2.5, -1.0, -Double.MIN_VALUE, -0.0, 0.0,
+                            Double.MIN_VALUE, 0.5, 1.0, 3.75, 1e300, Double.POSITIVE_INFINITY};
+        for (int k = 1; k < valores.length; k++) {
+            assertTrue(IndiceOrdenado.chave(valores[k - 1]) < IndiceOrdenado.chave(valores[k]),
+                       valores[k - 1] + " deve vir antes de " + valores[k]);
+        }
+    }
+
+    @Test
+    @DisplayName("Alterações aleatórias devem manter as ordens iguais às da referência")
+    void alteracoesAleatoriasIguaisAReferencia() {
+        Random random = new Random(20_240_601L);
+        IndiceOrdenado<Item> indice = novoIndice();
+        Map<Long, Item> referencia = new HashMap<>();
+        for (long id = 1; id <= 200; id++) {
+            referencia.put(id, item(random, id));
+        }
+        indice.reconstruir(() -> new ArrayList<>(referencia.values()));
+        conferir(indice, referencia, random);
+
+        for (int passo = 0; passo < 20_000; passo++) {
+            long id = 1 + random.nextInt(300);
+            int operacao = random.nextInt(10);
+            if (operacao < 5) {
+                Item novo = item(random, id);
+                referencia.put(id, novo);
+                indice.atualizar(novo);
+            } else if (operacao < 8) {
+                referencia.remove(id);
+                indice.remover(id);
+            } else if (referencia.containsKey(id)) {
+                // Só um campo muda: a posição fica a mesma numa das ordens
+                Item atual = referencia.get(id);
+                Item novo = random.nextBoolean()
+                        ? new Item(id, atual.grupo(), (random.nextInt(21) - 10) * 0.5)
+                        : new Item(id, random.nextInt(8), atual.nota());
+                referencia.put(id, novo);
+                indice.atualizar(novo);
+            }
+            if (passo % 50 == 0) {
+                conferir(indice, referencia, random);
+            }
+        }
+        conferir(indice, referencia, random);
+    }
+
+    @Test
+    @DisplayName("Alteração igual ao que já está no índice não deve gerar versão nova")
+    void alteracaoSemEfeitoMantemVersao() {
+        IndiceOrdenado<Item> indice = novoIndice();
+        indice.reconstruir(() -> List.of(new Item(1, 3, 1.5), new Item(2, 4, 2.0)));
+        IndiceOrdenado.Versao<Item> antes = indice.atual();
+
+        indice.atualizar(new Item(1, 3, 1.5));
+        indice.remover(99);
+
+        assertSame(antes, indice.atual());
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        indice.snapshot(snapshot);
+        assertEquals(2L, snapshot.get("alteracoes"));
+        assertEquals(2L, snapshot.get("alteracoesSemEfeito"));
+    }
+
+    @Test
+    @DisplayName("Alterações antes da primeira carga devem ser ignoradas")
+    void alteracaoAntesDaCargaIgnorada() {
+        IndiceOrdenado<Item> indice = novoIndice();
+        indice.atualizar(new Item(1, 3, 1.5));
+        assertNull(indice.atual());
+
+        indice.reconstruir(List::of);
+        assertEquals(0, indice.atual().tamanho());
+    }
+
+    @Test
+    @DisplayName("Alterações feitas durante a leitura da reconstrução devem ser reaplicadas")
+    void reconstrucaoReaplicaAlteracoesDuranteLeitura() {
+        Random random = new Random(7L);
+        IndiceOrdenado<Item> indice = novoIndice();
+        Map<Long, Item> referencia = new HashMap<>();
+        for (long id = 1; id <= 100; id++) {
+            referencia.put(id, item(random, id));
+        }
+        indice.reconstruir(() -> new ArrayList<>(referencia.values()));
+
+        indice.reconstruir(() -> {
+            // O que o banco devolveu, lido antes das alterações abaixo
+            List<Item> lidos = new ArrayList<>(referencia.values());
+            for (int passo = 0; passo < 300; passo++) {
+                long id = 1 + random.nextInt(150);
+                if (random.nextInt(3) == 0) {
+                    referencia.remove(id);
+                    indice.remover(id);
+                } else {
+                    Item novo = item(random, id);
+                    referencia.put(id, novo);
+                    indice.atualizar(novo);
+                }
+            }
+            return lidos;
+        });
+
+        conferir(indice, referencia, random);
+    }
+
+    @Test
+    @DisplayName("Falha na leitura deve manter a versão anterior")
+    void falhaNaLeituraMantemVersao() {
+        IndiceOrdenado<Item> indice = novoIndice();
+        indice.reconstruir(() -> List.of(new Item(1, 3, 1.5)));
+        IndiceOrdenado.Versao<Item> antes = indice.atual();
+
+        assertThrows(IllegalStateException.class, () -> indice.reconstruir(() -> {
+            throw new IllegalStateException("banco fora do ar");
+        }));
+
+        assertSame(antes, indice.atual());
+        indice.atualizar(new Item(2, 1, 0.0));
+        assertEquals(2, indice.atual().tamanho());
+    }
+
+    private static void conferir(IndiceOrdenado<Item> indice, Map<Long, Item> referencia, Random random) {
+        IndiceOrdenado.Versao<Item> versao = indice.atual();
+        assertEquals(referencia.size(), versao.tamanho());
+        for (long id = 1; id <= 300; id++) {
+            assertEquals(referencia.get(id), versao.buscar(id), "buscar " + id);
+        }
+
+        List<ToLongFunction<Item>> chaves = List.of(POR_GRUPO, POR_NOTA);
+        for (int k = 0; k < ORDENS.size(); k++) {
+            List<Item> esperados = referencia.values().stream().sorted(ORDENS.get(k)).toList();
+            IndiceOrdenado.Coluna<Item> coluna = versao.coluna(k);
+            assertEquals(esperados, coluna.itens(), "ordem " + k);
+
+            ToLongFunction<Item> chave = chaves.get(k);
+            for (int i = 0; i < coluna.tamanho(); i++) {
+                assertEquals(chave.applyAsLong(coluna.item(i)), coluna.chave(i));
+            }
+
+            // Limites das faixas: quantos itens têm chave menor (ou menor ou igual)
+            long limite = esperados.isEmpty() ? 0 : chave.applyAsLong(esperados.get(random.nextInt(esperados.size())));
+            for (long valor : new long[] {limite - 1, limite, limite + 1}) {
+                long menores = esperados.stream().filter(item -> chave.applyAsLong(item) < valor).count();
+                long ate = esperados.stream().filter(item -> chave.applyAsLong(item) <= valor).count();
+                assertEquals(menores, coluna.primeiroMaiorOuIgual(valor));
+                assertEquals(ate, coluna.primeiroMaior(valor));
+            }
+        }
+    }
+}
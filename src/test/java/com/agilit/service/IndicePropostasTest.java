@@ -0,0 +1,127 @@
+package com.agilit.service;
+
+import com.agilit.model.PropostaEmprestimo;
+import com.agilit.model.dto.PropostaEmprestimoDTO;
+import com.agilit.util.Dinheiro;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Testes da busca do IndicePropostas contra um filtro e uma ordenação
+ * ingênuos sobre as mesmas propostas, com criações, alterações,
+ * cancelamentos e remoções aleatórias.
+ */
+class IndicePropostasTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private static final Comparator<PropostaEmprestimoDTO> POR_DATA =
+            Comparator.comparing(PropostaEmprestimoDTO::dataCriacao, Comparator.reverseOrder())
+                      .thenComparing(PropostaEmprestimoDTO::id, Comparator.reverseOrder());
+
+    @Test
+    @DisplayName("Busca, menor taxa e recentes devem bater com o filtro ingênuo")
+    void buscaIgualAoFiltroIngenuo() {
+        Random random = new Random(20_250_101L);
+        Map<Long, PropostaEmprestimoDTO> ativas = new HashMap<>();
+        for (long id = 1; id <= 300; id++) {
+            ativas.put(id, PropostaEmprestimoDTO.de(proposta(random, id)));
+        }
+        IndicePropostas.reconstruir(() -> new ArrayList<>(ativas.values()));
+
+        for (int passo = 0; passo < 20_000; passo++) {
+            long id = 1 + random.nextInt(400);
+            int operacao = random.nextInt(10);
+            if (operacao < 4) {
+                PropostaEmprestimo proposta = proposta(random, id);
+                ativas.put(id, PropostaEmprestimoDTO.de(proposta));
+                IndicePropostas.atualizar(proposta);
+            } else if (operacao < 5) {
+                // Cancelada ou aceita: sai do índice
+                PropostaEmprestimo proposta = proposta(random, id);
+                proposta.setStatus(random.nextBoolean() ? "CANCELADA" : "ACEITA");
+                ativas.remove(id);
+                IndicePropostas.atualizar(proposta);
+            } else if (operacao < 6) {
+                ativas.remove(id);
+                IndicePropostas.remover(id);
+            } else {
+                conferirBusca(random, ativas);
+            }
+        }
+
+        conferirBusca(random, ativas);
+        List<PropostaEmprestimoDTO> porTaxa = ativas.values().stream()
+                .sorted(Comparator.comparingDouble(PropostaEmprestimoDTO::taxaJuros).thenComparing(POR_DATA))
+                .toList();
+        List<PropostaEmprestimoDTO> porData = ativas.values().stream().sorted(POR_DATA).toList();
+        for (int limite : new int[] {0, 1, 10, porData.size(), porData.size() + 5}) {
+            assertEquals(porTaxa.subList(0, Math.min(limite, porTaxa.size())), IndicePropostas.menorTaxa(limite));
+            assertEquals(porData.subList(0, Math.min(limite, porData.size())), IndicePropostas.recentes(limite));
+        }
+    }
+
+    @Test
+    @DisplayName("Busca sem filtros deve devolver todas as ativas, mais recentes primeiro")
+    void buscaSemFiltros() {
+        Random random = new Random(3L);
+        List<PropostaEmprestimoDTO> ativas = new ArrayList<>();
+        for (long id = 1; id <= 50; id++) {
+            ativas.add(PropostaEmprestimoDTO.de(proposta(random, id)));
+        }
+        IndicePropostas.reconstruir(() -> ativas);
+
+        assertEquals(ativas.stream().sorted(POR_DATA).toList(),
+                     IndicePropostas.buscar(null, null, null, null, null));
+    }
+
+    private static void conferirBusca(Random random, Map<Long, PropostaEmprestimoDTO> ativas) {
+        Long valorMin = random.nextBoolean() ? Dinheiro.centavos(1_000.0 + 100 * random.nextInt(50)) : null;
+        Long valorMax = random.nextBoolean() ? Dinheiro.centavos(1_000.0 + 100 * random.nextInt(50)) : null;
+        Integer parcelasMin = random.nextBoolean() ? 1 + random.nextInt(30) : null;
+        Integer parcelasMax = random.nextBoolean() ? 1 + random.nextInt(30) : null;
+        Double taxaMax = random.nextBoolean() ? random.nextInt(13) * 0.25 : null;
+
+        List<PropostaEmprestimoDTO> esperadas = ativas.values().stream()
+                .filter(p -> {
+                    long valor = Dinheiro.centavos(p.valorDisponivel());
+                    return (valorMin == null || valor >= valorMin)
+                            && (valorMax == null || valor <= valorMax)
+                            && (parcelasMin == null || p.parcelasMaximas() >= parcelasMin)
+                            && (parcelasMax == null || p.parcelasMinimas() <= parcelasMax)
+                            && (taxaMax == null || p.taxaJuros() <= taxaMax);
+                })
+                .sorted(POR_DATA)
+                .toList();
+
+        assertEquals(esperadas, IndicePropostas.buscar(valorMin, valorMax, parcelasMin, parcelasMax, taxaMax),
+                     "valor [" + valorMin + ", " + valorMax + "], parcelas [" + parcelasMin + ", " + parcelasMax
+                     + "], taxa até " + taxaMax);
+    }
+
+    // Valores, faixas e datas repetidos com frequência: empates nas ordens
+    private static PropostaEmprestimo proposta(Random random, long id) {
+        PropostaEmprestimo proposta = new PropostaEmprestimo();
+        int parcelasMinimas = 1 + random.nextInt(24);
+        proposta.setId(id);
+        proposta.setIdPublico("#P" + id);
+        proposta.setNomeCredor("Credor " + random.nextInt(5));
+        proposta.setValorDisponivel(1_000.0 + 100 * random.nextInt(50));
+        proposta.setParcelasMinimas(parcelasMinimas);
+        proposta.setParcelasMaximas(parcelasMinimas + random.nextInt(12));
+        proposta.setDiasAtePrimeiraCobranca(30);
+        proposta.setTaxaJuros(random.nextInt(13) * 0.25);
+        proposta.setDataCriacao(INICIO.plusMinutes(random.nextInt(60)));
+        proposta.setStatus("ATIVA");
+        return proposta;
+    }
+}
@@ -0,0 +1,111 @@
+package com.agilit.util;
+
+import com.agilit.config.AppException;
+import com.agilit.util.CalculadoraEmprestimo.OpcaoParcela;
+import com.agilit.util.CalculadoraEmprestimo.ParcelaCronograma;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+/**
+ * Testes dos sistemas de amortização: opções e cronogramas em centavos.
+ */
+class CalculadoraEmprestimoTest {
+
+    @Test
+    @DisplayName("Cronograma deve fechar com a opção em todos os sistemas")
+    void cronogramaFechaComOpcao() {
+        long[] principais = {1L, 99_99L, 1_000_00L, 12_345_67L, 987_654_32L};
+        double[] taxas = {0.0, 0.5, 1.99, 2.5, 7.0};
+
+        for (SistemaAmortizacao sistema : SistemaAmortizacao.values()) {
+            for (long principal : principais) {
+                for (double taxa : taxas) {
+                    List<OpcaoParcela> opcoes = CalculadoraEmprestimo.calcularOpcoesParcelas(principal, 1, 48, taxa, sistema);
+                    assertEquals(48, opcoes.size());
+
+                    for (OpcaoParcela opcao : opcoes) {
+                        int n = opcao.getNumeroParcelas();
+                        String caso = sistema + " " + principal + " " + taxa + "% " + n + "x";
+                        List<ParcelaCronograma> cronograma =
+                            CalculadoraEmprestimo.calcularCronograma(principal, n, taxa, sistema);
+
+                        long valor = 0, juros = 0, amortizacao = 0;
+                        for (ParcelaCronograma parcela : cronograma) {
+                            assertEquals(centavos(parcela.getValor()),
+                                         centavos(parcela.getJuros()) + centavos(parcela.getAmortizacao()), caso);
+                            valor += centavos(parcela.getValor());
+                            juros += centavos(parcela.getJuros());
+                            amortizacao += centavos(parcela.getAmortizacao());
+                        }
+
+                        assertEquals(n, cronograma.size(), caso);
+                        assertEquals(principal, amortizacao, caso);
+                        assertEquals(0, centavos(cronograma.get(n - 1).getSaldoDevedor()), caso);
+                        assertEquals(centavos(opcao.getValorTotal()), valor, caso);
+                        assertEquals(centavos(opcao.getJuros()), juros, caso);
+                        assertEquals(centavos(opcao.getValorParcela()), centavos(cronograma.get(0).getValor()), caso);
+                        assertEquals(centavos(opcao.getValorUltimaParcela()), centavos(cronograma.get(n - 1).getValor()), caso);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Price deve ter parcelas iguais pela fórmula da PMT")
+    void price() {
+        OpcaoParcela opcao = CalculadoraEmprestimo.calcularOpcoesParcelas(1_000_00L, 12, 12, 1.0,
+                                                                          SistemaAmortizacao.PRICE).get(0);
+        assertEquals(88.85, opcao.getValorParcela());
+        assertEquals(88.85, opcao.getValorUltimaParcela());
+        assertEquals(1_066.20, opcao.getValorTotal());
+
+        List<ParcelaCronograma> cronograma =
+            CalculadoraEmprestimo.calcularCronograma(1_000_00L, 12, 1.0, SistemaAmortizacao.PRICE);
+        assertEquals(10.00, cronograma.get(0).getJuros());
+        assertEquals(78.85, cronograma.get(0).getAmortizacao());
+    }
+
+    @Test
+    @DisplayName("SAC deve ter amortização constante e parcelas decrescentes")
+    void sac() {
+        OpcaoParcela opcao = CalculadoraEmprestimo.calcularOpcoesParcelas(1_200_00L, 12, 12, 1.0,
+                                                                          SistemaAmortizacao.SAC).get(0);
+        assertEquals(112.00, opcao.getValorParcela());
+        assertEquals(101.00, opcao.getValorUltimaParcela());
+        assertEquals(78.00, opcao.getJuros());
+    }
+
+    @Test
+    @DisplayName("SIMPLES deve manter o cálculo de juros simples")
+    void simples() {
+        OpcaoParcela opcao = CalculadoraEmprestimo.calcularOpcoesParcelas(1_000_00L, 12, 12, 2.5).get(0);
+        assertEquals(300.00, opcao.getJuros());
+        assertEquals(108.33, opcao.getValorParcela());
+        assertEquals(108.37, opcao.getValorUltimaParcela());
+    }
+
+    @Test
+    @DisplayName("Juros compostos devem bater com Math.pow, dentro e fora da tabela em cache")
+    void jurosCompostos() {
+        assertEquals(Math.pow(1.02, 36) * 1000 - 1000, CalculadoraEmprestimo.calcularJurosCompostos(1000, 2.0, 36), 1e-9);
+        double esperado = Math.pow(1.02, 5000) - 1;
+        assertEquals(esperado, CalculadoraEmprestimo.calcularJurosCompostos(1, 2.0, 5000), esperado * 1e-12);
+    }
+
+    @Test
+    @DisplayName("Sistema deve ser lido pelo nome, com SIMPLES como padrão")
+    void sistemaPeloNome() {
+        assertEquals(SistemaAmortizacao.SIMPLES, SistemaAmortizacao.de(null));
+        assertEquals(SistemaAmortizacao.PRICE, SistemaAmortizacao.de(" price "));
+        assertEquals(SistemaAmortizacao.SAC, SistemaAmortizacao.de("SAC"));
+        assertThrows(AppException.class, () -> SistemaAmortizacao.de("alemao"));
+    }
+
+    private static long centavos(double reais) {
+        return Dinheiro.centavos(reais);
+    }
+}
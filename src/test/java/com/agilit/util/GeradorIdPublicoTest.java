@@ -0,0 +1,66 @@
+package com.agilit.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Testes do GeradorIdPublico: formato, unicidade e inversão da permutação.
+ */
+class GeradorIdPublicoTest {
+
+    @Test
+    @DisplayName("Números diferentes devem gerar IDs válidos e diferentes")
+    void idsUnicos() {
+        Set<String> ids = new HashSet<>();
+        for (long s = 0; s < 200_000; s++) {
+            String id = GeradorIdPublico.de(s);
+            assertTrue(GeradorIdPublico.validar(id), id);
+            assertTrue(ids.add(id), "repetido: " + id);
+        }
+    }
+
+    @Test
+    @DisplayName("O ID deve voltar ao número da sequence, inclusive nos extremos")
+    void inverso() {
+        long ultimo = GeradorIdPublico.TOTAL_IDS - 1;
+        long[] numeros = {0, 1, 2, 99, 100, 123_456_789L, ultimo - 1, ultimo};
+        for (long s : numeros) {
+            assertEquals(s, GeradorIdPublico.sequencia(GeradorIdPublico.de(s)));
+        }
+        for (long s = 1; s < ultimo; s += 7_919_993L) {
+            assertEquals(s, GeradorIdPublico.sequencia(GeradorIdPublico.de(s)));
+        }
+        assertThrows(IllegalArgumentException.class, () -> GeradorIdPublico.de(GeradorIdPublico.TOTAL_IDS));
+    }
+
+    @Test
+    @DisplayName("Números seguidos não devem gerar IDs seguidos")
+    void ordemEscondida() {
+        int prefixosIguais = 0;
+        for (long s = 0; s < 1_000; s++) {
+            String atual = GeradorIdPublico.de(s);
+            String proximo = GeradorIdPublico.de(s + 1);
+            if (atual.regionMatches(0, proximo, 0, 4)) {
+                prefixosIguais++;
+            }
+        }
+        // Ao acaso, 3 caracteres iguais acontecem ~1 vez em 36^3
+        assertTrue(prefixosIguais < 5, "prefixos iguais: " + prefixosIguais);
+    }
+
+    @Test
+    @DisplayName("Validação deve aceitar só # + 6 caracteres A-Z ou 0-9")
+    void validar() {
+        assertTrue(GeradorIdPublico.validar("#A1B2C3"));
+        assertFalse(GeradorIdPublico.validar(null));
+        assertFalse(GeradorIdPublico.validar("#a1b2c3"));
+        assertFalse(GeradorIdPublico.validar("A1B2C3D"));
+        assertFalse(GeradorIdPublico.validar("#A1B2C"));
+        assertFalse(GeradorIdPublico.validar("#A1B2Ç3"));
+        assertEquals(-1, GeradorIdPublico.sequencia("PROP-1"));
+    }
+}